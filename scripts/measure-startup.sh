@@ -0,0 +1,79 @@
+#!/usr/bin/env bash
+# Pomiar czasu startu i RSS aplikacji w czterech wariantach:
+#   jar      - java -jar z "grubego" JAR-a (jak obecny Dockerfile)
+#   cds      - rozpakowane warstwy + archiwum AppCDS
+#   aot      - rozpakowane warstwy + Spring AOT
+#   aot-cds  - rozpakowane warstwy + Spring AOT + AppCDS (jak Dockerfile.fast-start)
+#
+# Wymaga JAR-a zbudowanego z profilem fast-start (mvn -Pfast-start package) i bazy PostgreSQL
+# ze zmiennych SPRING_DATASOURCE_URL / _USERNAME / _PASSWORD. Archiwum CDS powstaje tak samo jak w obrazie
+# (przebieg treningowy bez bazy, argumenty w scripts/cds-training.args).
+#
+# Użycie: scripts/measure-startup.sh [liczba-powtórzeń]      (domyślnie 5)
+set -euo pipefail
+
+RUNS=${1:-5}
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+JAR=$(ls "$ROOT"/target/*.jar | grep -v original | head -1)
+WORK="$ROOT/target/fast-start"
+JAVA=${JAVA_HOME:+$JAVA_HOME/bin/}java
+
+: "${SPRING_DATASOURCE_URL:?SPRING_DATASOURCE_URL is not set}"
+
+echo "Extracting $JAR to $WORK"
+rm -rf "$WORK"
+"$JAVA" -Djarmode=tools -jar "$JAR" extract --layers --destination "$WORK/layers" --application-filename app.jar >/dev/null
+mkdir -p "$WORK/app"
+for layer in dependencies spring-boot-loader snapshot-dependencies application; do
+    cp -r "$WORK/layers/$layer/." "$WORK/app/"
+done
+
+echo "Training run for the CDS archive"
+(cd "$WORK/app" && "$JAVA" -XX:ArchiveClassesAtExit=app.jsa @"$ROOT/scripts/cds-training.args" -jar app.jar >/dev/null)
+
+# Uruchamia aplikację, czeka na "Started ..." i wypisuje: czas startu JVM (s) oraz RSS (MB)
+measure() {
+    local dir=$1; shift
+    local log="$WORK/run.log"
+    (cd "$dir" && exec "$JAVA" "$@" --server.port=0 --logging.level.root=WARN \
+        --logging.level.com.example.librarysystem.LibrarySystemApplication=INFO >"$log" 2>&1) &
+    local pid=$!
+    for _ in $(seq 1 600); do
+        grep -q "Started LibrarySystemApplication" "$log" && break
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "Application exited, see $log" >&2
+            exit 1
+        fi
+        sleep 0.1
+    done
+    local java_pid
+    java_pid=$(pgrep -P "$pid" java || echo "$pid")
+    local rss_kb
+    rss_kb=$(awk '/VmRSS/ {print $2}' "/proc/$java_pid/status")
+    local seconds
+    seconds=$(sed -n 's/.*process running for \([0-9.]*\)).*/\1/p' "$log")
+    kill "$pid" 2>/dev/null || true
+    wait "$pid" 2>/dev/null || true
+    echo "$seconds $((rss_kb / 1024))"
+}
+
+median() {
+    sort -n | awk '{a[NR]=$1} END {print (NR % 2 ? a[(NR+1)/2] : (a[NR/2] + a[NR/2+1]) / 2)}'
+}
+
+printf "\n| %-8s | %-17s | %-14s |\n" "variant" "startup [s] (p50)" "RSS [MB] (p50)"
+printf "|----------|-------------------|----------------|\n"
+for variant in jar cds aot aot-cds; do
+    results=()
+    for _ in $(seq 1 "$RUNS"); do
+        case $variant in
+            jar)     results+=("$(measure "$ROOT" -jar "$JAR")") ;;
+            cds)     results+=("$(measure "$WORK/app" -XX:SharedArchiveFile=app.jsa -jar app.jar)") ;;
+            aot)     results+=("$(measure "$WORK/app" -Dspring.aot.enabled=true -jar app.jar)") ;;
+            aot-cds) results+=("$(measure "$WORK/app" -XX:SharedArchiveFile=app.jsa -Dspring.aot.enabled=true -jar app.jar)") ;;
+        esac
+    done
+    startup=$(printf "%s\n" "${results[@]}" | awk '{print $1}' | median)
+    rss=$(printf "%s\n" "${results[@]}" | awk '{print $2}' | median)
+    printf "| %-8s | %-17s | %-14s |\n" "$variant" "$startup" "$rss"
+done
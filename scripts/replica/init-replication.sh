@@ -0,0 +1,5 @@
+#!/bin/sh
+# Pozwala replice (docker-compose.replica.yml) pobrać kopię bazową i strumień WAL z bazy głównej.
+# Skrypty z /docker-entrypoint-initdb.d działają tylko przy pierwszej inicjalizacji wolumenu.
+set -e
+echo "host replication all all scram-sha-256" >> "$PGDATA/pg_hba.conf"
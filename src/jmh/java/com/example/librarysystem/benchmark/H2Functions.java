@@ -0,0 +1,22 @@
+package com.example.librarysystem.benchmark;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Zamienniki funkcji PostgreSQL dla bazy H2 profilu {@code jmh} (rejestrowane w {@code jmh-h2-schema.sql}).
+ */
+public final class H2Functions {
+
+    private static final AtomicLong TRANSACTION_IDS = new AtomicLong();
+
+    private H2Functions() {
+    }
+
+    /**
+     * {@code pg_current_xact_id()} - H2 nie udostępnia identyfikatora transakcji, więc każdy wiersz outboxa dostaje
+     * kolejną liczbę. Kolejność wpisów się zgadza, a kanał zmian nie jest mierzony przez benchmarki.
+     */
+    public static long currentTransactionId() {
+        return TRANSACTION_IDS.incrementAndGet();
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.librarysystem.benchmark;
+
+import com.example.librarysystem.entity.Book;
+import com.example.librarysystem.entity.Borrowing;
+import com.example.librarysystem.entity.Genre;
+import com.example.librarysystem.entity.Role;
+import com.example.librarysystem.entity.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializacja encji zwracanych przez API. ObjectMapper jest skonfigurowany jak w Spring Boot
+ * (moduły z classpath, daty jako tekst ISO).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private Book book;
+    private User user;
+    private Borrowing borrowing;
+    private List<Book> books;
+    private String bookJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        book = book(1);
+        user = new User();
+        user.setId(1L);
+        user.setUsername("reader");
+        user.setPassword("$2a$10$abcdefghijklmnopqrstuuJ0n9w7i6z5tG4bK8lYc3uJ1b1xQe2");
+        user.setRole(Role.USER);
+        user.setVersion(0L);
+        borrowing = new Borrowing(user, book, LocalDate.of(2024, 3, 15), LocalDate.of(2024, 3, 29));
+        borrowing.setId(1L);
+
+        // Typowa odpowiedź GET /api/books
+        books = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            books.add(book(i));
+        }
+        bookJson = objectMapper.writeValueAsString(book);
+    }
+
+    private static Book book(long id) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle("Title " + id);
+        book.setAuthor("Author " + id);
+        book.setIsbn("978-83-" + id);
+        book.setPublisher("Publisher");
+        book.setPublicationYear(2001);
+        book.setGenre(Genre.of("Fantasy"));
+        book.setVersion(0L);
+        return book;
+    }
+
+    @Benchmark
+    public String serializeBook() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(book);
+    }
+
+    @Benchmark
+    public String serializeUser() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(user);
+    }
+
+    @Benchmark
+    public String serializeBorrowing() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(borrowing);
+    }
+
+    @Benchmark
+    public byte[] serializeBookList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public Book deserializeBook() throws JsonProcessingException {
+        return objectMapper.readValue(bookJson, Book.class);
+    }
+}
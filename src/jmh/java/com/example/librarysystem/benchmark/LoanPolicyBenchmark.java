@@ -0,0 +1,57 @@
+package com.example.librarysystem.benchmark;
+
+import com.example.librarysystem.entity.Book;
+import com.example.librarysystem.entity.Genre;
+import com.example.librarysystem.entity.Role;
+import com.example.librarysystem.entity.User;
+import com.example.librarysystem.service.policy.AcademicLoanPolicy;
+import com.example.librarysystem.service.policy.LoanPolicy;
+import com.example.librarysystem.service.policy.StandardLoanPolicy;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Koszt wyliczenia terminu zwrotu przez obie polityki wypożyczeń.
+ * Parametr {@code genre} przełącza polityce akademickiej gałąź bestsellera.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoanPolicyBenchmark {
+
+    @Param({"FANTASY", "BESTSELLER"})
+    private String genre;
+
+    private final LoanPolicy standardPolicy = new StandardLoanPolicy();
+    private final LoanPolicy academicPolicy = new AcademicLoanPolicy();
+
+    private Book book;
+    private User user;
+    private LocalDate borrowDate;
+
+    @Setup
+    public void setUp() {
+        book = new Book();
+        book.setTitle("Benchmark");
+        book.setGenre(Genre.of(genre));
+        user = new User();
+        user.setUsername("reader");
+        user.setRole(Role.USER);
+        borrowDate = LocalDate.of(2024, 3, 15);
+    }
+
+    @Benchmark
+    public LocalDate standardPolicy() {
+        return standardPolicy.calculateDueDate(borrowDate, book, user);
+    }
+
+    @Benchmark
+    public LocalDate academicPolicy() {
+        return academicPolicy.calculateDueDate(borrowDate, book, user);
+    }
+}
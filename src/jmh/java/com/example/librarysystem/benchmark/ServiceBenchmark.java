@@ -0,0 +1,127 @@
+package com.example.librarysystem.benchmark;
+
+import com.example.librarysystem.LibrarySystemApplication;
+import com.example.librarysystem.entity.Book;
+import com.example.librarysystem.entity.Borrowing;
+import com.example.librarysystem.entity.Genre;
+import com.example.librarysystem.entity.Role;
+import com.example.librarysystem.entity.User;
+import com.example.librarysystem.service.BookService;
+import com.example.librarysystem.service.BorrowingService;
+import com.example.librarysystem.service.GenreService;
+import com.example.librarysystem.service.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ścieżki serwisów przez pełny stos Spring/Hibernate na wbudowanej bazie H2 (profil {@code jmh}).
+ * Mierzy narzut warstwy serwisowej i ORM, a nie PostgreSQL - do tego służy test obciążeniowy.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServiceBenchmark {
+
+    private static final String[] GENRES = {"FANTASY", "CRIME", "POETRY", "HISTORY", "SCIENCE"};
+
+    @Param({"1000"})
+    private int books;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private BorrowingService borrowingService;
+    private long[] bookIds;
+    private long readerId;
+    private long borrowerId;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = new SpringApplicationBuilder(LibrarySystemApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("jmh")
+                .run();
+        bookService = context.getBean(BookService.class);
+        borrowingService = context.getBean(BorrowingService.class);
+        UserService userService = context.getBean(UserService.class);
+
+        // H2 nie zna INSERT ... ON CONFLICT, więc słownik gatunków wypełniamy sami i ładujemy do pamięci
+        // GenreService - dalej resolve() obsłuży gatunki z pamięci, bez wstawiania
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        GenreService genreService = context.getBean(GenreService.class);
+        for (String genre : GENRES) {
+            jdbcTemplate.update("INSERT INTO genre (name) VALUES (?)", genre);
+            genreService.findByName(genre);
+        }
+
+        bookIds = new long[books];
+        for (int i = 0; i < books; i++) {
+            Book book = new Book();
+            book.setTitle("Title " + i);
+            book.setAuthor("Author " + (i % 100));
+            book.setIsbn("JMH-" + i);
+            book.setPublicationYear(1950 + i % 70);
+            book.setGenre(Genre.of(GENRES[i % GENRES.length]));
+            bookIds[i] = bookService.addBook(book).getId();
+        }
+        readerId = userService.createUser(user("reader")).getId();
+        borrowerId = userService.createUser(user("borrower")).getId();
+        // Czytelnik z historią - lista jego wypożyczeń ma stały rozmiar przez cały pomiar
+        for (int i = 0; i < 20; i++) {
+            borrowingService.borrowBook(readerId, bookIds[i]);
+        }
+    }
+
+    private static User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("password");
+        user.setRole(Role.USER);
+        return user;
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        context.close();
+    }
+
+    private long randomBookId() {
+        return bookIds[ThreadLocalRandom.current().nextInt(bookIds.length)];
+    }
+
+    @Benchmark
+    public Optional<Book> getBookById() {
+        return bookService.getBookById(randomBookId());
+    }
+
+    @Benchmark
+    public List<Book> getAllBooks() {
+        return bookService.getAllBooks();
+    }
+
+    @Benchmark
+    public List<Book> getBooksByGenre() {
+        return bookService.getBooksByGenre("poetry");
+    }
+
+    @Benchmark
+    public List<Borrowing> getBorrowingsForUser() {
+        return borrowingService.getBorrowingsForUser(readerId);
+    }
+
+    @Benchmark
+    public Borrowing borrowAndReturn() {
+        Borrowing borrowing = borrowingService.borrowBook(borrowerId, randomBookId());
+        return borrowingService.returnBook(borrowing.getId());
+    }
+}
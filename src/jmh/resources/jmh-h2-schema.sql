@@ -0,0 +1,3 @@
+-- Typ i funkcja PostgreSQL z definicji kolumny change_outbox.tx_id - tworzone przed schematem Hibernate
+CREATE DOMAIN IF NOT EXISTS xid8 AS BIGINT;
+CREATE ALIAS IF NOT EXISTS pg_current_xact_id FOR 'com.example.librarysystem.benchmark.H2Functions.currentTransactionId';
@@ -0,0 +1,26 @@
+package com.example.librarysystem.archive;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Ustawienia przenoszenia zwróconych wypożyczeń do historii ({@code borrowing_history}).
+ *
+ * @param enabled          Czy ta instancja przenosi wypożyczenia (kilka instancji dzieli pracę, pomijając
+ *                         zablokowane wiersze).
+ * @param olderThan        Wiek zwrotu, po którym wypożyczenie trafia do historii. Nie krótszy niż retencja outboxa
+ *                         i horyzont rankingu popularności - one czytają świeże wypożyczenia tylko z tabeli borrowings.
+ * @param batchSize        Liczba wypożyczeń przenoszonych w jednej transakcji.
+ * @param maxBatchesPerRun Najwięcej transakcji w jednym cyklu - duża zaległość rozkłada się na kolejne cykle.
+ * @param interval         Jak często uruchamiać przenoszenie.
+ */
+@ConfigurationProperties(prefix = "library.archive")
+public record ArchiveProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("365d") Duration olderThan,
+        @DefaultValue("1000") int batchSize,
+        @DefaultValue("50") int maxBatchesPerRun,
+        @DefaultValue("1m") Duration interval) {
+}
@@ -0,0 +1,62 @@
+package com.example.librarysystem.archive;
+
+import com.example.librarysystem.repository.BorrowingHistoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+
+/**
+ * Przenosi zwrócone wypożyczenia starsze niż {@code olderThan} z tabeli {@code borrowings} do tabeli
+ * {@code borrowing_history}. Dzięki temu indeksy i partycje wypożyczeń obejmują głównie aktywne i świeże wypożyczenia.
+ * Pracuje w krótkich transakcjach po {@code batchSize} wierszy. Pomija wiersze zablokowane przez ruch aplikacji i
+ * w jednym cyklu wykonuje najwyżej {@code maxBatchesPerRun} transakcji. Odczyty całej historii (historia czytelnika,
+ * odbudowy sum i rekomendacji, raporty w tle) łączą obie tabele.
+ */
+public class BorrowingArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(BorrowingArchiver.class);
+
+    private final BorrowingHistoryRepository borrowingHistoryRepository;
+    private final TransactionTemplate batchTransaction;
+    private final Clock clock;
+    private final Duration olderThan;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+
+    public BorrowingArchiver(BorrowingHistoryRepository borrowingHistoryRepository, TransactionTemplate batchTransaction,
+                             Clock clock, Duration olderThan, int batchSize, int maxBatchesPerRun) {
+        if (batchSize < 1 || maxBatchesPerRun < 1) {
+            throw new IllegalArgumentException("batchSize and maxBatchesPerRun must be positive");
+        }
+        this.borrowingHistoryRepository = borrowingHistoryRepository;
+        this.batchTransaction = batchTransaction;
+        this.clock = clock;
+        this.olderThan = olderThan;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+
+    /** Jeden cykl przenoszenia; zwraca liczbę przeniesionych wypożyczeń. */
+    public int archive() {
+        LocalDate returnedBefore = LocalDate.now(clock).minusDays(olderThan.toDays());
+        long started = System.nanoTime();
+        int archived = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            Integer moved = batchTransaction.execute(status ->
+                    borrowingHistoryRepository.archiveReturnedBefore(returnedBefore, batchSize));
+            archived += moved != null ? moved : 0;
+            if (moved == null || moved < batchSize) {
+                break;
+            }
+        }
+        if (archived > 0) {
+            log.info("Moved {} borrowings returned before {} to history in {} ms", archived, returnedBefore,
+                    (System.nanoTime() - started) / 1_000_000);
+        }
+        return archived;
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.librarysystem.audit;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.function.Consumer;
+
+/**
+ * Binarny format segmentów dziennika audytu, wspólny dla zapisu ({@link AuditJournal}) i odczytu
+ * ({@link AuditJournalReader}).
+ * <pre>
+ * segment: nagłówek | wpis | wpis | ... | zera do końca pliku
+ * nagłówek: magic (int) | numer pierwszego wpisu (long) | skrót ostatniego wpisu poprzedniego segmentu (32 bajty)
+ * wpis: długość treści (int, &gt; 0) | treść | SHA-256(skrót poprzedniego wpisu || treść) (32 bajty)
+ * treść: numer (long) | czas w ms (long) | rodzaj encji | rodzaj zmiany | ID (long) | wersja (long, -1 - brak)
+ *        | użytkownik | szczegóły - teksty jako długość (unsigned short) i bajty UTF-8
+ * </pre>
+ * Każdy skrót obejmuje poprzedni, więc zmiana, usunięcie lub przestawienie dowolnego wpisu psuje łańcuch
+ * od tego miejsca do końca dziennika.
+ */
+final class AuditFormat {
+
+    static final int MAGIC = 0x4C415544; // "LAUD"
+    static final int HASH_SIZE = 32;
+    static final int HEADER_SIZE = Integer.BYTES + Long.BYTES + HASH_SIZE;
+    static final byte[] GENESIS_HASH = new byte[HASH_SIZE];
+    static final String SEGMENT_SUFFIX = ".audit";
+
+    private static final int MAX_TEXT = 0xFFFF;
+
+    private AuditFormat() {
+    }
+
+    /**
+     * Nazwa segmentu z jego kolejnym numerem - kolejność alfabetyczna to kolejność segmentów. Numer pierwszego
+     * wpisu jest w nagłówku: segment uszkodzony już na pierwszym wpisie i następny zaczynają się od tego samego.
+     */
+    static String segmentName(long index) {
+        return String.format("%010d%s", index, SEGMENT_SUFFIX);
+    }
+
+    static long segmentIndex(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    static void writeHeader(ByteBuffer buffer, long firstSequence, byte[] previousHash) {
+        buffer.putInt(0, MAGIC);
+        buffer.putLong(Integer.BYTES, firstSequence);
+        buffer.put(Integer.BYTES + Long.BYTES, previousHash);
+    }
+
+    static byte[] encode(AuditRecord record) {
+        byte[] type = text(record.type());
+        byte[] operation = text(record.operation());
+        byte[] actor = text(record.actor());
+        byte[] details = text(record.details());
+        ByteBuffer payload = ByteBuffer.allocate(4 * Long.BYTES + 4 * Short.BYTES
+                + type.length + operation.length + actor.length + details.length);
+        payload.putLong(record.sequence());
+        payload.putLong(record.timestamp().toEpochMilli());
+        putText(payload, type);
+        putText(payload, operation);
+        payload.putLong(record.entityId());
+        payload.putLong(record.version() != null ? record.version() : -1);
+        putText(payload, actor);
+        putText(payload, details);
+        return payload.array();
+    }
+
+    static int recordSize(byte[] payload) {
+        return Integer.BYTES + payload.length + HASH_SIZE;
+    }
+
+    /** Skrót wpisu - łączy go z poprzednim. */
+    static byte[] chain(MessageDigest digest, byte[] previousHash, byte[] payload) {
+        digest.reset();
+        digest.update(previousHash);
+        return digest.digest(payload);
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Sprawdza segment od nagłówka do pierwszego wpisu o zerowej długości (koniec danych) albo pierwszego
+     * uszkodzonego wpisu.
+     *
+     * @param onRecord Odbiorca poprawnych wpisów; może być null.
+     */
+    static Scan scan(Path file, ByteBuffer buffer, Consumer<AuditRecord> onRecord) {
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            return Scan.damaged(file, 0, 0, GENESIS_HASH, GENESIS_HASH, 0, "not an audit journal segment");
+        }
+        long firstSequence = buffer.getLong(Integer.BYTES);
+        byte[] previousHash = new byte[HASH_SIZE];
+        buffer.get(Integer.BYTES + Long.BYTES, previousHash);
+        MessageDigest digest = sha256();
+        byte[] hash = previousHash;
+        long sequence = firstSequence;
+        int position = HEADER_SIZE;
+        while (position + Integer.BYTES <= buffer.limit()) {
+            int length = buffer.getInt(position);
+            if (length == 0) {
+                return new Scan(file, firstSequence, previousHash, sequence, hash, position, -1, null);
+            }
+            if (length < 0 || (long) position + Integer.BYTES + length + HASH_SIZE > buffer.limit()) {
+                return Scan.damaged(file, firstSequence, sequence, previousHash, hash, position, "invalid record length " + length);
+            }
+            byte[] payload = new byte[length];
+            buffer.get(position + Integer.BYTES, payload);
+            byte[] stored = new byte[HASH_SIZE];
+            buffer.get(position + Integer.BYTES + length, stored);
+            byte[] expected = chain(digest, hash, payload);
+            if (!MessageDigest.isEqual(expected, stored)) {
+                return Scan.damaged(file, firstSequence, sequence, previousHash, hash, position, "hash mismatch");
+            }
+            AuditRecord record;
+            try {
+                record = decode(payload);
+            } catch (RuntimeException e) {
+                return Scan.damaged(file, firstSequence, sequence, previousHash, hash, position, "malformed record");
+            }
+            if (record.sequence() != sequence) {
+                return Scan.damaged(file, firstSequence, sequence, previousHash, hash, position,
+                        "expected record " + sequence + " but found " + record.sequence());
+            }
+            if (onRecord != null) {
+                onRecord.accept(record);
+            }
+            hash = expected;
+            sequence++;
+            position += Integer.BYTES + length + HASH_SIZE;
+        }
+        return new Scan(file, firstSequence, previousHash, sequence, hash, position, -1, null);
+    }
+
+    static AuditRecord decode(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        long sequence = buffer.getLong();
+        Instant timestamp = Instant.ofEpochMilli(buffer.getLong());
+        String type = getText(buffer);
+        String operation = getText(buffer);
+        long entityId = buffer.getLong();
+        long version = buffer.getLong();
+        String actor = getText(buffer);
+        String details = getText(buffer);
+        if (buffer.hasRemaining()) {
+            throw new IllegalArgumentException("Trailing bytes in audit record");
+        }
+        return new AuditRecord(sequence, timestamp, type, operation, entityId, version >= 0 ? version : null, actor, details);
+    }
+
+    private static byte[] text(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_TEXT) {
+            throw new IllegalArgumentException("Audit record field is longer than " + MAX_TEXT + " bytes");
+        }
+        return bytes;
+    }
+
+    private static void putText(ByteBuffer buffer, byte[] text) {
+        buffer.putShort((short) text.length);
+        buffer.put(text);
+    }
+
+    private static String getText(ByteBuffer buffer) {
+        byte[] text = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(text);
+        return new String(text, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Wynik sprawdzenia segmentu.
+     *
+     * @param nextSequence Numer następnego wpisu - po ostatnim poprawnym.
+     * @param lastHash     Skrót ostatniego poprawnego wpisu (albo z nagłówka, gdy segment jest pusty).
+     * @param end          Pozycja za ostatnim poprawnym wpisem.
+     * @param damagedAt    Pozycja pierwszego uszkodzonego wpisu; -1, gdy segment jest poprawny.
+     */
+    record Scan(Path file, long firstSequence, byte[] previousHash, long nextSequence, byte[] lastHash, int end,
+                int damagedAt, String problem) {
+
+        static Scan damaged(Path file, long firstSequence, long nextSequence, byte[] previousHash, byte[] lastHash,
+                            int position, String problem) {
+            return new Scan(file, firstSequence, previousHash, nextSequence, lastHash, position, position, problem);
+        }
+
+        boolean isDamaged() {
+            return damagedAt >= 0;
+        }
+    }
+}
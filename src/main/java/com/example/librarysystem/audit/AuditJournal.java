@@ -0,0 +1,333 @@
+package com.example.librarysystem.audit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Dziennik audytu: wpisy dopisywane na końcu segmentów mapowanych w pamięć, łączone skrótami SHA-256
+ * (format: {@link AuditFormat}). Segment ma stały rozmiar {@code segmentSize}; wpis, który się nie mieści,
+ * zaczyna nowy segment.
+ * <p>
+ * Dopisanie ({@link #append}) to tylko kopia do zmapowanej pamięci. Trwałość zapewnia {@link #awaitDurable}
+ * ze wspólnym zatwierdzaniem (group commit): pierwszy czekający wątek wywołuje {@code force} dla wszystkiego,
+ * co dopisano do tej chwili, a pozostałe czekają na jego wynik. Wpisy dopisane w trakcie synchronizacji
+ * trafiają do następnej. Przy wielu równoczesnych zapisach jedno {@code fsync} obejmuje więc wiele wpisów.
+ * <p>
+ * Katalog jest blokowany na wyłączność - dwa procesy (ani dwa dzienniki w jednej JVM) nie mogą pisać do tego samego
+ * dziennika.
+ */
+public class AuditJournal implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditJournal.class);
+
+    private static final String LOCK_FILE = ".lock";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final Clock clock;
+    private final FileChannel lockChannel;
+    private final MessageDigest digest = AuditFormat.sha256();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition synced = lock.newCondition();
+
+    private final AtomicLong records = new AtomicLong();
+    private final AtomicLong syncs = new AtomicLong();
+
+    // Stan poniżej - pod blokadą lock
+    private long segmentIndex;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int position;
+    private int syncedPosition;
+    private long nextSequence;
+    private byte[] lastHash;
+    private long syncedSequence;
+    private boolean syncing;
+    private IOException failure;
+
+    public AuditJournal(Path directory, int segmentSize, Clock clock) throws IOException {
+        if (segmentSize < AuditFormat.HEADER_SIZE + 4096) {
+            throw new IllegalArgumentException("Audit journal segment size must be at least 4 KB");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = segmentSize;
+        this.clock = clock;
+        this.lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock fileLock;
+        try {
+            fileLock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Blokadę trzyma już inny dziennik w tej samej JVM (np. drugi kontekst aplikacji)
+            fileLock = null;
+        }
+        if (fileLock == null) {
+            lockChannel.close();
+            throw new IllegalStateException("Audit journal " + directory + " is used by another process or application context");
+        }
+        lock.lock();
+        try {
+            recover();
+        } catch (IOException | RuntimeException e) {
+            lockChannel.close();
+            throw e;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Dopisuje wpis bez czekania na zapis na dysk.
+     *
+     * @return Numer wpisu - do przekazania {@link #awaitDurable}.
+     */
+    public long append(String type, String operation, long entityId, @Nullable Long version, String actor, String details)
+            throws IOException {
+        lock.lock();
+        try {
+            ensureAvailable();
+            long sequence = nextSequence;
+            byte[] payload = AuditFormat.encode(new AuditRecord(sequence, clock.instant(), type, operation, entityId,
+                    version, actor, details));
+            int size = AuditFormat.recordSize(payload);
+            if (AuditFormat.HEADER_SIZE + size + Integer.BYTES > segmentSize) {
+                throw new IllegalArgumentException("Audit record of " + size + " bytes does not fit in a segment");
+            }
+            // Za wpisem zostaje miejsce na zerową długość - znacznik końca danych
+            if (position + size + Integer.BYTES > buffer.capacity()) {
+                rotate();
+            }
+            byte[] hash = AuditFormat.chain(digest, lastHash, payload);
+            buffer.putInt(position, payload.length);
+            buffer.put(position + Integer.BYTES, payload);
+            buffer.put(position + Integer.BYTES + payload.length, hash);
+            position += size;
+            lastHash = hash;
+            nextSequence++;
+            records.incrementAndGet();
+            return sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Wraca, gdy wpis {@code sequence} i wszystkie wcześniejsze są zapisane na dysku. */
+    public void awaitDurable(long sequence) throws IOException {
+        lock.lock();
+        try {
+            while (syncedSequence < sequence) {
+                ensureAvailable();
+                if (syncing) {
+                    synced.awaitUninterruptibly();
+                    continue;
+                }
+                syncing = true;
+                MappedByteBuffer target = buffer;
+                int from = syncedPosition;
+                int to = position;
+                long last = nextSequence - 1;
+                lock.unlock();
+                IOException error = null;
+                try {
+                    target.force(from, to - from);
+                } catch (RuntimeException e) {
+                    // MappedByteBuffer.force zgłasza błędy zapisu jako UncheckedIOException
+                    error = new IOException("Cannot sync audit journal", e);
+                } finally {
+                    lock.lock();
+                }
+                syncing = false;
+                if (error != null) {
+                    failure = error;
+                    log.error("Audit journal {} is unavailable", directory, error);
+                } else {
+                    syncs.incrementAndGet();
+                    syncedSequence = Math.max(syncedSequence, last);
+                    if (target == buffer) {
+                        syncedPosition = Math.max(syncedPosition, to);
+                    }
+                }
+                synced.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Dopisuje wpis i czeka na jego zapis na dysku. */
+    public long write(String type, String operation, long entityId, @Nullable Long version, String actor, String details)
+            throws IOException {
+        long sequence = append(type, operation, entityId, version, actor, details);
+        awaitDurable(sequence);
+        return sequence;
+    }
+
+    /** Liczba wpisów dopisanych od startu - do metryk. */
+    public long records() {
+        return records.get();
+    }
+
+    /** Liczba synchronizacji z dyskiem od startu; stosunek wpisów do synchronizacji mierzy grupowanie. */
+    public long syncs() {
+        return syncs.get();
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (failure == null && buffer != null) {
+                buffer.force();
+                syncedSequence = nextSequence - 1;
+            }
+            failure = new IOException("Audit journal is closed");
+            synced.signalAll();
+            if (channel != null) {
+                channel.close();
+            }
+        } finally {
+            lock.unlock();
+            lockChannel.close();
+        }
+    }
+
+    private void ensureAvailable() throws IOException {
+        if (failure != null) {
+            throw new IOException("Audit journal " + directory + " is unavailable", failure);
+        }
+    }
+
+    /**
+     * Dopisywanie do ostatniego segmentu. Gdy ten jest uszkodzony, dziennik przechodzi do nowego segmentu, od
+     * ostatniego poprawnego wpisu. Uszkodzenia nie nadpisujemy - zostaje do sprawdzenia {@link AuditJournalReader}.
+     */
+    private void recover() throws IOException {
+        List<Path> segments = AuditJournalReader.segments(directory);
+        nextSequence = 1;
+        lastHash = AuditFormat.GENESIS_HASH;
+        if (!segments.isEmpty()) {
+            segmentIndex = AuditFormat.segmentIndex(segments.get(segments.size() - 1));
+        }
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            Path segment = segments.get(i);
+            FileChannel opened = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            AuditFormat.Scan scan;
+            MappedByteBuffer mapped;
+            try {
+                mapped = opened.map(FileChannel.MapMode.READ_WRITE, 0, opened.size());
+                scan = AuditFormat.scan(segment, mapped, null);
+            } catch (IOException | RuntimeException e) {
+                opened.close();
+                throw e;
+            }
+            if (scan.damagedAt() == 0) {
+                // Np. awaria przy zakładaniu segmentu, przed zapisaniem nagłówka
+                opened.close();
+                log.warn("Audit journal segment {} has no valid header, skipping it", segment);
+                continue;
+            }
+            nextSequence = scan.nextSequence();
+            lastHash = scan.lastHash();
+            syncedSequence = nextSequence - 1;
+            if (i == segments.size() - 1 && !scan.isDamaged()) {
+                channel = opened;
+                buffer = mapped;
+                position = scan.end();
+                syncedPosition = position;
+                log.info("Audit journal {} opened at record {} in segment {}", directory, nextSequence, segment.getFileName());
+                return;
+            }
+            opened.close();
+            if (scan.isDamaged()) {
+                log.warn("Audit journal segment {} is damaged at offset {} ({}); continuing from record {} in a new segment",
+                        segment, scan.damagedAt(), scan.problem(), nextSequence);
+            }
+            break;
+        }
+        rotate();
+    }
+
+    /*
+     * Pod blokadą: domyka bieżący segment i zakłada następny, zaczynający się od nextSequence. Stan dziennika
+     * zmienia się dopiero po założeniu nowego segmentu - po błędzie bieżący segment zostaje otwarty, a kolejne
+     * dopisanie próbuje od nowa pod tym samym numerem.
+     */
+    private void rotate() throws IOException {
+        if (buffer != null) {
+            try {
+                buffer.force();
+            } catch (RuntimeException e) {
+                throw new IOException("Cannot sync audit journal", e);
+            }
+        }
+        long nextIndex = segmentIndex + 1;
+        Path file = directory.resolve(AuditFormat.segmentName(nextIndex));
+        FileChannel created = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        MappedByteBuffer mapped;
+        try {
+            mapped = created.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            AuditFormat.writeHeader(mapped, nextSequence, lastHash);
+            mapped.force(0, AuditFormat.HEADER_SIZE);
+            syncDirectory();
+        } catch (IOException | RuntimeException e) {
+            created.close();
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException deleteError) {
+                // Plik bez nagłówka blokowałby kolejne próby (CREATE_NEW) - dziennik przestaje przyjmować wpisy
+                e.addSuppressed(deleteError);
+                failure = new IOException("Cannot create audit journal segment " + file, e);
+                log.error("Audit journal {} is unavailable", directory, e);
+            }
+            throw e;
+        }
+        FileChannel previous = channel;
+        if (buffer != null) {
+            syncs.incrementAndGet();
+            syncedSequence = nextSequence - 1;
+        }
+        segmentIndex = nextIndex;
+        channel = created;
+        buffer = mapped;
+        position = AuditFormat.HEADER_SIZE;
+        syncedPosition = position;
+        if (previous != null) {
+            try {
+                previous.close();
+            } catch (IOException e) {
+                log.debug("Cannot close audit journal segment: {}", e.toString());
+            }
+        }
+        synced.signalAll();
+    }
+
+    // Nowy plik segmentu przetrwa awarię dopiero po zapisaniu wpisu katalogu
+    private void syncDirectory() {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            log.debug("Cannot sync directory {}: {}", directory, e.toString());
+        }
+    }
+}
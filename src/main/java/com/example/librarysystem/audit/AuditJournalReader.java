@@ -0,0 +1,122 @@
+package com.example.librarysystem.audit;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Odczyt i weryfikacja dziennika audytu ({@link AuditJournal}) - także poza aplikacją, z wiersza poleceń:
+ * <pre>
+ * java -cp app.jar -Dloader.main=com.example.librarysystem.audit.AuditJournalReader \
+ *     org.springframework.boot.loader.launch.PropertiesLauncher verify /var/lib/library/audit
+ * </pre>
+ * {@code verify} sprawdza łańcuch skrótów we wszystkich segmentach i ciągłość numerów między nimi,
+ * {@code print} dodatkowo wypisuje wpisy (od podanego numeru) jako wiersze rozdzielone tabulatorami.
+ * Kod wyjścia 1 oznacza znalezione problemy.
+ */
+public final class AuditJournalReader {
+
+    private AuditJournalReader() {
+    }
+
+    /**
+     * Wynik weryfikacji.
+     *
+     * @param records  Liczba poprawnych wpisów.
+     * @param problems Opisy uszkodzeń i przerw w łańcuchu; pusta lista - dziennik jest nienaruszony.
+     */
+    public record Verification(int segments, long records, long lastSequence, List<String> problems) {
+
+        public boolean valid() {
+            return problems.isEmpty();
+        }
+    }
+
+    /** Sprawdza cały dziennik. */
+    public static Verification verify(Path directory) throws IOException {
+        return read(directory, null);
+    }
+
+    /**
+     * Czyta poprawne wpisy wszystkich segmentów po kolei, sprawdzając łańcuch skrótów.
+     *
+     * @param onRecord Odbiorca wpisów; może być null.
+     */
+    public static Verification read(Path directory, Consumer<AuditRecord> onRecord) throws IOException {
+        List<String> problems = new ArrayList<>();
+        List<Path> segments = segments(directory);
+        long expectedSequence = 1;
+        byte[] expectedHash = AuditFormat.GENESIS_HASH;
+        long records = 0;
+        for (Path segment : segments) {
+            AuditFormat.Scan scan;
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                scan = AuditFormat.scan(segment, buffer, onRecord);
+            }
+            if (scan.damagedAt() == 0) {
+                problems.add(segment.getFileName() + ": " + scan.problem());
+                continue;
+            }
+            if (scan.firstSequence() != expectedSequence || !Arrays.equals(scan.previousHash(), expectedHash)) {
+                problems.add(segment.getFileName() + ": does not continue the chain - starts at record "
+                        + scan.firstSequence() + ", expected " + expectedSequence);
+            }
+            if (scan.isDamaged()) {
+                problems.add(segment.getFileName() + ": damaged at offset " + scan.damagedAt() + " (" + scan.problem()
+                        + "), records from " + scan.nextSequence() + " on in this segment are unreadable");
+            }
+            records += scan.nextSequence() - scan.firstSequence();
+            expectedSequence = scan.nextSequence();
+            expectedHash = scan.lastHash();
+        }
+        return new Verification(segments.size(), records, expectedSequence - 1, List.copyOf(problems));
+    }
+
+    /** Segmenty dziennika w kolejności zapisu. */
+    static List<Path> segments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "[0-9]*" + AuditFormat.SEGMENT_SUFFIX)) {
+            files.forEach(segments::add);
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || !(args[0].equals("verify") || args[0].equals("print"))) {
+            System.err.println("Usage: AuditJournalReader verify <directory>");
+            System.err.println("       AuditJournalReader print <directory> [from-sequence]");
+            System.exit(2);
+        }
+        Path directory = Path.of(args[1]);
+        Verification verification;
+        if (args[0].equals("print")) {
+            long from = args.length > 2 ? Long.parseLong(args[2]) : 1;
+            PrintStream out = System.out;
+            verification = read(directory, record -> {
+                if (record.sequence() >= from) {
+                    out.println(record.sequence() + "\t" + record.timestamp() + "\t" + record.actor() + "\t"
+                            + record.type() + "\t" + record.operation() + "\t" + record.entityId() + "\t"
+                            + (record.version() != null ? record.version() : "") + "\t" + record.details());
+                }
+            });
+            out.flush();
+        } else {
+            verification = verify(directory);
+        }
+        System.err.printf("%d segments, %d records, last record %d%n", verification.segments(), verification.records(),
+                verification.lastSequence());
+        verification.problems().forEach(problem -> System.err.println("PROBLEM: " + problem));
+        System.exit(verification.valid() ? 0 : 1);
+    }
+}
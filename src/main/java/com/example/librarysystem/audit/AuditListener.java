@@ -0,0 +1,53 @@
+package com.example.librarysystem.audit;
+
+import com.example.librarysystem.event.EntityChangedEvent;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Dopisuje do dziennika audytu każde {@link EntityChangedEvent} - wypożyczenia, zwroty i zmiany książek oraz
+ * użytkowników publikowane przez serwisy.
+ * <p>
+ * Wpis trafia na dysk przed zatwierdzeniem transakcji: zmiana, której nie dało się zapisać w dzienniku,
+ * jest wycofywana. Dziennik może więc zawierać zmianę, której zatwierdzenie w bazie potem się nie powiodło,
+ * ale nigdy nie pomija zatwierdzonej.
+ */
+public class AuditListener {
+
+    static final String ANONYMOUS = "-";
+
+    private final AuditJournal journal;
+
+    public AuditListener(AuditJournal journal) {
+        this.journal = journal;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onEntityChanged(EntityChangedEvent event) {
+        try {
+            journal.write(event.type().name(), event.operation().name(), event.id(), event.version(), actor(),
+                    details(event.details()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write audit record", e);
+        }
+    }
+
+    private static String actor() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : ANONYMOUS;
+    }
+
+    private static String details(Map<String, Object> details) {
+        return new TreeMap<>(details).entrySet().stream()
+                .map(entry -> entry.getKey() + "=" + entry.getValue())
+                .collect(Collectors.joining(","));
+    }
+}
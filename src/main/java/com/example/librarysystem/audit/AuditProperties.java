@@ -0,0 +1,19 @@
+package com.example.librarysystem.audit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Ustawienia dziennika audytu.
+ *
+ * @param enabled     Czy zapisywać zmiany do dziennika.
+ * @param directory   Katalog segmentów - trwały wolumen, osobny dla każdej instancji; wymagany, gdy dziennik jest włączony.
+ * @param segmentSize Rozmiar segmentu; po jego zapełnieniu dziennik przechodzi do następnego pliku.
+ */
+@ConfigurationProperties(prefix = "library.audit")
+public record AuditProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("") String directory,
+        @DefaultValue("64MB") DataSize segmentSize) {
+}
@@ -0,0 +1,21 @@
+package com.example.librarysystem.audit;
+
+import org.springframework.lang.Nullable;
+
+import java.time.Instant;
+
+/**
+ * Wpis dziennika audytu - jedna zmiana encji.
+ *
+ * @param sequence  Kolejny numer wpisu w całym dzienniku, od 1.
+ * @param timestamp Chwila dopisania.
+ * @param type      Rodzaj encji ({@code BOOK}, {@code USER}, {@code BORROWING}).
+ * @param operation Rodzaj zmiany ({@code CREATED}, {@code UPDATED}, {@code DELETED}, {@code BORROWED}, {@code RETURNED}).
+ * @param entityId  ID encji.
+ * @param version   Wersja encji po zmianie; null dla usunięć i encji bez wersji.
+ * @param actor     Zalogowany użytkownik, który wykonał zmianę; {@code -} dla żądań anonimowych.
+ * @param details   Dodatkowe dane zmiany w postaci {@code klucz=wartość}, rozdzielone przecinkami.
+ */
+public record AuditRecord(long sequence, Instant timestamp, String type, String operation, long entityId,
+                          @Nullable Long version, String actor, String details) {
+}
@@ -0,0 +1,20 @@
+package com.example.librarysystem.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Ustawienia unieważniania cache między instancjami przez PostgreSQL LISTEN/NOTIFY.
+ *
+ * @param enabled        Czy wysyłać i nasłuchiwać powiadomień (bez tego unieważniany jest tylko cache lokalny).
+ * @param channel        Kanał {@code NOTIFY}; wszystkie instancje jednej bazy muszą używać tego samego.
+ * @param reconnectDelay Odstęp między próbami ponownego połączenia nasłuchu.
+ */
+@ConfigurationProperties(prefix = "library.cache-invalidation")
+public record CacheInvalidationProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("library_changes") String channel,
+        @DefaultValue("5s") Duration reconnectDelay) {
+}
@@ -0,0 +1,16 @@
+package com.example.librarysystem.cache;
+
+/**
+ * Nazwy cache aplikacji (Caffeine, {@code spring.cache.*}).
+ */
+public final class CacheNames {
+
+    /** Książki według ID ({@code BookService#getBookById}). */
+    public static final String BOOKS = "books";
+
+    /** Użytkownicy według ID ({@code UserService#getUserById}). */
+    public static final String USERS = "users";
+
+    private CacheNames() {
+    }
+}
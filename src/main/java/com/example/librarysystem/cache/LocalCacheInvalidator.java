@@ -0,0 +1,46 @@
+package com.example.librarysystem.cache;
+
+import com.example.librarysystem.event.EntityChangedEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Usuwa zmienione encje z cache tej instancji - po zatwierdzeniu własnych zapisów
+ * i po powiadomieniach od innych instancji ({@link PostgresInvalidationBus}).
+ */
+public class LocalCacheInvalidator {
+
+    private final CacheManager cacheManager;
+
+    public LocalCacheInvalidator(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    // Dopiero po zatwierdzeniu - wcześniejsze usunięcie mogłoby zostać od razu nadpisane starym stanem z bazy
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onEntityChanged(EntityChangedEvent event) {
+        evict(event.type(), event.id());
+    }
+
+    public void evict(EntityChangedEvent.Type type, long id) {
+        if (type.cacheName() == null) {
+            return;
+        }
+        Cache cache = cacheManager.getCache(type.cacheName());
+        if (cache != null) {
+            cache.evict(id);
+        }
+    }
+
+    /** Czyści wszystkie cache - gdy nie wiadomo, które powiadomienia przepadły. */
+    public void clearAll() {
+        for (String name : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.librarysystem.cache;
+
+import com.example.librarysystem.event.EntityChangedEvent;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Szyna unieważniania cache między instancjami bez zewnętrznego brokera:
+ * <ul>
+ *     <li>każdy zapis encji wysyła {@code pg_notify} w tej samej transakcji - PostgreSQL dostarcza powiadomienie
+ *     dopiero po zatwierdzeniu, a po wycofaniu nie dostarcza go wcale;</li>
+ *     <li>każda instancja nasłuchuje ({@code LISTEN}) na osobnym połączeniu spoza puli i usuwa zmienione encje
+ *     z lokalnego cache. Własne powiadomienia pomija - te obsłużył już {@link LocalCacheInvalidator}.</li>
+ * </ul>
+ * Po zerwaniu połączenia powiadomienia z przerwy przepadają, dlatego po ponownym połączeniu czyścimy cały cache.
+ */
+public class PostgresInvalidationBus implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(PostgresInvalidationBus.class);
+
+    // Kanał trafia do LISTEN jako identyfikator (bez parametrów), więc dopuszczamy tylko bezpieczne nazwy
+    private static final Pattern CHANNEL = Pattern.compile("[a-z_][a-z0-9_]{0,62}");
+    private static final long POLL_MILLIS = 1000;
+    // Bez powiadomień przez tyle czasu sprawdzamy, czy połączenie wciąż żyje
+    private static final long KEEPALIVE_MILLIS = 30_000;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    /** Źródło połączenia do nasłuchu - poza pulą, bo trzymamy je przez cały czas działania aplikacji. */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection connect() throws SQLException;
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ConnectionFactory connectionFactory;
+    private final LocalCacheInvalidator invalidator;
+    private final String channel;
+    private final Duration reconnectDelay;
+    private final String origin = UUID.randomUUID().toString();
+
+    private volatile boolean running;
+    private Thread listener;
+
+    public PostgresInvalidationBus(JdbcTemplate jdbcTemplate, ConnectionFactory connectionFactory,
+                                   LocalCacheInvalidator invalidator, String channel, Duration reconnectDelay) {
+        if (!CHANNEL.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Invalid NOTIFY channel name: " + channel);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.connectionFactory = connectionFactory;
+        this.invalidator = invalidator;
+        this.channel = channel;
+        this.reconnectDelay = reconnectDelay;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onEntityChanged(EntityChangedEvent event) {
+        jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)::text", String.class, channel, encode(origin, event));
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        listener = Thread.ofPlatform().name("cache-invalidation-listener").daemon().start(this::listen);
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+            try {
+                listener.join(POLL_MILLIS * 2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            listener = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    void handle(String payload) {
+        String[] parts = payload.split(" ");
+        if (parts.length != 4) {
+            log.debug("Ignoring malformed invalidation payload: {}", payload);
+            return;
+        }
+        if (origin.equals(parts[0])) {
+            return;
+        }
+        try {
+            invalidator.evict(EntityChangedEvent.Type.valueOf(parts[1]), Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException e) {
+            // Np. nowszy rodzaj encji od instancji z nowszą wersją aplikacji
+            log.debug("Ignoring unknown invalidation payload: {}", payload);
+        }
+    }
+
+    /** Format: {@code <instancja> <rodzaj> <id> <wersja lub ->}. */
+    static String encode(String origin, EntityChangedEvent event) {
+        return origin + " " + event.type().name() + " " + event.id() + " " + (event.version() != null ? event.version() : "-");
+    }
+
+    private void listen() {
+        boolean connectedBefore = false;
+        while (running) {
+            try (Connection connection = connectionFactory.connect()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                if (connectedBefore) {
+                    invalidator.clearAll();
+                    log.info("Cache invalidation listener reconnected, local caches cleared");
+                }
+                connectedBefore = true;
+                receive(connection);
+            } catch (SQLException | RuntimeException e) {
+                if (running) {
+                    log.warn("Cache invalidation listener disconnected, retrying in {}: {}", reconnectDelay, e.getMessage());
+                    // Do ponownego połączenia nie wiemy, co się zmieniło - lepiej chybić w cache niż zwrócić stare dane
+                    invalidator.clearAll();
+                    sleep(reconnectDelay);
+                }
+            }
+        }
+    }
+
+    private void receive(Connection connection) throws SQLException {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        long lastActivity = System.currentTimeMillis();
+        while (running) {
+            PGNotification[] notifications = pgConnection.getNotifications((int) POLL_MILLIS);
+            long now = System.currentTimeMillis();
+            if (notifications != null && notifications.length > 0) {
+                for (PGNotification notification : notifications) {
+                    handle(notification.getParameter());
+                }
+                lastActivity = now;
+            } else if (now - lastActivity > KEEPALIVE_MILLIS) {
+                if (!connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                    throw new SQLException("Listener connection is no longer valid");
+                }
+                lastActivity = now;
+            }
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
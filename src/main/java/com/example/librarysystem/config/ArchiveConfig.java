@@ -0,0 +1,56 @@
+package com.example.librarysystem.config;
+
+import com.example.librarysystem.archive.ArchiveProperties;
+import com.example.librarysystem.archive.BorrowingArchiver;
+import com.example.librarysystem.event.OutboxProperties;
+import com.example.librarysystem.popularity.PopularityProperties;
+import com.example.librarysystem.repository.BorrowingHistoryRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+
+/**
+ * Przenoszenie starych, zwróconych wypożyczeń do historii ({@code library.archive.*}).
+ */
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(ArchiveProperties.class)
+public class ArchiveConfig implements SchedulingConfigurer {
+
+    private final ArchiveProperties properties;
+    private final ObjectProvider<BorrowingArchiver> borrowingArchiver;
+
+    public ArchiveConfig(ArchiveProperties properties, ObjectProvider<BorrowingArchiver> borrowingArchiver) {
+        this.properties = properties;
+        this.borrowingArchiver = borrowingArchiver;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "library.archive", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public BorrowingArchiver borrowingArchiver(BorrowingHistoryRepository borrowingHistoryRepository,
+                                               PlatformTransactionManager transactionManager,
+                                               OutboxProperties outboxProperties, PopularityProperties popularityProperties) {
+        // Doliczanie zmian z outboxa i odbudowa rankingu popularności szukają świeżych wypożyczeń tylko w borrowings
+        if (properties.olderThan().compareTo(outboxProperties.retention()) < 0
+                || properties.olderThan().compareTo(popularityProperties.horizon()) < 0) {
+            throw new IllegalArgumentException("library.archive.older-than must not be shorter than library.outbox.retention "
+                    + "and library.popularity.horizon");
+        }
+        return new BorrowingArchiver(borrowingHistoryRepository, new TransactionTemplate(transactionManager),
+                Clock.systemUTC(), properties.olderThan(), properties.batchSize(), properties.maxBatchesPerRun());
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        borrowingArchiver.ifAvailable(archiver -> registrar.addFixedDelayTask(archiver::archive, properties.interval()));
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.librarysystem.config;
+
+import com.example.librarysystem.audit.AuditJournal;
+import com.example.librarysystem.audit.AuditListener;
+import com.example.librarysystem.audit.AuditProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+
+/**
+ * Dziennik audytu zmian w plikach mapowanych w pamięć ({@code library.audit.*}). Domyślnie wyłączony - wymaga
+ * jawnie podanego, trwałego katalogu.
+ */
+@Configuration
+@EnableConfigurationProperties(AuditProperties.class)
+@ConditionalOnProperty(prefix = "library.audit", name = "enabled", havingValue = "true")
+public class AuditConfig {
+
+    @Bean(destroyMethod = "close")
+    public AuditJournal auditJournal(AuditProperties properties, MeterRegistry meterRegistry) throws IOException {
+        if (properties.directory().isBlank()) {
+            throw new IllegalArgumentException("library.audit.directory must point to a durable per-instance directory "
+                    + "when library.audit.enabled=true");
+        }
+        Path directory = Path.of(properties.directory());
+        AuditJournal journal = new AuditJournal(directory, Math.toIntExact(properties.segmentSize().toBytes()),
+                Clock.systemUTC());
+        FunctionCounter.builder("library.audit.records", journal, AuditJournal::records)
+                .description("Audit journal records appended")
+                .register(meterRegistry);
+        FunctionCounter.builder("library.audit.syncs", journal, AuditJournal::syncs)
+                .description("Audit journal syncs to disk; records per sync shows group commit batching")
+                .register(meterRegistry);
+        return journal;
+    }
+
+    @Bean
+    public AuditListener auditListener(AuditJournal auditJournal) {
+        return new AuditListener(auditJournal);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.librarysystem.config;
+
+import com.example.librarysystem.export.BorrowingExportProperties;
+import com.example.librarysystem.export.BorrowingExporter;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Eksport wypożyczeń do plików Arrow IPC na lokalnym dysku ({@code library.borrowing-export.*}).
+ */
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(BorrowingExportProperties.class)
+public class BorrowingExportConfig implements SchedulingConfigurer {
+
+    private final BorrowingExportProperties properties;
+    private final ObjectProvider<BorrowingExporter> borrowingExporter;
+
+    public BorrowingExportConfig(BorrowingExportProperties properties, ObjectProvider<BorrowingExporter> borrowingExporter) {
+        this.properties = properties;
+        this.borrowingExporter = borrowingExporter;
+    }
+
+    /**
+     * Bufory Arrow poza stertą, z limitem {@code memory-limit}. Bez {@code --add-opens=java.base/java.nio=ALL-UNNAMED}
+     * (albo {@code Add-Opens} w manifeście JAR-a) Arrow nie wystartuje - błąd pojawi się od razu przy starcie.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "library.borrowing-export", name = "enabled", havingValue = "true")
+    public BufferAllocator borrowingExportAllocator() {
+        return new RootAllocator(properties.memoryLimit().toBytes());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "library.borrowing-export", name = "enabled", havingValue = "true")
+    public BorrowingExporter borrowingExporter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                               BufferAllocator borrowingExportAllocator) throws IOException {
+        TransactionTemplate snapshotTransaction = new TransactionTemplate(transactionManager);
+        snapshotTransaction.setReadOnly(true);
+        snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        Path directory = properties.directory().isBlank()
+                ? Path.of(System.getProperty("java.io.tmpdir"), "library-export")
+                : Path.of(properties.directory());
+        return new BorrowingExporter(jdbcTemplate, snapshotTransaction, borrowingExportAllocator, directory,
+                properties.batchRows(), properties.fetchSize());
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        borrowingExporter.ifAvailable(exporter -> registrar.addFixedDelayTask(exporter::export, properties.interval()));
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.librarysystem.config;
+
+import com.example.librarysystem.partition.BorrowingPartitionHealthIndicator;
+import com.example.librarysystem.partition.BorrowingPartitionMaintainer;
+import com.example.librarysystem.partition.BorrowingPartitionProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.autoconfigure.health.ConditionalOnEnabledHealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+import java.time.Clock;
+
+/**
+ * Utrzymanie miesięcznych partycji tabeli wypożyczeń ({@code library.borrowing-partitions.*}).
+ */
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(BorrowingPartitionProperties.class)
+public class BorrowingPartitionConfig implements SchedulingConfigurer {
+
+    private final BorrowingPartitionProperties properties;
+    private final ObjectProvider<BorrowingPartitionMaintainer> partitionMaintainer;
+
+    public BorrowingPartitionConfig(BorrowingPartitionProperties properties,
+                                    ObjectProvider<BorrowingPartitionMaintainer> partitionMaintainer) {
+        this.properties = properties;
+        this.partitionMaintainer = partitionMaintainer;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "library.borrowing-partitions", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public BorrowingPartitionMaintainer borrowingPartitionMaintainer(JdbcTemplate jdbcTemplate) {
+        // Partycje liczone w UTC; z monthsAhead >= 1 następny miesiąc istnieje przed północą w każdej strefie
+        return new BorrowingPartitionMaintainer(jdbcTemplate, Clock.systemUTC(), properties.monthsAhead(),
+                properties.detachAfterMonths(), properties.prewarmMonths(), properties.lockTimeout());
+    }
+
+    /** Także przy wyłączonym utrzymaniu - wtedy partycje zakłada inna instancja albo nikt. */
+    @Bean
+    @ConditionalOnEnabledHealthIndicator("borrowingPartitions")
+    public BorrowingPartitionHealthIndicator borrowingPartitionsHealthIndicator(JdbcTemplate jdbcTemplate) {
+        return new BorrowingPartitionHealthIndicator(jdbcTemplate, Clock.systemUTC());
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        // Pierwszy cykl od razu po starcie
+        partitionMaintainer.ifAvailable(maintainer -> registrar.addFixedDelayTask(maintainer::maintain, properties.maintenanceInterval()));
+    }
+}
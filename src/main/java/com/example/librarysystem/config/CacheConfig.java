@@ -0,0 +1,49 @@
+package com.example.librarysystem.config;
+
+import com.example.librarysystem.cache.CacheInvalidationProperties;
+import com.example.librarysystem.cache.LocalCacheInvalidator;
+import com.example.librarysystem.cache.PostgresInvalidationBus;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.DriverManager;
+import java.util.Properties;
+
+/**
+ * Cache encji w pamięci (Caffeine, {@code spring.cache.*}) spójny między instancjami: zapisy unieważniają
+ * cache lokalnie po zatwierdzeniu, a pozostałe instancje dowiadują się o nich przez PostgreSQL LISTEN/NOTIFY.
+ */
+@Configuration
+@EnableCaching
+@EnableConfigurationProperties(CacheInvalidationProperties.class)
+public class CacheConfig {
+
+    @Bean
+    public LocalCacheInvalidator localCacheInvalidator(CacheManager cacheManager) {
+        return new LocalCacheInvalidator(cacheManager);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "library.cache-invalidation", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public PostgresInvalidationBus postgresInvalidationBus(CacheInvalidationProperties properties, JdbcTemplate jdbcTemplate,
+                                                           DataSourceProperties dataSourceProperties,
+                                                           LocalCacheInvalidator invalidator) {
+        // Zawsze baza główna (spring.datasource.*) - repliki nie przekazują powiadomień NOTIFY
+        String url = dataSourceProperties.determineUrl();
+        Properties connectionProperties = new Properties();
+        connectionProperties.setProperty("user", dataSourceProperties.determineUsername());
+        if (dataSourceProperties.determinePassword() != null) {
+            connectionProperties.setProperty("password", dataSourceProperties.determinePassword());
+        }
+        connectionProperties.setProperty("ApplicationName", "library-cache-invalidation");
+        connectionProperties.setProperty("tcpKeepAlive", "true");
+        return new PostgresInvalidationBus(jdbcTemplate, () -> DriverManager.getConnection(url, connectionProperties),
+                invalidator, properties.channel(), properties.reconnectDelay());
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.librarysystem.config;
+
+import com.example.librarysystem.monitoring.jfr.FlightRecorderService;
+import com.example.librarysystem.monitoring.jfr.RepositoryEventAspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Zdarzenia Java Flight Recorder: nagrania na żądanie ({@code /api/admin/jfr}) oraz zdarzenia
+ * wywołań repozytoriów. Zdarzenia obiegu wypożyczeń, logowania i haszowania haseł emitują serwisy.
+ */
+@Configuration
+public class FlightRecorderConfig {
+
+    @Bean
+    public FlightRecorderService flightRecorderService() {
+        return new FlightRecorderService();
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "library.jfr", name = "repository-events", havingValue = "true", matchIfMissing = true)
+    public RepositoryEventAspect repositoryEventAspect() {
+        return new RepositoryEventAspect();
+    }
+}
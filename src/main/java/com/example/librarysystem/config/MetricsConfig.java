@@ -0,0 +1,20 @@
+package com.example.librarysystem.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Metryki Micrometera wystawiane pod {@code /actuator/prometheus}.
+ * Czasy żądań HTTP, pulę Hikari i statystyki Hibernate rejestruje Spring Boot;
+ * tutaj włączamy obsługę {@code @Timed}, którą oznaczone są serwisy (timer {@code library.service}).
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+}
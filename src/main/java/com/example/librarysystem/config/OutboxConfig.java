@@ -0,0 +1,44 @@
+package com.example.librarysystem.config;
+
+import com.example.librarysystem.event.OutboxProperties;
+import com.example.librarysystem.event.OutboxWriter;
+import com.example.librarysystem.repository.OutboxEventRepository;
+import com.example.librarysystem.service.ChangeFeedService;
+import com.example.librarysystem.sync.SyncProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.FixedDelayTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+/**
+ * Outbox zmian ({@code library.outbox.*}): zapis zdarzeń w transakcjach serwisów i okresowe
+ * usuwanie zmian starszych niż retencja. Z outboxa korzysta też synchronizacja kiosków ({@code library.sync.*}).
+ */
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties({OutboxProperties.class, SyncProperties.class})
+public class OutboxConfig implements SchedulingConfigurer {
+
+    private final ChangeFeedService changeFeedService;
+    private final OutboxProperties properties;
+
+    public OutboxConfig(ChangeFeedService changeFeedService, OutboxProperties properties) {
+        this.changeFeedService = changeFeedService;
+        this.properties = properties;
+    }
+
+    @Bean
+    public OutboxWriter outboxWriter(OutboxEventRepository outboxEventRepository) {
+        return new OutboxWriter(outboxEventRepository);
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        // Pierwsze czyszczenie po jednym interwale - nie obciążamy bazy przy starcie
+        registrar.addFixedDelayTask(new FixedDelayTask(changeFeedService::purgeExpired,
+                properties.cleanupInterval(), properties.cleanupInterval()));
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.librarysystem.config;
+
+import com.example.librarysystem.popularity.PopularityProperties;
+import com.example.librarysystem.popularity.PopularityTracker;
+import com.example.librarysystem.popularity.PopularityUpdater;
+import com.example.librarysystem.repository.OutboxEventRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+
+/**
+ * Ranking najczęściej wypożyczanych książek w pamięci ({@code library.popularity.*}), zasilany z outboxa zmian.
+ */
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(PopularityProperties.class)
+public class PopularityConfig implements SchedulingConfigurer {
+
+    private static final Clock CLOCK = Clock.systemDefaultZone();
+
+    private final PopularityProperties properties;
+    private final ObjectProvider<PopularityUpdater> popularityUpdater;
+
+    public PopularityConfig(PopularityProperties properties, ObjectProvider<PopularityUpdater> popularityUpdater) {
+        this.properties = properties;
+        this.popularityUpdater = popularityUpdater;
+    }
+
+    @Bean
+    public PopularityTracker popularityTracker() {
+        return new PopularityTracker(CLOCK, (int) properties.horizon().toDays(), properties.candidatesPerDay(),
+                properties.sketchDepth(), properties.sketchWidth());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "library.popularity", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public PopularityUpdater popularityUpdater(PopularityTracker popularityTracker, OutboxEventRepository outboxEventRepository,
+                                               JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        TransactionTemplate snapshotTransaction = new TransactionTemplate(transactionManager);
+        snapshotTransaction.setReadOnly(true);
+        snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        return new PopularityUpdater(popularityTracker, outboxEventRepository, jdbcTemplate, snapshotTransaction, CLOCK,
+                properties.horizon(), properties.batchSize());
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        // Pierwsze wywołanie (odbudowa z bazy) od razu po starcie, w tle - nie opóźnia gotowości aplikacji
+        popularityUpdater.ifAvailable(updater -> registrar.addFixedDelayTask(updater::update, properties.pollInterval()));
+    }
+}
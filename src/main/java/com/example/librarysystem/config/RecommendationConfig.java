@@ -0,0 +1,67 @@
+package com.example.librarysystem.config;
+
+import com.example.librarysystem.event.OutboxProperties;
+import com.example.librarysystem.recommendation.CooccurrenceIndex;
+import com.example.librarysystem.recommendation.RecommendationProperties;
+import com.example.librarysystem.recommendation.RecommendationUpdater;
+import com.example.librarysystem.repository.OutboxEventRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.Clock;
+
+/**
+ * Indeks "wypożyczone razem" w pamięci ({@code library.recommendations.*}), zasilany z outboxa zmian,
+ * z kopią w pliku do szybkiego startu.
+ */
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(RecommendationProperties.class)
+public class RecommendationConfig implements SchedulingConfigurer {
+
+    private final RecommendationProperties properties;
+    private final ObjectProvider<RecommendationUpdater> recommendationUpdater;
+
+    public RecommendationConfig(RecommendationProperties properties, ObjectProvider<RecommendationUpdater> recommendationUpdater) {
+        this.properties = properties;
+        this.recommendationUpdater = recommendationUpdater;
+    }
+
+    @Bean
+    public CooccurrenceIndex cooccurrenceIndex() {
+        return new CooccurrenceIndex(properties.neighbours(), properties.historyPerUser());
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "library.recommendations", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public RecommendationUpdater recommendationUpdater(CooccurrenceIndex cooccurrenceIndex, OutboxEventRepository outboxEventRepository,
+                                                       JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                                       OutboxProperties outboxProperties,
+                                                       DataSourceProperties dataSourceProperties) {
+        TransactionTemplate snapshotTransaction = new TransactionTemplate(transactionManager);
+        snapshotTransaction.setReadOnly(true);
+        snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        Path snapshotFile = properties.snapshotFile().isBlank() ? null : Path.of(properties.snapshotFile());
+        return new RecommendationUpdater(cooccurrenceIndex, outboxEventRepository, jdbcTemplate, snapshotTransaction,
+                Clock.systemUTC(), dataSourceProperties.determineUrl(), snapshotFile, properties.snapshotInterval(),
+                outboxProperties.retention(), properties.batchSize());
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        // Pierwsze wywołanie (wczytanie kopii lub odbudowa z bazy) od razu po starcie, w tle
+        recommendationUpdater.ifAvailable(updater -> registrar.addFixedDelayTask(updater::update, properties.pollInterval()));
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.librarysystem.config;
+
+import com.example.librarysystem.replica.ReadYourWritesTracker;
+import com.example.librarysystem.replica.ReplicaDataSource;
+import com.example.librarysystem.replica.ReplicaProperties;
+import com.example.librarysystem.replica.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Kierowanie transakcji {@code @Transactional(readOnly = true)} na repliki PostgreSQL
+ * ({@code library.replicas.enabled=true}). Zastępuje automatycznie konfigurowane źródło danych:
+ * pula bazy głównej nadal korzysta z {@code spring.datasource.*}, repliki mają własne, mniejsze pule.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "library.replicas", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ReplicaProperties.class)
+public class ReplicaRoutingConfig {
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(ReplicaProperties properties) {
+        return new ReadYourWritesTracker(properties.stickyFor());
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource dataSource(DataSourceProperties dataSourceProperties, ReplicaProperties properties,
+                                               ReadYourWritesTracker tracker, Environment environment,
+                                               MeterRegistry meterRegistry) {
+        if (properties.urls().isEmpty()) {
+            throw new IllegalArgumentException("library.replicas.urls must list at least one replica when library.replicas.enabled=true");
+        }
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+
+        Map<String, DataSource> pools = new LinkedHashMap<>();
+        List<String> urls = properties.urls();
+        for (int i = 0; i < urls.size(); i++) {
+            String name = "replica-" + (i + 1);
+            pools.put(name, replicaPool(name, urls.get(i), dataSourceProperties, properties, meterRegistry));
+        }
+
+        ReplicaDataSource replicas = new ReplicaDataSource(primary, pools, tracker, properties.maxLag());
+        for (ReplicaDataSource.Replica replica : replicas.replicas()) {
+            Gauge.builder("library.replica.lag", replica, ReplicaDataSource.Replica::lagSeconds)
+                    .tag("replica", replica.name())
+                    .baseUnit("seconds")
+                    .description("Replay lag of the read replica")
+                    .register(meterRegistry);
+            Gauge.builder("library.replica.healthy", replica, r -> r.isHealthy() ? 1 : 0)
+                    .tag("replica", replica.name())
+                    .description("Whether read-only transactions are routed to the replica")
+                    .register(meterRegistry);
+        }
+        replicas.start(properties.healthCheckInterval());
+        return new ReplicaRoutingDataSource(primary, replicas);
+    }
+
+    /**
+     * Hibernate domyślnie trzyma połączenie przez całą sesję, a przy open-in-view sesja obejmuje całe żądanie -
+     * kolejna transakcja zapisu dostałaby połączenie z repliki. Zwalniamy je więc po każdej transakcji.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer replicaConnectionHandlingCustomizer() {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    private static HikariDataSource replicaPool(String name, String url, DataSourceProperties dataSourceProperties,
+                                                ReplicaProperties properties, MeterRegistry meterRegistry) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(name);
+        pool.setJdbcUrl(url);
+        pool.setUsername(properties.username() != null ? properties.username() : dataSourceProperties.determineUsername());
+        pool.setPassword(properties.password() != null ? properties.password() : dataSourceProperties.determinePassword());
+        pool.setMaximumPoolSize(properties.maxPoolSize());
+        pool.setConnectionTimeout(properties.connectionTimeout().toMillis());
+        pool.setReadOnly(true);
+        // Niedostępna replika nie może zatrzymać startu aplikacji - wykryje ją sprawdzanie stanu
+        pool.setInitializationFailTimeout(-1);
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return pool;
+    }
+}
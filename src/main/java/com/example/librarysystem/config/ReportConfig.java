@@ -0,0 +1,61 @@
+package com.example.librarysystem.config;
+
+import com.example.librarysystem.event.OutboxProperties;
+import com.example.librarysystem.report.CirculationRollupRefresher;
+import com.example.librarysystem.report.ReportProperties;
+import com.example.librarysystem.repository.CirculationDailyRepository;
+import com.example.librarysystem.repository.CirculationMonthlyRepository;
+import com.example.librarysystem.repository.OutboxEventRepository;
+import com.example.librarysystem.repository.ReportRefreshStateRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+
+/**
+ * Dzienne sumy do raportów obiegu książek ({@code library.reports.*}), doliczane z outboxa zmian.
+ */
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(ReportProperties.class)
+public class ReportConfig implements SchedulingConfigurer {
+
+    private final ReportProperties properties;
+    private final ObjectProvider<CirculationRollupRefresher> rollupRefresher;
+
+    public ReportConfig(ReportProperties properties, ObjectProvider<CirculationRollupRefresher> rollupRefresher) {
+        this.properties = properties;
+        this.rollupRefresher = rollupRefresher;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "library.reports", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public CirculationRollupRefresher circulationRollupRefresher(ReportRefreshStateRepository stateRepository,
+                                                                 CirculationDailyRepository circulationDailyRepository,
+                                                                 CirculationMonthlyRepository circulationMonthlyRepository,
+                                                                 OutboxEventRepository outboxEventRepository,
+                                                                 PlatformTransactionManager transactionManager,
+                                                                 OutboxProperties outboxProperties) {
+        // Obie transakcje na bazie głównej (bez readOnly) - zapisują sumy i pozycję
+        TransactionTemplate batchTransaction = new TransactionTemplate(transactionManager);
+        TransactionTemplate rebuildTransaction = new TransactionTemplate(transactionManager);
+        rebuildTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        return new CirculationRollupRefresher(stateRepository, circulationDailyRepository, circulationMonthlyRepository,
+                outboxEventRepository, batchTransaction, rebuildTransaction, Clock.systemUTC(), outboxProperties.retention(),
+                properties.batchSize());
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        rollupRefresher.ifAvailable(refresher -> registrar.addFixedDelayTask(refresher::refresh, properties.refreshInterval()));
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.librarysystem.config;
+
+import com.example.librarysystem.report.ReportJobProperties;
+import com.example.librarysystem.report.ReportJobRunner;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Raporty wykonywane w tle ({@code library.report-jobs.*}): własna pula wątków z ograniczoną kolejką i własna,
+ * mała pula połączeń - długie zapytania raportowe nie zabierają wątków ani połączeń żądaniom czytelników.
+ */
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(ReportJobProperties.class)
+public class ReportJobConfig implements SchedulingConfigurer {
+
+    private final ReportJobProperties properties;
+    private final ObjectProvider<ReportJobRunner> reportJobRunner;
+
+    public ReportJobConfig(ReportJobProperties properties, ObjectProvider<ReportJobRunner> reportJobRunner) {
+        this.properties = properties;
+        this.reportJobRunner = reportJobRunner;
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReportJobRunner reportJobRunner(DataSourceProperties dataSourceProperties, ObjectMapper objectMapper,
+                                           MeterRegistry meterRegistry) throws IOException {
+        if (properties.workers() < 1 || properties.queueCapacity() < 1) {
+            throw new IllegalArgumentException("library.report-jobs.workers and queue-capacity must be positive");
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(properties.workers(), properties.workers(), 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(properties.queueCapacity()), new CustomizableThreadFactory("report-job-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        Path directory = properties.directory().isBlank()
+                ? Path.of(System.getProperty("java.io.tmpdir"), "library-report-jobs")
+                : Path.of(properties.directory());
+        ReportJobRunner runner = new ReportJobRunner(reportPool(dataSourceProperties, meterRegistry), executor, directory,
+                objectMapper, Clock.systemUTC(), properties.resultTtl(), properties.queryTimeout(), properties.fetchSize());
+        Gauge.builder("library.report.jobs.active", runner, ReportJobRunner::activeJobs)
+                .description("Report jobs queued or running")
+                .register(meterRegistry);
+        return runner;
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        reportJobRunner.ifAvailable(runner -> registrar.addFixedDelayTask(runner::purgeExpired, properties.cleanupInterval()));
+    }
+
+    /**
+     * Osobna pula, a nie osobny bean {@code DataSource} - inaczej automatyczna konfiguracja JPA nie wiedziałaby,
+     * której puli użyć. Połączeń jest tyle, ile wątków raportów, więc raporty nigdy nie czekają na siebie nawzajem
+     * ani nie zajmują puli głównej.
+     */
+    private HikariDataSource reportPool(DataSourceProperties dataSourceProperties, MeterRegistry meterRegistry) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName("report-jobs");
+        pool.setJdbcUrl(properties.jdbcUrl().isBlank() ? dataSourceProperties.determineUrl() : properties.jdbcUrl());
+        pool.setUsername(dataSourceProperties.determineUsername());
+        pool.setPassword(dataSourceProperties.determinePassword());
+        pool.setMaximumPoolSize(properties.workers());
+        pool.setMinimumIdle(0);
+        pool.setReadOnly(true);
+        // Bez autocommitu sterownik PostgreSQL czyta wynik kursorem, porcjami po fetch-size wierszy
+        pool.setAutoCommit(false);
+        pool.setInitializationFailTimeout(-1);
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return pool;
+    }
+}
@@ -1,24 +1,73 @@
 package com.example.librarysystem.config;
 
+import com.example.librarysystem.security.RateLimitFilter;
+import com.example.librarysystem.security.RateLimitProperties;
+import com.example.librarysystem.security.TimedPasswordEncoder;
+import com.example.librarysystem.security.WarmupAuthenticationFilter;
+import com.example.librarysystem.warmup.WarmupCredentials;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 @Configuration
 @EnableWebSecurity
+@EnableConfigurationProperties(RateLimitProperties.class)
 public class SecurityConfig {
 
+    private final RateLimitProperties rateLimitProperties;
+    private final ObjectProvider<WarmupCredentials> warmupCredentials;
+
+    public SecurityConfig(RateLimitProperties rateLimitProperties, ObjectProvider<WarmupCredentials> warmupCredentials) {
+        this.rateLimitProperties = rateLimitProperties;
+        this.warmupCredentials = warmupCredentials;
+    }
+
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        return new TimedPasswordEncoder(new BCryptPasswordEncoder(), meterRegistry);
     }
 
+    /**
+     * Endpointy actuatora: bez logowania tylko stan aplikacji, reszta (także metryki Prometheusa) dla ADMINa.
+     * Oprócz sesji z formularza przyjmuje HTTP Basic, bo tak uwierzytelnia się Prometheus ({@code basic_auth}).
+     */
     @Bean
+    @Order(1)
+    public SecurityFilterChain actuatorFilterChain(HttpSecurity http) throws Exception {
+        http
+                .securityMatcher(EndpointRequest.toAnyEndpoint())
+                .csrf(csrf -> csrf.disable())
+                .authorizeHttpRequests(authz -> authz
+                        .requestMatchers(EndpointRequest.to("health")).permitAll()
+                        .anyRequest().hasRole("ADMIN")
+                )
+                // 401 ustawiany wprost: sendError przekierowałby żądanie na /error, a stamtąd łańcuch główny - do formularza
+                .httpBasic(basic -> basic.authenticationEntryPoint((request, response, e) -> {
+                    response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Basic realm=\"actuator\"");
+                    response.setStatus(HttpStatus.UNAUTHORIZED.value());
+                }));
+        if (rateLimitProperties.enabled()) {
+            http.addFilterBefore(new RateLimitFilter(rateLimitProperties), BasicAuthenticationFilter.class);
+        }
+        return http.build();
+    }
+
+    @Bean
+    @Order(2)
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
                 .csrf(csrf -> csrf.disable())
@@ -39,8 +88,15 @@ public class SecurityConfig {
                         // Dla ADMINa: tworzenie, edycja, usuwanie książek
                         .requestMatchers(HttpMethod.POST, "/api/books").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.PUT, "/api/books/**").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.PATCH, "/api/books/**").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.DELETE, "/api/books/**").hasRole("ADMIN")
 
+                        // Diagnostyka (nagrania JFR) i raporty tylko dla ADMINa
+                        .requestMatchers("/api/admin/**").hasRole("ADMIN")
+
+                        // Kanał zmian dla systemów zewnętrznych (zawiera wypożyczenia użytkowników) tylko dla ADMINa
+                        .requestMatchers("/api/changes").hasRole("ADMIN")
+
                         // Dla ADMINa wszelkie operacje na użytkownikach
                         .requestMatchers("/api/users/**").hasRole("ADMIN")
 
@@ -59,6 +115,14 @@ public class SecurityConfig {
                         .logoutSuccessUrl("/?logout=true")
                         .permitAll()
                 );
+        if (rateLimitProperties.enabled()) {
+            // Limiter stoi przed logowaniem formularzem, więc odrzuca żądania przed BCryptem i bazą.
+            // Nie jest beanem, żeby Spring Boot nie zarejestrował go drugi raz jako filtra serwletów.
+            http.addFilterBefore(new RateLimitFilter(rateLimitProperties), UsernamePasswordAuthenticationFilter.class);
+        }
+        // Żądania rozgrzewki (tylko przy library.warmup.enabled=true i tylko do jej końca)
+        warmupCredentials.ifAvailable(credentials ->
+                http.addFilterBefore(new WarmupAuthenticationFilter(credentials), UsernamePasswordAuthenticationFilter.class));
         return http.build();
     }
 }
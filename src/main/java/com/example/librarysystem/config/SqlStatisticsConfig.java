@@ -0,0 +1,45 @@
+package com.example.librarysystem.config;
+
+import com.example.librarysystem.monitoring.SqlStatementInspector;
+import com.example.librarysystem.monitoring.SqlStatisticsFilter;
+import com.example.librarysystem.monitoring.SqlStatisticsProperties;
+import com.example.librarysystem.monitoring.SqlTimingSessionListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Liczenie zapytań SQL na żądanie HTTP (zamiast {@code spring.jpa.show-sql}): hooki w Hibernate zbierają
+ * instrukcje i czasy wykonania, a filtr raportuje je dla każdego żądania.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "library.sql-statistics", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(SqlStatisticsProperties.class)
+public class SqlStatisticsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatisticsHibernateCustomizer() {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, new SqlStatementInspector());
+            // Hibernate tworzy listener dla każdej sesji, dlatego podajemy klasę, a nie instancję
+            properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, SqlTimingSessionListener.class.getName());
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlStatisticsFilter> sqlStatisticsFilter(SqlStatisticsProperties properties,
+                                                                           MeterRegistry meterRegistry) {
+        FilterRegistrationBean<SqlStatisticsFilter> registration =
+                new FilterRegistrationBean<>(new SqlStatisticsFilter(properties, meterRegistry));
+        registration.addUrlPatterns("/api/*", "/login");
+        // Przed łańcuchem Spring Security - liczymy też zapytania przy uwierzytelnianiu
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        return registration;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.librarysystem.config;
+
+import com.example.librarysystem.web.ConcurrencyLimitFilter;
+import com.example.librarysystem.web.ConcurrencyLimitProperties;
+import com.zaxxer.hikari.HikariConfigMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Konfiguracja trybu wątków wirtualnych ({@code spring.threads.virtual.enabled=true}).
+ * Sam przełącznik obsługuje Spring Boot (Tomcat, executor zadań asynchronicznych i harmonogramu);
+ * tutaj dokładamy limit współbieżności dopasowany do puli połączeń, której wątki wirtualne nie zastąpią.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+@EnableConfigurationProperties(ConcurrencyLimitProperties.class)
+public class VirtualThreadConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    // Domyślny rozmiar puli Hikari
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(ConcurrencyLimitProperties properties,
+                                                                                 DataSource dataSource) {
+        int maxInFlight = properties.maxInFlight() > 0 ? properties.maxInFlight() : poolSize(dataSource);
+        log.info("Virtual threads enabled, limiting /api/** to {} concurrent requests", maxInFlight);
+
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+                new FilterRegistrationBean<>(new ConcurrencyLimitFilter(maxInFlight, properties.acquireTimeout()));
+        registration.addUrlPatterns("/api/*");
+        // Za łańcuchem Spring Security - żądania odrzucone przez autoryzację lub limiter nie zajmują miejsca
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        return registration;
+    }
+
+    private static int poolSize(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariConfigMXBean.class)) {
+                HikariConfigMXBean pool = dataSource.unwrap(HikariConfigMXBean.class);
+                // Filtry powstają razem z serwerem WWW, zanim pula wystartuje - wtedy nieustawiony rozmiar
+                // to jeszcze -1, więc rozwiązujemy go tak samo jak Hikari przy starcie
+                int size = pool.getMaximumPoolSize();
+                return size > 0 ? size : Math.max(DEFAULT_POOL_SIZE, pool.getMinimumIdle());
+            }
+        } catch (SQLException e) {
+            log.warn("Could not read connection pool size, using {}", DEFAULT_POOL_SIZE, e);
+        }
+        return DEFAULT_POOL_SIZE;
+    }
+}
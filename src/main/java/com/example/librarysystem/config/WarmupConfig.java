@@ -0,0 +1,43 @@
+package com.example.librarysystem.config;
+
+import com.example.librarysystem.repository.BookRepository;
+import com.example.librarysystem.repository.BorrowingRepository;
+import com.example.librarysystem.repository.GenreRepository;
+import com.example.librarysystem.repository.UserRepository;
+import com.example.librarysystem.service.BorrowingService;
+import com.example.librarysystem.warmup.WarmupCredentials;
+import com.example.librarysystem.warmup.WarmupProperties;
+import com.example.librarysystem.warmup.WarmupRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Opcjonalna rozgrzewka JIT przy starcie ({@code library.warmup.enabled=true}); do jej końca
+ * instancja zgłasza brak gotowości ({@code /actuator/health/readiness}).
+ */
+@Configuration
+@ConditionalOnWebApplication
+@ConditionalOnProperty(prefix = "library.warmup", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(WarmupProperties.class)
+public class WarmupConfig {
+
+    @Bean
+    public WarmupCredentials warmupCredentials() {
+        return new WarmupCredentials();
+    }
+
+    @Bean
+    public WarmupRunner warmupRunner(WarmupProperties properties, WarmupCredentials credentials,
+                                     WebServerApplicationContext context, BookRepository bookRepository,
+                                     UserRepository userRepository, GenreRepository genreRepository,
+                                     BorrowingRepository borrowingRepository, BorrowingService borrowingService,
+                                     TransactionTemplate transactionTemplate) {
+        return new WarmupRunner(properties, credentials, context, bookRepository, userRepository, genreRepository,
+                borrowingRepository, borrowingService, transactionTemplate);
+    }
+}
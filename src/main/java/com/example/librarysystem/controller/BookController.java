@@ -1,7 +1,14 @@
 package com.example.librarysystem.controller;
 
+import com.example.librarysystem.dto.BookPatch;
+import com.example.librarysystem.dto.BookSyncPage;
+import com.example.librarysystem.dto.PopularBook;
+import com.example.librarysystem.dto.RecommendedBook;
 import com.example.librarysystem.entity.Book;
 import com.example.librarysystem.service.BookService;
+import com.example.librarysystem.service.BookSyncService;
+import com.example.librarysystem.service.PopularityService;
+import com.example.librarysystem.service.RecommendationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -18,9 +25,16 @@ import java.util.List;
 public class BookController {
 
     private final BookService bookService;
+    private final BookSyncService bookSyncService;
+    private final PopularityService popularityService;
+    private final RecommendationService recommendationService;
 
-    public BookController(BookService bookService) {
+    public BookController(BookService bookService, BookSyncService bookSyncService, PopularityService popularityService,
+                          RecommendationService recommendationService) {
         this.bookService = bookService;
+        this.bookSyncService = bookSyncService;
+        this.popularityService = popularityService;
+        this.recommendationService = recommendationService;
     }
 
     @Operation(summary = "Get all books", description = "Retrieve a list of all books in the system")
@@ -43,6 +57,53 @@ public class BookController {
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    @Operation(summary = "Get most borrowed books",
+            description = "Approximate ranking of the most borrowed books today (DAY), in the last 7 days (WEEK) "
+                    + "or over the whole tracked period (ALL), optionally within one genre. Served from memory.")
+    @GetMapping("/popular")
+    public List<PopularBook> getPopularBooks(
+            @Parameter(description = "Time window: DAY, WEEK or ALL", example = "WEEK")
+            @RequestParam(defaultValue = "WEEK") String window,
+            @Parameter(description = "Only books of this genre (case-insensitive)", example = "Fantasy")
+            @RequestParam(required = false) String genre,
+            @Parameter(description = "Number of books to return (1-100)", example = "10")
+            @RequestParam(defaultValue = "10") int limit) {
+        return popularityService.getPopularBooks(window, genre, limit);
+    }
+
+    @Operation(summary = "Get books borrowed together",
+            description = "Books most often borrowed by readers who also borrowed this book, "
+                    + "with the approximate number of such readers. Served from an in-memory index.")
+    @GetMapping("/{id}/recommendations")
+    public List<RecommendedBook> getRecommendations(
+            @Parameter(description = "ID of the book", required = true, example = "1")
+            @PathVariable Long id,
+            @Parameter(description = "Number of books to return (1-50)", example = "10")
+            @RequestParam(defaultValue = "10") int limit) {
+        return recommendationService.getBorrowedTogether(id, limit);
+    }
+
+    @Operation(summary = "Synchronize a local copy of the catalog",
+            description = "Without a token returns the whole catalog page by page; with the token from the previous response returns "
+                    + "only books added or changed since then ('upserts') and IDs of deleted books ('deletes'). "
+                    + "Repeat while 'hasMore' is true. 410 means the token is too old - start again without a token.")
+    @GetMapping("/sync")
+    public BookSyncPage syncBooks(
+            @Parameter(description = "Token from the previous sync response")
+            @RequestParam(required = false) String token,
+            @Parameter(description = "Maximum number of books or changes per page (capped by the server)", example = "500")
+            @RequestParam(required = false) Integer limit) {
+        return bookSyncService.sync(token, limit);
+    }
+
+    @Operation(summary = "Get books by genre", description = "Retrieve all books of the given genre (case-insensitive)")
+    @GetMapping("/genre/{genre}")
+    public List<Book> getBooksByGenre(
+            @Parameter(description = "Name of the genre", required = true, example = "Fantasy")
+            @PathVariable String genre) {
+        return bookService.getBooksByGenre(genre);
+    }
+
     @Operation(summary = "Add a new book", description = "Create a new book with provided details. (Admin only)")
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')") // Tylko ADMIN może tworzyć książki
@@ -59,15 +120,23 @@ public class BookController {
     public ResponseEntity<Book> updateBook(
             @Parameter(description = "ID of the book to update", required = true, example = "1")
             @PathVariable Long id,
-            @Parameter(description = "Book object with updated information.", required = true)
+            @Parameter(description = "Book object with updated information. If 'version' is given, it must match the stored one.", required = true)
             @RequestBody Book bookDetails) {
-        try {
-            Book updatedBook = bookService.updateBook(id, bookDetails);
-            return ResponseEntity.ok(updatedBook);
-        } catch (RuntimeException e) {
-            // Jeśli serwis rzucił wyjątek (np. “Book not found”), zwracamy 404
-            return ResponseEntity.notFound().build();
-        }
+        // Brak książki → 404, nieaktualna wersja → 409 (zob. ApiExceptionHandler)
+        Book updatedBook = bookService.updateBook(id, bookDetails);
+        return ResponseEntity.ok(updatedBook);
+    }
+
+    @Operation(summary = "Partially update a book", description = "Update only the provided fields with a single statement. The current 'version' is required; the new one is returned in the ETag header. (Admin only)")
+    @PatchMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> patchBook(
+            @Parameter(description = "ID of the book to update", required = true, example = "1")
+            @PathVariable Long id,
+            @Parameter(description = "Fields to change (null fields are left untouched) and the expected version.", required = true)
+            @RequestBody BookPatch patch) {
+        long version = bookService.patchBook(id, patch);
+        return ResponseEntity.noContent().eTag(Long.toString(version)).build();
     }
 
     @Operation(summary = "Delete a book", description = "Delete a book by its ID. (Admin only)")
@@ -76,12 +145,7 @@ public class BookController {
     public ResponseEntity<Void> deleteBook(
             @Parameter(description = "ID of the book to delete", required = true, example = "1")
             @PathVariable Long id) {
-        try {
-            bookService.deleteBook(id);
-            return ResponseEntity.noContent().build();
-        } catch (RuntimeException e) {
-            // Jeśli książka nie istnieje → 404
-            return ResponseEntity.notFound().build();
-        }
+        bookService.deleteBook(id); // Jeśli książka nie istnieje → 404
+        return ResponseEntity.noContent().build();
     }
 }
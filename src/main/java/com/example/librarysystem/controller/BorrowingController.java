@@ -26,54 +26,46 @@ public class BorrowingController {
     @Operation(summary = "Borrow a book", description = "Creates a new borrowing record for a user and a book.")
     @PostMapping("/borrow")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')") // Użytkownik lub admin może zainicjować wypożyczenie
-    public ResponseEntity<?> borrowBook(
+    public ResponseEntity<Borrowing> borrowBook(
             @Parameter(description = "ID of the user borrowing the book", required = true)
             @RequestParam Long userId,
             @Parameter(description = "ID of the book to be borrowed", required = true)
             @RequestParam Long bookId) {
-        try {
-            Borrowing borrowing = borrowingService.borrowBook(userId, bookId);
-            return new ResponseEntity<>(borrowing, HttpStatus.CREATED);
-        } catch (RuntimeException e) {
-            // Np. User not found, Book not found, Book not available
-            return ResponseEntity.badRequest().body(e.getMessage());
-        }
+        // Brak użytkownika lub książki → 404 (zob. ApiExceptionHandler)
+        Borrowing borrowing = borrowingService.borrowBook(userId, bookId);
+        return new ResponseEntity<>(borrowing, HttpStatus.CREATED);
     }
 
     @Operation(summary = "Return a book", description = "Marks a borrowed book as returned.")
     @PutMapping("/{borrowingId}/return")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public ResponseEntity<?> returnBook(
+    public ResponseEntity<Borrowing> returnBook(
             @Parameter(description = "ID of the borrowing record to be marked as returned", required = true)
             @PathVariable Long borrowingId) {
-        try {
-            Borrowing borrowing = borrowingService.returnBook(borrowingId);
-            return ResponseEntity.ok(borrowing);
-        } catch (RuntimeException e) {
-            // Np. Borrowing record not found, Book already returned
-            return ResponseEntity.badRequest().body(e.getMessage());
-        }
+        // Brak wypożyczenia → 404, książka już zwrócona → 409
+        Borrowing borrowing = borrowingService.returnBook(borrowingId);
+        return ResponseEntity.ok(borrowing);
     }
 
-    @Operation(summary = "Get all borrowing records", description = "Retrieve a list of all borrowing records. (Admin only - to be secured)")
+    @Operation(summary = "Get all borrowing records", description = "Retrieve a list of all borrowing records, including loans moved to the history table unless archived=false. (Admin only - to be secured)")
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<Borrowing>> getAllBorrowings() {
-        List<Borrowing> list = borrowingService.getAllBorrowings();
+    public ResponseEntity<List<Borrowing>> getAllBorrowings(
+            @Parameter(description = "Whether to include returned loans moved to the history table")
+            @RequestParam(defaultValue = "true") boolean archived) {
+        List<Borrowing> list = borrowingService.getAllBorrowings(archived);
         return ResponseEntity.ok(list);
     }
 
-    @Operation(summary = "Get borrowing records for a specific user", description = "Retrieve all borrowing records for a given user. (Admin or self - to be secured)")
+    @Operation(summary = "Get borrowing records for a specific user", description = "Retrieve all borrowing records for a given user, including loans moved to the history table unless archived=false. (Admin or self - to be secured)")
     @GetMapping("/user/{userId}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
-    public ResponseEntity<?> getBorrowingsForUser(
+    public ResponseEntity<List<Borrowing>> getBorrowingsForUser(
             @Parameter(description = "ID of the user whose borrowings are to be retrieved", required = true)
-            @PathVariable Long userId) {
-        try {
-            List<Borrowing> borrowings = borrowingService.getBorrowingsForUser(userId);
-            return ResponseEntity.ok(borrowings);
-        } catch (RuntimeException e) { // Np. User not found
-            return ResponseEntity.notFound().build();
-        }
+            @PathVariable Long userId,
+            @Parameter(description = "Whether to include returned loans moved to the history table")
+            @RequestParam(defaultValue = "true") boolean archived) {
+        List<Borrowing> borrowings = borrowingService.getBorrowingsForUser(userId, archived);
+        return ResponseEntity.ok(borrowings);
     }
 }
@@ -0,0 +1,34 @@
+package com.example.librarysystem.controller;
+
+import com.example.librarysystem.dto.ChangeFeedPage;
+import com.example.librarysystem.service.ChangeFeedService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/changes")
+@Tag(name = "Changes", description = "Feed of committed changes to books, users and borrowings (Admin only)")
+@PreAuthorize("hasRole('ADMIN')")
+public class ChangeFeedController {
+
+    private final ChangeFeedService changeFeedService;
+
+    public ChangeFeedController(ChangeFeedService changeFeedService) {
+        this.changeFeedService = changeFeedService;
+    }
+
+    @Operation(summary = "Get changes since a cursor",
+            description = "Returns committed changes after the given cursor, oldest first. Pass 'next' from the response as 'since' "
+                    + "to continue; without 'since' the feed starts at the oldest retained change.")
+    @GetMapping
+    public ChangeFeedPage getChanges(
+            @Parameter(description = "Cursor returned as 'next' by the previous call", example = "1234-567")
+            @RequestParam(required = false) String since,
+            @Parameter(description = "Maximum number of changes to return (capped by the server)", example = "500")
+            @RequestParam(required = false) Integer limit) {
+        return changeFeedService.getChanges(since, limit);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.librarysystem.controller;
+
+import com.example.librarysystem.dto.RecordingStatus;
+import com.example.librarysystem.monitoring.jfr.FlightRecorderService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+@RestController
+@RequestMapping("/api/admin/jfr")
+@Tag(name = "Diagnostics", description = "On-demand Java Flight Recorder recordings (Admin only)")
+@PreAuthorize("hasRole('ADMIN')")
+public class FlightRecorderController {
+
+    private final FlightRecorderService flightRecorderService;
+
+    public FlightRecorderController(FlightRecorderService flightRecorderService) {
+        this.flightRecorderService = flightRecorderService;
+    }
+
+    @Operation(summary = "Get recording status", description = "State of the on-demand recording, or NONE.")
+    @GetMapping
+    public RecordingStatus getStatus() {
+        return flightRecorderService.status();
+    }
+
+    @Operation(summary = "Start a recording", description = "Starts a JFR recording. Only one recording can run at a time (409 otherwise).")
+    @PostMapping("/start")
+    public ResponseEntity<RecordingStatus> startRecording(
+            @Parameter(description = "JFR settings: 'default' (low overhead) or 'profile' (more detail)", example = "default")
+            @RequestParam(defaultValue = "default") String settings,
+            @Parameter(description = "How long recorded data is kept (ISO-8601 duration)", example = "PT30M")
+            @RequestParam(defaultValue = "PT30M") Duration maxAge) {
+        return new ResponseEntity<>(flightRecorderService.start(settings, maxAge), HttpStatus.CREATED);
+    }
+
+    @Operation(summary = "Dump the recording", description = "Downloads the data recorded so far as a .jfr file; the recording keeps running.")
+    @GetMapping("/dump")
+    public ResponseEntity<StreamingResponseBody> dumpRecording() {
+        return download(flightRecorderService.dump());
+    }
+
+    @Operation(summary = "Stop the recording", description = "Stops the recording and downloads its data as a .jfr file.")
+    @PostMapping("/stop")
+    public ResponseEntity<StreamingResponseBody> stopRecording() {
+        return download(flightRecorderService.stop());
+    }
+
+    private static ResponseEntity<StreamingResponseBody> download(Path file) {
+        // Plik tymczasowy usuwamy zaraz po wysłaniu
+        StreamingResponseBody body = out -> {
+            try {
+                Files.copy(file, out);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(file.getFileName().toString()).build().toString())
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(body);
+    }
+}
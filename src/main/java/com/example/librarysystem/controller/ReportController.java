@@ -0,0 +1,38 @@
+package com.example.librarysystem.controller;
+
+import com.example.librarysystem.dto.CirculationReportRow;
+import com.example.librarysystem.service.ReportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/reports")
+@Tag(name = "Reports", description = "Circulation reports from pre-aggregated daily totals (Admin only)")
+@PreAuthorize("hasRole('ADMIN')")
+public class ReportController {
+
+    private final ReportService reportService;
+
+    public ReportController(ReportService reportService) {
+        this.reportService = reportService;
+    }
+
+    @Operation(summary = "Get monthly circulation report",
+            description = "Loans, returns, average loan duration and overdue rate per month, optionally per genre, "
+                    + "reader role or publication decade. Reads only the daily rollup tables, refreshed every minute.")
+    @GetMapping("/circulation")
+    public List<CirculationReportRow> getCirculationReport(
+            @Parameter(description = "First month (YYYY-MM), default: 11 months before 'to'", example = "2024-01")
+            @RequestParam(required = false) String from,
+            @Parameter(description = "Last month, inclusive (YYYY-MM), default: current month", example = "2024-12")
+            @RequestParam(required = false) String to,
+            @Parameter(description = "Group by GENRE, ROLE or DECADE; totals when omitted", example = "GENRE")
+            @RequestParam(required = false) String groupBy) {
+        return reportService.getCirculationReport(from, to, groupBy);
+    }
+}
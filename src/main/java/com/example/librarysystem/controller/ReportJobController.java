@@ -0,0 +1,85 @@
+package com.example.librarysystem.controller;
+
+import com.example.librarysystem.dto.ReportJobRequest;
+import com.example.librarysystem.report.ReportJob;
+import com.example.librarysystem.report.ReportJobStatus;
+import com.example.librarysystem.service.ReportJobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+@RestController
+@RequestMapping("/api/admin/reports/jobs")
+@Tag(name = "Report jobs", description = "Long-running reports executed in the background and downloaded as CSV (Admin only)")
+@PreAuthorize("hasRole('ADMIN')")
+public class ReportJobController {
+
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
+    private final ReportJobService reportJobService;
+
+    public ReportJobController(ReportJobService reportJobService) {
+        this.reportJobService = reportJobService;
+    }
+
+    @Operation(summary = "Submit a report job",
+            description = "Queues a BORROWING_HISTORY (optional 'from'/'to' dates) or USER_STATISTICS (required 'year') report "
+                    + "and returns the job (202). An identical request whose result is still cached returns the existing job. "
+                    + "503 with Retry-After when the queue is full.")
+    @PostMapping
+    public ResponseEntity<ReportJob> submit(@RequestBody ReportJobRequest request) {
+        ReportJob job = reportJobService.submit(request.type(), request.parameters());
+        return ResponseEntity.status(job.status() == ReportJobStatus.COMPLETED ? HttpStatus.OK : HttpStatus.ACCEPTED)
+                .location(ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").buildAndExpand(job.id()).toUri())
+                .body(job);
+    }
+
+    @Operation(summary = "Get report job status", description = "QUEUED, RUNNING, COMPLETED or FAILED; 404 after the result expires.")
+    @GetMapping("/{id}")
+    public ReportJob getJob(@PathVariable String id) {
+        return reportJobService.getJob(id);
+    }
+
+    @Operation(summary = "Download report result",
+            description = "CSV result of a completed job; sent gzip-compressed when the client accepts it. "
+                    + "409 while the job is not completed.")
+    @GetMapping("/{id}/result")
+    public ResponseEntity<StreamingResponseBody> getResult(@PathVariable String id,
+                                                           @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+                                                           String acceptEncoding) throws IOException {
+        ReportJob job = reportJobService.getJob(id);
+        Path file = reportJobService.getResult(id);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(job.type().name().toLowerCase(Locale.ROOT) + "-" + job.id() + ".csv").build().toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(TEXT_CSV);
+        // Wynik leży na dysku skompresowany - klient obsługujący gzip dostaje plik bez przepakowywania
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .contentLength(Files.size(file))
+                    .body(out -> Files.copy(file, out));
+        }
+        return response.body(out -> {
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(file), 65536)) {
+                in.transferTo(out);
+            }
+        });
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.librarysystem.controller;
 
+import com.example.librarysystem.dto.UserPatch;
+import com.example.librarysystem.entity.Role;
 import com.example.librarysystem.entity.User; // Zmieniony import, jeśli zmieniłeś nazwę encji na User.java
 import com.example.librarysystem.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -48,48 +50,48 @@ public class UserController {
 
     @Operation(summary = "Create a new user (Register)", description = "Create a new user with provided details. Password and role are required.")
     @PostMapping("/register") // Zmieniamy endpoint na bardziej opisowy dla rejestracji, lub zostawiamy /api/users
-    public ResponseEntity<?> createUser( // Zmieniono User na ResponseEntity<?> dla lepszej obsługi błędów
+    public ResponseEntity<User> createUser(
                                          @Parameter(description = "User object to create. Username, password, and role are required.", required = true)
                                          @RequestBody User user) {
-        try {
-            // Na tym etapie rola może być ustawiana domyślnie na ROLE_USER,
-            // lub przekazywana w żądaniu (co wymagałoby walidacji, czy użytkownik może nadać daną rolę).
-            // Dla uproszczenia, załóżmy, że rola jest przekazywana w żądaniu.
-            // userService.createUser będzie musiało obsłużyć hashowanie hasła (gdy dodamy Spring Security).
-            if (user.getRole() == null || user.getRole().isEmpty()) {
-                user.setRole("ROLE_USER"); // Domyślna rola, jeśli nie podano
-            }
-            User createdUser = userService.createUser(user);
-            // Znowu, nie zwracajmy całego obiektu User z hasłem.
-            // Tutaj można by zwrócić np. tylko ID i username, albo po prostu status 201.
-            // Dla uproszczenia zwracamy na razie obiekt, ale to do zmiany.
-            return new ResponseEntity<>(createdUser, HttpStatus.CREATED);
-        } catch (IllegalStateException e) {
-            return ResponseEntity.badRequest().body(e.getMessage()); // Np. "Username ... is already taken."
+        // Na tym etapie rola może być ustawiana domyślnie na ROLE_USER,
+        // lub przekazywana w żądaniu (co wymagałoby walidacji, czy użytkownik może nadać daną rolę).
+        // Dla uproszczenia, załóżmy, że rola jest przekazywana w żądaniu.
+        if (user.getRole() == null) {
+            user.setRole(Role.USER); // Domyślna rola, jeśli nie podano
         }
+        // Zajęta nazwa użytkownika → 409 (zob. ApiExceptionHandler)
+        User createdUser = userService.createUser(user);
+        // Znowu, nie zwracajmy całego obiektu User z hasłem.
+        // Tutaj można by zwrócić np. tylko ID i username, albo po prostu status 201.
+        // Dla uproszczenia zwracamy na razie obiekt, ale to do zmiany.
+        return new ResponseEntity<>(createdUser, HttpStatus.CREATED);
     }
 
     @Operation(summary = "Update an existing user", description = "Update an existing user by their ID. (Admin or self - to be secured)")
     @PutMapping("/{id}")
     // @PreAuthorize("hasRole('ADMIN') or @userService.isSelf(authentication, #id)")
-    public ResponseEntity<?> updateUser( // Zmieniono User na ResponseEntity<?>
+    public ResponseEntity<User> updateUser(
                                          @Parameter(description = "ID of the user to update", required = true, example = "1")
                                          @PathVariable Long id,
                                          @Parameter(description = "User object with updated information. Fields to update can be partial.", required = true)
                                          @RequestBody User userDetails) {
-        try {
-            // userService.updateUser powinien obsłużyć logikę aktualizacji,
-            // w tym np. niezerowanie pól, które nie są podane w userDetails,
-            // oraz hashowanie hasła, jeśli jest zmieniane.
-            User updatedUser = userService.updateUser(id, userDetails);
-            // Nie zwracaj hasła!
-            return ResponseEntity.ok(updatedUser);
-        } catch (RuntimeException e) { // Np. User not found lub username taken
-            if (e.getMessage().contains("not found")) {
-                return ResponseEntity.notFound().build();
-            }
-            return ResponseEntity.badRequest().body(e.getMessage());
-        }
+        // userService.updateUser obsługuje niezerowanie pól, które nie są podane w userDetails,
+        // oraz hashowanie hasła, jeśli jest zmieniane.
+        // Brak użytkownika → 404, zajęta nazwa lub nieaktualna wersja → 409.
+        User updatedUser = userService.updateUser(id, userDetails);
+        // Nie zwracaj hasła!
+        return ResponseEntity.ok(updatedUser);
+    }
+
+    @Operation(summary = "Partially update a user", description = "Update only the provided fields with a single statement. The current 'version' is required; the new one is returned in the ETag header. (Admin only)")
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> patchUser(
+            @Parameter(description = "ID of the user to update", required = true, example = "1")
+            @PathVariable Long id,
+            @Parameter(description = "Fields to change (null fields are left untouched) and the expected version.", required = true)
+            @RequestBody UserPatch patch) {
+        long version = userService.patchUser(id, patch);
+        return ResponseEntity.noContent().eTag(Long.toString(version)).build();
     }
 
     @Operation(summary = "Delete a user", description = "Delete a user by their ID. (Admin only - to be secured)")
@@ -98,11 +100,7 @@ public class UserController {
     public ResponseEntity<Void> deleteUser(
             @Parameter(description = "ID of the user to delete", required = true, example = "1")
             @PathVariable Long id) {
-        try {
-            userService.deleteUser(id);
-            return ResponseEntity.noContent().build();
-        } catch (RuntimeException e) {
-            return ResponseEntity.notFound().build();
-        }
+        userService.deleteUser(id);
+        return ResponseEntity.noContent().build();
     }
 }
\ No newline at end of file
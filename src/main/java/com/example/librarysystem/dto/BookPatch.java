@@ -0,0 +1,16 @@
+package com.example.librarysystem.dto;
+
+/**
+ * Częściowa aktualizacja książki (PATCH). Pola równe null pozostają bez zmian.
+ *
+ * @param version Wersja książki, którą klient widział - wymagana (optymistyczne blokowanie).
+ */
+public record BookPatch(
+        String title,
+        String author,
+        String isbn,
+        String publisher,
+        Integer publicationYear,
+        String genre,
+        Long version) {
+}
@@ -0,0 +1,20 @@
+package com.example.librarysystem.dto;
+
+import com.example.librarysystem.entity.Book;
+
+import java.util.List;
+
+/**
+ * Strona synchronizacji katalogu dla kiosku.
+ *
+ * @param upserts Książki do dodania lub nadpisania w lokalnej kopii (aktualny stan).
+ * @param deletes ID książek usuniętych od poprzedniej synchronizacji (tombstones).
+ * @param token   Token do następnego żądania - kiosk zapisuje go dopiero po zastosowaniu tej strony.
+ * @param hasMore Czy od razu pobrać kolejną stronę.
+ */
+public record BookSyncPage(
+        List<Book> upserts,
+        List<Long> deletes,
+        String token,
+        boolean hasMore) {
+}
@@ -0,0 +1,25 @@
+package com.example.librarysystem.dto;
+
+import com.example.librarysystem.event.EntityChangedEvent;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Pojedyncza zmiana w kanale {@code /api/changes}.
+ *
+ * @param cursor     Pozycja tej zmiany - przekazana jako {@code since} zwraca zmiany następujące po niej.
+ * @param entityType Rodzaj encji (BOOK, USER, BORROWING).
+ * @param operation  Rodzaj zmiany (CREATED, UPDATED, DELETED, BORROWED, RETURNED).
+ * @param version    Wersja encji po zmianie; null dla usunięć i wypożyczeń.
+ * @param details    Dodatkowe dane, np. {@code userId} i {@code bookId} wypożyczenia.
+ */
+public record ChangeFeedEntry(
+        String cursor,
+        EntityChangedEvent.Type entityType,
+        EntityChangedEvent.Operation operation,
+        long entityId,
+        Long version,
+        Map<String, Object> details,
+        Instant occurredAt) {
+}
@@ -0,0 +1,16 @@
+package com.example.librarysystem.dto;
+
+import java.util.List;
+
+/**
+ * Strona kanału zmian.
+ *
+ * @param changes Zmiany w kolejności kanału.
+ * @param next    Kursor do następnego żądania ({@code since}); bez nowych zmian - ten sam, który przysłał odbiorca.
+ * @param hasMore Czy za tą stroną są już kolejne zmiany (odbiorca może pytać od razu, bez czekania).
+ */
+public record ChangeFeedPage(
+        List<ChangeFeedEntry> changes,
+        String next,
+        boolean hasMore) {
+}
@@ -0,0 +1,21 @@
+package com.example.librarysystem.dto;
+
+import java.time.YearMonth;
+
+/**
+ * Wiersz miesięcznego raportu obiegu książek.
+ *
+ * @param group           Wartość wymiaru grupowania (gatunek, rola, dekada wydania) albo null w raporcie łącznym.
+ * @param loans           Wypożyczenia rozpoczęte w miesiącu.
+ * @param returns         Zwroty w miesiącu.
+ * @param averageLoanDays Średnia długość wypożyczeń zwróconych w miesiącu (null bez zwrotów).
+ * @param overdueRate     Udział zwrotów po terminie wśród zwrotów w miesiącu (null bez zwrotów).
+ */
+public record CirculationReportRow(
+        YearMonth month,
+        String group,
+        long loans,
+        long returns,
+        Double averageLoanDays,
+        Double overdueRate) {
+}
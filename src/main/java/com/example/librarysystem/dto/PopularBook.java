@@ -0,0 +1,13 @@
+package com.example.librarysystem.dto;
+
+import com.example.librarysystem.entity.Book;
+
+/**
+ * Pozycja rankingu najczęściej wypożyczanych książek.
+ *
+ * @param borrows Szacowana liczba wypożyczeń w wybranym oknie.
+ */
+public record PopularBook(
+        Book book,
+        long borrows) {
+}
@@ -0,0 +1,13 @@
+package com.example.librarysystem.dto;
+
+import com.example.librarysystem.entity.Book;
+
+/**
+ * Książka wypożyczana razem z inną ("czytelnicy, którzy wypożyczyli tę książkę, wypożyczyli też...").
+ *
+ * @param together Szacowana liczba czytelników, którzy wypożyczyli obie książki.
+ */
+public record RecommendedBook(
+        Book book,
+        long together) {
+}
@@ -0,0 +1,21 @@
+package com.example.librarysystem.dto;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Stan nagrania Java Flight Recorder uruchomionego przez endpoint administracyjny.
+ *
+ * @param state         Stan nagrania (NEW, RUNNING, STOPPED, CLOSED) lub NONE, jeśli nagrania nie ma.
+ * @param configuration Ustawienia JFR, z którymi nagranie wystartowało (np. "default", "profile").
+ * @param maxAge        Jak długo nagranie trzyma dane (starsze są nadpisywane).
+ */
+public record RecordingStatus(
+        String state,
+        String configuration,
+        Instant startTime,
+        Duration maxAge,
+        long sizeBytes) {
+
+    public static final RecordingStatus NONE = new RecordingStatus("NONE", null, null, null, 0);
+}
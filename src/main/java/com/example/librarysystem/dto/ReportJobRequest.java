@@ -0,0 +1,14 @@
+package com.example.librarysystem.dto;
+
+import java.util.Map;
+
+/**
+ * Zlecenie raportu wykonywanego w tle.
+ *
+ * @param type       BORROWING_HISTORY lub USER_STATISTICS.
+ * @param parameters Parametry raportu, np. {@code {"year": "2024"}}; może być null.
+ */
+public record ReportJobRequest(
+        String type,
+        Map<String, String> parameters) {
+}
@@ -0,0 +1,16 @@
+package com.example.librarysystem.dto;
+
+import com.example.librarysystem.entity.Role;
+
+/**
+ * Częściowa aktualizacja użytkownika (PATCH). Pola równe null pozostają bez zmian.
+ *
+ * @param password Nowe hasło w postaci jawnej - serwis je hashuje.
+ * @param version  Wersja użytkownika, którą klient widział - wymagana (optymistyczne blokowanie).
+ */
+public record UserPatch(
+        String username,
+        String password,
+        Role role,
+        Long version) {
+}
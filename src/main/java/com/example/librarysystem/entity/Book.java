@@ -5,6 +5,7 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.Hibernate;
 import java.util.Set;
 @JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
 @Entity
@@ -30,6 +31,29 @@ public class Book {
 
     private Integer publicationYear; // Rok wydania (opcjonalnie)
 
-    private String genre; // Gatunek (opcjonalnie)
-
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "genre_id")
+    private Genre genre; // Gatunek ze słownika (opcjonalnie), w JSON-ie jako nazwa
+
+    @Version
+    @Column(nullable = false)
+    private Long version; // Optymistyczne blokowanie - konflikt równoległych edycji kończy się 409
+
+    /**
+     * Kopia niezwiązana z sesją Hibernate - do cache, z którego czytają inne wątki. Gatunek musi być już wczytany
+     * (np. przez {@code @EntityGraph}); zamiast proxy kopia wskazuje samą encję gatunku, która nie ma leniwych pól
+     * ani setterów.
+     */
+    public Book detachedCopy() {
+        Book copy = new Book();
+        copy.id = id;
+        copy.title = title;
+        copy.author = author;
+        copy.isbn = isbn;
+        copy.publisher = publisher;
+        copy.publicationYear = publicationYear;
+        copy.genre = genre != null ? (Genre) Hibernate.unproxy(genre) : null;
+        copy.version = version;
+        return copy;
+    }
 }
\ No newline at end of file
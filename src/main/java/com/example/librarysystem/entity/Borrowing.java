@@ -5,6 +5,7 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.PartitionKey;
 
 import java.time.LocalDate;
 
@@ -43,7 +44,12 @@ public class Borrowing {
     @JsonIgnoreProperties({ "borrowings", "hibernateLazyInitializer", "handler" })
     private Book book;
 
-    @Column(nullable = false)
+    /**
+     * Klucz partycjonowania tabeli (partycje miesięczne). {@code @PartitionKey} dodaje go do warunku UPDATE/DELETE,
+     * więc zapis zmienia tylko jedną partycję zamiast szukać wiersza w indeksie każdej z nich.
+     */
+    @PartitionKey
+    @Column(nullable = false, updatable = false)
     private LocalDate borrowDate; // Data wypożyczenia
 
     @Column(nullable = false)
@@ -0,0 +1,50 @@
+package com.example.librarysystem.entity;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDate;
+
+/**
+ * Zwrócone wypożyczenie przeniesione z {@link Borrowing} do historii przez {@code BorrowingArchiver}.
+ * Wiersze tylko przybywają (zapisuje je wyłącznie archiwizacja, jednym zapytaniem SQL) - encja służy do odczytu.
+ */
+@Entity
+@Immutable
+@Table(name = "borrowing_history", indexes = @Index(name = "idx_borrowing_history_user_id", columnList = "user_id, borrow_date"))
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class BorrowingHistory {
+
+    /** ID wypożyczenia z tabeli borrowings - zachowane, więc odnośniki do wypożyczenia nadal działają. */
+    @Id
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "book_id", nullable = false)
+    private Book book;
+
+    @Column(nullable = false)
+    private LocalDate borrowDate;
+
+    @Column(nullable = false)
+    private LocalDate dueDate;
+
+    @Column(nullable = false)
+    private LocalDate returnDate;
+
+    /** Wypożyczenie w postaci zwracanej przez API - obiekt spoza kontekstu utrwalania, tylko do odczytu. */
+    public Borrowing toBorrowing() {
+        Borrowing borrowing = new Borrowing(user, book, borrowDate, dueDate);
+        borrowing.setId(id);
+        borrowing.setReturnDate(returnDate);
+        return borrowing;
+    }
+}
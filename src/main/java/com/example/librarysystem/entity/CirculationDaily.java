@@ -0,0 +1,59 @@
+package com.example.librarysystem.entity;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Dzienna suma wypożyczeń i zwrotów w jednej kombinacji wymiarów raportu. Wiersze zapisuje i zwiększa
+ * {@code CirculationRollupRefresher} zapytaniami natywnymi; encja opisuje tabelę dla schematu.
+ */
+@Entity
+@Table(name = "circulation_daily")
+@IdClass(CirculationDaily.Key.class)
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class CirculationDaily {
+
+    /** Klucz: dzień i wymiary; 0 w gatunku lub dekadzie oznacza brak wartości. */
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private LocalDate day;
+        private short genreId;
+        private short userRole;
+        private short publicationDecade;
+    }
+
+    @Id
+    private LocalDate day;
+
+    @Id
+    private short genreId;
+
+    @Id
+    private short userRole;
+
+    @Id
+    private short publicationDecade;
+
+    @Column(nullable = false)
+    private long loans;
+
+    @Column(nullable = false)
+    private long returns;
+
+    // Suma długości zakończonych wypożyczeń w dniach - średnia to loanDays / returns
+    @Column(nullable = false)
+    private long loanDays;
+
+    @Column(nullable = false)
+    private long overdueReturns;
+}
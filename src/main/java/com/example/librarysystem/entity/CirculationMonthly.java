@@ -0,0 +1,59 @@
+package com.example.librarysystem.entity;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Miesięczna suma wypożyczeń i zwrotów w jednej kombinacji wymiarów raportu, liczona z {@link CirculationDaily}
+ * przez {@code CirculationRollupRefresher}. Z tej tabeli czytają raporty miesięczne.
+ */
+@Entity
+@Table(name = "circulation_monthly")
+@IdClass(CirculationMonthly.Key.class)
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class CirculationMonthly {
+
+    /** Klucz: pierwszy dzień miesiąca i wymiary; 0 w gatunku lub dekadzie oznacza brak wartości. */
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private LocalDate month;
+        private short genreId;
+        private short userRole;
+        private short publicationDecade;
+    }
+
+    @Id
+    private LocalDate month;
+
+    @Id
+    private short genreId;
+
+    @Id
+    private short userRole;
+
+    @Id
+    private short publicationDecade;
+
+    @Column(nullable = false)
+    private long loans;
+
+    @Column(nullable = false)
+    private long returns;
+
+    // Suma długości zakończonych wypożyczeń w dniach - średnia to loanDays / returns
+    @Column(nullable = false)
+    private long loanDays;
+
+    @Column(nullable = false)
+    private long overdueReturns;
+}
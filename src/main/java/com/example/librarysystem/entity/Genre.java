@@ -0,0 +1,80 @@
+package com.example.librarysystem.entity;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.Locale;
+
+/**
+ * Słownik gatunków. Książka wskazuje gatunek kluczem SMALLINT zamiast powtarzać jego nazwę.
+ * Nazwa jest przechowywana w postaci znormalizowanej (bez białych znaków na brzegach,
+ * wielkimi literami), więc porównania nie muszą ignorować wielkości liter.
+ * W JSON-ie gatunek jest reprezentowany samą nazwą.
+ */
+@Entity
+@Table(name = "genre")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class Genre {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Short id;
+
+    @Column(nullable = false, unique = true)
+    private String name;
+
+    private Genre(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Tworzy (jeszcze niezapisany) gatunek o znormalizowanej nazwie.
+     * Kanoniczną instancję z bazy zwraca {@code GenreService}.
+     */
+    @JsonCreator
+    public static Genre of(String name) {
+        String normalized = normalize(name);
+        return normalized == null ? null : new Genre(normalized);
+    }
+
+    public static String normalize(String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        return name.trim().toUpperCase(Locale.ROOT);
+    }
+
+    // Jawny getter (a nie pole), żeby Jackson inicjalizował proxy Hibernate przed odczytem nazwy
+    @JsonValue
+    public String getName() {
+        return name;
+    }
+
+    @PostLoad
+    void internName() {
+        name = name.intern();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof Genre other && name != null && name.equals(other.getName());
+    }
+
+    @Override
+    public int hashCode() {
+        return name == null ? 0 : name.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.librarysystem.entity;
+
+import com.example.librarysystem.event.EntityChangedEvent;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Wiersz outboxa zmian - zapisywany w tej samej transakcji co zmiana encji, więc kanał {@code /api/changes}
+ * zawiera dokładnie zatwierdzone zmiany. Wiersze są tylko dopisywane i usuwane po okresie retencji.
+ */
+@Entity
+@Table(name = "change_outbox", indexes = {
+        @Index(name = "idx_change_outbox_tx_id", columnList = "tx_id, id"),
+        @Index(name = "idx_change_outbox_type_tx_id", columnList = "entity_type, tx_id, id")
+})
+@Getter
+@NoArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // ID transakcji zapisującej nadaje baza (xid8); wyznacza kolejność kanału zmian
+    @ColumnDefault("pg_current_xact_id()")
+    @Column(name = "tx_id", columnDefinition = "xid8", nullable = false, insertable = false, updatable = false)
+    private String txId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private EntityChangedEvent.Type entityType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private EntityChangedEvent.Operation operation;
+
+    @Column(nullable = false)
+    private long entityId;
+
+    private Long entityVersion;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(nullable = false)
+    private Map<String, Object> details;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    public OutboxEvent(EntityChangedEvent event, Instant createdAt) {
+        this.entityType = event.type();
+        this.operation = event.operation();
+        this.entityId = event.id();
+        this.entityVersion = event.version();
+        this.details = event.details();
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.librarysystem.entity;
+
+import com.example.librarysystem.event.ChangeCursor;
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Pozycja odświeżania tabel sum raportowych w outboxie zmian. Brak pozycji oznacza, że sumy trzeba zbudować
+ * od nowa z tabeli wypożyczeń.
+ */
+@Entity
+@Table(name = "report_refresh_state")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class ReportRefreshState {
+
+    @Id
+    @Column(length = 32)
+    private String name;
+
+    private Long txId;
+
+    private Long outboxId;
+
+    // Migawka (pg_snapshot jako tekst) z ostatniej odbudowy: zmiany widoczne w niej są już w sumach
+    @Column(columnDefinition = "text")
+    private String rebuildSnapshot;
+
+    @Column(nullable = false)
+    private Instant refreshedAt;
+
+    public ChangeCursor getPosition() {
+        return txId == null ? null : new ChangeCursor(txId, outboxId);
+    }
+
+    public void rebuilt(ChangeCursor position, String snapshot, Instant at) {
+        advance(position, at);
+        this.rebuildSnapshot = snapshot;
+    }
+
+    public void advance(ChangeCursor position, Instant at) {
+        this.txId = position.txId();
+        this.outboxId = position.id();
+        this.refreshedAt = at;
+    }
+
+    public void forgetRebuildSnapshot() {
+        this.rebuildSnapshot = null;
+    }
+}
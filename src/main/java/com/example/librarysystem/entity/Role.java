@@ -0,0 +1,62 @@
+package com.example.librarysystem.entity;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Locale;
+
+/**
+ * Rola użytkownika. W bazie przechowywana jako SMALLINT ({@link #getCode()}),
+ * w JSON-ie i w Spring Security jako nazwa uprawnienia, np. "ROLE_USER".
+ */
+public enum Role {
+    USER((short) 1),
+    ADMIN((short) 2);
+
+    private static final String PREFIX = "ROLE_";
+
+    private final short code;
+    private final String authority;
+
+    Role(short code) {
+        this.code = code;
+        this.authority = PREFIX + name();
+    }
+
+    public short getCode() {
+        return code;
+    }
+
+    @JsonValue
+    public String getAuthority() {
+        return authority;
+    }
+
+    public static Role fromCode(short code) {
+        for (Role role : values()) {
+            if (role.code == code) {
+                return role;
+            }
+        }
+        throw new IllegalArgumentException("Unknown role code: " + code);
+    }
+
+    /**
+     * Przyjmuje nazwę roli z prefiksem "ROLE_" lub bez niego, bez względu na wielkość liter.
+     */
+    @JsonCreator
+    public static Role fromString(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String name = value.trim().toUpperCase(Locale.ROOT);
+        if (name.startsWith(PREFIX)) {
+            name = name.substring(PREFIX.length());
+        }
+        try {
+            return valueOf(name);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown role: " + value);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.librarysystem.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Zapisuje {@link Role} jako kod SMALLINT zamiast tekstu.
+ */
+@Converter
+public class RoleConverter implements AttributeConverter<Role, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(Role role) {
+        return role == null ? null : role.getCode();
+    }
+
+    @Override
+    public Role convertToEntityAttribute(Short code) {
+        return code == null ? null : Role.fromCode(code);
+    }
+}
@@ -26,5 +26,10 @@ public class User {
     private String password; // Dodajemy pole na hasło
 
     @Column(nullable = false) // Rola nie powinna być pusta
-    private String role; // Np. "ROLE_USER", "ROLE_ADMIN"
+    @Convert(converter = RoleConverter.class)
+    private Role role; // W bazie jako SMALLINT, w JSON-ie jako "ROLE_USER" / "ROLE_ADMIN"
+
+    @Version
+    @Column(nullable = false)
+    private Long version; // Optymistyczne blokowanie - konflikt równoległych edycji kończy się 409
 }
\ No newline at end of file
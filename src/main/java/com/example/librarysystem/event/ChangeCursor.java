@@ -0,0 +1,40 @@
+package com.example.librarysystem.event;
+
+import com.example.librarysystem.entity.OutboxEvent;
+import com.example.librarysystem.exception.BadRequestException;
+
+/**
+ * Pozycja odbiorcy w kanale zmian: ostatnia odebrana zmiana jako para (ID transakcji, ID wiersza outboxa).
+ * Dla klienta to nieprzezroczysty token w postaci {@code <txId>-<id>}.
+ */
+public record ChangeCursor(long txId, long id) {
+
+    /** Początek kanału - najstarsza przechowywana zmiana. */
+    public static final ChangeCursor START = new ChangeCursor(0, 0);
+
+    /** Pozycja wiersza outboxa. */
+    public static ChangeCursor of(OutboxEvent row) {
+        return new ChangeCursor(Long.parseLong(row.getTxId()), row.getId());
+    }
+
+    public static ChangeCursor parse(String token) {
+        int separator = token.indexOf('-');
+        try {
+            if (separator > 0) {
+                ChangeCursor cursor = new ChangeCursor(Long.parseLong(token.substring(0, separator)),
+                        Long.parseLong(token.substring(separator + 1)));
+                if (cursor.txId >= 0 && cursor.id >= 0) {
+                    return cursor;
+                }
+            }
+        } catch (NumberFormatException e) {
+            // niżej jeden komunikat dla wszystkich błędnych tokenów
+        }
+        throw new BadRequestException("Invalid change cursor: " + token);
+    }
+
+    @Override
+    public String toString() {
+        return txId + "-" + id;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.librarysystem.event;
+
+import com.example.librarysystem.cache.CacheNames;
+import org.springframework.lang.Nullable;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Zdarzenie domenowe publikowane przez serwisy przy każdym zapisie encji. W tej samej transakcji trafia
+ * do outboxa ({@link OutboxWriter}), a po jej zatwierdzeniu unieważnia lokalne cache, przez {@code NOTIFY} -
+ * także cache pozostałych instancji.
+ *
+ * @param type      Rodzaj encji.
+ * @param operation Rodzaj zmiany.
+ * @param id        ID encji.
+ * @param version   Wersja po zmianie; null dla usunięć i encji bez wersji.
+ * @param details   Dodatkowe dane dla odbiorców kanału zmian (np. ID użytkownika i książki wypożyczenia).
+ */
+public record EntityChangedEvent(Type type, Operation operation, long id, @Nullable Long version, Map<String, Object> details) {
+
+    public enum Type {
+
+        BOOK(CacheNames.BOOKS),
+        USER(CacheNames.USERS),
+        BORROWING(null);
+
+        private final String cacheName;
+
+        Type(String cacheName) {
+            this.cacheName = cacheName;
+        }
+
+        /** @return Nazwa cache z encjami tego rodzaju (według ID) albo null, jeśli ich nie cache'ujemy. */
+        @Nullable
+        public String cacheName() {
+            return cacheName;
+        }
+    }
+
+    public enum Operation {
+        CREATED, UPDATED, DELETED, BORROWED, RETURNED
+    }
+
+    public static EntityChangedEvent book(Operation operation, long id, @Nullable Long version) {
+        return new EntityChangedEvent(Type.BOOK, operation, id, version, Map.of());
+    }
+
+    public static EntityChangedEvent user(Operation operation, long id, @Nullable Long version) {
+        return new EntityChangedEvent(Type.USER, operation, id, version, Map.of());
+    }
+
+    /**
+     * @param genreId    Gatunek książki (dla rankingów i raportów według gatunku); null, jeśli książka go nie ma.
+     * @param borrowDate Data wypożyczenia - odbiorcy liczący po dniach używają tej samej daty co tabela wypożyczeń.
+     */
+    public static EntityChangedEvent borrowed(long id, long userId, long bookId, @Nullable Short genreId, LocalDate borrowDate) {
+        Map<String, Object> details = genreId != null
+                ? Map.of("userId", userId, "bookId", bookId, "genreId", genreId, "borrowDate", borrowDate.toString())
+                : Map.of("userId", userId, "bookId", bookId, "borrowDate", borrowDate.toString());
+        return new EntityChangedEvent(Type.BORROWING, Operation.BORROWED, id, null, details);
+    }
+
+    public static EntityChangedEvent returned(long id, long userId, long bookId) {
+        return new EntityChangedEvent(Type.BORROWING, Operation.RETURNED, id, null, Map.of("userId", userId, "bookId", bookId));
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.librarysystem.event;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Ustawienia outboxa zmian i kanału {@code /api/changes}.
+ *
+ * @param retention        Jak długo przechowywać zmiany; odbiorca z kursorem starszym niż retencja traci zdarzenia.
+ * @param cleanupInterval  Odstęp między kolejnymi czyszczeniami przeterminowanych zmian.
+ * @param cleanupBatchSize Liczba wierszy usuwanych w jednej transakcji czyszczenia.
+ * @param pageSize         Domyślna liczba zmian na stronę kanału.
+ * @param maxPageSize      Największa liczba zmian na stronę, o jaką może poprosić odbiorca.
+ */
+@ConfigurationProperties(prefix = "library.outbox")
+public record OutboxProperties(
+        @DefaultValue("7d") Duration retention,
+        @DefaultValue("1h") Duration cleanupInterval,
+        @DefaultValue("5000") int cleanupBatchSize,
+        @DefaultValue("500") int pageSize,
+        @DefaultValue("2000") int maxPageSize) {
+}
@@ -0,0 +1,28 @@
+package com.example.librarysystem.event;
+
+import com.example.librarysystem.entity.OutboxEvent;
+import com.example.librarysystem.repository.OutboxEventRepository;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+/**
+ * Zapisuje każde {@link EntityChangedEvent} do outboxa w transakcji, która je opublikowała - wycofanie zmiany
+ * wycofuje też wiersz outboxa. Zdarzenie poza transakcją to błąd programisty, a nie zmiana do pominięcia.
+ */
+public class OutboxWriter {
+
+    private final OutboxEventRepository repository;
+
+    public OutboxWriter(OutboxEventRepository repository) {
+        this.repository = repository;
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onEntityChanged(EntityChangedEvent event) {
+        repository.save(new OutboxEvent(event, Instant.now()));
+    }
+}
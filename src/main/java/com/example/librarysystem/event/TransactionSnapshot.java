@@ -0,0 +1,30 @@
+package com.example.librarysystem.event;
+
+import java.util.Arrays;
+
+/**
+ * Migawka PostgreSQL ({@code pg_snapshot}, tekstowo {@code xmin:xmax:xip1,xip2,...}) - pozwala sprawdzić, czy zmiany
+ * danej transakcji były widoczne w migawce, bez pytania bazy o każdą transakcję.
+ * <p>
+ * Odbiorcy outboxa, którzy budują stan od nowa z tabel, zapamiętują migawkę odbudowy i przy doliczaniu pomijają
+ * wiersze jej widocznych transakcji, dopóki pozycja nie minie {@code xmax} - pozycja końca kanału
+ * ({@code findLastCommitted}) widzi tylko transakcje sprzed {@code xmin}.
+ */
+public record TransactionSnapshot(long xmin, long xmax, long[] inProgress) {
+
+    public static TransactionSnapshot parse(String text) {
+        String[] parts = text.split(":", -1);
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Invalid transaction snapshot: " + text);
+        }
+        long[] inProgress = parts[2].isEmpty()
+                ? new long[0]
+                : Arrays.stream(parts[2].split(",")).mapToLong(Long::parseLong).sorted().toArray();
+        return new TransactionSnapshot(Long.parseLong(parts[0]), Long.parseLong(parts[1]), inProgress);
+    }
+
+    /** Czy zatwierdzone zmiany transakcji {@code txId} były widoczne w migawce (jak {@code pg_visible_in_snapshot}). */
+    public boolean isVisible(long txId) {
+        return txId < xmin || (txId < xmax && Arrays.binarySearch(inProgress, txId) < 0);
+    }
+}
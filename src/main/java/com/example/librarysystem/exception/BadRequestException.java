@@ -0,0 +1,13 @@
+package com.example.librarysystem.exception;
+
+/**
+ * Błędne dane żądania (HTTP 400), np. brak wymaganego pola, nieprawidłowy kursor albo parametr raportu.
+ * Tylko ten wyjątek daje 400 z komunikatem - {@link IllegalArgumentException} z bibliotek czy JDK
+ * to błąd programu (500), a jego treść nie trafia do klienta.
+ */
+public class BadRequestException extends DomainException {
+
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
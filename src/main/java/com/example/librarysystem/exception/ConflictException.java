@@ -0,0 +1,12 @@
+package com.example.librarysystem.exception;
+
+/**
+ * Operacja koliduje z aktualnym stanem zasobu (HTTP 409), np. zajęta nazwa użytkownika,
+ * powtórzony ISBN, ponowny zwrot książki albo nieaktualna wersja przy edycji.
+ */
+public class ConflictException extends DomainException {
+
+    public ConflictException(String message) {
+        super(message);
+    }
+}
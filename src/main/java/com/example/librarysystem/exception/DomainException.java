@@ -0,0 +1,15 @@
+package com.example.librarysystem.exception;
+
+/**
+ * Bazowy wyjątek domenowy - sygnalizuje oczekiwany wynik biznesowy (brak zasobu, konflikt),
+ * a nie błąd programu.
+ * Nie zbiera śladu stosu ani nie pozwala na wyłączenie wyjątku (suppression): przy skanującym ruchu
+ * odpowiedzi 404 są częste, a wypełnianie stosu było najdroższą częścią ich obsługi.
+ * Mapowaniem na statusy HTTP zajmuje się {@link ApiExceptionHandler}.
+ */
+public abstract class DomainException extends RuntimeException {
+
+    protected DomainException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.librarysystem.exception;
+
+/**
+ * Żądany stan nie jest już dostępny (HTTP 410), np. token synchronizacji starszy niż przechowywana historia zmian.
+ */
+public class GoneException extends DomainException {
+
+    public GoneException(String message) {
+        super(message);
+    }
+}
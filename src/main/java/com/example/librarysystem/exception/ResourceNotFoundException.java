@@ -0,0 +1,30 @@
+package com.example.librarysystem.exception;
+
+/**
+ * Zasób o podanym ID nie istnieje (HTTP 404).
+ * Komunikat jest składany dopiero przy odczycie - większość braków kończy się samym statusem.
+ */
+public class ResourceNotFoundException extends DomainException {
+
+    private final String resource;
+    private final Object id;
+
+    public ResourceNotFoundException(String resource, Object id) {
+        super(null);
+        this.resource = resource;
+        this.id = id;
+    }
+
+    public String getResource() {
+        return resource;
+    }
+
+    public Object getId() {
+        return id;
+    }
+
+    @Override
+    public String getMessage() {
+        return resource + " not found with id: " + id;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.librarysystem.exception;
+
+import java.time.Duration;
+
+/**
+ * Serwis chwilowo nie przyjmuje pracy (HTTP 503 z nagłówkiem Retry-After), np. pełna kolejka raportów.
+ */
+public class ServiceBusyException extends DomainException {
+
+    private final Duration retryAfter;
+
+    public ServiceBusyException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
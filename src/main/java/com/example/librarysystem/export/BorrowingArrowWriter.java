@@ -0,0 +1,204 @@
+package com.example.librarysystem.export;
+
+import org.apache.arrow.compression.CommonsCompressionFactory;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.compression.CompressionUtil;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowFileWriter;
+import org.apache.arrow.vector.ipc.message.IpcOption;
+import org.apache.arrow.vector.types.DateUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.DictionaryEncoding;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Zapisuje wypożyczenia z atrybutami książki i czytelnika do pliku Arrow IPC: kolumnowo, porcjami po
+ * {@code batchRows} wierszy, z tekstami jako numerami w słownikach i buforami kompresowanymi ZSTD.
+ * W pamięci jest naraz tylko jedna porcja i słowniki katalogu.
+ */
+final class BorrowingArrowWriter implements AutoCloseable {
+
+    private static final ArrowType.Int INT64 = new ArrowType.Int(64, true);
+    private static final ArrowType.Int INT32 = new ArrowType.Int(32, true);
+    private static final ArrowType.Date DATE = new ArrowType.Date(DateUnit.DAY);
+
+    static final Schema SCHEMA = new Schema(List.of(
+            field("borrowing_id", INT64, false),
+            field("borrow_date", DATE, false),
+            field("due_date", DATE, false),
+            field("return_date", DATE, true),
+            field("book_id", INT64, false),
+            dictionaryField("title", ExportCatalog.TITLES, false),
+            dictionaryField("author", ExportCatalog.AUTHORS, false),
+            dictionaryField("isbn", ExportCatalog.ISBNS, true),
+            dictionaryField("genre", ExportCatalog.GENRES, true),
+            field("publication_year", INT32, true),
+            field("user_id", INT64, false),
+            dictionaryField("username", ExportCatalog.USERNAMES, false),
+            dictionaryField("user_role", ExportCatalog.ROLES, false)));
+
+    private final ExportCatalog catalog;
+    private final int batchRows;
+    private final DictionaryProvider.MapDictionaryProvider dictionaries;
+    private final VectorSchemaRoot root;
+    private final ArrowFileWriter writer;
+
+    private final BigIntVector borrowingId;
+    private final DateDayVector borrowDate;
+    private final DateDayVector dueDate;
+    private final DateDayVector returnDate;
+    private final BigIntVector bookId;
+    private final IntVector title;
+    private final IntVector author;
+    private final IntVector isbn;
+    private final IntVector genre;
+    private final IntVector publicationYear;
+    private final BigIntVector userId;
+    private final IntVector username;
+    private final IntVector userRole;
+
+    private int rows;
+    private long written;
+
+    /**
+     * @param metadata Metadane zapisywane w stopce pliku ({@link org.apache.arrow.vector.ipc.ArrowFileReader#getMetaData()}).
+     */
+    BorrowingArrowWriter(BufferAllocator allocator, ExportCatalog catalog, Path file, Map<String, String> metadata,
+                         int batchRows) throws IOException {
+        this.catalog = catalog;
+        this.batchRows = batchRows;
+        this.dictionaries = catalog.dictionaries(allocator);
+        VectorSchemaRoot created = null;
+        FileChannel channel = null;
+        try {
+            created = VectorSchemaRoot.create(SCHEMA, allocator);
+            for (FieldVector vector : created.getFieldVectors()) {
+                vector.setInitialCapacity(batchRows);
+            }
+            created.allocateNew();
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+            this.writer = new ArrowFileWriter(created, dictionaries, channel, metadata, IpcOption.DEFAULT,
+                    CommonsCompressionFactory.INSTANCE, CompressionUtil.CodecType.ZSTD, Optional.empty());
+            this.writer.start();
+        } catch (IOException | RuntimeException e) {
+            if (channel != null) {
+                channel.close();
+            }
+            if (created != null) {
+                created.close();
+            }
+            dictionaries.close();
+            throw e;
+        }
+        this.root = created;
+        this.borrowingId = (BigIntVector) root.getVector("borrowing_id");
+        this.borrowDate = (DateDayVector) root.getVector("borrow_date");
+        this.dueDate = (DateDayVector) root.getVector("due_date");
+        this.returnDate = (DateDayVector) root.getVector("return_date");
+        this.bookId = (BigIntVector) root.getVector("book_id");
+        this.title = (IntVector) root.getVector("title");
+        this.author = (IntVector) root.getVector("author");
+        this.isbn = (IntVector) root.getVector("isbn");
+        this.genre = (IntVector) root.getVector("genre");
+        this.publicationYear = (IntVector) root.getVector("publication_year");
+        this.userId = (BigIntVector) root.getVector("user_id");
+        this.username = (IntVector) root.getVector("username");
+        this.userRole = (IntVector) root.getVector("user_role");
+    }
+
+    void write(long id, long userIdValue, long bookIdValue, LocalDate borrowed, LocalDate due, LocalDate returned)
+            throws IOException {
+        ExportCatalog.BookAttributes book = catalog.book(bookIdValue);
+        ExportCatalog.UserAttributes user = catalog.user(userIdValue);
+        int row = rows;
+        borrowingId.set(row, id);
+        borrowDate.set(row, (int) borrowed.toEpochDay());
+        dueDate.set(row, (int) due.toEpochDay());
+        if (returned != null) {
+            returnDate.set(row, (int) returned.toEpochDay());
+        } else {
+            returnDate.setNull(row);
+        }
+        bookId.set(row, bookIdValue);
+        setIndex(title, row, book.title());
+        setIndex(author, row, book.author());
+        setIndex(isbn, row, book.isbn());
+        setIndex(genre, row, book.genre());
+        if (book.publicationYear() != null) {
+            publicationYear.set(row, book.publicationYear());
+        } else {
+            publicationYear.setNull(row);
+        }
+        userId.set(row, userIdValue);
+        setIndex(username, row, user.username());
+        setIndex(userRole, row, user.role());
+        if (++rows == batchRows) {
+            flush();
+        }
+    }
+
+    /** Zapisuje ostatnią porcję i stopkę pliku; zwraca liczbę zapisanych wierszy. */
+    long finish() throws IOException {
+        if (rows > 0) {
+            flush();
+        }
+        writer.end();
+        return written;
+    }
+
+    @Override
+    public void close() {
+        try {
+            writer.close();
+        } finally {
+            root.close();
+            dictionaries.close();
+        }
+    }
+
+    private void flush() throws IOException {
+        root.setRowCount(rows);
+        writer.writeBatch();
+        written += rows;
+        rows = 0;
+        // Bufory zostają na następną porcję
+        for (FieldVector vector : root.getFieldVectors()) {
+            vector.reset();
+        }
+    }
+
+    private static void setIndex(IntVector vector, int row, int index) {
+        if (index >= 0) {
+            vector.set(row, index);
+        } else {
+            vector.setNull(row);
+        }
+    }
+
+    private static Field field(String name, ArrowType type, boolean nullable) {
+        return new Field(name, new FieldType(nullable, type, null), null);
+    }
+
+    // W schemacie pliku kolumna ma typ wartości słownika (tekst), a w porcjach - numery pozycji
+    private static Field dictionaryField(String name, long dictionaryId, boolean nullable) {
+        DictionaryEncoding encoding = new DictionaryEncoding(dictionaryId, false, ExportCatalog.INDEX_TYPE);
+        return new Field(name, new FieldType(nullable, ExportCatalog.INDEX_TYPE, encoding), null);
+    }
+}
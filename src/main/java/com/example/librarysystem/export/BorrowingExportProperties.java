@@ -0,0 +1,27 @@
+package com.example.librarysystem.export;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Ustawienia eksportu wypożyczeń do plików Arrow IPC dla narzędzi analitycznych.
+ *
+ * @param enabled     Czy ta instancja eksportuje wypożyczenia (do swojego katalogu {@code directory}).
+ * @param directory   Katalog eksportu - pliki {@code year=RRRR/borrowings.arrow}; pusta wartość - katalog tymczasowy.
+ * @param interval    Jak często sprawdzać zmiany i przepisywać pliki zmienionych lat.
+ * @param batchRows   Liczba wierszy w jednej porcji (record batch) pliku - i w buforach eksportu.
+ * @param fetchSize   Liczba wierszy pobieranych z kursora naraz.
+ * @param memoryLimit Limit pamięci poza stertą na bufory Arrow (porcja wierszy i słowniki katalogu).
+ */
+@ConfigurationProperties(prefix = "library.borrowing-export")
+public record BorrowingExportProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("") String directory,
+        @DefaultValue("1h") Duration interval,
+        @DefaultValue("65536") int batchRows,
+        @DefaultValue("10000") int fetchSize,
+        @DefaultValue("256MB") DataSize memoryLimit) {
+}
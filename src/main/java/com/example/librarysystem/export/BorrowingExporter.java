@@ -0,0 +1,191 @@
+package com.example.librarysystem.export;
+
+import org.apache.arrow.compression.CommonsCompressionFactory;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.ipc.ArrowFileReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.example.librarysystem.repository.BorrowingHistoryRepository.ALL_BORROWINGS;
+
+/**
+ * Eksportuje wszystkie wypożyczenia (razem z historią) z atrybutami książek i czytelników do plików Arrow IPC,
+ * osobno dla każdego roku wypożyczenia: {@code <directory>/year=RRRR/borrowings.arrow}. Układ katalogów
+ * {@code klucz=wartość} rozumieją m.in. pyarrow.dataset i polars, które czytają tylko potrzebne lata i kolumny.
+ * <p>
+ * Plik roku powstaje od nowa tylko wtedy, gdy zmienił się jego odcisk: liczba wypożyczeń i zwrotów, największe ID
+ * i wersja katalogu (książki, czytelnicy, gatunki). Odcisk jest zapisany w stopce pliku, więc zamknięte lata
+ * zwykle są pomijane. Całość czyta jedna transakcja REPEATABLE READ, więc pliki i odciski pochodzą z tej samej
+ * migawki. Wypożyczenia idą kursorem, porcjami po {@code batchRows} wierszy.
+ */
+public class BorrowingExporter {
+
+    private static final Logger log = LoggerFactory.getLogger(BorrowingExporter.class);
+
+    static final String FILE_NAME = "borrowings.arrow";
+    static final String FINGERPRINT = "library.export.fingerprint";
+    private static final String YEAR_PREFIX = "year=";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    // Zmiana układu kolumn wymusza przepisanie wszystkich lat
+    private static final String FORMAT_VERSION = "1";
+
+    private static final String YEARS_QUERY = "SELECT CAST(extract(YEAR FROM borrow_date) AS int), count(*), "
+            + "count(return_date), max(id) FROM " + ALL_BORROWINGS + " b GROUP BY 1";
+    // Wersje rosną przy każdej edycji, więc suma zmienia się po każdej zmianie książki lub czytelnika
+    private static final String CATALOG_VERSION_QUERY = """
+            SELECT (SELECT count(*) || ':' || COALESCE(sum(version), 0) FROM book)
+                       || '/' || (SELECT count(*) || ':' || COALESCE(sum(version), 0) FROM library_users)
+                       || '/' || (SELECT md5(COALESCE(string_agg(id || '=' || name, ',' ORDER BY id), '')) FROM genre)""";
+    private static final String YEAR_QUERY = "SELECT id, user_id, book_id, borrow_date, due_date, return_date FROM "
+            + ALL_BORROWINGS + " b WHERE borrow_date >= ? AND borrow_date < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate snapshotTransaction;
+    private final BufferAllocator allocator;
+    private final Path directory;
+    private final int batchRows;
+    private final int fetchSize;
+
+    /**
+     * @param snapshotTransaction Transakcja tylko do odczytu z izolacją REPEATABLE READ.
+     * @param allocator           Bufory Arrow z limitem pamięci - zamykany przez wywołującego.
+     */
+    public BorrowingExporter(JdbcTemplate jdbcTemplate, TransactionTemplate snapshotTransaction, BufferAllocator allocator,
+                             Path directory, int batchRows, int fetchSize) throws IOException {
+        if (batchRows < 1) {
+            throw new IllegalArgumentException("batchRows must be positive");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.snapshotTransaction = snapshotTransaction;
+        this.allocator = allocator;
+        this.directory = Files.createDirectories(directory);
+        this.batchRows = batchRows;
+        this.fetchSize = fetchSize;
+    }
+
+    /** Jeden cykl eksportu; zwraca liczbę przepisanych lat. */
+    public synchronized int export() {
+        long started = System.nanoTime();
+        long[] rows = new long[1];
+        int[] skipped = new int[1];
+        Integer written = snapshotTransaction.execute(status -> {
+            String catalogVersion = jdbcTemplate.queryForObject(CATALOG_VERSION_QUERY, String.class);
+            Map<Integer, String> fingerprints = new TreeMap<>();
+            jdbcTemplate.query(YEARS_QUERY, rs -> {
+                fingerprints.put(rs.getInt(1), String.join(";", FORMAT_VERSION,
+                        rs.getLong(2) + ":" + rs.getLong(3) + ":" + rs.getLong(4), catalogVersion));
+            });
+            ExportCatalog catalog = null;
+            int years = 0;
+            for (Map.Entry<Integer, String> year : fingerprints.entrySet()) {
+                Path file = directory.resolve(YEAR_PREFIX + year.getKey()).resolve(FILE_NAME);
+                if (year.getValue().equals(readFingerprint(file))) {
+                    skipped[0]++;
+                    continue;
+                }
+                if (catalog == null) {
+                    catalog = ExportCatalog.load(jdbcTemplate);
+                }
+                rows[0] += writeYear(year.getKey(), year.getValue(), catalog, file);
+                years++;
+            }
+            removeYearsOtherThan(fingerprints);
+            return years;
+        });
+        int years = written != null ? written : 0;
+        if (years > 0) {
+            log.info("Borrowings exported to {}: {} years rewritten ({} rows), {} unchanged, in {} ms", directory, years,
+                    rows[0], skipped[0], (System.nanoTime() - started) / 1_000_000);
+        }
+        return years;
+    }
+
+    private long writeYear(int year, String fingerprint, ExportCatalog catalog, Path file) {
+        Path temporary = file.resolveSibling(FILE_NAME + TEMPORARY_SUFFIX);
+        try {
+            Files.createDirectories(file.getParent());
+            long rows;
+            try (BorrowingArrowWriter writer = new BorrowingArrowWriter(allocator, catalog, temporary,
+                    Map.of(FINGERPRINT, fingerprint), batchRows)) {
+                jdbcTemplate.query(connection -> {
+                    PreparedStatement statement = connection.prepareStatement(YEAR_QUERY);
+                    // Kursor (transakcja bez autocommitu) - w pamięci najwyżej fetchSize wierszy
+                    statement.setFetchSize(fetchSize);
+                    // Zakres dat ogranicza odczyt do partycji tego roku
+                    statement.setObject(1, LocalDate.of(year, 1, 1));
+                    statement.setObject(2, LocalDate.of(year + 1, 1, 1));
+                    return statement;
+                }, rs -> {
+                    Date returned = rs.getDate(6);
+                    try {
+                        writer.write(rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getDate(4).toLocalDate(),
+                                rs.getDate(5).toLocalDate(), returned != null ? returned.toLocalDate() : null);
+                    } catch (IOException e) {
+                        throw new SQLException("Cannot write borrowings export", e);
+                    }
+                });
+                rows = writer.finish();
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return rows;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot export borrowings of " + year + " to " + file, e);
+        } finally {
+            deleteQuietly(temporary);
+        }
+    }
+
+    // Odcisk z poprzedniego eksportu; brak pliku lub plik nieczytelny - null, czyli rok do przepisania
+    private String readFingerprint(Path file) {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file);
+             ArrowFileReader reader = new ArrowFileReader(channel, allocator, CommonsCompressionFactory.INSTANCE)) {
+            reader.initialize();
+            return reader.getMetaData().get(FINGERPRINT);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Cannot read borrowings export {}, rewriting: {}", file, e.toString());
+            return null;
+        }
+    }
+
+    // Lata, których już nie ma w bazie (np. po usunięciu danych testowych)
+    private void removeYearsOtherThan(Map<Integer, String> years) {
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, YEAR_PREFIX + "*")) {
+            for (Path entry : entries) {
+                String year = entry.getFileName().toString().substring(YEAR_PREFIX.length());
+                if (!year.matches("\\d+") || !years.containsKey(Integer.parseInt(year))) {
+                    deleteQuietly(entry.resolve(FILE_NAME));
+                    deleteQuietly(entry);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Cannot clean up borrowings export in {}: {}", directory, e.toString());
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("Cannot delete {}: {}", file, e.toString());
+        }
+    }
+}
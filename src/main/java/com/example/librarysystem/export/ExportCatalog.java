@@ -0,0 +1,144 @@
+package com.example.librarysystem.export;
+
+import com.example.librarysystem.entity.Role;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.DictionaryEncoding;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Atrybuty książek i czytelników do eksportu, z tekstami zamienionymi na pozycje w słownikach kolumn.
+ * Pliki zapisują każdy tekst raz (w słowniku), a w wierszach tylko jego numer. Wypożyczenia czytane są więc
+ * bez złączeń, same ID, a pamięć eksportu zależy od wielkości katalogu, nie od liczby wypożyczeń.
+ */
+final class ExportCatalog {
+
+    static final ArrowType.Int INDEX_TYPE = new ArrowType.Int(32, true);
+
+    static final long TITLES = 0;
+    static final long AUTHORS = 1;
+    static final long ISBNS = 2;
+    static final long GENRES = 3;
+    static final long USERNAMES = 4;
+    static final long ROLES = 5;
+
+    private static final String BOOKS_QUERY = """
+            SELECT b.id, b.title, b.author, b.isbn, g.name, b.publication_year
+            FROM book b
+                     LEFT JOIN genre g ON g.id = b.genre_id""";
+    private static final String USERS_QUERY = "SELECT id, username, role FROM library_users";
+
+    /** Pozycje atrybutów książki w słownikach; -1 - brak wartości. */
+    record BookAttributes(int title, int author, int isbn, int genre, Integer publicationYear) {
+    }
+
+    record UserAttributes(int username, int role) {
+    }
+
+    private final DictionaryColumn titles = new DictionaryColumn(TITLES);
+    private final DictionaryColumn authors = new DictionaryColumn(AUTHORS);
+    private final DictionaryColumn isbns = new DictionaryColumn(ISBNS);
+    private final DictionaryColumn genres = new DictionaryColumn(GENRES);
+    private final DictionaryColumn usernames = new DictionaryColumn(USERNAMES);
+    private final DictionaryColumn roles = new DictionaryColumn(ROLES);
+    private final Map<Long, BookAttributes> books = new HashMap<>();
+    private final Map<Long, UserAttributes> users = new HashMap<>();
+
+    /** Cały katalog - w transakcji eksportu, żeby obejmował wszystkie książki i czytelników z jej wypożyczeń. */
+    static ExportCatalog load(JdbcTemplate jdbcTemplate) {
+        ExportCatalog catalog = new ExportCatalog();
+        jdbcTemplate.query(BOOKS_QUERY, rs -> {
+            catalog.addBook(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5),
+                    (Integer) rs.getObject(6));
+        });
+        jdbcTemplate.query(USERS_QUERY, rs -> {
+            catalog.addUser(rs.getLong(1), rs.getString(2), Role.fromCode(rs.getShort(3)));
+        });
+        return catalog;
+    }
+
+    void addBook(long id, String title, String author, String isbn, String genre, Integer publicationYear) {
+        books.put(id, new BookAttributes(titles.indexOf(title), authors.indexOf(author), isbns.indexOf(isbn),
+                genres.indexOf(genre), publicationYear));
+    }
+
+    void addUser(long id, String username, Role role) {
+        users.put(id, new UserAttributes(usernames.indexOf(username), roles.indexOf(role.name())));
+    }
+
+    BookAttributes book(long id) {
+        BookAttributes book = books.get(id);
+        if (book == null) {
+            throw new IllegalStateException("Book " + id + " is missing from the export catalog");
+        }
+        return book;
+    }
+
+    UserAttributes user(long id) {
+        UserAttributes user = users.get(id);
+        if (user == null) {
+            throw new IllegalStateException("User " + id + " is missing from the export catalog");
+        }
+        return user;
+    }
+
+    /** Słowniki wszystkich kolumn jako wektory Arrow - własność wywołującego, który je zamyka. */
+    DictionaryProvider.MapDictionaryProvider dictionaries(BufferAllocator allocator) {
+        DictionaryProvider.MapDictionaryProvider provider = new DictionaryProvider.MapDictionaryProvider();
+        try {
+            for (DictionaryColumn column : List.of(titles, authors, isbns, genres, usernames, roles)) {
+                provider.put(column.toDictionary(allocator));
+            }
+        } catch (RuntimeException e) {
+            provider.close();
+            throw e;
+        }
+        return provider;
+    }
+
+    /** Różne wartości kolumny w kolejności pierwszego wystąpienia. */
+    private static final class DictionaryColumn {
+
+        private final long id;
+        private final Map<String, Integer> indexByValue = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        DictionaryColumn(long id) {
+            this.id = id;
+        }
+
+        int indexOf(String value) {
+            if (value == null) {
+                return -1;
+            }
+            return indexByValue.computeIfAbsent(value, added -> {
+                values.add(added);
+                return values.size() - 1;
+            });
+        }
+
+        Dictionary toDictionary(BufferAllocator allocator) {
+            VarCharVector vector = new VarCharVector("dictionary-" + id, allocator);
+            try {
+                vector.allocateNew(values.size());
+                for (int i = 0; i < values.size(); i++) {
+                    vector.setSafe(i, values.get(i).getBytes(StandardCharsets.UTF_8));
+                }
+                vector.setValueCount(values.size());
+            } catch (RuntimeException e) {
+                vector.close();
+                throw e;
+            }
+            return new Dictionary(vector, new DictionaryEncoding(id, false, INDEX_TYPE));
+        }
+    }
+}
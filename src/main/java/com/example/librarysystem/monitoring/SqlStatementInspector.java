@@ -0,0 +1,19 @@
+package com.example.librarysystem.monitoring;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Przekazuje każdą instrukcję przygotowaną przez Hibernate do {@link SqlStatistics} bieżącego wątku.
+ * SQL nie jest zmieniany.
+ */
+public class SqlStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        SqlStatistics statistics = SqlStatistics.current();
+        if (statistics != null) {
+            statistics.statementPrepared(sql);
+        }
+        return sql;
+    }
+}
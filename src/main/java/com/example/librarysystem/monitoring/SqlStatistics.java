@@ -0,0 +1,75 @@
+package com.example.librarysystem.monitoring;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Liczniki zapytań SQL bieżącego wątku: ile instrukcji przygotował Hibernate, ile razy powtórzyła się
+ * każda z nich i ile trwało ich wykonanie. Zbieranie trwa od {@link #start()} do {@link #stop()}
+ * (robi to {@link SqlStatisticsFilter} dla każdego żądania HTTP); poza tym zakresem zapytania nie są liczone.
+ * <p>
+ * Hibernate przekazuje SQL z parametrami jako {@code ?}, więc ten sam tekst instrukcji to ten sam kształt
+ * zapytania - wielokrotne powtórzenie jednego kształtu to typowy objaw problemu N+1.
+ */
+public final class SqlStatistics {
+
+    private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+
+    private final Map<String, Integer> statements = new HashMap<>();
+    private int statementCount;
+    private long executionNanos;
+
+    private SqlStatistics() {
+    }
+
+    /** Rozpoczyna zbieranie w bieżącym wątku (poprzednie, niezakończone liczniki są porzucane). */
+    public static SqlStatistics start() {
+        SqlStatistics statistics = new SqlStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    /** Bieżące liczniki lub {@code null}, jeśli w tym wątku nic nie jest zbierane. */
+    public static SqlStatistics current() {
+        return CURRENT.get();
+    }
+
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    void statementPrepared(String sql) {
+        statementCount++;
+        statements.merge(sql, 1, Integer::sum);
+    }
+
+    void statementExecuted(long nanos) {
+        executionNanos += nanos;
+    }
+
+    public int statementCount() {
+        return statementCount;
+    }
+
+    public Duration executionTime() {
+        return Duration.ofNanos(executionNanos);
+    }
+
+    /** Liczba wystąpień każdej instrukcji (tylko do odczytu). */
+    public Map<String, Integer> statements() {
+        return Collections.unmodifiableMap(statements);
+    }
+
+    /** Najczęściej powtarzana instrukcja lub {@code null}, jeśli nie było żadnej. */
+    public Map.Entry<String, Integer> mostRepeated() {
+        Map.Entry<String, Integer> max = null;
+        for (Map.Entry<String, Integer> entry : statements.entrySet()) {
+            if (max == null || entry.getValue() > max.getValue()) {
+                max = entry;
+            }
+        }
+        return max;
+    }
+}
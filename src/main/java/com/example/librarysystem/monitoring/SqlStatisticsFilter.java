@@ -0,0 +1,84 @@
+package com.example.librarysystem.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Liczy zapytania SQL i łączny czas bazy dla każdego żądania HTTP. Żądania z nadmierną liczbą instrukcji
+ * lub z wielokrotnie powtórzoną instrukcją (N+1) są logowane jako ostrzeżenie, z pozostałych trafia do logu
+ * losowa próbka. Liczby instrukcji i czasy trafiają też do metryk {@code library.http.sql.*} z tagiem endpointu.
+ * <p>
+ * Jeśli liczniki są już aktywne (np. założył je test przez {@code QueryBudget}), filtr ich nie podmienia
+ * i niczego nie raportuje.
+ */
+public class SqlStatisticsFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlStatisticsFilter.class);
+
+    private final SqlStatisticsProperties properties;
+    private final MeterRegistry registry;
+
+    public SqlStatisticsFilter(SqlStatisticsProperties properties, MeterRegistry registry) {
+        this.properties = properties;
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (SqlStatistics.current() != null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        SqlStatistics statistics = SqlStatistics.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SqlStatistics.stop();
+            report(request, response, statistics);
+        }
+    }
+
+    private void report(HttpServletRequest request, HttpServletResponse response, SqlStatistics statistics) {
+        // Wzorzec ścieżki (np. /api/books/{id}) zamiast konkretnego URI - nie mnożymy serii metryk
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        DistributionSummary.builder("library.http.sql.statements")
+                .description("SQL statements executed per HTTP request")
+                .tags("method", request.getMethod(), "uri", uri)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(statistics.statementCount());
+        Timer.builder("library.http.sql.time")
+                .description("Total SQL execution time per HTTP request")
+                .tags("method", request.getMethod(), "uri", uri)
+                .register(registry)
+                .record(statistics.executionTime());
+
+        Map.Entry<String, Integer> mostRepeated = statistics.mostRepeated();
+        int repeats = mostRepeated != null ? mostRepeated.getValue() : 0;
+        if (statistics.statementCount() > properties.maxStatements() || (repeats > 0 && repeats >= properties.maxRepeats())) {
+            log.warn("SQL budget exceeded (possible N+1): method={} uri={} path={} status={} statements={} dbTimeMs={} "
+                            + "maxRepeats={} repeatedSql=\"{}\"",
+                    request.getMethod(), uri, request.getRequestURI(), response.getStatus(), statistics.statementCount(),
+                    statistics.executionTime().toMillis(), repeats, mostRepeated.getKey());
+        } else if (log.isInfoEnabled() && ThreadLocalRandom.current().nextDouble() < properties.sampleRate()) {
+            log.info("SQL per request: method={} uri={} status={} statements={} dbTimeMs={} maxRepeats={}",
+                    request.getMethod(), uri, response.getStatus(), statistics.statementCount(),
+                    statistics.executionTime().toMillis(), repeats);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.librarysystem.monitoring;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Ustawienia liczenia zapytań SQL na żądanie HTTP.
+ *
+ * @param enabled       Czy liczyć zapytania (wyłączenie usuwa też hooki z Hibernate).
+ * @param maxStatements Powyżej tylu instrukcji w jednym żądaniu logujemy ostrzeżenie.
+ * @param maxRepeats    Od tylu powtórzeń tej samej instrukcji w jednym żądaniu logujemy podejrzenie N+1.
+ * @param sampleRate    Jaki ułamek pozostałych żądań (0-1) trafia do logu jako podsumowanie.
+ */
+@ConfigurationProperties(prefix = "library.sql-statistics")
+public record SqlStatisticsProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("20") int maxStatements,
+        @DefaultValue("5") int maxRepeats,
+        @DefaultValue("0.01") double sampleRate) {
+}
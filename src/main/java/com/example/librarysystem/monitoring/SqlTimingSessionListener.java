@@ -0,0 +1,40 @@
+package com.example.librarysystem.monitoring;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Mierzy czas wykonania instrukcji JDBC w sesji Hibernate i dolicza go do {@link SqlStatistics}
+ * bieżącego wątku. Hibernate tworzy osobną instancję dla każdej sesji
+ * ({@code hibernate.session.events.auto}), a sesja jest używana przez jeden wątek naraz.
+ */
+public class SqlTimingSessionListener extends BaseSessionEventListener {
+
+    private long executionStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executionStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        record();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        executionStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        record();
+    }
+
+    private void record() {
+        SqlStatistics statistics = SqlStatistics.current();
+        if (statistics != null) {
+            statistics.statementExecuted(System.nanoTime() - executionStart);
+        }
+    }
+}
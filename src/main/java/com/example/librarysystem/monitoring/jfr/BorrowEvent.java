@@ -0,0 +1,31 @@
+package com.example.librarysystem.monitoring.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Wypożyczenie książki ({@code BorrowingService.borrowBook}). Czas obejmuje odczyty i zapis,
+ * bez zatwierdzenia transakcji, które następuje po wyjściu z metody.
+ */
+@Name("library.Borrow")
+@Label("Borrow")
+@Category({"Library", "Circulation"})
+@Description("Borrowing a book")
+public class BorrowEvent extends LibraryEvent {
+
+    @Label("User ID")
+    public long userId;
+
+    @Label("Book ID")
+    public long bookId;
+
+    @Label("Borrowing ID")
+    public long borrowingId;
+
+    public BorrowEvent(Long userId, Long bookId) {
+        this.userId = id(userId);
+        this.bookId = id(bookId);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.librarysystem.monitoring.jfr;
+
+import com.example.librarysystem.dto.RecordingStatus;
+import com.example.librarysystem.exception.BadRequestException;
+import com.example.librarysystem.exception.ConflictException;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+
+/**
+ * Nagranie Java Flight Recorder uruchamiane na żądanie (np. podczas incydentu): start, zrzut bieżących danych
+ * bez przerywania nagrania i stop ze zrzutem. Naraz działa najwyżej jedno nagranie.
+ * Zrzuty trafiają do plików tymczasowych - usunięcie po wysłaniu należy do wywołującego.
+ */
+public class FlightRecorderService {
+
+    private static final Logger log = LoggerFactory.getLogger(FlightRecorderService.class);
+    private static final String RECORDING_NAME = "library-on-demand";
+
+    private Recording recording;
+    private String configurationName;
+
+    /**
+     * @param configuration Nazwa ustawień JFR: "default" (narzut ok. 1%) lub "profile" (więcej szczegółów).
+     * @param maxAge        Jak długo trzymać dane nagrania (bufor cykliczny na dysku).
+     */
+    public synchronized RecordingStatus start(String configuration, Duration maxAge) {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            throw new ConflictException("A recording is already running.");
+        }
+        Configuration settings;
+        try {
+            settings = Configuration.getConfiguration(configuration);
+        } catch (IOException | ParseException e) {
+            throw new BadRequestException("Unknown JFR configuration: " + configuration);
+        }
+        closeCurrent();
+        Recording newRecording = new Recording(settings);
+        newRecording.setName(RECORDING_NAME);
+        newRecording.setToDisk(true);
+        newRecording.setMaxAge(maxAge);
+        newRecording.start();
+        recording = newRecording;
+        configurationName = configuration;
+        log.info("Started JFR recording with '{}' settings, max age {}", configuration, maxAge);
+        return status();
+    }
+
+    /** Zapisuje dotychczasowe dane do pliku; nagranie trwa dalej. */
+    public synchronized Path dump() {
+        requireRunning();
+        return dumpToFile();
+    }
+
+    /** Zatrzymuje nagranie i zwraca plik z jego danymi. */
+    public synchronized Path stop() {
+        requireRunning();
+        recording.stop();
+        Path file = dumpToFile();
+        closeCurrent();
+        log.info("Stopped JFR recording, dumped to {}", file);
+        return file;
+    }
+
+    public synchronized RecordingStatus status() {
+        if (recording == null) {
+            return RecordingStatus.NONE;
+        }
+        return new RecordingStatus(recording.getState().name(), configurationName, recording.getStartTime(),
+                recording.getMaxAge(), recording.getSize());
+    }
+
+    private void requireRunning() {
+        if (recording == null || recording.getState() != RecordingState.RUNNING) {
+            throw new ConflictException("No recording is running.");
+        }
+    }
+
+    private Path dumpToFile() {
+        try {
+            Path file = Files.createTempFile("library-", ".jfr");
+            recording.dump(file);
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not dump JFR recording", e);
+        }
+    }
+
+    private void closeCurrent() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+            configurationName = null;
+        }
+    }
+}
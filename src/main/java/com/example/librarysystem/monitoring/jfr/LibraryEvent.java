@@ -0,0 +1,25 @@
+package com.example.librarysystem.monitoring.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * Wspólna baza zdarzeń JFR aplikacji. Zdarzenia są zapisywane tylko podczas nagrania
+ * (zob. {@link FlightRecorderService}); poza nim {@code commit()} kończy się na sprawdzeniu flagi.
+ */
+abstract class LibraryEvent extends Event {
+
+    @Label("Error")
+    @Description("Exception class if the operation failed")
+    public String error;
+
+    /** Oznacza zdarzenie jako zakończone wyjątkiem. */
+    public void failed(Throwable e) {
+        error = e.getClass().getSimpleName();
+    }
+
+    static long id(Long id) {
+        return id != null ? id : 0;
+    }
+}
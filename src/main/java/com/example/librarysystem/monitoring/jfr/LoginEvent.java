@@ -0,0 +1,24 @@
+package com.example.librarysystem.monitoring.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Odczyt użytkownika przy logowaniu ({@code UserService.loadUserByUsername}).
+ * Weryfikacja hasła to osobne zdarzenie {@link PasswordEncoderEvent}.
+ * <p>
+ * Nagrania można pobrać przez API, więc zdarzenie nie zawiera wpisanej nazwy - tylko identyfikator znalezionego
+ * użytkownika (0 dla nieznanej nazwy).
+ */
+@Name("library.Login")
+@Label("Login User Lookup")
+@Category({"Library", "Security"})
+@Description("Loading a user by username during authentication")
+public class LoginEvent extends LibraryEvent {
+
+    @Label("User ID")
+    @Description("ID of the user found, 0 if the username is unknown")
+    public long userId;
+}
@@ -0,0 +1,26 @@
+package com.example.librarysystem.monitoring.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Haszowanie lub weryfikacja hasła (BCrypt).
+ */
+@Name("library.PasswordEncoder")
+@Label("Password Hashing")
+@Category({"Library", "Security"})
+@Description("BCrypt password encoding or verification")
+public class PasswordEncoderEvent extends LibraryEvent {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Matched")
+    public boolean matched;
+
+    public PasswordEncoderEvent(String operation) {
+        this.operation = operation;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.librarysystem.monitoring.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Wywołanie metody repozytorium Spring Data. Zdarzenie jest częste, więc bez śladu stosu,
+ * a pola wypełniamy dopiero, gdy nagranie rzeczywiście je zapisze ({@code shouldCommit()}).
+ */
+@Name("library.RepositoryCall")
+@Label("Repository Call")
+@Category({"Library", "Persistence"})
+@Description("Spring Data repository method invocation")
+@StackTrace(false)
+public class RepositoryCallEvent extends LibraryEvent {
+
+    @Label("Repository")
+    public Class<?> repository;
+
+    @Label("Method")
+    public String method;
+}
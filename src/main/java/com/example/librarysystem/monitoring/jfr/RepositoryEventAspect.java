@@ -0,0 +1,40 @@
+package com.example.librarysystem.monitoring.jfr;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * Emituje {@link RepositoryCallEvent} dla każdego wywołania repozytorium Spring Data.
+ */
+@Aspect
+public class RepositoryEventAspect {
+
+    // Interfejs repozytorium (np. BookRepository) dla klasy proxy Spring Data - jest pierwszym z jej interfejsów
+    private static final ClassValue<Class<?>> REPOSITORY_INTERFACE = new ClassValue<>() {
+        @Override
+        protected Class<?> computeValue(Class<?> proxyClass) {
+            Class<?>[] interfaces = proxyClass.getInterfaces();
+            return interfaces.length > 0 ? interfaces[0] : proxyClass;
+        }
+    };
+
+    @Around("this(org.springframework.data.repository.Repository)")
+    public Object recordCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        RepositoryCallEvent event = new RepositoryCallEvent();
+        event.begin();
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            event.failed(e);
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.repository = REPOSITORY_INTERFACE.get(joinPoint.getTarget().getClass());
+                event.method = joinPoint.getSignature().getName();
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.librarysystem.monitoring.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Zwrot książki ({@code BorrowingService.returnBook}), bez zatwierdzenia transakcji.
+ */
+@Name("library.Return")
+@Label("Return")
+@Category({"Library", "Circulation"})
+@Description("Returning a borrowed book")
+public class ReturnEvent extends LibraryEvent {
+
+    @Label("Borrowing ID")
+    public long borrowingId;
+
+    public ReturnEvent(Long borrowingId) {
+        this.borrowingId = id(borrowingId);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.librarysystem.partition;
+
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Clock;
+import java.time.LocalDate;
+
+/**
+ * Zapas partycji tabeli {@code borrowings}: DOWN, gdy najdalsza partycja kończy się za mniej niż miesiąc.
+ * Tabela nie ma partycji domyślnej, więc wypożyczenie z miesiąca bez partycji kończy się błędem, a kolejne miesiące
+ * zakłada tylko {@link BorrowingPartitionMaintainer} - wyłączony albo od dawna przegrywający z {@code lock-timeout}
+ * zostawiłby aplikację bez partycji. Sprawdzane na każdej instancji, także tej, która partycji nie zakłada.
+ */
+public class BorrowingPartitionHealthIndicator extends AbstractHealthIndicator {
+
+    // Górna granica zakresu z "FOR VALUES FROM ('2024-05-01') TO ('2024-06-01')"; daty ISO porównują się jak tekst
+    private static final String COVERED_UNTIL = """
+            SELECT max(substring(pg_get_expr(c.relpartbound, c.oid) FROM 'TO \\(''([0-9-]+)''\\)'))
+            FROM pg_inherits i
+                     JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = to_regclass(?)
+              AND NOT i.inhdetachpending""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock;
+
+    public BorrowingPartitionHealthIndicator(JdbcTemplate jdbcTemplate, Clock clock) {
+        super("Borrowing partitions check failed");
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        String table = BorrowingPartitionMaintainer.TABLE;
+        if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(BorrowingPartitionMaintainer.IS_PARTITIONED, Boolean.class, table))) {
+            builder.up().withDetail("partitioned", false);
+            return;
+        }
+        String coveredUntil = jdbcTemplate.queryForObject(COVERED_UNTIL, String.class, table);
+        LocalDate required = LocalDate.now(clock).plusMonths(1);
+        builder.withDetail("partitioned", true).withDetail("coveredUntil", String.valueOf(coveredUntil));
+        if (coveredUntil == null || !LocalDate.parse(coveredUntil).isAfter(required)) {
+            builder.down().withDetail("required", required.toString());
+        } else {
+            builder.up();
+        }
+    }
+}
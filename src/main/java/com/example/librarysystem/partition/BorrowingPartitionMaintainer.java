@@ -0,0 +1,204 @@
+package com.example.librarysystem.partition;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Utrzymuje miesięczne partycje tabeli {@code borrowings} (migracja V8):
+ * <ul>
+ *     <li>zakłada puste partycje na {@code monthsAhead} miesięcy naprzód - wstawienie wypożyczenia z miesiąca bez
+ *     partycji kończyłoby się błędem. Partycja powstaje jako osobna tabela i jest dołączana przez
+ *     {@code ATTACH PARTITION}, które (w przeciwieństwie do {@code CREATE TABLE ... PARTITION OF}) nie blokuje
+ *     odczytów ani zapisów tabeli nadrzędnej;</li>
+ *     <li>opcjonalnie odłącza ({@code DETACH PARTITION ... CONCURRENTLY}) partycje starsze niż
+ *     {@code detachAfterMonths}, w których nie ma już aktywnych wypożyczeń. Odłączona partycja zostaje zwykłą tabelą
+ *     o tej samej nazwie - archiwum, którego nie czyta już żadne zapytanie aplikacji;</li>
+ *     <li>raz po starcie wczytuje do pamięci PostgreSQL ostatnie partycje z indeksami ({@code pg_prewarm}),
+ *     żeby pierwsze wypożyczenia i zwroty nie czytały ich z dysku.</li>
+ * </ul>
+ * Wszystkie instancje mogą to uruchamiać - zmiany robi ta, która zdobędzie blokadę doradczą.
+ * Na tabeli bez partycji (np. schemat z Hibernate w testach) nic nie robi.
+ */
+public class BorrowingPartitionMaintainer {
+
+    private static final Logger log = LoggerFactory.getLogger(BorrowingPartitionMaintainer.class);
+
+    static final String TABLE = "borrowings";
+    static final String PARTITION_PREFIX = TABLE + "_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    // Klucz blokady doradczej ("LBPART") - jedna instancja zmienia partycje naraz
+    static final long LOCK_KEY = 0x4c4250415254L;
+    static final String IS_PARTITIONED =
+            "SELECT COALESCE((SELECT relkind = 'p' FROM pg_class WHERE oid = to_regclass(?)), FALSE)";
+
+    /** Partycja z katalogu PostgreSQL; {@code detachPending} - przerwane {@code DETACH ... CONCURRENTLY}. */
+    record Partition(String name, boolean detachPending) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock;
+    private final int monthsAhead;
+    private final int detachAfterMonths;
+    private final int prewarmMonths;
+    private final Duration lockTimeout;
+
+    private volatile boolean prewarmed;
+    private volatile boolean unpartitionedReported;
+
+    public BorrowingPartitionMaintainer(JdbcTemplate jdbcTemplate, Clock clock, int monthsAhead, int detachAfterMonths,
+                                        int prewarmMonths, Duration lockTimeout) {
+        if (monthsAhead < 1) {
+            throw new IllegalArgumentException("monthsAhead must be at least 1, got " + monthsAhead);
+        }
+        if (detachAfterMonths < 0 || prewarmMonths < 0) {
+            throw new IllegalArgumentException("detachAfterMonths and prewarmMonths must not be negative");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+        this.monthsAhead = monthsAhead;
+        this.detachAfterMonths = detachAfterMonths;
+        this.prewarmMonths = prewarmMonths;
+        this.lockTimeout = lockTimeout;
+    }
+
+    /** Jeden cykl utrzymania; błąd (np. przekroczony {@code lockTimeout}) zostawia resztę na kolejny cykl. */
+    public void maintain() {
+        try {
+            // Blokada doradcza i ustawienia sesji dotyczą połączenia - cały cykl na jednym, w trybie autocommit
+            // (DETACH ... CONCURRENTLY nie może działać w transakcji)
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                maintain(new JdbcTemplate(new SingleConnectionDataSource(connection, true)));
+                return null;
+            });
+        } catch (DataAccessException e) {
+            log.warn("Borrowing partition maintenance failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    void maintain(JdbcTemplate session) {
+        if (!Boolean.TRUE.equals(session.queryForObject(IS_PARTITIONED, Boolean.class, TABLE))) {
+            if (!unpartitionedReported) {
+                unpartitionedReported = true;
+                log.info("Table {} is not partitioned, partition maintenance is skipped", TABLE);
+            }
+            return;
+        }
+        if (!Boolean.TRUE.equals(session.queryForObject("SELECT pg_try_advisory_lock(?)", Boolean.class, LOCK_KEY))) {
+            return;
+        }
+        try {
+            session.execute("SET lock_timeout = " + lockTimeout.toMillis());
+            Map<YearMonth, Partition> partitions = partitions(session);
+            YearMonth current = YearMonth.now(clock);
+            for (int i = 0; i <= monthsAhead; i++) {
+                YearMonth month = current.plusMonths(i);
+                if (!partitions.containsKey(month)) {
+                    attach(session, month);
+                }
+            }
+            if (detachAfterMonths > 0) {
+                YearMonth oldestKept = current.minusMonths(detachAfterMonths);
+                partitions.forEach((month, partition) -> {
+                    if (month.isBefore(oldestKept)) {
+                        detach(session, partition);
+                    }
+                });
+            }
+            if (!prewarmed) {
+                prewarmed = true;
+                prewarm(session, partitions, current);
+            }
+        } finally {
+            session.execute("RESET lock_timeout");
+            session.queryForObject("SELECT pg_advisory_unlock(?)", Boolean.class, LOCK_KEY);
+        }
+    }
+
+    static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+    }
+
+    private Map<YearMonth, Partition> partitions(JdbcTemplate session) {
+        List<Partition> partitions = session.query("""
+                        SELECT c.relname, i.inhdetachpending
+                        FROM pg_inherits i
+                                 JOIN pg_class c ON c.oid = i.inhrelid
+                        WHERE i.inhparent = to_regclass(?)""",
+                (rs, rowNum) -> new Partition(rs.getString(1), rs.getBoolean(2)), TABLE);
+        Map<YearMonth, Partition> byMonth = new TreeMap<>();
+        for (Partition partition : partitions) {
+            // Partycje spoza konwencji nazw (np. dodane ręcznie) zostawiamy w spokoju
+            if (partition.name().startsWith(PARTITION_PREFIX)) {
+                try {
+                    byMonth.put(YearMonth.parse(partition.name().substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX), partition);
+                } catch (DateTimeParseException e) {
+                    log.debug("Ignoring partition {} outside the naming convention", partition.name());
+                }
+            }
+        }
+        return byMonth;
+    }
+
+    private void attach(JdbcTemplate session, YearMonth month) {
+        String name = partitionName(month);
+        // Tabela mogła zostać z przerwanego cyklu (utworzona, ale niedołączona)
+        session.execute("CREATE TABLE IF NOT EXISTS " + name + " (LIKE " + TABLE + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        session.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION " + name
+                + " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+        log.info("Created borrowings partition {} for {}", name, month);
+    }
+
+    private void detach(JdbcTemplate session, Partition partition) {
+        if (partition.detachPending()) {
+            session.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + partition.name() + " FINALIZE");
+            log.info("Finished detaching borrowings partition {}", partition.name());
+            return;
+        }
+        if (Boolean.TRUE.equals(session.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + partition.name() + " WHERE return_date IS NULL)", Boolean.class))) {
+            // Aktywne wypożyczenie musi dać się zwrócić - partycja zostaje do jego zwrotu
+            return;
+        }
+        // Czeka na zakończenie zapytań rozpoczętych przed nim, ale nie blokuje nowych
+        session.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + partition.name() + " CONCURRENTLY");
+        log.info("Detached borrowings partition {}; it is kept as a standalone archive table", partition.name());
+    }
+
+    private void prewarm(JdbcTemplate session, Map<YearMonth, Partition> partitions, YearMonth current) {
+        if (prewarmMonths == 0) {
+            return;
+        }
+        if (!Boolean.TRUE.equals(session.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'pg_prewarm')", Boolean.class))) {
+            log.info("Extension pg_prewarm is not installed, recent borrowings partitions are not prewarmed");
+            return;
+        }
+        long blocks = 0;
+        for (int i = 0; i < prewarmMonths; i++) {
+            Partition partition = partitions.get(current.minusMonths(i));
+            if (partition != null) {
+                Long loaded = session.queryForObject("""
+                        SELECT COALESCE(sum(pg_prewarm(r.oid)), 0)
+                        FROM (SELECT to_regclass(?)::oid AS oid
+                              UNION ALL
+                              SELECT indexrelid FROM pg_index WHERE indrelid = to_regclass(?)) r""",
+                        Long.class, partition.name(), partition.name());
+                blocks += loaded != null ? loaded : 0;
+            }
+        }
+        log.info("Prewarmed {} blocks of the last {} borrowings partitions and their indexes", blocks, prewarmMonths);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.librarysystem.partition;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Ustawienia utrzymania miesięcznych partycji tabeli {@code borrowings}.
+ *
+ * @param enabled             Czy ta instancja zakłada i odłącza partycje (wystarczy jedna; równoległe uruchomienia
+ *                            i tak wykluczają się blokadą).
+ * @param monthsAhead         Na ile miesięcy naprzód zakładać puste partycje.
+ * @param detachAfterMonths   Partycje starsze o tyle miesięcy (bez aktywnych wypożyczeń) są odłączane od tabeli;
+ *                            0 - nigdy.
+ * @param prewarmMonths       Ile ostatnich miesięcy (z indeksami) wczytać do pamięci PostgreSQL po starcie,
+ *                            jeśli zainstalowano rozszerzenie {@code pg_prewarm}; 0 - wcale.
+ * @param maintenanceInterval Jak często sprawdzać partycje.
+ * @param lockTimeout         Limit czekania na blokady przy zmianach partycji - po nim próba wraca w kolejnym
+ *                            cyklu, zamiast wstrzymywać ruch ustawiony w kolejce za nią.
+ */
+@ConfigurationProperties(prefix = "library.borrowing-partitions")
+public record BorrowingPartitionProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("3") int monthsAhead,
+        @DefaultValue("0") int detachAfterMonths,
+        @DefaultValue("2") int prewarmMonths,
+        @DefaultValue("1h") Duration maintenanceInterval,
+        @DefaultValue("5s") Duration lockTimeout) {
+}
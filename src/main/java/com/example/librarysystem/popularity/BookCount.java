@@ -0,0 +1,9 @@
+package com.example.librarysystem.popularity;
+
+/**
+ * Pozycja rankingu popularności.
+ *
+ * @param borrows Szacowana liczba wypożyczeń w oknie (szkic może ją nieznacznie zawyżyć, nigdy zaniżyć).
+ */
+public record BookCount(long bookId, long borrows) {
+}
@@ -0,0 +1,70 @@
+package com.example.librarysystem.popularity;
+
+/**
+ * Szkic Count-Min: przybliżone liczniki dla dowolnie wielu kluczy w stałej pamięci ({@code depth * width} liczników).
+ * Oszacowanie nigdy nie jest mniejsze od prawdziwej wartości; zawyżenie jest ograniczone przez sumę wszystkich
+ * dodanych wartości podzieloną przez {@code width}. Szkice o tych samych wymiarach można sumować.
+ * Klasa nie jest bezpieczna wątkowo.
+ */
+public class CountMinSketch {
+
+    private final int depth;
+    private final int mask;
+    private final long[] counters;
+
+    /**
+     * @param depth Liczba wierszy (niezależnych funkcji skrótu) - prawdopodobieństwo dużego błędu maleje wykładniczo.
+     * @param width Liczba liczników w wierszu, zaokrąglana w górę do potęgi dwójki.
+     */
+    public CountMinSketch(int depth, int width) {
+        if (depth < 1 || width < 1) {
+            throw new IllegalArgumentException("Sketch dimensions must be positive");
+        }
+        this.depth = depth;
+        int roundedWidth = Integer.highestOneBit(width) == width ? width : Integer.highestOneBit(width) << 1;
+        this.mask = roundedWidth - 1;
+        this.counters = new long[depth * roundedWidth];
+    }
+
+    /** Dodaje {@code count} do klucza i zwraca nowe oszacowanie. */
+    public long add(long key, long count) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int index = index(row, key);
+            counters[index] += count;
+            estimate = Math.min(estimate, counters[index]);
+        }
+        return estimate;
+    }
+
+    public long estimate(long key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters[index(row, key)]);
+        }
+        return estimate;
+    }
+
+    /** Dodaje liczniki innego szkicu o tych samych wymiarach (np. suma dni w oknie tygodniowym). */
+    public void merge(CountMinSketch other) {
+        if (other.depth != depth || other.mask != mask) {
+            throw new IllegalArgumentException("Cannot merge sketches of different dimensions");
+        }
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] += other.counters[i];
+        }
+    }
+
+    public CountMinSketch emptyCopy() {
+        return new CountMinSketch(depth, mask + 1);
+    }
+
+    // Osobny skrót dla każdego wiersza: mieszanie splitmix64 klucza z numerem wiersza
+    private int index(int row, long key) {
+        long z = key + (row + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        return row * (mask + 1) + ((int) z & mask);
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.librarysystem.popularity;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Ustawienia rankingu popularności książek.
+ *
+ * @param enabled          Czy śledzić wypożyczenia (bez tego endpointy zwracają puste rankingi).
+ * @param horizon          Jak daleko wstecz sięga ranking "ALL"; tyle dni wypożyczeń czyta też odbudowa przy starcie.
+ * @param candidatesPerDay Liczba kandydatów do czołówki na dzień (ogółem i w każdym gatunku).
+ * @param sketchDepth      Liczba wierszy szkicu Count-Min.
+ * @param sketchWidth      Liczba liczników w wierszu szkicu (pamięć: 8 B * depth * width na dzień).
+ * @param pollInterval     Jak często dociągać nowe wypożyczenia z outboxa zmian.
+ * @param batchSize        Liczba zmian z outboxa czytanych jednym zapytaniem.
+ */
+@ConfigurationProperties(prefix = "library.popularity")
+public record PopularityProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("30d") Duration horizon,
+        @DefaultValue("200") int candidatesPerDay,
+        @DefaultValue("4") int sketchDepth,
+        @DefaultValue("4096") int sketchWidth,
+        @DefaultValue("5s") Duration pollInterval,
+        @DefaultValue("1000") int batchSize) {
+}
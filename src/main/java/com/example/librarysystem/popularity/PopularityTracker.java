@@ -0,0 +1,100 @@
+package com.example.librarysystem.popularity;
+
+import org.springframework.lang.Nullable;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Ranking najczęściej wypożyczanych książek w pamięci, bez {@code GROUP BY} na tabeli wypożyczeń.
+ * Każdy dzień ma własny szkic Count-Min (liczniki wszystkich książek) oraz kandydatów do czołówki - ogółem
+ * i osobno dla każdego gatunku. Ranking okna sumuje szkice jego dni i porządkuje kandydatów z tych dni;
+ * dni starsze niż {@code horizonDays} są usuwane.
+ * <p>
+ * Wynik jest przybliżony: książka może wypaść z kandydatów dnia, w którym nie była w czołówce, dlatego
+ * kandydatów dnia trzymamy kilka razy więcej niż długość zwracanego rankingu.
+ */
+public class PopularityTracker {
+
+    private final Clock clock;
+    private final int horizonDays;
+    private final int candidatesPerDay;
+    private final int sketchDepth;
+    private final int sketchWidth;
+    private final NavigableMap<LocalDate, DayBucket> days = new TreeMap<>();
+
+    public PopularityTracker(Clock clock, int horizonDays, int candidatesPerDay, int sketchDepth, int sketchWidth) {
+        this.clock = clock;
+        this.horizonDays = horizonDays;
+        this.candidatesPerDay = candidatesPerDay;
+        this.sketchDepth = sketchDepth;
+        this.sketchWidth = sketchWidth;
+    }
+
+    /** Rejestruje {@code count} wypożyczeń książki danego dnia; dni spoza horyzontu są pomijane. */
+    public synchronized void record(long bookId, @Nullable Short genreId, LocalDate day, long count) {
+        LocalDate oldest = oldestTrackedDay();
+        if (day.isBefore(oldest)) {
+            return;
+        }
+        days.headMap(oldest, false).clear();
+        days.computeIfAbsent(day, d -> new DayBucket()).record(bookId, genreId, count);
+    }
+
+    /** Usuwa wszystkie zarejestrowane wypożyczenia - przed ponowną odbudową z bazy. */
+    public synchronized void clear() {
+        days.clear();
+    }
+
+    /**
+     * @param genreId Tylko książki z tego gatunku; null - wszystkie.
+     * @return Do {@code limit} najczęściej wypożyczanych książek w oknie, od najpopularniejszej.
+     */
+    public synchronized List<BookCount> top(PopularityWindow window, @Nullable Short genreId, int limit) {
+        LocalDate today = LocalDate.now(clock);
+        LocalDate from = window.days() >= horizonDays ? oldestTrackedDay() : today.minusDays(window.days() - 1L);
+        CountMinSketch merged = new CountMinSketch(sketchDepth, sketchWidth);
+        Set<Long> candidates = new HashSet<>();
+        for (DayBucket bucket : days.subMap(from, true, today, true).values()) {
+            merged.merge(bucket.sketch);
+            TopKCandidates dayCandidates = genreId == null ? bucket.overall : bucket.byGenre.get(genreId);
+            if (dayCandidates != null) {
+                candidates.addAll(dayCandidates.keys());
+            }
+        }
+        List<BookCount> ranking = new ArrayList<>(candidates.size());
+        for (long bookId : candidates) {
+            ranking.add(new BookCount(bookId, merged.estimate(bookId)));
+        }
+        ranking.sort(Comparator.comparingLong(BookCount::borrows).reversed().thenComparingLong(BookCount::bookId));
+        return ranking.size() > limit ? List.copyOf(ranking.subList(0, limit)) : ranking;
+    }
+
+    private LocalDate oldestTrackedDay() {
+        return LocalDate.now(clock).minusDays(horizonDays - 1L);
+    }
+
+    private final class DayBucket {
+
+        private final CountMinSketch sketch = new CountMinSketch(sketchDepth, sketchWidth);
+        private final TopKCandidates overall = new TopKCandidates(candidatesPerDay);
+        private final Map<Short, TopKCandidates> byGenre = new HashMap<>();
+
+        void record(long bookId, @Nullable Short genreId, long count) {
+            long estimate = sketch.add(bookId, count);
+            overall.offer(bookId, estimate);
+            if (genreId != null) {
+                byGenre.computeIfAbsent(genreId, g -> new TopKCandidates(candidatesPerDay)).offer(bookId, estimate);
+            }
+        }
+    }
+}
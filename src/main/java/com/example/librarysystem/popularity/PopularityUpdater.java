@@ -0,0 +1,125 @@
+package com.example.librarysystem.popularity;
+
+import com.example.librarysystem.entity.OutboxEvent;
+import com.example.librarysystem.event.ChangeCursor;
+import com.example.librarysystem.event.EntityChangedEvent;
+import com.example.librarysystem.event.TransactionSnapshot;
+import com.example.librarysystem.repository.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Zasila {@link PopularityTracker} wypożyczeniami: przy pierwszym uruchomieniu odbudowuje ranking z tabeli
+ * wypożyczeń (tylko ostatnie {@code horizon} dni), potem dociąga zdarzenia {@code BORROWED} z outboxa zmian.
+ * Dzięki outboxowi każda instancja widzi wypożyczenia ze wszystkich instancji. Wypożyczenia transakcji widocznych
+ * w migawce odbudowy są już policzone, więc przy doliczaniu je pomijamy. Dniem wypożyczenia jest zawsze
+ * {@code borrow_date} - w odbudowie z tabeli, przy doliczaniu ze szczegółów zdarzenia.
+ * Wywoływany cyklicznie z jednego wątku.
+ */
+public class PopularityUpdater {
+
+    private static final Logger log = LoggerFactory.getLogger(PopularityUpdater.class);
+
+    // Wypożyczenia zgrupowane po dniu i książce - grup jest najwyżej (dni horyzontu) x (wypożyczane książki)
+    private static final String REBUILD_QUERY = """
+            SELECT b.borrow_date, b.book_id, bk.genre_id, count(*)
+            FROM borrowings b
+                     JOIN book bk ON bk.id = b.book_id
+            WHERE b.borrow_date >= ?
+            GROUP BY b.borrow_date, b.book_id, bk.genre_id""";
+
+    private final PopularityTracker tracker;
+    private final OutboxEventRepository outboxEventRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate snapshotTransaction;
+    private final Clock clock;
+    private final Duration horizon;
+    private final int batchSize;
+    private ChangeCursor position;
+    @Nullable
+    private TransactionSnapshot rebuilt;
+
+    /**
+     * @param snapshotTransaction Transakcja tylko do odczytu z izolacją REPEATABLE READ - pozycja outboxa
+     *                            i odczyt wypożyczeń przy odbudowie muszą pochodzić z tej samej migawki.
+     */
+    public PopularityUpdater(PopularityTracker tracker, OutboxEventRepository outboxEventRepository, JdbcTemplate jdbcTemplate,
+                             TransactionTemplate snapshotTransaction, Clock clock, Duration horizon, int batchSize) {
+        this.tracker = tracker;
+        this.outboxEventRepository = outboxEventRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.snapshotTransaction = snapshotTransaction;
+        this.clock = clock;
+        this.horizon = horizon;
+        this.batchSize = batchSize;
+    }
+
+    public void update() {
+        if (position == null) {
+            rebuild();
+        }
+        poll();
+    }
+
+    private void rebuild() {
+        long started = System.nanoTime();
+        LocalDate from = LocalDate.now(clock).minusDays(Math.max(horizon.toDays() - 1, 0));
+        long[] groups = new long[1];
+        position = snapshotTransaction.execute(status -> {
+            rebuilt = TransactionSnapshot.parse(outboxEventRepository.currentSnapshot());
+            ChangeCursor head = outboxEventRepository.findLastCommitted()
+                    .map(ChangeCursor::of)
+                    .orElse(ChangeCursor.START);
+            // Odbudowa przerwana w połowie (np. timeout) zostawia część grup - ponowna nie może ich doliczyć drugi raz
+            tracker.clear();
+            jdbcTemplate.query(REBUILD_QUERY, rs -> {
+                short genreId = rs.getShort(3);
+                tracker.record(rs.getLong(2), rs.wasNull() ? null : genreId, rs.getDate(1).toLocalDate(), rs.getLong(4));
+                groups[0]++;
+            }, from);
+            return head;
+        });
+        log.info("Popularity ranking rebuilt from borrowings since {} ({} day/book groups) in {} ms",
+                from, groups[0], (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void poll() {
+        List<OutboxEvent> rows;
+        do {
+            rows = outboxEventRepository.findCommittedAfterOfType(EntityChangedEvent.Type.BORROWING.name(),
+                    position.txId(), position.id(), batchSize);
+            for (OutboxEvent row : rows) {
+                position = ChangeCursor.of(row);
+                if (rebuilt != null && rebuilt.isVisible(position.txId())) {
+                    continue;
+                }
+                if (row.getOperation() == EntityChangedEvent.Operation.BORROWED) {
+                    Map<String, Object> details = row.getDetails();
+                    Number genreId = (Number) details.get("genreId");
+                    tracker.record(((Number) details.get("bookId")).longValue(),
+                            genreId != null ? genreId.shortValue() : null, borrowDate(row), 1);
+                }
+            }
+            if (rebuilt != null && position.txId() >= rebuilt.xmax()) {
+                rebuilt = null;
+            }
+        } while (rows.size() == batchSize);
+    }
+
+    // Zdarzenia zapisane przed dodaniem borrowDate do szczegółów - dzień zapisu w outboxie
+    private LocalDate borrowDate(OutboxEvent row) {
+        Object borrowDate = row.getDetails().get("borrowDate");
+        return borrowDate != null
+                ? LocalDate.parse(borrowDate.toString())
+                : LocalDate.ofInstant(row.getCreatedAt(), clock.getZone());
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.librarysystem.popularity;
+
+/** Okno czasowe rankingu popularności, liczone w dniach kalendarzowych wstecz od dzisiaj (włącznie). */
+public enum PopularityWindow {
+
+    DAY(1),
+    WEEK(7),
+    /** Cały śledzony okres ({@code library.popularity.horizon}). */
+    ALL(Integer.MAX_VALUE);
+
+    private final int days;
+
+    PopularityWindow(int days) {
+        this.days = days;
+    }
+
+    public int days() {
+        return days;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.librarysystem.popularity;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Kandydaci do najczęstszych kluczy: co najwyżej {@code capacity} kluczy z ostatnim oszacowaniem ze szkicu,
+ * na kopcu minimalnym - nowy klucz wypiera najsłabszego kandydata, jeśli ma od niego większe oszacowanie.
+ * Klasa nie jest bezpieczna wątkowo.
+ */
+class TopKCandidates {
+
+    private static final class Candidate {
+        private final long key;
+        private long estimate;
+
+        private Candidate(long key, long estimate) {
+            this.key = key;
+            this.estimate = estimate;
+        }
+    }
+
+    private final int capacity;
+    private final Map<Long, Candidate> byKey = new HashMap<>();
+    private final PriorityQueue<Candidate> heap = new PriorityQueue<>(Comparator.comparingLong(c -> c.estimate));
+
+    TopKCandidates(int capacity) {
+        this.capacity = capacity;
+    }
+
+    void offer(long key, long estimate) {
+        Candidate candidate = byKey.get(key);
+        if (candidate != null) {
+            // Oszacowania tylko rosną; kopiec trzeba przebudować dla tego elementu (O(capacity))
+            heap.remove(candidate);
+            candidate.estimate = estimate;
+            heap.offer(candidate);
+        } else if (byKey.size() < capacity) {
+            add(key, estimate);
+        } else if (estimate > heap.peek().estimate) {
+            byKey.remove(heap.poll().key);
+            add(key, estimate);
+        }
+    }
+
+    Set<Long> keys() {
+        return byKey.keySet();
+    }
+
+    private void add(long key, long estimate) {
+        Candidate candidate = new Candidate(key, estimate);
+        byKey.put(key, candidate);
+        heap.offer(candidate);
+    }
+}
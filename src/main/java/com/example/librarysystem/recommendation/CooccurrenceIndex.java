@@ -0,0 +1,175 @@
+package com.example.librarysystem.recommendation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Indeks "wypożyczone razem": dla każdej książki liczniki innych książek wypożyczonych przez tych samych czytelników.
+ * <ul>
+ *     <li>Każdy czytelnik ma listę {@code historyPerUser} ostatnio wypożyczonych (różnych) książek. Nowe wypożyczenie
+ *     zwiększa liczniki pary z każdą książką z tej listy - w obie strony. Ponowne wypożyczenie książki z listy
+ *     niczego nie liczy, więc jeden czytelnik zwykle podbija parę tylko raz.</li>
+ *     <li>Książka trzyma {@code 2 * neighbours} liczników ({@link Neighbours}), a na zewnątrz podaje
+ *     {@code neighbours} najlepszych. Pamięć rośnie więc liniowo z liczbą książek i czytelników,
+ *     a nie z kwadratem liczby książek.</li>
+ * </ul>
+ * Klucze to prymitywne {@code long} ({@link LongObjectMap}). Metody są synchronizowane - zapisuje jeden wątek,
+ * a czytają wątki żądań.
+ */
+public class CooccurrenceIndex {
+
+    private final int neighbours;
+    private final int historyPerUser;
+    private final LongObjectMap<Neighbours> byBook = new LongObjectMap<>();
+    // Najnowsza książka pierwsza; 0 oznacza wolne miejsce (ID książek są dodatnie)
+    private final LongObjectMap<long[]> historyByUser = new LongObjectMap<>();
+
+    public CooccurrenceIndex(int neighbours, int historyPerUser) {
+        if (neighbours < 1 || historyPerUser < 1) {
+            throw new IllegalArgumentException("neighbours and historyPerUser must be positive");
+        }
+        this.neighbours = neighbours;
+        this.historyPerUser = historyPerUser;
+    }
+
+    public synchronized void recordBorrow(long userId, long bookId) {
+        long[] history = historyByUser.get(userId);
+        if (history == null) {
+            history = new long[historyPerUser];
+            historyByUser.put(userId, history);
+        }
+        int position = indexOf(history, bookId);
+        if (position < 0) {
+            Neighbours borrowed = neighboursOf(bookId);
+            for (long other : history) {
+                if (other == 0) {
+                    break;
+                }
+                borrowed.increment(other);
+                neighboursOf(other).increment(bookId);
+            }
+            // Najstarsza książka wypada z listy, jeśli lista jest pełna
+            position = history.length - 1;
+        }
+        System.arraycopy(history, 0, history, 1, position);
+        history[0] = bookId;
+    }
+
+    /** Książki najczęściej wypożyczane razem z podaną, od najczęstszej. */
+    public synchronized List<Neighbour> neighbours(long bookId, int limit) {
+        Neighbours found = byBook.get(bookId);
+        return found == null ? List.of() : found.top(Math.min(limit, neighbours));
+    }
+
+    public synchronized int books() {
+        return byBook.size();
+    }
+
+    public synchronized int users() {
+        return historyByUser.size();
+    }
+
+    public synchronized void clear() {
+        byBook.clear();
+        historyByUser.clear();
+    }
+
+    /** Zapis binarny całego indeksu (format czyta {@link #readFrom(DataInput)}). */
+    public synchronized void writeTo(DataOutput out) throws IOException {
+        out.writeInt(neighbours);
+        out.writeInt(historyPerUser);
+        try {
+            out.writeInt(byBook.size());
+            byBook.forEach((bookId, counts) -> {
+                try {
+                    out.writeLong(bookId);
+                    out.writeInt(counts.size());
+                    for (int i = 0; i < counts.size(); i++) {
+                        out.writeLong(counts.bookId(i));
+                        out.writeInt(counts.count(i));
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.writeInt(historyByUser.size());
+            historyByUser.forEach((userId, history) -> {
+                try {
+                    int free = indexOf(history, 0);
+                    int length = free < 0 ? history.length : free;
+                    out.writeLong(userId);
+                    out.writeInt(length);
+                    for (int i = 0; i < length; i++) {
+                        out.writeLong(history[i]);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Zastępuje zawartość indeksu zapisem z {@link #writeTo(DataOutput)}.
+     *
+     * @throws IOException Także gdy zapis powstał przy innych ustawieniach {@code neighbours}/{@code historyPerUser}
+     *                     - wtedy indeks trzeba zbudować od nowa.
+     */
+    public synchronized void readFrom(DataInput in) throws IOException {
+        int savedNeighbours = in.readInt();
+        int savedHistory = in.readInt();
+        if (savedNeighbours != neighbours || savedHistory != historyPerUser) {
+            throw new IOException("Index was saved with neighbours=" + savedNeighbours + ", history-per-user=" + savedHistory);
+        }
+        clear();
+        int books = in.readInt();
+        for (int b = 0; b < books; b++) {
+            Neighbours counts = neighboursOf(in.readLong());
+            int size = readSize(in, 2 * neighbours);
+            for (int i = 0; i < size; i++) {
+                counts.increment(in.readLong(), in.readInt());
+            }
+        }
+        int users = in.readInt();
+        for (int u = 0; u < users; u++) {
+            long userId = in.readLong();
+            long[] history = new long[historyPerUser];
+            int size = readSize(in, historyPerUser);
+            for (int i = 0; i < size; i++) {
+                history[i] = in.readLong();
+            }
+            historyByUser.put(userId, history);
+        }
+    }
+
+    private Neighbours neighboursOf(long bookId) {
+        Neighbours counts = byBook.get(bookId);
+        if (counts == null) {
+            counts = new Neighbours(2 * neighbours);
+            byBook.put(bookId, counts);
+        }
+        return counts;
+    }
+
+    private static int readSize(DataInput in, int max) throws IOException {
+        int size = in.readInt();
+        if (size < 0 || size > max) {
+            throw new IOException("Corrupted index: list size " + size);
+        }
+        return size;
+    }
+
+    private static int indexOf(long[] values, long value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.librarysystem.recommendation;
+
+import com.example.librarysystem.event.ChangeCursor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Plik z kopią {@link CooccurrenceIndex} i pozycją outboxa, do której indeks jest aktualny. Po restarcie instancja
+ * wczytuje plik i dociąga z outboxa tylko nowsze wypożyczenia zamiast czytać całą tabelę wypożyczeń.
+ * Format: nagłówek ({@code LRCI}, wersja, źródło, pozycja, czas zapisu) i zapis binarny indeksu,
+ * całość skompresowana gzipem.
+ *
+ * @param source   Baza, z której zbudowano indeks - kopia z innej bazy (np. wspólny plik w katalogu tymczasowym)
+ *                 nie nadaje się do wznowienia, bo pozycja outboxa nic w niej nie znaczy.
+ * @param position Pozycja outboxa zawarta już w indeksie.
+ * @param savedAt  Czas zapisu - starsze niż retencja outboxa nie nadają się do wznowienia.
+ */
+public record CooccurrenceSnapshot(String source, ChangeCursor position, Instant savedAt) {
+
+    private static final int MAGIC = 0x4c524349;
+    private static final int FORMAT_VERSION = 1;
+
+    /** Zapis do pliku tymczasowego i podmiana - przerwany zapis nie psuje poprzedniej kopii. */
+    public void save(Path file, CooccurrenceIndex index) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream stream = Files.newOutputStream(temporary);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(stream, 65536)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(source);
+                out.writeLong(position.txId());
+                out.writeLong(position.id());
+                out.writeLong(savedAt.toEpochMilli());
+                index.writeTo(out);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Wczytuje plik do {@code index}; zgodność źródła i wieku kopii sprawdza wywołujący.
+     *
+     * @throws IOException Gdy pliku nie ma, jest uszkodzony albo niezgodny z ustawieniami indeksu.
+     */
+    public static CooccurrenceSnapshot load(Path file, CooccurrenceIndex index) throws IOException {
+        try (InputStream stream = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(stream, 65536)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Not a recommendation index snapshot: " + file);
+            }
+            String source = in.readUTF();
+            ChangeCursor position = new ChangeCursor(in.readLong(), in.readLong());
+            Instant savedAt = Instant.ofEpochMilli(in.readLong());
+            index.readFrom(in);
+            return new CooccurrenceSnapshot(source, position, savedAt);
+        }
+    }
+}
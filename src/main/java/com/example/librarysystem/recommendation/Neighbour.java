@@ -0,0 +1,9 @@
+package com.example.librarysystem.recommendation;
+
+/**
+ * Książka wypożyczana razem z inną.
+ *
+ * @param together Liczba czytelników, którzy wypożyczyli obie (szacunkowo, patrz {@link CooccurrenceIndex}).
+ */
+public record Neighbour(long bookId, long together) {
+}
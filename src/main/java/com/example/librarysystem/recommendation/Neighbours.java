@@ -0,0 +1,69 @@
+package com.example.librarysystem.recommendation;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Liczniki wspólnych wypożyczeń jednej książki z innymi, w tablicach prymitywów o stałej pojemności.
+ * Po zapełnieniu nowa książka zastępuje tę z najmniejszym licznikiem i przejmuje go powiększony o jeden
+ * (algorytm Space-Saving): liczniki mogą być zawyżone najwyżej o to minimum, a często współwypożyczane książki
+ * nie wypadają z listy. Klasa nie jest bezpieczna wątkowo.
+ */
+final class Neighbours {
+
+    private final long[] bookIds;
+    private final int[] counts;
+    private int size;
+
+    Neighbours(int capacity) {
+        bookIds = new long[capacity];
+        counts = new int[capacity];
+    }
+
+    void increment(long bookId) {
+        increment(bookId, 1);
+    }
+
+    void increment(long bookId, int count) {
+        int min = 0;
+        for (int i = 0; i < size; i++) {
+            if (bookIds[i] == bookId) {
+                counts[i] += count;
+                return;
+            }
+            if (counts[i] < counts[min]) {
+                min = i;
+            }
+        }
+        if (size < bookIds.length) {
+            bookIds[size] = bookId;
+            counts[size++] = count;
+        } else {
+            bookIds[min] = bookId;
+            counts[min] += count;
+        }
+    }
+
+    /** Najwyżej {@code limit} książek z największym licznikiem, przy remisie według ID. */
+    List<Neighbour> top(int limit) {
+        List<Neighbour> all = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            all.add(new Neighbour(bookIds[i], counts[i]));
+        }
+        all.sort(Comparator.comparingLong(Neighbour::together).reversed().thenComparingLong(Neighbour::bookId));
+        return all.size() > limit ? all.subList(0, limit) : all;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long bookId(int index) {
+        return bookIds[index];
+    }
+
+    int count(int index) {
+        return counts[index];
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.librarysystem.recommendation;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Ustawienia indeksu "wypożyczone razem".
+ *
+ * @param enabled          Czy budować indeks (bez tego rekomendacje są puste).
+ * @param neighbours       Ile książek wypożyczanych razem pamiętać i zwracać dla każdej książki.
+ * @param historyPerUser   Z iloma ostatnimi książkami czytelnika łączyć jego kolejne wypożyczenie.
+ * @param snapshotFile     Plik z kopią indeksu do szybkiego startu; pusty - bez kopii, odbudowa przy każdym starcie.
+ * @param snapshotInterval Jak często zapisywać kopię, jeśli indeks się zmienił (zawsze też przy zamykaniu).
+ * @param pollInterval     Jak często dociągać nowe wypożyczenia z outboxa zmian.
+ * @param batchSize        Liczba zmian z outboxa czytanych jednym zapytaniem.
+ */
+@ConfigurationProperties(prefix = "library.recommendations")
+public record RecommendationProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("20") int neighbours,
+        @DefaultValue("20") int historyPerUser,
+        @DefaultValue("") String snapshotFile,
+        @DefaultValue("10m") Duration snapshotInterval,
+        @DefaultValue("5s") Duration pollInterval,
+        @DefaultValue("1000") int batchSize) {
+}
@@ -0,0 +1,188 @@
+package com.example.librarysystem.recommendation;
+
+import com.example.librarysystem.entity.OutboxEvent;
+import com.example.librarysystem.event.ChangeCursor;
+import com.example.librarysystem.event.EntityChangedEvent;
+import com.example.librarysystem.event.TransactionSnapshot;
+import com.example.librarysystem.repository.BorrowingHistoryRepository;
+import com.example.librarysystem.repository.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Zasila {@link CooccurrenceIndex}: przy pierwszym uruchomieniu wczytuje kopię z pliku ({@link CooccurrenceSnapshot})
+ * albo, gdy jej brak lub jest starsza niż retencja outboxa, odbudowuje indeks z całej tabeli wypożyczeń.
+ * Potem dociąga zdarzenia {@code BORROWED} z outboxa zmian i co {@code snapshotInterval} zapisuje kopię.
+ * Wypożyczenia transakcji widocznych w migawce odbudowy są już w indeksie, więc przy doliczaniu je pomijamy;
+ * do czasu, aż pozycja minie tę migawkę, kopia nie jest zapisywana (nie zapamiętuje migawki).
+ * Wywoływany cyklicznie z jednego wątku.
+ */
+public class RecommendationUpdater {
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationUpdater.class);
+
+    // Kolejność wypożyczeń każdego czytelnika decyduje o jego liście ostatnich książek
+    private static final String REBUILD_QUERY = "SELECT user_id, book_id FROM "
+            + BorrowingHistoryRepository.ALL_BORROWINGS + " b ORDER BY borrow_date, id";
+    private static final int REBUILD_FETCH_SIZE = 10_000;
+
+    private final CooccurrenceIndex index;
+    private final OutboxEventRepository outboxEventRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate snapshotTransaction;
+    private final Clock clock;
+    private final String source;
+    @Nullable
+    private final Path snapshotFile;
+    private final Duration snapshotInterval;
+    private final Duration outboxRetention;
+    private final int batchSize;
+
+    private ChangeCursor position;
+    @Nullable
+    private TransactionSnapshot rebuilt;
+    private Instant lastSaved;
+    private boolean changedSinceSave;
+
+    /**
+     * @param snapshotTransaction Transakcja tylko do odczytu z izolacją REPEATABLE READ - pozycja outboxa
+     *                            i odczyt wypożyczeń przy odbudowie muszą pochodzić z tej samej migawki.
+     * @param source              Identyfikator bazy (adres JDBC) zapisywany w kopii indeksu.
+     * @param outboxRetention     Kopia starsza niż retencja outboxa mogłaby pominąć usunięte już zmiany.
+     */
+    public RecommendationUpdater(CooccurrenceIndex index, OutboxEventRepository outboxEventRepository, JdbcTemplate jdbcTemplate,
+                                 TransactionTemplate snapshotTransaction, Clock clock, String source, @Nullable Path snapshotFile,
+                                 Duration snapshotInterval, Duration outboxRetention, int batchSize) {
+        this.index = index;
+        this.outboxEventRepository = outboxEventRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.snapshotTransaction = snapshotTransaction;
+        this.clock = clock;
+        this.source = source;
+        this.snapshotFile = snapshotFile;
+        this.snapshotInterval = snapshotInterval;
+        this.outboxRetention = outboxRetention;
+        this.batchSize = batchSize;
+    }
+
+    public synchronized void update() {
+        if (position == null) {
+            position = restore();
+        }
+        poll();
+        if (changedSinceSave && rebuilt == null && (lastSaved == null || !clock.instant().isBefore(lastSaved.plus(snapshotInterval)))) {
+            save();
+        }
+    }
+
+    /** Przy zamykaniu aplikacji zapisuje niezapisane zmiany, żeby kolejny start miał mniej do dociągnięcia. */
+    public synchronized void close() {
+        if (position != null && changedSinceSave && rebuilt == null) {
+            save();
+        }
+    }
+
+    private ChangeCursor restore() {
+        if (snapshotFile != null && Files.exists(snapshotFile)) {
+            long started = System.nanoTime();
+            try {
+                CooccurrenceSnapshot snapshot = CooccurrenceSnapshot.load(snapshotFile, index);
+                if (!snapshot.source().equals(source)) {
+                    log.info("Recommendation index snapshot {} was built from another database, rebuilding", snapshotFile);
+                } else if (snapshot.savedAt().isAfter(clock.instant().minus(outboxRetention))) {
+                    log.info("Recommendation index loaded from {} ({} books, {} readers, saved at {}) in {} ms",
+                            snapshotFile, index.books(), index.users(), snapshot.savedAt(),
+                            (System.nanoTime() - started) / 1_000_000);
+                    lastSaved = snapshot.savedAt();
+                    return snapshot.position();
+                } else {
+                    log.info("Recommendation index snapshot {} is older than the outbox retention, rebuilding", snapshotFile);
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Cannot load recommendation index snapshot {}, rebuilding: {}", snapshotFile, e.toString());
+            }
+        }
+        return rebuild();
+    }
+
+    private ChangeCursor rebuild() {
+        long started = System.nanoTime();
+        index.clear();
+        long[] borrowings = new long[1];
+        ChangeCursor head = snapshotTransaction.execute(status -> {
+            rebuilt = TransactionSnapshot.parse(outboxEventRepository.currentSnapshot());
+            ChangeCursor current = outboxEventRepository.findLastCommitted()
+                    .map(ChangeCursor::of)
+                    .orElse(ChangeCursor.START);
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(REBUILD_QUERY);
+                // Strumieniowo, bez ładowania wszystkich wypożyczeń do pamięci sterownika
+                statement.setFetchSize(REBUILD_FETCH_SIZE);
+                return statement;
+            }, rs -> {
+                index.recordBorrow(rs.getLong(1), rs.getLong(2));
+                borrowings[0]++;
+            });
+            return current;
+        });
+        changedSinceSave = true;
+        log.info("Recommendation index rebuilt from {} borrowings ({} books, {} readers) in {} ms",
+                borrowings[0], index.books(), index.users(), (System.nanoTime() - started) / 1_000_000);
+        return head;
+    }
+
+    private void poll() {
+        List<OutboxEvent> rows;
+        do {
+            rows = outboxEventRepository.findCommittedAfterOfType(EntityChangedEvent.Type.BORROWING.name(),
+                    position.txId(), position.id(), batchSize);
+            for (OutboxEvent row : rows) {
+                position = ChangeCursor.of(row);
+                changedSinceSave = true;
+                if (rebuilt != null && rebuilt.isVisible(position.txId())) {
+                    continue;
+                }
+                if (row.getOperation() == EntityChangedEvent.Operation.BORROWED) {
+                    Map<String, Object> details = row.getDetails();
+                    index.recordBorrow(((Number) details.get("userId")).longValue(),
+                            ((Number) details.get("bookId")).longValue());
+                }
+            }
+            if (rebuilt != null && position.txId() >= rebuilt.xmax()) {
+                rebuilt = null;
+            }
+        } while (rows.size() == batchSize);
+    }
+
+    private void save() {
+        if (snapshotFile == null) {
+            changedSinceSave = false;
+            return;
+        }
+        long started = System.nanoTime();
+        Instant now = clock.instant();
+        try {
+            new CooccurrenceSnapshot(source, position, now).save(snapshotFile, index);
+            lastSaved = now;
+            changedSinceSave = false;
+            log.debug("Recommendation index saved to {} in {} ms", snapshotFile, (System.nanoTime() - started) / 1_000_000);
+        } catch (IOException e) {
+            // Bez kopii kolejny start odbuduje indeks z bazy - wolniej, ale poprawnie
+            log.warn("Cannot save recommendation index snapshot {}: {}", snapshotFile, e.toString());
+            lastSaved = now;
+        }
+    }
+}
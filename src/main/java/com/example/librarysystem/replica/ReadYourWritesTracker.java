@@ -0,0 +1,73 @@
+package com.example.librarysystem.replica;
+
+import org.springframework.lang.Nullable;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Zapamiętuje, kto niedawno zatwierdził zapis, żeby jego odczyty przez {@code stickyFor} szły do bazy głównej
+ * - replika mogła jeszcze nie odtworzyć jego zmian. Klientem jest zalogowany użytkownik, a bez logowania
+ * adres IP (np. rejestracja, po której od razu następuje logowanie).
+ */
+public class ReadYourWritesTracker implements TransactionExecutionListener {
+
+    // Powyżej tylu wpisów przy zapisie usuwamy wygasłe
+    private static final int PRUNE_THRESHOLD = 10_000;
+
+    private final long stickyNanos;
+    private final Map<String, Long> stickyUntil = new ConcurrentHashMap<>();
+
+    public ReadYourWritesTracker(Duration stickyFor) {
+        this.stickyNanos = stickyFor.toNanos();
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, @Nullable Throwable commitFailure) {
+        if (commitFailure != null || !transaction.isNewTransaction() || transaction.isReadOnly()) {
+            return;
+        }
+        String client = currentClient();
+        if (client == null) {
+            return;
+        }
+        stickyUntil.put(client, System.nanoTime() + stickyNanos);
+        if (stickyUntil.size() > PRUNE_THRESHOLD) {
+            long now = System.nanoTime();
+            stickyUntil.values().removeIf(deadline -> deadline - now < 0);
+        }
+    }
+
+    /** @return {@code true}, jeśli bieżący klient zapisywał coś w ciągu ostatnich {@code stickyFor}. */
+    public boolean isSticky() {
+        String client = currentClient();
+        if (client == null) {
+            return false;
+        }
+        Long until = stickyUntil.get(client);
+        return until != null && until - System.nanoTime() > 0;
+    }
+
+    @Nullable
+    private static String currentClient() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servlet) {
+            return "ip:" + servlet.getRequest().getRemoteAddr();
+        }
+        return null;
+    }
+}
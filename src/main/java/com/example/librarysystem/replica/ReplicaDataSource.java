@@ -0,0 +1,169 @@
+package com.example.librarysystem.replica;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Źródło połączeń dla transakcji tylko do odczytu: kolejne zdrowe repliki po kolei (round-robin),
+ * a baza główna, gdy żadna replika nie jest dostępna albo bieżący klient niedawno zapisywał
+ * ({@link ReadYourWritesTracker}).
+ * <p>
+ * Replika jest zdrowa, jeśli odpowiada na zapytanie kontrolne, a jej opóźnienie nie przekracza {@code maxLag}.
+ * Do pierwszego sprawdzenia wszystkie repliki traktujemy jako niedostępne.
+ */
+public class ReplicaDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaDataSource.class);
+
+    // Opóźnienie odtwarzania WAL w sekundach; 0, gdy replika odtworzyła wszystko, co odebrała
+    // (inaczej bezczynna baza główna wyglądałaby na rosnące opóźnienie). Baza nie w trybie recovery nie jest repliką - 0.
+    private static final String LAG_QUERY = """
+            SELECT CASE
+                       WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                       ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+                   END""";
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final ReadYourWritesTracker tracker;
+    private final double maxLagSeconds;
+    private final AtomicInteger next = new AtomicInteger();
+    private ScheduledExecutorService healthChecker;
+
+    /**
+     * @param primary  Baza główna - zapasowe źródło połączeń.
+     * @param replicas Repliki według nazw (nazwy trafiają do logów i metryk).
+     */
+    public ReplicaDataSource(DataSource primary, Map<String, DataSource> replicas, ReadYourWritesTracker tracker,
+                             Duration maxLag) {
+        this.primary = primary;
+        this.replicas = new ArrayList<>(replicas.size());
+        replicas.forEach((name, dataSource) -> this.replicas.add(new Replica(name, dataSource)));
+        this.tracker = tracker;
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+    }
+
+    /** Uruchamia okresowe sprawdzanie replik (pierwsze od razu). */
+    public synchronized void start(Duration interval) {
+        if (healthChecker == null) {
+            healthChecker = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("replica-health").daemon().factory());
+            healthChecker.scheduleWithFixedDelay(this::checkHealth, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!tracker.isSticky()) {
+            int size = replicas.size();
+            int start = Math.floorMod(next.getAndIncrement(), size);
+            for (int i = 0; i < size; i++) {
+                Replica replica = replicas.get((start + i) % size);
+                if (!replica.healthy) {
+                    continue;
+                }
+                try {
+                    return replica.dataSource.getConnection();
+                } catch (SQLException | RuntimeException e) {
+                    markDown(replica, e);
+                }
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica connections use the configured credentials");
+    }
+
+    /** Sprawdza dostępność i opóźnienie każdej repliki. */
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(LAG_QUERY)) {
+                resultSet.next();
+                double lag = resultSet.getDouble(1);
+                replica.lagSeconds = lag;
+                if (lag > maxLagSeconds) {
+                    if (replica.healthy) {
+                        log.warn("Replica {} lags {} s behind the primary, routing its reads to the primary", replica.name, lag);
+                    }
+                    replica.healthy = false;
+                } else {
+                    if (!replica.healthy) {
+                        log.info("Replica {} is available (lag {} s)", replica.name, lag);
+                    }
+                    replica.healthy = true;
+                }
+            } catch (SQLException | RuntimeException e) {
+                markDown(replica, e);
+            }
+        }
+    }
+
+    /** @return Stan replik (do metryk). */
+    public List<Replica> replicas() {
+        return List.copyOf(replicas);
+    }
+
+    @Override
+    public synchronized void close() throws Exception {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private void markDown(Replica replica, Exception cause) {
+        if (replica.healthy) {
+            log.warn("Replica {} is unavailable, routing its reads to the primary: {}", replica.name, cause.getMessage());
+        }
+        replica.healthy = false;
+    }
+
+    public static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy;
+        private volatile double lagSeconds;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public boolean isHealthy() {
+            return healthy;
+        }
+
+        public double lagSeconds() {
+            return lagSeconds;
+        }
+    }
+}
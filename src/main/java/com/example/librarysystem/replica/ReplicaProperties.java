@@ -0,0 +1,33 @@
+package com.example.librarysystem.replica;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Ustawienia kierowania transakcji tylko do odczytu na repliki PostgreSQL.
+ *
+ * @param enabled             Czy kierować transakcje {@code readOnly} na repliki.
+ * @param urls                Adresy JDBC replik (strumieniowa replikacja z bazy głównej).
+ * @param username            Użytkownik replik; domyślnie ten sam co dla bazy głównej.
+ * @param password            Hasło replik; domyślnie to samo co dla bazy głównej.
+ * @param maxPoolSize         Rozmiar puli połączeń każdej repliki.
+ * @param connectionTimeout   Po tylu sekundach oczekiwania na połączenie replika uznawana jest za niedostępną.
+ * @param healthCheckInterval Co ile sprawdzać dostępność i opóźnienie replik.
+ * @param maxLag              Replika opóźniona bardziej niż o tyle nie dostaje zapytań.
+ * @param stickyFor           Jak długo po własnym zapisie użytkownik czyta z bazy głównej (read-your-writes).
+ */
+@ConfigurationProperties(prefix = "library.replicas")
+public record ReplicaProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue List<String> urls,
+        String username,
+        String password,
+        @DefaultValue("5") int maxPoolSize,
+        @DefaultValue("2s") Duration connectionTimeout,
+        @DefaultValue("5s") Duration healthCheckInterval,
+        @DefaultValue("10s") Duration maxLag,
+        @DefaultValue("10s") Duration stickyFor) {
+}
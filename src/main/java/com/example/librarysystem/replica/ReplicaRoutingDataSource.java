@@ -0,0 +1,75 @@
+package com.example.librarysystem.replica;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Główne źródło danych aplikacji przy włączonych replikach. Połączenie fizyczne pobierane jest dopiero przy
+ * pierwszym zapytaniu - wtedy transakcja jest już rozpoczęta i wiadomo, czy jest {@code readOnly}. Takie transakcje
+ * (oraz połączenia oznaczone {@link Connection#setReadOnly(boolean)}) dostają połączenie z {@link ReplicaDataSource},
+ * pozostałe i wszystko poza transakcją - z bazy głównej.
+ */
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+    private final DataSource primary;
+    private final ReplicaDataSource replicas;
+
+    public ReplicaRoutingDataSource(DataSource primary, ReplicaDataSource replicas) {
+        super(new TransactionRouter(primary, replicas));
+        setReadOnlyDataSource(replicas);
+        this.primary = primary;
+        this.replicas = replicas;
+    }
+
+    @Override
+    public void close() throws Exception {
+        replicas.close();
+        if (primary instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    /**
+     * Wybór według transakcji Springa - Hibernate przy zwalnianiu połączeń po transakcji nie ustawia
+     * {@code setReadOnly} na połączeniu, więc sama flaga połączenia nie wystarcza.
+     */
+    private static final class TransactionRouter extends AbstractDataSource {
+
+        private final DataSource primary;
+        private final DataSource replicas;
+
+        private TransactionRouter(DataSource primary, DataSource replicas) {
+            this.primary = primary;
+            this.replicas = replicas;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                    ? replicas.getConnection()
+                    : primary.getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return primary.getConnection(username, password);
+        }
+
+        // Metryki i ustawienia puli (np. rozmiar w VirtualThreadConfig) dotyczą puli bazy głównej
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            return iface.isInstance(this) ? (T) this : primary.unwrap(iface);
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) throws SQLException {
+            return iface.isInstance(this) || primary.isWrapperFor(iface);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.librarysystem.report;
+
+import com.example.librarysystem.entity.OutboxEvent;
+import com.example.librarysystem.entity.ReportRefreshState;
+import com.example.librarysystem.event.ChangeCursor;
+import com.example.librarysystem.event.EntityChangedEvent;
+import com.example.librarysystem.event.TransactionSnapshot;
+import com.example.librarysystem.repository.CirculationDailyRepository;
+import com.example.librarysystem.repository.CirculationMonthlyRepository;
+import com.example.librarysystem.repository.OutboxEventRepository;
+import com.example.librarysystem.repository.ReportRefreshStateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Utrzymuje sumy raportowe przyrostowo: dolicza do sum dziennych ({@code circulation_daily}) wypożyczenia
+ * ({@code BORROWED}) i zwroty ({@code RETURNED}) z outboxa zmian, a potem przelicza z nich sumy miesięczne
+ * ({@code circulation_monthly}) dotkniętych miesięcy. Partie po {@code batchSize} zmian idą każda w jednej
+ * transakcji razem z przesunięciem pozycji w {@code report_refresh_state} - partia jest doliczona dokładnie raz.
+ * <ul>
+ *     <li>Odświeża jedna instancja naraz: trzyma blokadę wiersza pozycji, a pozostałe go pomijają.</li>
+ *     <li>Bez pozycji (pierwsze uruchomienie) albo z pozycją starszą niż retencja outboxa sumy są budowane
+ *     od nowa z tabeli wypożyczeń. Zmiany transakcji widocznych w migawce odbudowy są już w sumach,
+ *     więc przy doliczaniu je pomijamy.</li>
+ * </ul>
+ */
+public class CirculationRollupRefresher {
+
+    private static final Logger log = LoggerFactory.getLogger(CirculationRollupRefresher.class);
+
+    static final String STATE = "circulation";
+
+    private enum Step { MORE, REBUILD, DONE }
+
+    private final ReportRefreshStateRepository stateRepository;
+    private final CirculationDailyRepository circulationDailyRepository;
+    private final CirculationMonthlyRepository circulationMonthlyRepository;
+    private final OutboxEventRepository outboxEventRepository;
+    private final TransactionTemplate batchTransaction;
+    private final TransactionTemplate rebuildTransaction;
+    private final Clock clock;
+    private final Duration outboxRetention;
+    private final int batchSize;
+
+    /**
+     * @param rebuildTransaction Transakcja z izolacją REPEATABLE READ - migawka, pozycja outboxa i odczyt
+     *                           wypożyczeń przy odbudowie muszą być spójne.
+     */
+    public CirculationRollupRefresher(ReportRefreshStateRepository stateRepository,
+                                      CirculationDailyRepository circulationDailyRepository,
+                                      CirculationMonthlyRepository circulationMonthlyRepository,
+                                      OutboxEventRepository outboxEventRepository, TransactionTemplate batchTransaction,
+                                      TransactionTemplate rebuildTransaction, Clock clock, Duration outboxRetention,
+                                      int batchSize) {
+        this.stateRepository = stateRepository;
+        this.circulationDailyRepository = circulationDailyRepository;
+        this.circulationMonthlyRepository = circulationMonthlyRepository;
+        this.outboxEventRepository = outboxEventRepository;
+        this.batchTransaction = batchTransaction;
+        this.rebuildTransaction = rebuildTransaction;
+        this.clock = clock;
+        this.outboxRetention = outboxRetention;
+        this.batchSize = batchSize;
+    }
+
+    public void refresh() {
+        Step step;
+        do {
+            step = batchTransaction.execute(status -> refreshBatch());
+            if (step == Step.REBUILD) {
+                rebuildTransaction.executeWithoutResult(status -> rebuild());
+            }
+        } while (step != Step.DONE);
+    }
+
+    private Step refreshBatch() {
+        Optional<ReportRefreshState> locked = stateRepository.lockIfFree(STATE);
+        if (locked.isEmpty()) {
+            // Pierwsze uruchomienie (brak wiersza) albo właśnie odświeża inna instancja
+            return !stateRepository.existsById(STATE) && stateRepository.createIfMissing(STATE) > 0 ? Step.MORE : Step.DONE;
+        }
+        ReportRefreshState state = locked.get();
+        if (needsRebuild(state)) {
+            return Step.REBUILD;
+        }
+
+        TransactionSnapshot rebuilt = state.getRebuildSnapshot() != null
+                ? TransactionSnapshot.parse(state.getRebuildSnapshot())
+                : null;
+        ChangeCursor position = state.getPosition();
+        List<OutboxEvent> rows = outboxEventRepository.findCommittedAfterOfType(EntityChangedEvent.Type.BORROWING.name(),
+                position.txId(), position.id(), batchSize);
+        List<Long> loans = new ArrayList<>();
+        List<Long> returns = new ArrayList<>();
+        Instant firstLoan = null;
+        for (OutboxEvent row : rows) {
+            position = ChangeCursor.of(row);
+            if (rebuilt != null && rebuilt.isVisible(position.txId())) {
+                continue;
+            }
+            switch (row.getOperation()) {
+                case BORROWED -> {
+                    loans.add(row.getEntityId());
+                    firstLoan = firstLoan == null || row.getCreatedAt().isBefore(firstLoan) ? row.getCreatedAt() : firstLoan;
+                }
+                case RETURNED -> returns.add(row.getEntityId());
+                default -> {
+                    // Inne zmiany wypożyczeń nie wpływają na sumy
+                }
+            }
+        }
+        if (!loans.isEmpty()) {
+            // Wypożyczenie trafia do outboxa w transakcji, która je zapisuje, z datą wypożyczenia "dziś" w strefie
+            // aplikacji - dzień zapasu pokrywa różnicę stref
+            circulationDailyRepository.addLoans(loans, LocalDate.ofInstant(firstLoan, ZoneOffset.UTC).minusDays(1));
+        }
+        if (!returns.isEmpty()) {
+            circulationDailyRepository.addReturns(returns);
+        }
+        if (!loans.isEmpty() || !returns.isEmpty()) {
+            List<Long> changed = new ArrayList<>(loans);
+            changed.addAll(returns);
+            circulationMonthlyRepository.refreshMonthsOf(changed);
+        }
+        // Pozycja przesuwa się także bez zmian - jej czas mówi, że outbox nie zdążył usunąć niedoliczonych zmian
+        state.advance(position, clock.instant());
+        if (rebuilt != null && position.txId() >= rebuilt.xmax()) {
+            state.forgetRebuildSnapshot();
+        }
+        return rows.size() == batchSize ? Step.MORE : Step.DONE;
+    }
+
+    private void rebuild() {
+        Optional<ReportRefreshState> locked = stateRepository.lockIfFree(STATE);
+        if (locked.isEmpty() || !needsRebuild(locked.get())) {
+            return;
+        }
+        long started = System.nanoTime();
+        String snapshot = stateRepository.currentSnapshot();
+        ChangeCursor head = outboxEventRepository.findLastCommitted()
+                .map(ChangeCursor::of)
+                .orElse(ChangeCursor.START);
+        circulationDailyRepository.deleteAllRows();
+        int loanRows = circulationDailyRepository.addAllLoans();
+        int returnRows = circulationDailyRepository.addAllReturns();
+        circulationMonthlyRepository.deleteAllRows();
+        int monthRows = circulationMonthlyRepository.refreshAll();
+        locked.get().rebuilt(head, snapshot, clock.instant());
+        log.info("Circulation rollups rebuilt from borrowings ({} loan and {} return daily upserts, {} monthly rows) in {} ms",
+                loanRows, returnRows, monthRows, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private boolean needsRebuild(ReportRefreshState state) {
+        return state.getPosition() == null || state.getRefreshedAt().isBefore(clock.instant().minus(outboxRetention));
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.librarysystem.report;
+
+/** Wymiar grupowania raportu obiegu książek. */
+public enum ReportDimension {
+    GENRE,
+    ROLE,
+    DECADE
+}
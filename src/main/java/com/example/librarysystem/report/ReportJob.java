@@ -0,0 +1,51 @@
+package com.example.librarysystem.report;
+
+import org.springframework.lang.Nullable;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Zadanie raportowe wykonywane w tle ({@link ReportJobRunner}). Niezmienne - każda zmiana stanu to nowa instancja.
+ * Rozpoczęte i zakończone zadania trafiają też na dysk obok wyniku, jako JSON.
+ *
+ * @param parameters Parametry po walidacji ({@link ReportJobType#normalize(Map)}).
+ * @param rows       Liczba wierszy wyniku (po zakończeniu).
+ * @param sizeBytes  Rozmiar pliku wyniku skompresowanego gzipem (po zakończeniu).
+ * @param expiresAt  Od tej chwili wynik i samo zadanie są usuwane.
+ */
+public record ReportJob(
+        String id,
+        ReportJobType type,
+        Map<String, String> parameters,
+        ReportJobStatus status,
+        Instant submittedAt,
+        @Nullable Instant startedAt,
+        @Nullable Instant finishedAt,
+        @Nullable Long rows,
+        @Nullable Long sizeBytes,
+        @Nullable String error,
+        @Nullable Instant expiresAt) {
+
+    static ReportJob queued(String id, ReportJobType type, Map<String, String> parameters, Instant at) {
+        return new ReportJob(id, type, parameters, ReportJobStatus.QUEUED, at, null, null, null, null, null, null);
+    }
+
+    ReportJob running(Instant at) {
+        return new ReportJob(id, type, parameters, ReportJobStatus.RUNNING, submittedAt, at, null, null, null, null, null);
+    }
+
+    ReportJob completed(Instant at, long rows, long sizeBytes, Instant expiresAt) {
+        return new ReportJob(id, type, parameters, ReportJobStatus.COMPLETED, submittedAt, startedAt, at, rows, sizeBytes,
+                null, expiresAt);
+    }
+
+    ReportJob failed(Instant at, String error, Instant expiresAt) {
+        return new ReportJob(id, type, parameters, ReportJobStatus.FAILED, submittedAt, startedAt, at, null, null,
+                error, expiresAt);
+    }
+
+    boolean isExpired(Instant now) {
+        return expiresAt != null && !now.isBefore(expiresAt);
+    }
+}
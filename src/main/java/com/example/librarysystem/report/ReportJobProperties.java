@@ -0,0 +1,30 @@
+package com.example.librarysystem.report;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Ustawienia raportów wykonywanych w tle.
+ *
+ * @param workers         Liczba równocześnie wykonywanych raportów - i zarazem rozmiar ich osobnej puli połączeń.
+ * @param queueCapacity   Ile zleceń może czekać; kolejne dostają 503 do czasu zwolnienia miejsca.
+ * @param directory       Katalog wyników i opisów zadań (może być wspólny dla instancji); pusta wartość - katalog tymczasowy.
+ * @param resultTtl       Jak długo przechowywać wynik (i opis zadania) po jego zakończeniu.
+ * @param queryTimeout    Limit czasu zapytania raportu.
+ * @param fetchSize       Liczba wierszy pobieranych z kursora naraz.
+ * @param jdbcUrl         Baza dla raportów, np. replika; pusta wartość - baza główna ({@code spring.datasource.url}).
+ * @param cleanupInterval Jak często usuwać wygasłe wyniki.
+ */
+@ConfigurationProperties(prefix = "library.report-jobs")
+public record ReportJobProperties(
+        @DefaultValue("2") int workers,
+        @DefaultValue("20") int queueCapacity,
+        @DefaultValue("") String directory,
+        @DefaultValue("24h") Duration resultTtl,
+        @DefaultValue("30m") Duration queryTimeout,
+        @DefaultValue("5000") int fetchSize,
+        @DefaultValue("") String jdbcUrl,
+        @DefaultValue("1h") Duration cleanupInterval) {
+}
@@ -0,0 +1,340 @@
+package com.example.librarysystem.report;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Wykonuje długie raporty w tle, z dala od ruchu czytelników:
+ * <ul>
+ *     <li>zadania czekają w ograniczonej kolejce i działają na własnej, małej puli wątków - pełna kolejka odrzuca
+ *     nowe zlecenia ({@link RejectedExecutionException}) zamiast je gromadzić;</li>
+ *     <li>zapytania idą przez osobną pulę połączeń (tyle połączeń, ile wątków), więc nie zabierają połączeń
+ *     żądaniom HTTP, a wynik czytają strumieniowo kursorem, bez ładowania go do pamięci;</li>
+ *     <li>wynik (CSV skompresowany gzipem) i opis zadania (JSON) trafiają do katalogu na dysku na czas
+ *     {@code resultTtl}. Takie samo zlecenie w tym czasie dostaje gotowe (lub trwające) zadanie zamiast nowego.</li>
+ * </ul>
+ * Wspólny katalog (np. wolumen) pozwala sprawdzić stan zadania i pobrać wynik przez dowolną instancję - opis zadania
+ * trafia na dysk już przy jego rozpoczęciu. Pliki tymczasowe i zadania {@code RUNNING} innych instancji są
+ * porzucone dopiero, gdy nie zmieniały się dłużej niż dwa limity czasu zapytania (instancja przestała działać).
+ */
+public class ReportJobRunner implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportJobRunner.class);
+
+    private static final String RESULT_SUFFIX = ".csv.gz";
+    private static final String METADATA_SUFFIX = ".json";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final ThreadPoolExecutor executor;
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+    private final Duration resultTtl;
+    private final Duration abandonedAfter;
+    private final int fetchSize;
+
+    private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+    // Typ i parametry zlecenia -> ID zadania, które je obsługuje
+    private final Map<String, String> jobIdByRequest = new ConcurrentHashMap<>();
+
+    /**
+     * @param dataSource Osobna pula połączeń dla raportów - zamykana razem z runnerem.
+     * @param executor   Ograniczona pula wątków z ograniczoną kolejką i odrzucaniem nadmiarowych zadań.
+     */
+    public ReportJobRunner(DataSource dataSource, ThreadPoolExecutor executor, Path directory, ObjectMapper objectMapper,
+                           Clock clock, Duration resultTtl, Duration queryTimeout, int fetchSize) throws IOException {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setQueryTimeout((int) queryTimeout.toSeconds());
+        this.executor = executor;
+        this.directory = Files.createDirectories(directory);
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+        this.resultTtl = resultTtl;
+        // Zapytanie nie trwa dłużej niż limit czasu, a zapis wyniku co chwilę odświeża datę pliku - zapas na oba
+        this.abandonedAfter = queryTimeout.multipliedBy(2);
+        this.fetchSize = fetchSize;
+        recover();
+    }
+
+    /**
+     * Nowe zadanie albo istniejące zadanie z tym samym typem i parametrami, jeśli jeszcze trwa lub ma ważny wynik.
+     *
+     * @throws RejectedExecutionException Gdy kolejka zadań jest pełna.
+     */
+    public synchronized ReportJob submit(ReportJobType type, Map<String, String> parameters) {
+        Map<String, String> normalized = type.normalize(parameters);
+        String request = requestKey(type, normalized);
+        Optional<ReportJob> existing = Optional.ofNullable(jobIdByRequest.get(request)).flatMap(this::find);
+        if (existing.isPresent() && existing.get().status() != ReportJobStatus.FAILED) {
+            return existing.get();
+        }
+        ReportJob job = ReportJob.queued(UUID.randomUUID().toString(), type, normalized, clock.instant());
+        jobs.put(job.id(), job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id());
+            throw e;
+        }
+        jobIdByRequest.put(request, job.id());
+        return job;
+    }
+
+    /** Zadanie z pamięci albo - zakończone, np. przez inną instancję - z katalogu wyników. */
+    public Optional<ReportJob> find(String id) {
+        if (!isJobId(id)) {
+            return Optional.empty();
+        }
+        ReportJob job = jobs.get(id);
+        if (job == null) {
+            job = readMetadata(directory.resolve(id + METADATA_SUFFIX));
+        }
+        return Optional.ofNullable(job).filter(found -> !found.isExpired(clock.instant()));
+    }
+
+    /** Plik wyniku zakończonego zadania (CSV skompresowany gzipem); może już nie istnieć po wygaśnięciu. */
+    public Path resultFile(ReportJob job) {
+        return directory.resolve(job.id() + RESULT_SUFFIX);
+    }
+
+    /**
+     * Usuwa z pamięci i z dysku zadania po terminie ważności, a porzucone przez zatrzymaną instancję zadania
+     * {@code RUNNING} i pliki tymczasowe - zamyka jako {@code FAILED} albo usuwa.
+     */
+    public void purgeExpired() {
+        Instant now = clock.instant();
+        Instant abandonedBefore = now.minus(abandonedAfter);
+        jobs.values().removeIf(job -> job.isExpired(now));
+        jobIdByRequest.values().removeIf(id -> !jobs.containsKey(id));
+        int removed = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + METADATA_SUFFIX)) {
+            for (Path file : files) {
+                ReportJob job = readMetadata(file);
+                if (job == null || job.isExpired(now)) {
+                    String id = file.getFileName().toString().replace(METADATA_SUFFIX, "");
+                    Files.deleteIfExists(directory.resolve(id + RESULT_SUFFIX));
+                    Files.deleteIfExists(file);
+                    removed++;
+                } else if (job.status() == ReportJobStatus.RUNNING && !jobs.containsKey(job.id())
+                        && job.startedAt().isBefore(abandonedBefore)) {
+                    log.warn("Report job {} ({} {}) was abandoned by a stopped instance", job.id(), job.type(), job.parameters());
+                    writeMetadata(job.failed(now, "Abandoned: the instance running the job stopped", now.plus(resultTtl)));
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Cannot purge expired report jobs in {}: {}", directory, e.toString());
+        }
+        if (removed > 0) {
+            log.info("Purged {} expired report jobs", removed);
+        }
+        // Wyniki przerwane przez zatrzymanie instancji; trwające zapisy innych instancji mają świeżą datę zmiany
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + TEMPORARY_SUFFIX)) {
+            for (Path file : files) {
+                if (Files.getLastModifiedTime(file).toInstant().isBefore(abandonedBefore)) {
+                    deleteQuietly(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Cannot remove abandoned report results in {}: {}", directory, e.toString());
+        }
+    }
+
+    /** Kolejka i trwające zadania - np. do metryk. */
+    public int activeJobs() {
+        return executor.getActiveCount() + executor.getQueue().size();
+    }
+
+    @Override
+    public void close() throws Exception {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        if (dataSource instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private void run(ReportJob queued) {
+        ReportJob job = queued.running(clock.instant());
+        jobs.put(job.id(), job);
+        // Stan trwającego zadania widzą też inne instancje
+        writeMetadata(job);
+        Path result = resultFile(job);
+        Path temporary = directory.resolve(job.id() + RESULT_SUFFIX + TEMPORARY_SUFFIX);
+        try {
+            long rows = writeCsv(job.type().query(job.parameters()), temporary);
+            Files.move(temporary, result, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Instant finished = clock.instant();
+            job = job.completed(finished, rows, Files.size(result), finished.plus(resultTtl));
+            log.info("Report job {} ({} {}) completed: {} rows in {} ms", job.id(), job.type(), job.parameters(), rows,
+                    Duration.between(job.startedAt(), finished).toMillis());
+        } catch (Exception e) {
+            Instant finished = clock.instant();
+            job = job.failed(finished, e.getClass().getSimpleName() + ": " + e.getMessage(), finished.plus(resultTtl));
+            log.warn("Report job {} ({} {}) failed", job.id(), job.type(), job.parameters(), e);
+            deleteQuietly(temporary);
+        }
+        writeMetadata(job);
+        jobs.put(job.id(), job);
+    }
+
+    private long writeCsv(ReportJobType.Query query, Path file) throws IOException {
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(file), 65536), StandardCharsets.UTF_8), 65536)) {
+            Long rows = jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(query.sql());
+                // Kursor zamiast całego wyniku w pamięci (pula raportów ma wyłączony autocommit)
+                statement.setFetchSize(fetchSize);
+                for (int i = 0; i < query.args().length; i++) {
+                    statement.setObject(i + 1, query.args()[i]);
+                }
+                return statement;
+            }, rs -> {
+                try {
+                    return CsvWriter.write(rs, out);
+                } catch (IOException e) {
+                    throw new SQLException("Cannot write report result", e);
+                }
+            });
+            return rows != null ? rows : 0;
+        }
+    }
+
+    private void recover() throws IOException {
+        purgeExpired();
+        // Wyniki sprzed restartu nadal obsługują takie same zlecenia
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + METADATA_SUFFIX)) {
+            for (Path file : files) {
+                ReportJob job = readMetadata(file);
+                if (job != null && job.status() == ReportJobStatus.COMPLETED) {
+                    jobIdByRequest.put(requestKey(job.type(), job.parameters()), job.id());
+                }
+            }
+        }
+    }
+
+    private static String requestKey(ReportJobType type, Map<String, String> parameters) {
+        return type + " " + new TreeMap<>(parameters);
+    }
+
+    private void writeMetadata(ReportJob job) {
+        Path file = directory.resolve(job.id() + METADATA_SUFFIX);
+        Path temporary = directory.resolve(job.id() + METADATA_SUFFIX + TEMPORARY_SUFFIX);
+        try {
+            objectMapper.writeValue(temporary.toFile(), job);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Zadanie zostaje w pamięci tej instancji; po restarcie wynik nie będzie dostępny
+            log.warn("Cannot save report job {} metadata: {}", job.id(), e.toString());
+        }
+    }
+
+    private ReportJob readMetadata(Path file) {
+        try {
+            return Files.exists(file) ? objectMapper.readValue(file.toFile(), ReportJob.class) : null;
+        } catch (IOException e) {
+            log.warn("Cannot read report job metadata {}: {}", file, e.toString());
+            return null;
+        }
+    }
+
+    // Identyfikator trafia do ścieżki pliku - tylko kanoniczne UUID
+    private static boolean isJobId(String id) {
+        try {
+            return UUID.fromString(id).toString().equals(id);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("Cannot delete {}: {}", file, e.toString());
+        }
+    }
+
+    /** CSV według RFC 4180 z nagłówkiem z nazw kolumn. */
+    static final class CsvWriter {
+
+        private CsvWriter() {
+        }
+
+        static long write(ResultSet rs, Writer out) throws SQLException, IOException {
+            ResultSetMetaData metaData = rs.getMetaData();
+            int columns = metaData.getColumnCount();
+            boolean[] text = new boolean[columns + 1];
+            for (int column = 1; column <= columns; column++) {
+                if (column > 1) {
+                    out.write(',');
+                }
+                writeValue(out, metaData.getColumnLabel(column), false);
+                int type = metaData.getColumnType(column);
+                text[column] = type == Types.VARCHAR || type == Types.CHAR || type == Types.LONGVARCHAR;
+            }
+            out.write("\r\n");
+            long rows = 0;
+            while (rs.next()) {
+                for (int column = 1; column <= columns; column++) {
+                    if (column > 1) {
+                        out.write(',');
+                    }
+                    String value = rs.getString(column);
+                    if (value != null) {
+                        writeValue(out, value, text[column]);
+                    }
+                }
+                out.write("\r\n");
+                rows++;
+            }
+            return rows;
+        }
+
+        private static void writeValue(Writer out, String value, boolean text) throws IOException {
+            // Tekst od użytkowników (np. nazwa konta "=HYPERLINK(...)") arkusz potraktowałby jak formułę
+            if (text && !value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+                value = "'" + value;
+            }
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                out.write('"');
+                out.write(value.replace("\"", "\"\""));
+                out.write('"');
+            } else {
+                out.write(value);
+            }
+        }
+    }
+}
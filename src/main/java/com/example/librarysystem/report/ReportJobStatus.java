@@ -0,0 +1,9 @@
+package com.example.librarysystem.report;
+
+/** Stan zadania raportowego. */
+public enum ReportJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
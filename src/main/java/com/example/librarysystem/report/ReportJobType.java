@@ -0,0 +1,131 @@
+package com.example.librarysystem.report;
+
+import com.example.librarysystem.exception.BadRequestException;
+
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static com.example.librarysystem.repository.BorrowingHistoryRepository.ALL_BORROWINGS;
+
+/**
+ * Rodzaje raportów wykonywanych w tle - każdy to jedno zapytanie SQL, którego wynik trafia do pliku CSV.
+ */
+public enum ReportJobType {
+
+    /** Pełna historia wypożyczeń, opcjonalnie z zakresu dat wypożyczenia ({@code from}, {@code to} włącznie). */
+    BORROWING_HISTORY(Set.of("from", "to"), Set.of()) {
+        @Override
+        Query query(Map<String, String> parameters) {
+            StringBuilder sql = new StringBuilder("""
+                    SELECT b.id AS borrowing_id, b.borrow_date, b.due_date, b.return_date,
+                           u.id AS user_id, u.username, bk.id AS book_id, bk.title, bk.isbn
+                    FROM %s b
+                             JOIN library_users u ON u.id = b.user_id
+                             JOIN book bk ON bk.id = b.book_id
+                    WHERE TRUE""".formatted(ALL_BORROWINGS));
+            List<Object> args = new ArrayList<>();
+            if (parameters.containsKey("from")) {
+                sql.append(" AND b.borrow_date >= ?");
+                args.add(LocalDate.parse(parameters.get("from")));
+            }
+            if (parameters.containsKey("to")) {
+                sql.append(" AND b.borrow_date <= ?");
+                args.add(LocalDate.parse(parameters.get("to")));
+            }
+            sql.append(" ORDER BY b.id");
+            return new Query(sql.toString(), args.toArray());
+        }
+
+        @Override
+        void validate(Map<String, String> parameters) {
+            LocalDate from = parameters.containsKey("from") ? parseDate(parameters.get("from"), "from") : null;
+            LocalDate to = parameters.containsKey("to") ? parseDate(parameters.get("to"), "to") : null;
+            if (from != null && to != null && from.isAfter(to)) {
+                throw new BadRequestException("from must not be after to");
+            }
+        }
+    },
+
+    /** Statystyki każdego czytelnika z wypożyczeń rozpoczętych w roku {@code year}. */
+    USER_STATISTICS(Set.of("year"), Set.of("year")) {
+        @Override
+        Query query(Map<String, String> parameters) {
+            Year year = Year.parse(parameters.get("year"));
+            return new Query("""
+                    SELECT u.id AS user_id, u.username,
+                           count(*) AS loans,
+                           count(b.return_date) AS returns,
+                           count(*) FILTER (WHERE COALESCE(b.return_date, CURRENT_DATE) > b.due_date) AS overdue,
+                           round(avg(b.return_date - b.borrow_date), 2) AS average_loan_days
+                    FROM %s b
+                             JOIN library_users u ON u.id = b.user_id
+                    WHERE b.borrow_date >= ? AND b.borrow_date < ?
+                    GROUP BY u.id, u.username
+                    ORDER BY u.id""".formatted(ALL_BORROWINGS), new Object[]{year.atDay(1), year.plusYears(1).atDay(1)});
+        }
+
+        @Override
+        void validate(Map<String, String> parameters) {
+            try {
+                Year.parse(parameters.get("year"));
+            } catch (DateTimeParseException e) {
+                throw new BadRequestException("year must be a four-digit year");
+            }
+        }
+    };
+
+    /** Zapytanie z parametrami pozycyjnymi ({@code ?}). */
+    record Query(String sql, Object[] args) {
+    }
+
+    private final Set<String> allowed;
+    private final Set<String> required;
+
+    ReportJobType(Set<String> allowed, Set<String> required) {
+        this.allowed = allowed;
+        this.required = required;
+    }
+
+    /**
+     * Sprawdza parametry i zwraca je w stałej kolejności - takie same zlecenia mają takie same parametry,
+     * więc mogą dostać gotowy wynik wcześniejszego zadania.
+     *
+     * @throws BadRequestException Przy nieznanym, brakującym lub błędnym parametrze.
+     */
+    public Map<String, String> normalize(Map<String, String> parameters) {
+        Map<String, String> normalized = new TreeMap<>();
+        parameters.forEach((name, value) -> {
+            if (!allowed.contains(name)) {
+                throw new BadRequestException("Unknown parameter '" + name + "' for report " + name() + "; allowed: " + allowed);
+            }
+            if (value != null && !value.isBlank()) {
+                normalized.put(name, value.trim());
+            }
+        });
+        for (String name : required) {
+            if (!normalized.containsKey(name)) {
+                throw new BadRequestException("Parameter '" + name + "' is required for report " + name());
+            }
+        }
+        validate(normalized);
+        return normalized;
+    }
+
+    abstract Query query(Map<String, String> parameters);
+
+    abstract void validate(Map<String, String> parameters);
+
+    private static LocalDate parseDate(String value, String name) {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException(name + " must be a date in the form YYYY-MM-DD");
+        }
+    }
+}
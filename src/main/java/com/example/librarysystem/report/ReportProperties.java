@@ -0,0 +1,20 @@
+package com.example.librarysystem.report;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Ustawienia tabel sum raportowych.
+ *
+ * @param enabled         Czy odświeżać sumy na tej instancji (raporty czytają je zawsze).
+ * @param refreshInterval Jak często dopisywać do sum nowe wypożyczenia i zwroty z outboxa zmian.
+ * @param batchSize       Liczba zmian z outboxa doliczanych w jednej transakcji.
+ */
+@ConfigurationProperties(prefix = "library.reports")
+public record ReportProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("1m") Duration refreshInterval,
+        @DefaultValue("5000") int batchSize) {
+}
@@ -1,13 +1,44 @@
 package com.example.librarysystem.repository;
 
 import com.example.librarysystem.entity.Book;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, BookRepositoryCustom {
     Optional<Book> findByIsbn(String isbn);
 
-}
\ No newline at end of file
+    // Gatunek dociągamy od razu (JOIN), żeby serializacja nie wysyłała osobnego zapytania na każdy gatunek
+    @Override
+    @EntityGraph(attributePaths = "genre")
+    List<Book> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = "genre")
+    Optional<Book> findById(Long id);
+
+    // Filtruje po kolumnie genre_id (indeks na liczbie całkowitej), bez złączenia ze słownikiem
+    @EntityGraph(attributePaths = "genre")
+    List<Book> findByGenreId(Short genreId);
+
+    // Strony pełnej synchronizacji kiosków - kolejne książki według ID
+    @EntityGraph(attributePaths = "genre")
+    List<Book> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    @EntityGraph(attributePaths = "genre")
+    List<Book> findByIdIn(Collection<Long> ids);
+
+    // Jedno zapytanie DELETE zamiast existsById + deleteById; zwraca liczbę usuniętych wierszy
+    @Modifying
+    @Query("DELETE FROM Book b WHERE b.id = :id")
+    int removeById(@Param("id") Long id);
+}
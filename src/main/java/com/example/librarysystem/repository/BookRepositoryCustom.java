@@ -0,0 +1,14 @@
+package com.example.librarysystem.repository;
+
+import java.util.Map;
+
+public interface BookRepositoryCustom {
+
+    /**
+     * Aktualizuje wskazane kolumny książki jednym zapytaniem, o ile jej wersja jest równa oczekiwanej.
+     *
+     * @param changes Nazwy atrybutów encji i ich nowe wartości.
+     * @return Liczba zmienionych wierszy (0 - brak książki lub konflikt wersji).
+     */
+    int updateFields(Long id, long expectedVersion, Map<String, Object> changes);
+}
@@ -0,0 +1,60 @@
+package com.example.librarysystem.repository;
+
+import com.example.librarysystem.entity.BorrowingHistory;
+import com.example.librarysystem.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface BorrowingHistoryRepository extends JpaRepository<BorrowingHistory, Long> {
+
+    /**
+     * Wszystkie wypożyczenia - bieżące i przeniesione do historii - jako podzapytanie z kolumnami tabeli borrowings.
+     * Dla zapytań czytających całą historię (odbudowy, raporty); warunki z zewnątrz PostgreSQL przenosi do obu części.
+     */
+    String ALL_BORROWINGS = """
+            (SELECT id, user_id, book_id, borrow_date, due_date, return_date FROM borrowings
+             UNION ALL
+             SELECT id, user_id, book_id, borrow_date, due_date, return_date FROM borrowing_history)""";
+
+    @EntityGraph(attributePaths = {"user", "book", "book.genre"})
+    List<BorrowingHistory> findAllByOrderByBorrowDateAscIdAsc();
+
+    @EntityGraph(attributePaths = {"book", "book.genre"})
+    List<BorrowingHistory> findByUserOrderByBorrowDateAscIdAsc(User user);
+
+    /**
+     * Przenosi do historii najwyżej {@code limit} najstarszych wypożyczeń zwróconych przed {@code returnedBefore}
+     * - jednym poleceniem, więc wiersz jest zawsze w dokładnie jednej z tabel. Wiersze zablokowane przez inne
+     * transakcje pomija zamiast na nie czekać.
+     * Usuwa po tablicy ID i zakresie dat wybranych wierszy: PostgreSQL pomija wtedy w trakcie wykonania partycje
+     * spoza zakresu i szuka w pozostałych po kluczu głównym. Złączenie z podzapytaniem czytałoby w całości
+     * wszystkie starsze partycje.
+     *
+     * @return Liczba przeniesionych wypożyczeń.
+     */
+    @Modifying
+    @Query(value = """
+            WITH candidates AS MATERIALIZED (
+                SELECT id, borrow_date
+                FROM borrowings
+                WHERE borrow_date < :returnedBefore AND return_date < :returnedBefore
+                ORDER BY borrow_date
+                LIMIT :limit FOR UPDATE SKIP LOCKED),
+                 moved AS (
+                     DELETE FROM borrowings b
+                     WHERE b.id = ANY (ARRAY(SELECT id FROM candidates))
+                       AND b.borrow_date BETWEEN (SELECT min(borrow_date) FROM candidates)
+                         AND (SELECT max(borrow_date) FROM candidates)
+                     RETURNING b.id, b.user_id, b.book_id, b.borrow_date, b.due_date, b.return_date)
+            INSERT INTO borrowing_history (id, user_id, book_id, borrow_date, due_date, return_date)
+            SELECT id, user_id, book_id, borrow_date, due_date, return_date FROM moved""", nativeQuery = true)
+    int archiveReturnedBefore(@Param("returnedBefore") LocalDate returnedBefore, @Param("limit") int limit);
+}
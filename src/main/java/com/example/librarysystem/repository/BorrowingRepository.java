@@ -3,14 +3,28 @@ package com.example.librarysystem.repository;
 import com.example.librarysystem.entity.Borrowing;
 import com.example.librarysystem.entity.Book;
 import com.example.librarysystem.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface BorrowingRepository extends JpaRepository<Borrowing, Long> {
+    // Książki (z gatunkami) i użytkowników dociągamy JOIN-em - bez tego serializacja listy wysyła
+    // osobne zapytanie o każdą książkę (N+1)
+    @Override
+    @EntityGraph(attributePaths = {"user", "book", "book.genre"})
+    List<Borrowing> findAll();
+
+    @EntityGraph(attributePaths = {"book", "book.genre"})
     List<Borrowing> findByUser(User user);
+
+    // Tabela jest partycjonowana po borrow_date - warunek na datę pozwala pominąć starsze partycje,
+    // a samo ID wymaga zajrzenia do indeksu każdej z nich
+    Optional<Borrowing> findByIdAndBorrowDateGreaterThanEqual(Long id, LocalDate borrowedSince);
     // Przykładowe niestandardowe metody, które mogą się przydać:
     // List<Borrowing> findByUserAndReturnDateIsNull(User user); // Aktywne wypożyczenia użytkownika
     // List<Borrowing> findByBookAndReturnDateIsNull(Book book); // Aktywne wypożyczenia danej książki
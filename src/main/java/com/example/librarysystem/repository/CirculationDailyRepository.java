@@ -0,0 +1,68 @@
+package com.example.librarysystem.repository;
+
+import com.example.librarysystem.entity.CirculationDaily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CirculationDailyRepository extends JpaRepository<CirculationDaily, CirculationDaily.Key> {
+
+    // Wymiary wypożyczenia z bieżących danych książki i czytelnika; 0 zamiast braku gatunku lub roku wydania
+    String DIMENSIONS = """
+            COALESCE(bk.genre_id, 0), u.role, COALESCE(bk.publication_year / 10 * 10, 0)""";
+    String JOINS = " JOIN book bk ON bk.id = b.book_id JOIN library_users u ON u.id = b.user_id";
+    String SOURCE = " FROM borrowings b" + JOINS;
+    // Odbudowa liczy także wypożyczenia przeniesione do historii
+    String ALL_SOURCE = " FROM " + BorrowingHistoryRepository.ALL_BORROWINGS + " b" + JOINS;
+    String INSERT = """
+            INSERT INTO circulation_daily (day, genre_id, user_role, publication_decade, loans, returns, loan_days, overdue_returns)""";
+    String SELECT_LOANS = INSERT + " SELECT b.borrow_date, " + DIMENSIONS + ", count(*), 0, 0, 0";
+    String SELECT_RETURNS = INSERT + " SELECT b.return_date, " + DIMENSIONS + """
+            , 0, count(*), sum(b.return_date - b.borrow_date), count(*) FILTER (WHERE b.return_date > b.due_date)""";
+    String LOANS = SELECT_LOANS + SOURCE;
+    String RETURNS = SELECT_RETURNS + SOURCE;
+    String ADD_LOANS = """
+             GROUP BY 1, 2, 3, 4
+            ON CONFLICT (day, genre_id, user_role, publication_decade)
+                DO UPDATE SET loans = circulation_daily.loans + EXCLUDED.loans""";
+    String ADD_RETURNS = """
+             GROUP BY 1, 2, 3, 4
+            ON CONFLICT (day, genre_id, user_role, publication_decade)
+                DO UPDATE SET returns = circulation_daily.returns + EXCLUDED.returns,
+                              loan_days = circulation_daily.loan_days + EXCLUDED.loan_days,
+                              overdue_returns = circulation_daily.overdue_returns + EXCLUDED.overdue_returns""";
+
+    /**
+     * Dolicza wypożyczenia o podanych ID (dzień wypożyczenia).
+     *
+     * @param borrowedSince Najwcześniejszy możliwy dzień tych wypożyczeń - ogranicza odczyt do ich partycji.
+     */
+    @Modifying
+    @Query(value = LOANS + " WHERE b.id IN (:ids) AND b.borrow_date >= :borrowedSince" + ADD_LOANS, nativeQuery = true)
+    int addLoans(@Param("ids") Collection<Long> ids, @Param("borrowedSince") LocalDate borrowedSince);
+
+    /** Dolicza zwroty wypożyczeń o podanych ID (dzień zwrotu); niezwrócone pomija. */
+    @Modifying
+    @Query(value = RETURNS + " WHERE b.id IN (:ids) AND b.return_date IS NOT NULL" + ADD_RETURNS, nativeQuery = true)
+    int addReturns(@Param("ids") Collection<Long> ids);
+
+    /** Wszystkie wypożyczenia, razem z historią - przy odbudowie, po {@link #deleteAllRows()}. */
+    @Modifying
+    @Query(value = SELECT_LOANS + ALL_SOURCE + ADD_LOANS, nativeQuery = true)
+    int addAllLoans();
+
+    @Modifying
+    @Query(value = SELECT_RETURNS + ALL_SOURCE + " WHERE b.return_date IS NOT NULL" + ADD_RETURNS, nativeQuery = true)
+    int addAllReturns();
+
+    @Modifying
+    @Query(value = "DELETE FROM circulation_daily", nativeQuery = true)
+    int deleteAllRows();
+}
@@ -0,0 +1,89 @@
+package com.example.librarysystem.repository;
+
+import com.example.librarysystem.entity.CirculationMonthly;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CirculationMonthlyRepository extends JpaRepository<CirculationMonthly, CirculationMonthly.Key> {
+
+    String INSERT = """
+            INSERT INTO circulation_monthly (month, genre_id, user_role, publication_decade, loans, returns, loan_days, overdue_returns)
+            SELECT m.month, d.genre_id, d.user_role, d.publication_decade,
+                   sum(d.loans), sum(d.returns), sum(d.loan_days), sum(d.overdue_returns)""";
+    String GROUP = """
+             GROUP BY m.month, d.genre_id, d.user_role, d.publication_decade
+            ON CONFLICT (month, genre_id, user_role, publication_decade)
+                DO UPDATE SET loans = EXCLUDED.loans, returns = EXCLUDED.returns,
+                              loan_days = EXCLUDED.loan_days, overdue_returns = EXCLUDED.overdue_returns""";
+
+    /**
+     * Przelicza z sum dziennych miesiące, w których wypożyczono lub zwrócono wypożyczenia o podanych ID.
+     * Wywoływane po doliczeniu tych wypożyczeń do {@code circulation_daily}, w tej samej transakcji.
+     */
+    @Modifying
+    @Query(value = INSERT + """
+             FROM (SELECT DISTINCT CAST(date_trunc('month', v.day) AS date) AS month
+                   FROM borrowings b
+                            CROSS JOIN LATERAL (VALUES (b.borrow_date), (b.return_date)) v (day)
+                   WHERE b.id IN (:ids) AND v.day IS NOT NULL) m
+                      JOIN circulation_daily d
+                           ON d.day >= m.month AND d.day < CAST(m.month + INTERVAL '1 month' AS date)""" + GROUP,
+            nativeQuery = true)
+    int refreshMonthsOf(@Param("ids") Collection<Long> ids);
+
+    /** Wszystkie miesiące z sum dziennych - przy odbudowie, po {@link #deleteAllRows()}. */
+    @Modifying
+    @Query(value = INSERT + """
+             FROM circulation_daily d
+                      CROSS JOIN LATERAL (SELECT CAST(date_trunc('month', d.day) AS date) AS month) m""" + GROUP,
+            nativeQuery = true)
+    int refreshAll();
+
+    @Modifying
+    @Query(value = "DELETE FROM circulation_monthly", nativeQuery = true)
+    int deleteAllRows();
+
+    /** Wiersz raportu: suma jednego miesiąca w jednej grupie. */
+    interface MonthlyTotals {
+        String getMonth();
+
+        Integer getGroupKey();
+
+        Long getLoans();
+
+        Long getReturns();
+
+        Long getLoanDays();
+
+        Long getOverdueReturns();
+    }
+
+    /**
+     * Sumy miesięcy {@code [from, to)} pogrupowane według wymiaru {@code groupBy}
+     * (GENRE, ROLE, DECADE; inna wartość - łącznie, klucz grupy 0).
+     */
+    @Query(value = """
+            SELECT to_char(c.month, 'YYYY-MM') AS month,
+                   CAST(CASE :groupBy
+                            WHEN 'GENRE' THEN c.genre_id
+                            WHEN 'ROLE' THEN c.user_role
+                            WHEN 'DECADE' THEN c.publication_decade
+                            ELSE 0 END AS integer) AS groupKey,
+                   CAST(sum(c.loans) AS bigint) AS loans,
+                   CAST(sum(c.returns) AS bigint) AS returns,
+                   CAST(sum(c.loan_days) AS bigint) AS loanDays,
+                   CAST(sum(c.overdue_returns) AS bigint) AS overdueReturns
+            FROM circulation_monthly c
+            WHERE c.month >= :from AND c.month < :to
+            GROUP BY 1, 2
+            ORDER BY 1, 2""", nativeQuery = true)
+    List<MonthlyTotals> sumByMonth(@Param("from") LocalDate from, @Param("to") LocalDate to, @Param("groupBy") String groupBy);
+}
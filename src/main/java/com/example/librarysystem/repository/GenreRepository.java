@@ -0,0 +1,21 @@
+package com.example.librarysystem.repository;
+
+import com.example.librarysystem.entity.Genre;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface GenreRepository extends JpaRepository<Genre, Short> {
+
+    Optional<Genre> findByName(String name);
+
+    // Bezpieczne przy równoległych wstawieniach tej samej nazwy - nie psuje bieżącej transakcji
+    @Modifying
+    @Query(value = "INSERT INTO genre (name) VALUES (:name) ON CONFLICT (name) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("name") String name);
+}
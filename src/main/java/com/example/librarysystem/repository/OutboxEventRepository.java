@@ -0,0 +1,65 @@
+package com.example.librarysystem.repository;
+
+import com.example.librarysystem.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Kolejne wiersze za kursorem (txId, id) w kolejności (tx_id, id). Zwraca tylko wiersze transakcji starszych
+     * niż najstarsza wciąż trwająca ({@code pg_snapshot_xmin}) - późniejsze zatwierdzenie takiej transakcji
+     * nie może już dopisać niczego przed zwróconymi wierszami.
+     */
+    @Query(value = """
+            SELECT * FROM change_outbox
+            WHERE (tx_id, id) > (CAST(CAST(:txId AS text) AS xid8), :id)
+              AND tx_id < pg_snapshot_xmin(pg_current_snapshot())
+            ORDER BY tx_id, id
+            LIMIT :limit""", nativeQuery = true)
+    List<OutboxEvent> findCommittedAfter(@Param("txId") long txId, @Param("id") long id, @Param("limit") int limit);
+
+    /** Jak {@link #findCommittedAfter}, ale tylko zmiany encji jednego rodzaju (indeks zaczyna się od entity_type). */
+    @Query(value = """
+            SELECT * FROM change_outbox
+            WHERE entity_type = :type
+              AND (entity_type, tx_id, id) > (:type, CAST(CAST(:txId AS text) AS xid8), :id)
+              AND tx_id < pg_snapshot_xmin(pg_current_snapshot())
+            ORDER BY entity_type, tx_id, id
+            LIMIT :limit""", nativeQuery = true)
+    List<OutboxEvent> findCommittedAfterOfType(@Param("type") String type, @Param("txId") long txId, @Param("id") long id,
+                                               @Param("limit") int limit);
+
+    /** Najnowszy wiersz, przed który nie może się już dopisać żadna transakcja - bieżąca pozycja końca kanału. */
+    @Query(value = """
+            SELECT * FROM change_outbox
+            WHERE tx_id < pg_snapshot_xmin(pg_current_snapshot())
+            ORDER BY tx_id DESC, id DESC
+            LIMIT 1""", nativeQuery = true)
+    Optional<OutboxEvent> findLastCommitted();
+
+    /** Migawka bieżącej transakcji - przy REPEATABLE READ ta sama dla wszystkich jej zapytań. */
+    @Query(value = "SELECT CAST(pg_current_snapshot() AS text)", nativeQuery = true)
+    String currentSnapshot();
+
+    /** Usuwa do {@code limit} najstarszych wierszy sprzed {@code cutoff}; wiersze blokowane przez inną instancję pomija. */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            DELETE FROM change_outbox
+            WHERE id IN (SELECT id FROM change_outbox
+                         WHERE created_at < :cutoff
+                         ORDER BY id
+                         LIMIT :limit
+                         FOR UPDATE SKIP LOCKED)""", nativeQuery = true)
+    int deleteOlderThan(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+}
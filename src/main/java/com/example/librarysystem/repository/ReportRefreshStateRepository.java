@@ -0,0 +1,29 @@
+package com.example.librarysystem.repository;
+
+import com.example.librarysystem.entity.ReportRefreshState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ReportRefreshStateRepository extends JpaRepository<ReportRefreshState, String> {
+
+    /** Blokuje wiersz do końca transakcji; pusty wynik, gdy wiersz trzyma inna instancja albo go jeszcze nie ma. */
+    @Query(value = "SELECT * FROM report_refresh_state WHERE name = :name FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<ReportRefreshState> lockIfFree(@Param("name") String name);
+
+    /** Wiersz bez pozycji (do odbudowy); gdy inna instancja zdążyła go dodać, nic nie robi. */
+    @Modifying
+    @Query(value = """
+            INSERT INTO report_refresh_state (name, refreshed_at) VALUES (:name, now())
+            ON CONFLICT (name) DO NOTHING""", nativeQuery = true)
+    int createIfMissing(@Param("name") String name);
+
+    /** Migawka bieżącej transakcji - przy REPEATABLE READ ta sama dla wszystkich jej zapytań. */
+    @Query(value = "SELECT CAST(pg_current_snapshot() AS text)", nativeQuery = true)
+    String currentSnapshot();
+}
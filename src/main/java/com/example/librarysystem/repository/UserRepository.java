@@ -2,13 +2,21 @@ package com.example.librarysystem.repository;
 
 import com.example.librarysystem.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
 
     // Ta metoda będzie kluczowa dla Spring Security do ładowania użytkownika po nazwie
     Optional<User> findByUsername(String username);
+
+    // Jedno zapytanie DELETE zamiast existsById + deleteById; zwraca liczbę usuniętych wierszy
+    @Modifying
+    @Query("DELETE FROM User u WHERE u.id = :id")
+    int removeById(@Param("id") Long id);
 }
\ No newline at end of file
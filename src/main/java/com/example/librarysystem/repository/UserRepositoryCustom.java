@@ -0,0 +1,14 @@
+package com.example.librarysystem.repository;
+
+import java.util.Map;
+
+public interface UserRepositoryCustom {
+
+    /**
+     * Aktualizuje wskazane kolumny użytkownika jednym zapytaniem, o ile jego wersja jest równa oczekiwanej.
+     *
+     * @param changes Nazwy atrybutów encji i ich nowe wartości.
+     * @return Liczba zmienionych wierszy (0 - brak użytkownika lub konflikt wersji).
+     */
+    int updateFields(Long id, long expectedVersion, Map<String, Object> changes);
+}
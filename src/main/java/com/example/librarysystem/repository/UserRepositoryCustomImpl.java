@@ -0,0 +1,18 @@
+package com.example.librarysystem.repository;
+
+import com.example.librarysystem.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.util.Map;
+
+class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int updateFields(Long id, long expectedVersion, Map<String, Object> changes) {
+        return VersionedUpdates.update(entityManager, User.class, id, expectedVersion, changes);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.librarysystem.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Root;
+
+import java.util.Map;
+
+/**
+ * Buduje pojedyncze zapytanie UPDATE zmieniające tylko podane kolumny encji z polem {@code version}.
+ * Warunek na wersji realizuje optymistyczne blokowanie bez wcześniejszego SELECT-a.
+ */
+final class VersionedUpdates {
+
+    private VersionedUpdates() {
+    }
+
+    static <T> int update(EntityManager entityManager, Class<T> type, Long id, long expectedVersion,
+                          Map<String, Object> changes) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<T> update = cb.createCriteriaUpdate(type);
+        Root<T> root = update.from(type);
+        changes.forEach(update::set);
+        update.set(root.<Long>get("version"), cb.sum(root.<Long>get("version"), 1L));
+        update.where(
+                cb.equal(root.get("id"), id),
+                cb.equal(root.get("version"), expectedVersion));
+        return entityManager.createQuery(update).executeUpdate();
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.librarysystem.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.security.web.util.matcher.AntPathRequestMatcher.antMatcher;
+
+/**
+ * Filtr odrzucający nadmiarowe żądania do kosztownych endpointów (BCrypt, zapisy do bazy)
+ * kodem 429, zanim dotrą do uwierzytelniania lub kontrolera.
+ * <p>
+ * Każde żądanie zużywa token z kubełka adresu IP, a jeśli da się ustalić użytkownika -
+ * również z kubełka użytkownika. Kubełki są rozdzielne dla każdego endpointu.
+ * <p>
+ * Adres IP to {@link HttpServletRequest#getRemoteAddr()}. Za proxy lub load balancerem byłby to adres proxy,
+ * wspólny dla wszystkich klientów - trzeba wtedy włączyć {@code server.forward-headers-strategy=native}
+ * (lub {@code framework}), aby adres pochodził z {@code X-Forwarded-For} zaufanego proxy.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final RequestMatcher LOGIN = antMatcher(HttpMethod.POST, "/login");
+    private static final RequestMatcher REGISTER = antMatcher(HttpMethod.POST, "/api/users/register");
+    private static final RequestMatcher BORROW = antMatcher(HttpMethod.POST, "/api/borrowings/borrow");
+    // Hasło w nagłówku (HTTP Basic - np. Prometheus pobierający metryki) sprawdza BCrypt, tak jak przy logowaniu
+    private static final RequestMatcher BASIC = request -> basicCredentials(request) != null;
+    private static final String BASIC_PREFIX = "basic ";
+
+    private final TokenBucketRateLimiter ipLimiter;
+    private final TokenBucketRateLimiter userLimiter;
+
+    public RateLimitFilter(RateLimitProperties properties) {
+        this(new TokenBucketRateLimiter(properties.ip().capacity(), properties.ip().refillPerMinute(), properties.maxBuckets()),
+                new TokenBucketRateLimiter(properties.user().capacity(), properties.user().refillPerMinute(), properties.maxBuckets()));
+    }
+
+    RateLimitFilter(TokenBucketRateLimiter ipLimiter, TokenBucketRateLimiter userLimiter) {
+        this.ipLimiter = ipLimiter;
+        this.userLimiter = userLimiter;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return endpointOf(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String endpoint = endpointOf(request);
+        long waitNanos = ipLimiter.tryAcquire(endpoint + ":" + request.getRemoteAddr());
+        if (waitNanos == 0) {
+            String user = userOf(request, endpoint);
+            if (user != null) {
+                waitNanos = userLimiter.tryAcquire(endpoint + ":" + user);
+            }
+        }
+        if (waitNanos > 0) {
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader("Retry-After", Long.toString(retryAfterSeconds));
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private static String endpointOf(HttpServletRequest request) {
+        if (LOGIN.matches(request)) {
+            return "login";
+        }
+        if (REGISTER.matches(request)) {
+            return "register";
+        }
+        if (BORROW.matches(request)) {
+            return "borrow";
+        }
+        if (BASIC.matches(request)) {
+            return "basic";
+        }
+        return null;
+    }
+
+    private static String userOf(HttpServletRequest request, String endpoint) {
+        switch (endpoint) {
+            case "login":
+                // Nazwa, na którą ktoś próbuje się zalogować - chroni konto przed atakiem z wielu adresów
+                return request.getParameter("username");
+            case "basic":
+                String credentials = basicCredentials(request);
+                int separator = credentials.indexOf(':');
+                return separator > 0 ? credentials.substring(0, separator) : null;
+            case "borrow":
+                Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+                return authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+            default:
+                // Przy rejestracji nazwa jest w treści JSON - nie parsujemy jej tutaj, wystarcza limit na IP
+                return null;
+        }
+    }
+
+    private static String basicCredentials(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.regionMatches(true, 0, BASIC_PREFIX, 0, BASIC_PREFIX.length())) {
+            return null;
+        }
+        try {
+            return new String(Base64.getDecoder().decode(header.substring(BASIC_PREFIX.length()).trim()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            // Nieprawidłowe Base64 odrzuci samo uwierzytelnianie - tu limit jak dla każdej innej próby
+            return "";
+        }
+    }
+}
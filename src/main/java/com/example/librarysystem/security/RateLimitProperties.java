@@ -0,0 +1,29 @@
+package com.example.librarysystem.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Ustawienia limitera żądań dla endpointów logowania, rejestracji i wypożyczania.
+ *
+ * @param enabled    Czy limiter jest aktywny.
+ * @param maxBuckets Maksymalna liczba kubełków trzymanych w pamięci (na każdy limiter osobno).
+ * @param ip         Limit na adres IP klienta.
+ * @param user       Limit na użytkownika (nazwa przy logowaniu, zalogowany użytkownik przy wypożyczeniu).
+ */
+@ConfigurationProperties(prefix = "library.rate-limit")
+public record RateLimitProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("100000") int maxBuckets,
+        @DefaultValue Limit ip,
+        @DefaultValue Limit user) {
+
+    /**
+     * @param capacity        Rozmiar kubełka (maksymalna seria żądań).
+     * @param refillPerMinute Liczba tokenów odnawianych na minutę.
+     */
+    public record Limit(
+            @DefaultValue("30") int capacity,
+            @DefaultValue("60") int refillPerMinute) {
+    }
+}
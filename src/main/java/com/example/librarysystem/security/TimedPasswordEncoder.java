@@ -0,0 +1,62 @@
+package com.example.librarysystem.security;
+
+import com.example.librarysystem.monitoring.jfr.PasswordEncoderEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Dekorator {@link PasswordEncoder} mierzący czas haszowania i weryfikacji haseł
+ * (timer {@code library.password.encoder} z tagiem {@code operation} oraz zdarzenie JFR {@link PasswordEncoderEvent}).
+ * BCrypt jest celowo wolny, więc to on zwykle dominuje w czasie logowania i rejestracji.
+ */
+public class TimedPasswordEncoder implements PasswordEncoder {
+
+    static final String METRIC = "library.password.encoder";
+
+    private final PasswordEncoder delegate;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+
+    public TimedPasswordEncoder(PasswordEncoder delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.encodeTimer = timer(registry, "encode");
+        this.matchesTimer = timer(registry, "matches");
+    }
+
+    private static Timer timer(MeterRegistry registry, String operation) {
+        return Timer.builder(METRIC)
+                .description("Password hashing and verification time")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        PasswordEncoderEvent event = new PasswordEncoderEvent("encode");
+        event.begin();
+        try {
+            return encodeTimer.record(() -> delegate.encode(rawPassword));
+        } finally {
+            event.commit();
+        }
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        PasswordEncoderEvent event = new PasswordEncoderEvent("matches");
+        event.begin();
+        try {
+            event.matched = matchesTimer.record(() -> delegate.matches(rawPassword, encodedPassword));
+            return event.matched;
+        } finally {
+            event.commit();
+        }
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.librarysystem.security;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Limiter typu "token bucket" z kubełkami kluczowanymi dowolnym tekstem (np. IP lub nazwa użytkownika).
+ * <p>
+ * Każdy kubełek to pojedynczy {@link AtomicLong} przechowujący teoretyczny czas przybycia (GCRA),
+ * więc pobranie tokenu to jedna pętla CAS bez blokad. Kubełek, który zdążył się w pełni
+ * odnowić, nie niesie żadnej informacji i może zostać usunięty - dzięki temu liczba
+ * kubełków jest ograniczona przez {@code maxBuckets}.
+ * <p>
+ * Kubełków z zużytymi tokenami nie usuwamy nigdy: inaczej zalew unikalnymi kluczami (np. losowymi nazwami
+ * użytkowników) kasowałby limit atakowanego konta. Gdy wszystkie kubełki są w użyciu, nowy klucz jest
+ * odrzucany do chwili, w której najwcześniejszy z nich się odnowi.
+ */
+public class TokenBucketRateLimiter {
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final int maxBuckets;
+    private final LongSupplier nanoClock;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    // Do tej chwili żaden kubełek się nie odnowi - nowe klucze odrzucamy bez przeglądania mapy
+    private final AtomicLong fullUntil;
+
+    public TokenBucketRateLimiter(int capacity, int refillPerMinute, int maxBuckets) {
+        this(capacity, refillPerMinute, maxBuckets, System::nanoTime);
+    }
+
+    TokenBucketRateLimiter(int capacity, int refillPerMinute, int maxBuckets, LongSupplier nanoClock) {
+        if (capacity < 1 || refillPerMinute < 1 || maxBuckets < 1) {
+            throw new IllegalArgumentException("Rate limiter capacity, refill rate and bucket limit must be positive");
+        }
+        this.emissionIntervalNanos = TimeUnit.MINUTES.toNanos(1) / refillPerMinute;
+        this.burstToleranceNanos = emissionIntervalNanos * (capacity - 1);
+        this.maxBuckets = maxBuckets;
+        this.nanoClock = nanoClock;
+        this.fullUntil = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    /**
+     * Próbuje pobrać jeden token z kubełka danego klucza.
+     *
+     * @param key Klucz kubełka (np. "login:ip:10.0.0.1").
+     * @return 0, jeśli token został pobrany; w przeciwnym razie liczba nanosekund do odnowienia tokenu.
+     */
+    public long tryAcquire(String key) {
+        long now = nanoClock.getAsLong();
+        AtomicLong arrival = buckets.get(key);
+        if (arrival == null) {
+            long waitNanos = evictIfFull(now);
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            AtomicLong created = new AtomicLong(now);
+            arrival = buckets.putIfAbsent(key, created);
+            if (arrival == null) {
+                arrival = created;
+            }
+        }
+        while (true) {
+            long current = arrival.get();
+            long base = Math.max(current, now);
+            long waitNanos = base - now - burstToleranceNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (arrival.compareAndSet(current, base + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    /**
+     * @return 0, jeśli jest miejsce na nowy kubełek; w przeciwnym razie liczba nanosekund do odnowienia
+     * najwcześniejszego kubełka.
+     */
+    private long evictIfFull(long now) {
+        if (buckets.size() < maxBuckets) {
+            return 0;
+        }
+        long until = fullUntil.get();
+        if (until - now > 0) {
+            return until - now;
+        }
+        // Usuwamy tylko kubełki w pełni odnowione - ich utrata niczego nie zmienia
+        long earliest = Long.MAX_VALUE;
+        Iterator<AtomicLong> iterator = buckets.values().iterator();
+        while (iterator.hasNext()) {
+            long remaining = iterator.next().get() - now;
+            if (remaining <= 0) {
+                iterator.remove();
+            } else {
+                earliest = Math.min(earliest, remaining);
+            }
+        }
+        if (buckets.size() < maxBuckets) {
+            return 0;
+        }
+        fullUntil.set(now + earliest);
+        return earliest;
+    }
+}
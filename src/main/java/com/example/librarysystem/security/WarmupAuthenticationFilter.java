@@ -0,0 +1,54 @@
+package com.example.librarysystem.security;
+
+import com.example.librarysystem.warmup.WarmupCredentials;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Uwierzytelnia żądania rozgrzewki (nagłówek {@link WarmupCredentials#HEADER}) jako użytkownika z rolą USER,
+ * tylko z adresu pętli zwrotnej i tylko do końca rozgrzewki. Kontekst nie trafia do sesji.
+ */
+public class WarmupAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String PRINCIPAL = "warmup";
+
+    private final WarmupCredentials credentials;
+
+    public WarmupAuthenticationFilter(WarmupCredentials credentials) {
+        this.credentials = credentials;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String token = request.getHeader(WarmupCredentials.HEADER);
+        if (token == null || !isLoopback(request.getRemoteAddr()) || !credentials.matches(token)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                PRINCIPAL, null, AuthorityUtils.createAuthorityList("ROLE_USER")));
+        SecurityContextHolder.setContext(context);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    // Adres zdalny to zawsze literał IP (bez zapytań DNS)
+    private static boolean isLoopback(String address) {
+        return address != null
+                && (address.startsWith("127.") || address.equals("::1") || address.equals("0:0:0:0:0:0:0:1"));
+    }
+}
@@ -1,20 +1,39 @@
 package com.example.librarysystem.service;
 
+import com.example.librarysystem.cache.CacheNames;
+import com.example.librarysystem.dto.BookPatch;
 import com.example.librarysystem.entity.Book;
+import com.example.librarysystem.entity.Genre;
+import com.example.librarysystem.event.EntityChangedEvent;
+import com.example.librarysystem.event.EntityChangedEvent.Operation;
+import com.example.librarysystem.exception.BadRequestException;
+import com.example.librarysystem.exception.ConflictException;
+import com.example.librarysystem.exception.ResourceNotFoundException;
 import com.example.librarysystem.repository.BookRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional; // Ważne dla operacji zapisu
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
+@Timed(value = "library.service", histogram = true)
 public class BookService {
 
     private final BookRepository bookRepository;
+    private final GenreService genreService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public BookService(BookRepository bookRepository) {
+    public BookService(BookRepository bookRepository, GenreService genreService, ApplicationEventPublisher eventPublisher) {
         this.bookRepository = bookRepository;
+        this.genreService = genreService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional(readOnly = true) // Dobra praktyka dla metod tylko do odczytu
@@ -22,9 +41,20 @@ public class BookService {
         return bookRepository.findAll();
     }
 
+    // Najczęstszy odczyt; wpis znika po każdej zmianie książki, także na innych instancjach (EntityChangedEvent).
+    // W cache trafia kopia z wczytanym gatunkiem - encja z sesji miałaby proxy, które inny wątek inicjalizowałby
+    // przez cudzą (albo już zamkniętą) sesję
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheNames.BOOKS, key = "#id", unless = "#result == null")
     public Optional<Book> getBookById(Long id) {
-        return bookRepository.findById(id);
+        return bookRepository.findById(id).map(Book::detachedCopy);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Book> getBooksByGenre(String genreName) {
+        return genreService.findByName(genreName)
+                .map(genre -> bookRepository.findByGenreId(genre.getId()))
+                .orElse(Collections.emptyList());
     }
 
     // Przykład metody do wyszukiwania po ISBN (jeśli dodasz ją do BookRepository)
@@ -38,36 +68,84 @@ public class BookService {
         if (book.getIsbn() != null) { // Dodajmy sprawdzenie, czy ISBN jest ustawiony
             Optional<Book> existingBook = bookRepository.findByIsbn(book.getIsbn());
             if (existingBook.isPresent()) {
-                throw new IllegalStateException("Book with ISBN " + book.getIsbn() + " already exists.");
+                throw new ConflictException("Book with ISBN " + book.getIsbn() + " already exists.");
             }
         }
-        return bookRepository.save(book);
+        book.setGenre(genreService.resolve(book.getGenre()));
+        Book saved = bookRepository.save(book);
+        eventPublisher.publishEvent(EntityChangedEvent.book(Operation.CREATED, saved.getId(), saved.getVersion()));
+        return saved;
     }
 
     @Transactional
     public Book updateBook(Long id, Book bookDetails) {
         Book bookToUpdate = bookRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Book not found with id: " + id)); // Rozważ dedykowany wyjątek, np. ResourceNotFoundException
+                .orElseThrow(() -> new ResourceNotFoundException("Book", id));
+
+        // Klient, który podał wersję, edytował konkretny stan książki - jeśli ktoś go w międzyczasie zmienił, zgłaszamy konflikt
+        if (bookDetails.getVersion() != null && !bookDetails.getVersion().equals(bookToUpdate.getVersion())) {
+            throw new ConflictException("Book was modified by someone else.");
+        }
 
         bookToUpdate.setTitle(bookDetails.getTitle());
         bookToUpdate.setAuthor(bookDetails.getAuthor());
         bookToUpdate.setIsbn(bookDetails.getIsbn());
         bookToUpdate.setPublisher(bookDetails.getPublisher());
         bookToUpdate.setPublicationYear(bookDetails.getPublicationYear());
-        bookToUpdate.setGenre(bookDetails.getGenre());
+        bookToUpdate.setGenre(genreService.resolve(bookDetails.getGenre()));
         // Jeśli dodałeś pola totalCopies/availableCopies, też je tutaj zaktualizuj
         // bookToUpdate.setTotalCopies(bookDetails.getTotalCopies());
         // bookToUpdate.setAvailableCopies(bookDetails.getAvailableCopies());
 
+        // Hibernate podbija wersję dopiero przy flushu, więc w zdarzeniu podajemy wersję po zapisie
+        eventPublisher.publishEvent(EntityChangedEvent.book(Operation.UPDATED, id, bookToUpdate.getVersion() != null ? bookToUpdate.getVersion() + 1 : null));
         return bookRepository.save(bookToUpdate);
     }
 
+    /**
+     * Zmienia tylko podane pola książki jednym zapytaniem UPDATE (bez wcześniejszego odczytu encji).
+     *
+     * @return Nowa wersja książki.
+     */
+    @Transactional
+    public long patchBook(Long id, BookPatch patch) {
+        if (patch.version() == null) {
+            throw new BadRequestException("Field 'version' is required for a partial update.");
+        }
+        Map<String, Object> changes = new HashMap<>();
+        putIfNotNull(changes, "title", patch.title());
+        putIfNotNull(changes, "author", patch.author());
+        putIfNotNull(changes, "isbn", patch.isbn());
+        putIfNotNull(changes, "publisher", patch.publisher());
+        putIfNotNull(changes, "publicationYear", patch.publicationYear());
+        putIfNotNull(changes, "genre", genreService.resolve(Genre.of(patch.genre())));
+        if (changes.isEmpty()) {
+            throw new BadRequestException("No fields to update.");
+        }
+
+        if (bookRepository.updateFields(id, patch.version(), changes) == 0) {
+            // Zero wierszy: albo książki nie ma, albo ma inną wersję - dopiero tu płacimy za drugie zapytanie
+            if (!bookRepository.existsById(id)) {
+                throw new ResourceNotFoundException("Book", id);
+            }
+            throw new ConflictException("Book was modified by someone else.");
+        }
+        eventPublisher.publishEvent(EntityChangedEvent.book(Operation.UPDATED, id, patch.version() + 1));
+        return patch.version() + 1;
+    }
+
     @Transactional
     public void deleteBook(Long id) {
-        if (!bookRepository.existsById(id)) {
-            throw new RuntimeException("Book not found with id: " + id); // Lub dedykowany wyjątek
+        if (bookRepository.removeById(id) == 0) {
+            throw new ResourceNotFoundException("Book", id);
+        }
+        eventPublisher.publishEvent(EntityChangedEvent.book(Operation.DELETED, id, null));
+    }
+
+    private static void putIfNotNull(Map<String, Object> changes, String attribute, Object value) {
+        if (value != null) {
+            changes.put(attribute, value);
         }
-        bookRepository.deleteById(id);
     }
 
 }
\ No newline at end of file
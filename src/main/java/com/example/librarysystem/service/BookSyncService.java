@@ -0,0 +1,114 @@
+package com.example.librarysystem.service;
+
+import com.example.librarysystem.dto.BookSyncPage;
+import com.example.librarysystem.entity.Book;
+import com.example.librarysystem.entity.OutboxEvent;
+import com.example.librarysystem.event.ChangeCursor;
+import com.example.librarysystem.event.EntityChangedEvent;
+import com.example.librarysystem.exception.BadRequestException;
+import com.example.librarysystem.exception.GoneException;
+import com.example.librarysystem.repository.BookRepository;
+import com.example.librarysystem.repository.OutboxEventRepository;
+import com.example.librarysystem.sync.SyncProperties;
+import com.example.librarysystem.sync.SyncToken;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.data.domain.Limit;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Synchronizacja katalogu dla kiosków: bez tokenu - pełna kopia książek stronami według ID, potem już tylko
+ * książki zmienione i usunięte od ostatniego tokenu (z outboxa zmian).
+ */
+@Service
+@Timed(value = "library.service", histogram = true)
+public class BookSyncService {
+
+    private final BookRepository bookRepository;
+    private final OutboxEventRepository outboxEventRepository;
+    private final SyncProperties properties;
+
+    public BookSyncService(BookRepository bookRepository, OutboxEventRepository outboxEventRepository,
+                           SyncProperties properties) {
+        this.bookRepository = bookRepository;
+        this.outboxEventRepository = outboxEventRepository;
+        this.properties = properties;
+    }
+
+    // Bez readOnly, czyli zawsze baza główna: kolejne strony pełnej kopii muszą widzieć co najmniej stan
+    // z pozycji kanału zapisanej w tokenie, a repliki mogą być opóźnione każda inaczej
+    @Transactional
+    public BookSyncPage sync(@Nullable String token, @Nullable Integer limit) {
+        int pageSize = limit == null ? properties.pageSize() : Math.min(limit, properties.maxPageSize());
+        if (pageSize < 1) {
+            throw new BadRequestException("limit must be positive");
+        }
+        Instant now = Instant.now();
+        SyncToken current = token == null || token.isBlank() ? startSnapshot(now) : SyncToken.decode(token);
+        if (current.positionTime().isBefore(now.minus(properties.tokenMaxAge()))) {
+            throw new GoneException("Sync token is older than the change history; start a full sync without a token.");
+        }
+        return current.isSnapshot() ? snapshotPage(current, pageSize) : deltaPage(current, pageSize, now);
+    }
+
+    // Pozycję kanału ustalamy przed odczytem książek - zmiany w trakcie pełnej kopii przyjdą potem jako delta
+    private SyncToken startSnapshot(Instant now) {
+        ChangeCursor head = outboxEventRepository.findLastCommitted()
+                .map(ChangeCursor::of)
+                .orElse(ChangeCursor.START);
+        return SyncToken.snapshot(head, now);
+    }
+
+    private BookSyncPage snapshotPage(SyncToken current, int pageSize) {
+        List<Book> books = bookRepository.findByIdGreaterThanOrderByIdAsc(current.snapshotAfterId(), Limit.of(pageSize + 1));
+        if (books.size() > pageSize) {
+            List<Book> page = books.subList(0, pageSize);
+            return new BookSyncPage(page, List.of(), current.withSnapshotAfter(page.getLast().getId()).encode(), true);
+        }
+        // Koniec pełnej kopii; kolejne żądanie zwróci zmiany, które zaszły w jej trakcie
+        SyncToken next = SyncToken.delta(current.position(), current.positionTime());
+        return new BookSyncPage(books, List.of(), next.encode(), true);
+    }
+
+    private BookSyncPage deltaPage(SyncToken current, int pageSize, Instant now) {
+        ChangeCursor position = current.position();
+        List<OutboxEvent> rows = outboxEventRepository.findCommittedAfterOfType(EntityChangedEvent.Type.BOOK.name(),
+                position.txId(), position.id(), pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        List<OutboxEvent> page = hasMore ? rows.subList(0, pageSize) : rows;
+
+        // Kilka zmian tej samej książki na stronie: liczy się ostatnia
+        Map<Long, EntityChangedEvent.Operation> lastOperation = new LinkedHashMap<>();
+        for (OutboxEvent row : page) {
+            lastOperation.put(row.getEntityId(), row.getOperation());
+        }
+        Set<Long> changedIds = lastOperation.entrySet().stream()
+                .filter(entry -> entry.getValue() != EntityChangedEvent.Operation.DELETED)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+        List<Book> upserts = new ArrayList<>(bookRepository.findByIdIn(changedIds));
+        upserts.sort(Comparator.comparing(Book::getId));
+
+        // Książka zmieniona, a potem usunięta (usunięcie na dalszej stronie) też jest już tombstonem
+        Set<Long> found = upserts.stream().map(Book::getId).collect(Collectors.toSet());
+        List<Long> deletes = lastOperation.keySet().stream()
+                .filter(id -> !found.contains(id))
+                .sorted()
+                .toList();
+
+        ChangeCursor nextPosition = page.isEmpty() ? position : ChangeCursor.of(page.getLast());
+        // Za pozycją zostają zmiany z następnych stron (najstarsza to dodatkowy wiersz) lub jeszcze niewidoczne
+        Instant positionTime = hasMore ? rows.get(pageSize).getCreatedAt() : now;
+        return new BookSyncPage(upserts, deletes, SyncToken.delta(nextPosition, positionTime).encode(), hasMore);
+    }
+}
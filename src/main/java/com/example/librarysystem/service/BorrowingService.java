@@ -3,73 +3,163 @@ package com.example.librarysystem.service;
 import com.example.librarysystem.entity.Book;
 import com.example.librarysystem.entity.Borrowing;
 import com.example.librarysystem.entity.User;
+import com.example.librarysystem.event.EntityChangedEvent;
+import com.example.librarysystem.exception.ConflictException;
+import com.example.librarysystem.exception.DomainException;
+import com.example.librarysystem.exception.ResourceNotFoundException;
+import com.example.librarysystem.monitoring.jfr.BorrowEvent;
+import com.example.librarysystem.monitoring.jfr.ReturnEvent;
+import com.example.librarysystem.entity.BorrowingHistory;
 import com.example.librarysystem.repository.BookRepository;
+import com.example.librarysystem.repository.BorrowingHistoryRepository;
 import com.example.librarysystem.repository.BorrowingRepository;
 import com.example.librarysystem.repository.UserRepository;
 import com.example.librarysystem.service.policy.LoanPolicy;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
 import java.util.List;
 
 @Service
+@Timed(value = "library.service", histogram = true)
 public class BorrowingService {
 
+    // Zwracane są prawie zawsze wypożyczenia z ostatnich tygodni - najpierw szukamy w ich partycjach
+    static final Period RECENT_LOANS = Period.ofMonths(1);
+
     private final BorrowingRepository borrowingRepository;
+    private final BorrowingHistoryRepository borrowingHistoryRepository;
     private final UserRepository userRepository;
     private final BookRepository bookRepository;
     private final LoanPolicy loanPolicy;
+    private final ApplicationEventPublisher eventPublisher;
 
     // Wstrzykujemy politykę pożyczek (np. standardLoanPolicy)
     public BorrowingService(BorrowingRepository borrowingRepository,
+                            BorrowingHistoryRepository borrowingHistoryRepository,
                             UserRepository userRepository,
                             BookRepository bookRepository,
-                            @Qualifier("standardLoanPolicy") LoanPolicy loanPolicy) {
+                            @Qualifier("standardLoanPolicy") LoanPolicy loanPolicy,
+                            ApplicationEventPublisher eventPublisher) {
         this.borrowingRepository = borrowingRepository;
+        this.borrowingHistoryRepository = borrowingHistoryRepository;
         this.userRepository = userRepository;
         this.bookRepository = bookRepository;
         this.loanPolicy = loanPolicy;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
     public Borrowing borrowBook(Long userId, Long bookId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new RuntimeException("Book not found with id: " + bookId));
+        // Zdarzenie JFR - zapisywane tylko w trakcie nagrania (zob. FlightRecorderService)
+        BorrowEvent event = new BorrowEvent(userId, bookId);
+        event.begin();
+        try {
+            User user = userRepository.findById(userId)
+                    .orElseThrow(() -> new ResourceNotFoundException("User", userId));
+            Book book = bookRepository.findById(bookId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Book", bookId));
 
-        // TODO: Dodać logiczną weryfikację dostępności (np. book.getCopiesAvailable())
-        LocalDate borrowDate = LocalDate.now();
-        LocalDate dueDate = loanPolicy.calculateDueDate(borrowDate, book, user);
+            // TODO: Dodać logiczną weryfikację dostępności (np. book.getCopiesAvailable())
+            LocalDate borrowDate = LocalDate.now();
+            LocalDate dueDate = loanPolicy.calculateDueDate(borrowDate, book, user);
 
-        Borrowing borrowing = new Borrowing(user, book, borrowDate, dueDate);
-        return borrowingRepository.save(borrowing);
+            Borrowing borrowing = borrowingRepository.save(new Borrowing(user, book, borrowDate, dueDate));
+            event.borrowingId = borrowing.getId() != null ? borrowing.getId() : 0;
+            eventPublisher.publishEvent(EntityChangedEvent.borrowed(event.borrowingId, userId, bookId,
+                    book.getGenre() != null ? book.getGenre().getId() : null, borrowDate));
+            return borrowing;
+        } catch (RuntimeException e) {
+            event.failed(e);
+            throw e;
+        } finally {
+            event.commit();
+        }
     }
 
     @Transactional
     public Borrowing returnBook(Long borrowingId) {
-        Borrowing borrowing = borrowingRepository.findById(borrowingId)
-                .orElseThrow(() -> new RuntimeException("Borrowing record not found with id: " + borrowingId));
+        ReturnEvent event = new ReturnEvent(borrowingId);
+        event.begin();
+        try {
+            Borrowing borrowing = borrowingRepository.findByIdAndBorrowDateGreaterThanEqual(borrowingId,
+                            LocalDate.now().minus(RECENT_LOANS))
+                    .or(() -> borrowingRepository.findById(borrowingId))
+                    .orElseThrow(() -> notFoundOrArchived(borrowingId));
 
-        if (borrowing.getReturnDate() != null) {
-            throw new IllegalStateException("Book already returned on " + borrowing.getReturnDate());
+            if (borrowing.getReturnDate() != null) {
+                throw new ConflictException("Book already returned on " + borrowing.getReturnDate());
+            }
+            borrowing.setReturnDate(LocalDate.now());
+            // TODO: Tu dodać np. aktualizację dostępnych kopii książki
+            eventPublisher.publishEvent(EntityChangedEvent.returned(borrowingId, borrowing.getUser().getId(), borrowing.getBook().getId()));
+            return borrowingRepository.save(borrowing);
+        } catch (RuntimeException e) {
+            event.failed(e);
+            throw e;
+        } finally {
+            event.commit();
         }
-        borrowing.setReturnDate(LocalDate.now());
-        // TODO: Tu dodać np. aktualizację dostępnych kopii książki
-        return borrowingRepository.save(borrowing);
     }
 
     @Transactional(readOnly = true)
     public List<Borrowing> getAllBorrowings() {
-        return borrowingRepository.findAll();
+        return getAllBorrowings(true);
+    }
+
+    /**
+     * Wszystkie wypożyczenia; z {@code includeArchived} najpierw te przeniesione do historii (od najstarszych),
+     * potem bieżące z tabeli borrowings - tak samo jak {@link #getBorrowingsForUser(Long, boolean)}.
+     */
+    @Transactional(readOnly = true)
+    public List<Borrowing> getAllBorrowings(boolean includeArchived) {
+        List<Borrowing> borrowings = borrowingRepository.findAll();
+        if (!includeArchived) {
+            return borrowings;
+        }
+        return withArchived(borrowingHistoryRepository.findAllByOrderByBorrowDateAscIdAsc(), borrowings);
     }
 
     @Transactional(readOnly = true)
     public List<Borrowing> getBorrowingsForUser(Long userId) {
+        return getBorrowingsForUser(userId, true);
+    }
+
+    /**
+     * Wypożyczenia czytelnika; z {@code includeArchived} najpierw te przeniesione do historii (od najstarszych),
+     * potem bieżące z tabeli borrowings.
+     */
+    @Transactional(readOnly = true)
+    public List<Borrowing> getBorrowingsForUser(Long userId, boolean includeArchived) {
         User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
-        return borrowingRepository.findByUser(user);
+                .orElseThrow(() -> new ResourceNotFoundException("User", userId));
+        List<Borrowing> borrowings = borrowingRepository.findByUser(user);
+        if (!includeArchived) {
+            return borrowings;
+        }
+        return withArchived(borrowingHistoryRepository.findByUserOrderByBorrowDateAscIdAsc(user), borrowings);
+    }
+
+    private static List<Borrowing> withArchived(List<BorrowingHistory> archived, List<Borrowing> borrowings) {
+        if (archived.isEmpty()) {
+            return borrowings;
+        }
+        List<Borrowing> all = new ArrayList<>(archived.size() + borrowings.size());
+        archived.forEach(history -> all.add(history.toBorrowing()));
+        all.addAll(borrowings);
+        return all;
+    }
+
+    // Wypożyczenie przeniesione do historii zostało już zwrócone
+    private DomainException notFoundOrArchived(Long borrowingId) {
+        return borrowingHistoryRepository.findById(borrowingId)
+                .<DomainException>map(history -> new ConflictException("Book already returned on " + history.getReturnDate()))
+                .orElseGet(() -> new ResourceNotFoundException("Borrowing record", borrowingId));
     }
 }
@@ -0,0 +1,75 @@
+package com.example.librarysystem.service;
+
+import com.example.librarysystem.dto.ChangeFeedEntry;
+import com.example.librarysystem.dto.ChangeFeedPage;
+import com.example.librarysystem.entity.OutboxEvent;
+import com.example.librarysystem.event.ChangeCursor;
+import com.example.librarysystem.event.OutboxProperties;
+import com.example.librarysystem.exception.BadRequestException;
+import com.example.librarysystem.repository.OutboxEventRepository;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Service
+@Timed(value = "library.service", histogram = true)
+public class ChangeFeedService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeFeedService.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxProperties properties;
+
+    public ChangeFeedService(OutboxEventRepository outboxEventRepository, OutboxProperties properties) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.properties = properties;
+    }
+
+    /**
+     * Zmiany zatwierdzone po pozycji {@code since} (bez niej - od najstarszej przechowywanej).
+     * Transakcja zapisu, która wciąż trwa, wstrzymuje kanał na swojej pozycji, dopóki się nie zakończy.
+     */
+    @Transactional(readOnly = true)
+    public ChangeFeedPage getChanges(@Nullable String since, @Nullable Integer limit) {
+        ChangeCursor cursor = since == null || since.isBlank() ? ChangeCursor.START : ChangeCursor.parse(since);
+        int pageSize = limit == null ? properties.pageSize() : Math.min(limit, properties.maxPageSize());
+        if (pageSize < 1) {
+            throw new BadRequestException("limit must be positive");
+        }
+
+        // Jeden wiersz więcej mówi, czy jest następna strona
+        List<OutboxEvent> rows = outboxEventRepository.findCommittedAfter(cursor.txId(), cursor.id(), pageSize + 1);
+        List<ChangeFeedEntry> changes = rows.stream()
+                .limit(pageSize)
+                .map(ChangeFeedService::toEntry)
+                .toList();
+        String next = changes.isEmpty() ? cursor.toString() : changes.getLast().cursor();
+        return new ChangeFeedPage(changes, next, rows.size() > pageSize);
+    }
+
+    /** Usuwa zmiany starsze niż retencja, partiami po {@code cleanupBatchSize} (każda we własnej transakcji). */
+    public long purgeExpired() {
+        Instant cutoff = Instant.now().minus(properties.retention());
+        long deleted = 0;
+        int batch;
+        do {
+            batch = outboxEventRepository.deleteOlderThan(cutoff, properties.cleanupBatchSize());
+            deleted += batch;
+        } while (batch == properties.cleanupBatchSize());
+        if (deleted > 0) {
+            log.info("Purged {} change outbox entries older than {}", deleted, cutoff);
+        }
+        return deleted;
+    }
+
+    private static ChangeFeedEntry toEntry(OutboxEvent event) {
+        return new ChangeFeedEntry(ChangeCursor.of(event).toString(), event.getEntityType(), event.getOperation(), event.getEntityId(),
+                event.getEntityVersion(), event.getDetails(), event.getCreatedAt());
+    }
+}
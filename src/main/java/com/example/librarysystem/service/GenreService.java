@@ -0,0 +1,68 @@
+package com.example.librarysystem.service;
+
+import com.example.librarysystem.entity.Genre;
+import com.example.librarysystem.repository.GenreRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Zamienia nazwy gatunków na wpisy słownika {@code genre}.
+ * Gatunków jest niewiele i nigdy się nie zmieniają, więc każdy raz odczytany wpis
+ * trzymamy w pamięci - kolejne zapisy książek nie potrzebują już zapytania o gatunek.
+ */
+@Service
+@Timed(value = "library.service", histogram = true)
+public class GenreService {
+
+    private final GenreRepository genreRepository;
+    private final ConcurrentMap<String, Genre> genresByName = new ConcurrentHashMap<>();
+
+    public GenreService(GenreRepository genreRepository) {
+        this.genreRepository = genreRepository;
+    }
+
+    /**
+     * Zwraca kanoniczny wpis słownika dla gatunku o podanej nazwie, dodając go w razie potrzeby.
+     *
+     * @param genre Gatunek (np. zdeserializowany z JSON-a, bez ID) lub null.
+     * @return Zapisany gatunek z ID albo null, jeśli nie podano gatunku.
+     */
+    @Transactional
+    public Genre resolve(Genre genre) {
+        if (genre == null || genre.getName() == null) {
+            return null;
+        }
+        Genre cached = genresByName.get(genre.getName());
+        if (cached != null) {
+            return cached;
+        }
+        boolean created = genreRepository.insertIfAbsent(genre.getName()) > 0;
+        Genre stored = genreRepository.findByName(genre.getName())
+                .orElseThrow(() -> new IllegalStateException("Genre " + genre.getName() + " could not be created."));
+        // Świeżo wstawionego wpisu nie zapamiętujemy - bieżąca transakcja może się jeszcze wycofać
+        return created ? stored : remember(stored);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Genre> findByName(String name) {
+        String normalized = Genre.normalize(name);
+        if (normalized == null) {
+            return Optional.empty();
+        }
+        Genre cached = genresByName.get(normalized);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        return genreRepository.findByName(normalized).map(this::remember);
+    }
+
+    private Genre remember(Genre genre) {
+        Genre previous = genresByName.putIfAbsent(genre.getName(), genre);
+        return previous != null ? previous : genre;
+    }
+}
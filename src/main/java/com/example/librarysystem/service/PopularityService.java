@@ -0,0 +1,77 @@
+package com.example.librarysystem.service;
+
+import com.example.librarysystem.dto.PopularBook;
+import com.example.librarysystem.entity.Book;
+import com.example.librarysystem.entity.Genre;
+import com.example.librarysystem.exception.BadRequestException;
+import com.example.librarysystem.popularity.BookCount;
+import com.example.librarysystem.popularity.PopularityTracker;
+import com.example.librarysystem.popularity.PopularityWindow;
+import com.example.librarysystem.repository.BookRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@Timed(value = "library.service", histogram = true)
+public class PopularityService {
+
+    static final int MAX_LIMIT = 100;
+
+    private final PopularityTracker popularityTracker;
+    private final GenreService genreService;
+    private final BookRepository bookRepository;
+
+    public PopularityService(PopularityTracker popularityTracker, GenreService genreService, BookRepository bookRepository) {
+        this.popularityTracker = popularityTracker;
+        this.genreService = genreService;
+        this.bookRepository = bookRepository;
+    }
+
+    /**
+     * Ranking z pamięci ({@link PopularityTracker}); z bazy czytamy tylko dane książek z rankingu.
+     *
+     * @param window Okno: DAY, WEEK lub ALL (wielkość liter bez znaczenia).
+     * @param genre  Nazwa gatunku albo null dla wszystkich książek.
+     */
+    @Transactional(readOnly = true)
+    public List<PopularBook> getPopularBooks(String window, @Nullable String genre, int limit) {
+        PopularityWindow popularityWindow = parseWindow(window);
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        Short genreId = null;
+        if (genre != null && !genre.isBlank()) {
+            Optional<Genre> resolved = genreService.findByName(genre);
+            if (resolved.isEmpty()) {
+                return List.of();
+            }
+            genreId = resolved.get().getId();
+        }
+
+        List<BookCount> ranking = popularityTracker.top(popularityWindow, genreId, limit);
+        Map<Long, Book> books = bookRepository.findByIdIn(ranking.stream().map(BookCount::bookId).toList()).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        // Książki usunięte od czasu wypożyczeń pomijamy
+        return ranking.stream()
+                .filter(entry -> books.containsKey(entry.bookId()))
+                .map(entry -> new PopularBook(books.get(entry.bookId()), entry.borrows()))
+                .toList();
+    }
+
+    private static PopularityWindow parseWindow(String window) {
+        try {
+            return PopularityWindow.valueOf(window.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("window must be one of DAY, WEEK, ALL");
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.librarysystem.service;
+
+import com.example.librarysystem.dto.RecommendedBook;
+import com.example.librarysystem.entity.Book;
+import com.example.librarysystem.exception.BadRequestException;
+import com.example.librarysystem.exception.ResourceNotFoundException;
+import com.example.librarysystem.recommendation.CooccurrenceIndex;
+import com.example.librarysystem.recommendation.Neighbour;
+import com.example.librarysystem.repository.BookRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@Timed(value = "library.service", histogram = true)
+public class RecommendationService {
+
+    static final int MAX_LIMIT = 50;
+
+    private final CooccurrenceIndex cooccurrenceIndex;
+    private final BookRepository bookRepository;
+
+    public RecommendationService(CooccurrenceIndex cooccurrenceIndex, BookRepository bookRepository) {
+        this.cooccurrenceIndex = cooccurrenceIndex;
+        this.bookRepository = bookRepository;
+    }
+
+    /**
+     * Książki najczęściej wypożyczane razem z podaną - z indeksu w pamięci ({@link CooccurrenceIndex});
+     * z bazy czytamy tylko dane tych książek.
+     */
+    @Transactional(readOnly = true)
+    public List<RecommendedBook> getBorrowedTogether(Long bookId, int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        if (!bookRepository.existsById(bookId)) {
+            throw new ResourceNotFoundException("Book", bookId);
+        }
+        // Z zapasem na książki usunięte od czasu wypożyczeń
+        List<Neighbour> neighbours = cooccurrenceIndex.neighbours(bookId, MAX_LIMIT);
+        Map<Long, Book> books = bookRepository.findByIdIn(neighbours.stream().map(Neighbour::bookId).toList()).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        return neighbours.stream()
+                .filter(neighbour -> books.containsKey(neighbour.bookId()))
+                .limit(limit)
+                .map(neighbour -> new RecommendedBook(books.get(neighbour.bookId()), neighbour.together()))
+                .toList();
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.librarysystem.service;
+
+import com.example.librarysystem.exception.BadRequestException;
+import com.example.librarysystem.exception.ConflictException;
+import com.example.librarysystem.exception.GoneException;
+import com.example.librarysystem.exception.ResourceNotFoundException;
+import com.example.librarysystem.exception.ServiceBusyException;
+import com.example.librarysystem.report.ReportJob;
+import com.example.librarysystem.report.ReportJobRunner;
+import com.example.librarysystem.report.ReportJobStatus;
+import com.example.librarysystem.report.ReportJobType;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+@Service
+@Timed(value = "library.service", histogram = true)
+public class ReportJobService {
+
+    static final Duration RETRY_AFTER = Duration.ofSeconds(30);
+
+    private final ReportJobRunner reportJobRunner;
+
+    public ReportJobService(ReportJobRunner reportJobRunner) {
+        this.reportJobRunner = reportJobRunner;
+    }
+
+    /**
+     * Zleca raport w tle. Jeśli takie samo zlecenie (typ i parametry) trwa albo ma jeszcze ważny wynik,
+     * zwraca istniejące zadanie zamiast uruchamiać zapytanie ponownie.
+     *
+     * @throws ServiceBusyException Gdy kolejka raportów jest pełna.
+     */
+    public ReportJob submit(@Nullable String type, @Nullable Map<String, String> parameters) {
+        ReportJobType jobType = parseType(type);
+        try {
+            return reportJobRunner.submit(jobType, parameters != null ? parameters : Map.of());
+        } catch (RejectedExecutionException e) {
+            throw new ServiceBusyException("Too many report jobs are queued, try again later.", RETRY_AFTER);
+        }
+    }
+
+    public ReportJob getJob(String id) {
+        return reportJobRunner.find(id).orElseThrow(() -> new ResourceNotFoundException("Report job", id));
+    }
+
+    /**
+     * Plik wyniku (CSV skompresowany gzipem) zakończonego zadania.
+     *
+     * @throws ConflictException Gdy zadanie jeszcze trwa albo zakończyło się błędem.
+     * @throws GoneException     Gdy wynik został już usunięty.
+     */
+    public Path getResult(String id) {
+        ReportJob job = getJob(id);
+        if (job.status() != ReportJobStatus.COMPLETED) {
+            throw new ConflictException("Report job " + id + " is " + job.status() + ", the result is not available.");
+        }
+        Path file = reportJobRunner.resultFile(job);
+        if (!Files.exists(file)) {
+            throw new GoneException("Result of report job " + id + " is no longer available, submit the report again.");
+        }
+        return file;
+    }
+
+    private static ReportJobType parseType(@Nullable String type) {
+        try {
+            return ReportJobType.valueOf(type == null ? "" : type.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("type must be one of " + Arrays.toString(ReportJobType.values()));
+        }
+    }
+}
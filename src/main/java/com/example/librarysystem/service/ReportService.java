@@ -0,0 +1,102 @@
+package com.example.librarysystem.service;
+
+import com.example.librarysystem.dto.CirculationReportRow;
+import com.example.librarysystem.entity.Genre;
+import com.example.librarysystem.entity.Role;
+import com.example.librarysystem.exception.BadRequestException;
+import com.example.librarysystem.report.ReportDimension;
+import com.example.librarysystem.repository.CirculationMonthlyRepository;
+import com.example.librarysystem.repository.CirculationMonthlyRepository.MonthlyTotals;
+import com.example.librarysystem.repository.GenreRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+@Service
+@Timed(value = "library.service", histogram = true)
+public class ReportService {
+
+    static final int DEFAULT_MONTHS = 12;
+
+    private final CirculationMonthlyRepository circulationMonthlyRepository;
+    private final GenreRepository genreRepository;
+
+    public ReportService(CirculationMonthlyRepository circulationMonthlyRepository, GenreRepository genreRepository) {
+        this.circulationMonthlyRepository = circulationMonthlyRepository;
+        this.genreRepository = genreRepository;
+    }
+
+    /**
+     * Miesięczny raport obiegu książek - wyłącznie z sum miesięcznych ({@code circulation_monthly}), bez czytania
+     * tabeli wypożyczeń; sumy są aktualne z dokładnością do {@code library.reports.refresh-interval}.
+     *
+     * @param from    Pierwszy miesiąc (RRRR-MM); domyślnie {@value #DEFAULT_MONTHS} miesięcy wstecz od {@code to}.
+     * @param to      Ostatni miesiąc włącznie (RRRR-MM); domyślnie bieżący.
+     * @param groupBy GENRE, ROLE lub DECADE (wielkość liter bez znaczenia); null - sumy łączne.
+     */
+    @Transactional(readOnly = true)
+    public List<CirculationReportRow> getCirculationReport(@Nullable String from, @Nullable String to,
+                                                           @Nullable String groupBy) {
+        YearMonth last = isBlank(to) ? YearMonth.now() : parseMonth(to, "to");
+        YearMonth first = isBlank(from) ? last.minusMonths(DEFAULT_MONTHS - 1) : parseMonth(from, "from");
+        if (first.isAfter(last)) {
+            throw new BadRequestException("from must not be after to");
+        }
+        ReportDimension dimension = isBlank(groupBy) ? null : parseDimension(groupBy);
+
+        List<MonthlyTotals> totals = circulationMonthlyRepository.sumByMonth(first.atDay(1), last.plusMonths(1).atDay(1),
+                dimension != null ? dimension.name() : "TOTAL");
+        IntFunction<String> groupName = groupNames(dimension);
+        return totals.stream()
+                .map(row -> new CirculationReportRow(YearMonth.parse(row.getMonth()), groupName.apply(row.getGroupKey()),
+                        row.getLoans(), row.getReturns(),
+                        row.getReturns() > 0 ? (double) row.getLoanDays() / row.getReturns() : null,
+                        row.getReturns() > 0 ? (double) row.getOverdueReturns() / row.getReturns() : null))
+                .toList();
+    }
+
+    // Klucze grup z tabeli sum na nazwy; 0 w gatunku i dekadzie oznacza brak wartości
+    private IntFunction<String> groupNames(@Nullable ReportDimension dimension) {
+        if (dimension == null) {
+            return key -> null;
+        }
+        return switch (dimension) {
+            case GENRE -> {
+                Map<Integer, String> genres = genreRepository.findAll().stream()
+                        .collect(Collectors.toMap(genre -> (int) genre.getId(), Genre::getName));
+                yield key -> key == 0 ? "NONE" : genres.getOrDefault(key, "UNKNOWN");
+            }
+            case ROLE -> key -> Role.fromCode((short) key).name();
+            case DECADE -> key -> key == 0 ? "UNKNOWN" : key + "s";
+        };
+    }
+
+    private static YearMonth parseMonth(String value, String name) {
+        try {
+            return YearMonth.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException(name + " must be a month in the form YYYY-MM");
+        }
+    }
+
+    private static ReportDimension parseDimension(String value) {
+        try {
+            return ReportDimension.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("groupBy must be one of GENRE, ROLE, DECADE");
+        }
+    }
+
+    private static boolean isBlank(@Nullable String value) {
+        return value == null || value.isBlank();
+    }
+}
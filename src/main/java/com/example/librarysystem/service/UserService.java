@@ -1,7 +1,19 @@
 package com.example.librarysystem.service;
 
+import com.example.librarysystem.cache.CacheNames;
+import com.example.librarysystem.dto.UserPatch;
+import com.example.librarysystem.entity.Role;
 import com.example.librarysystem.entity.User;
+import com.example.librarysystem.event.EntityChangedEvent;
+import com.example.librarysystem.event.EntityChangedEvent.Operation;
+import com.example.librarysystem.exception.BadRequestException;
+import com.example.librarysystem.exception.ConflictException;
+import com.example.librarysystem.exception.ResourceNotFoundException;
+import com.example.librarysystem.monitoring.jfr.LoginEvent;
 import com.example.librarysystem.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.GrantedAuthority; // <--- NOWY IMPORT
 import org.springframework.security.core.authority.SimpleGrantedAuthority; // <--- NOWY IMPORT
 import org.springframework.security.core.userdetails.UserDetails; // <--- NOWY IMPORT
@@ -13,31 +25,57 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collection; // <--- NOWY IMPORT
 import java.util.Collections; // <--- NOWY IMPORT
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
+@Timed(value = "library.service", histogram = true)
 public class UserService implements UserDetailsService { // <--- IMPLEMENTUJEMY UserDetailsService
 
+    // Listy uprawnień są niezmienne, więc dla każdej roli tworzymy je tylko raz
+    private static final Map<Role, Collection<GrantedAuthority>> AUTHORITIES = new EnumMap<>(Role.class);
+
+    static {
+        for (Role role : Role.values()) {
+            AUTHORITIES.put(role, Collections.singletonList(new SimpleGrantedAuthority(role.getAuthority())));
+        }
+    }
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder; // <--- WSTRZYKUJEMY PasswordEncoder
+    private final ApplicationEventPublisher eventPublisher;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) { // <--- Aktualizacja konstruktora
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, // <--- Aktualizacja konstruktora
+                       ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.eventPublisher = eventPublisher;
     }
 
     // Metoda z interfejsu UserDetailsService
     @Override
     @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
+        LoginEvent event = new LoginEvent();
+        event.begin();
+        User user;
+        try {
+            user = userRepository.findByUsername(username)
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
+            event.userId = user.getId() != null ? user.getId() : 0;
+        } catch (RuntimeException e) {
+            event.failed(e);
+            throw e;
+        } finally {
+            event.commit();
+        }
 
-        // Konwersja naszej roli (np. "ROLE_ADMIN") na kolekcję GrantedAuthority
+        // Konwersja naszej roli (np. Role.ADMIN -> "ROLE_ADMIN") na kolekcję GrantedAuthority
         // Spring Security oczekuje ról w formacie "ROLE_NAZWAROLI"
-        GrantedAuthority authority = new SimpleGrantedAuthority(user.getRole());
-        Collection<GrantedAuthority> authorities = Collections.singletonList(authority);
+        Collection<GrantedAuthority> authorities = AUTHORITIES.get(user.getRole());
 
         // Używamy wbudowanej implementacji UserDetails od Spring Security
         return new org.springframework.security.core.userdetails.User(
@@ -53,7 +91,9 @@ public class UserService implements UserDetailsService { // <--- IMPLEMENTUJEMY
         return userRepository.findAll();
     }
 
+    // Logowanie (loadUserByUsername) zawsze czyta z bazy - zmiana hasła lub roli działa od razu
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheNames.USERS, key = "#id", unless = "#result == null")
     public Optional<User> getUserById(Long id) {
         return userRepository.findById(id);
     }
@@ -66,28 +106,32 @@ public class UserService implements UserDetailsService { // <--- IMPLEMENTUJEMY
     @Transactional
     public User createUser(User user) {
         if (userRepository.findByUsername(user.getUsername()).isPresent()) {
-            throw new IllegalStateException("Username " + user.getUsername() + " is already taken.");
+            throw new ConflictException("Username " + user.getUsername() + " is already taken.");
         }
         // Hashowanie hasła przed zapisem!
         user.setPassword(passwordEncoder.encode(user.getPassword()));
-        // Domyślna rola, jeśli nie podano (można też przenieść do kontrolera lub walidacji)
-        if (user.getRole() == null || user.getRole().isEmpty()) {
-            user.setRole("ROLE_USER"); // Upewnij się, że role zaczynają się od "ROLE_"
-        } else if (!user.getRole().startsWith("ROLE_")) {
-            user.setRole("ROLE_" + user.getRole().toUpperCase()); // Normalizacja nazwy roli
+        // Domyślna rola, jeśli nie podano (normalizację nazwy robi już Role.fromString przy odczycie JSON-a)
+        if (user.getRole() == null) {
+            user.setRole(Role.USER);
         }
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        eventPublisher.publishEvent(EntityChangedEvent.user(Operation.CREATED, saved.getId(), saved.getVersion()));
+        return saved;
     }
 
     @Transactional
     public User updateUser(Long id, User userDetails) {
         User userToUpdate = userRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
+                .orElseThrow(() -> new ResourceNotFoundException("User", id));
+
+        if (userDetails.getVersion() != null && !userDetails.getVersion().equals(userToUpdate.getVersion())) {
+            throw new ConflictException("User was modified by someone else.");
+        }
 
         if (userDetails.getUsername() != null && !userDetails.getUsername().equals(userToUpdate.getUsername())) {
             if (userRepository.findByUsername(userDetails.getUsername()).isPresent()) {
-                throw new IllegalStateException("Username " + userDetails.getUsername() + " is already taken.");
+                throw new ConflictException("Username " + userDetails.getUsername() + " is already taken.");
             }
             userToUpdate.setUsername(userDetails.getUsername());
         }
@@ -97,22 +141,55 @@ public class UserService implements UserDetailsService { // <--- IMPLEMENTUJEMY
             userToUpdate.setPassword(passwordEncoder.encode(userDetails.getPassword()));
         }
 
-        if (userDetails.getRole() != null && !userDetails.getRole().isEmpty()) {
-            String role = userDetails.getRole();
-            if (!role.startsWith("ROLE_")) {
-                role = "ROLE_" + role.toUpperCase();
-            }
-            userToUpdate.setRole(role);
+        if (userDetails.getRole() != null) {
+            userToUpdate.setRole(userDetails.getRole());
         }
 
+        // Hibernate podbija wersję dopiero przy flushu, więc w zdarzeniu podajemy wersję po zapisie
+        eventPublisher.publishEvent(EntityChangedEvent.user(Operation.UPDATED, id, userToUpdate.getVersion() != null ? userToUpdate.getVersion() + 1 : null));
         return userRepository.save(userToUpdate);
     }
 
+    /**
+     * Zmienia tylko podane pola użytkownika jednym zapytaniem UPDATE (bez wcześniejszego odczytu encji).
+     * Unikalność nazwy pilnuje ograniczenie w bazie.
+     *
+     * @return Nowa wersja użytkownika.
+     */
+    @Transactional
+    public long patchUser(Long id, UserPatch patch) {
+        if (patch.version() == null) {
+            throw new BadRequestException("Field 'version' is required for a partial update.");
+        }
+        Map<String, Object> changes = new HashMap<>();
+        if (patch.username() != null) {
+            changes.put("username", patch.username());
+        }
+        if (patch.password() != null && !patch.password().isEmpty()) {
+            changes.put("password", passwordEncoder.encode(patch.password()));
+        }
+        if (patch.role() != null) {
+            changes.put("role", patch.role());
+        }
+        if (changes.isEmpty()) {
+            throw new BadRequestException("No fields to update.");
+        }
+
+        if (userRepository.updateFields(id, patch.version(), changes) == 0) {
+            if (!userRepository.existsById(id)) {
+                throw new ResourceNotFoundException("User", id);
+            }
+            throw new ConflictException("User was modified by someone else.");
+        }
+        eventPublisher.publishEvent(EntityChangedEvent.user(Operation.UPDATED, id, patch.version() + 1));
+        return patch.version() + 1;
+    }
+
     @Transactional
     public void deleteUser(Long id) {
-        if (!userRepository.existsById(id)) {
-            throw new RuntimeException("User not found with id: " + id);
+        if (userRepository.removeById(id) == 0) {
+            throw new ResourceNotFoundException("User", id);
         }
-        userRepository.deleteById(id);
+        eventPublisher.publishEvent(EntityChangedEvent.user(Operation.DELETED, id, null));
     }
 }
\ No newline at end of file
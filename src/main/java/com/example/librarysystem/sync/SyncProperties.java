@@ -0,0 +1,22 @@
+package com.example.librarysystem.sync;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Ustawienia przyrostowej synchronizacji katalogu dla kiosków ({@code /api/books/sync}).
+ *
+ * @param pageSize    Domyślna liczba książek (lub zmian) na stronę.
+ * @param maxPageSize Największa strona, o jaką może poprosić kiosk.
+ * @param tokenMaxAge Wiek tokenu, po którym kiosk musi zacząć od pełnej synchronizacji (410). Musi być krótszy
+ *                    od {@code library.outbox.retention} o czas najdłuższej transakcji zapisu - inaczej
+ *                    zmiany sprzed tokenu mogłyby już zostać usunięte z outboxa.
+ */
+@ConfigurationProperties(prefix = "library.sync")
+public record SyncProperties(
+        @DefaultValue("500") int pageSize,
+        @DefaultValue("2000") int maxPageSize,
+        @DefaultValue("6d") Duration tokenMaxAge) {
+}
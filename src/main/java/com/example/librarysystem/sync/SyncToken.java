@@ -0,0 +1,58 @@
+package com.example.librarysystem.sync;
+
+import com.example.librarysystem.event.ChangeCursor;
+import com.example.librarysystem.exception.BadRequestException;
+import org.springframework.lang.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Stan synchronizacji kiosku, przekazywany jako nieprzezroczysty token (Base64 URL).
+ *
+ * @param position        Pozycja w kanale zmian, od której kiosk ma dostać kolejne zmiany.
+ * @param positionTime    Chwila, w której wszystkie zmiany za {@code position} były jeszcze w outboxie -
+ *                        na jej podstawie odrzucamy tokeny starsze niż retencja.
+ * @param snapshotAfterId W trakcie pełnej synchronizacji: ID ostatniej wysłanej książki; null w trybie przyrostowym.
+ */
+public record SyncToken(ChangeCursor position, Instant positionTime, @Nullable Long snapshotAfterId) {
+
+    /** Początek pełnej synchronizacji od bieżącej pozycji kanału. */
+    public static SyncToken snapshot(ChangeCursor position, Instant positionTime) {
+        return new SyncToken(position, positionTime, 0L);
+    }
+
+    public static SyncToken delta(ChangeCursor position, Instant positionTime) {
+        return new SyncToken(position, positionTime, null);
+    }
+
+    public boolean isSnapshot() {
+        return snapshotAfterId != null;
+    }
+
+    public SyncToken withSnapshotAfter(long bookId) {
+        return new SyncToken(position, positionTime, bookId);
+    }
+
+    /** Format przed zakodowaniem: {@code <pozycja>.<sekundy epoki>[.<ID książki>]}. */
+    public String encode() {
+        String raw = position + "." + positionTime.getEpochSecond() + (isSnapshot() ? "." + snapshotAfterId : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static SyncToken decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII).split("\\.");
+            if (parts.length == 2 || parts.length == 3) {
+                ChangeCursor position = ChangeCursor.parse(parts[0]);
+                Instant positionTime = Instant.ofEpochSecond(Long.parseLong(parts[1]));
+                Long snapshotAfterId = parts.length == 3 ? Long.valueOf(parts[2]) : null;
+                return new SyncToken(position, positionTime, snapshotAfterId);
+            }
+        } catch (IllegalArgumentException | BadRequestException e) {
+            // niżej jeden komunikat dla wszystkich błędnych tokenów (NumberFormatException to też IllegalArgumentException)
+        }
+        throw new BadRequestException("Invalid sync token");
+    }
+}
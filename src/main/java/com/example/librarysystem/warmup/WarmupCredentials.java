@@ -0,0 +1,37 @@
+package com.example.librarysystem.warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+
+/**
+ * Jednorazowy, losowy token, którym rozgrzewka uwierzytelnia swoje żądania (bez konta w bazie i bez BCrypta).
+ * Token działa tylko do końca rozgrzewki ({@link #revoke()}); zna go wyłącznie ten proces.
+ */
+public class WarmupCredentials {
+
+    public static final String HEADER = "X-Warmup-Token";
+
+    private final String token;
+    private volatile boolean active = true;
+
+    public WarmupCredentials() {
+        byte[] bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        this.token = HexFormat.of().formatHex(bytes);
+    }
+
+    public String token() {
+        return token;
+    }
+
+    public boolean matches(String candidate) {
+        return active && candidate != null
+                && MessageDigest.isEqual(token.getBytes(StandardCharsets.US_ASCII), candidate.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public void revoke() {
+        active = false;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.librarysystem.warmup;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Ustawienia rozgrzewki JIT przy starcie aplikacji.
+ *
+ * @param enabled          Czy rozgrzewać aplikację przed zgłoszeniem gotowości (readiness).
+ * @param timeBudget       Maksymalny czas rozgrzewki - po nim instancja i tak zgłasza gotowość.
+ * @param iterations       Liczba przebiegów po endpointach odczytu.
+ * @param borrowIterations Liczba wycofywanych wypożyczeń i zwrotów.
+ */
+@ConfigurationProperties(prefix = "library.warmup")
+public record WarmupProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("60s") Duration timeBudget,
+        @DefaultValue("2000") int iterations,
+        @DefaultValue("500") int borrowIterations) {
+}
@@ -0,0 +1,189 @@
+package com.example.librarysystem.warmup;
+
+import com.example.librarysystem.entity.Book;
+import com.example.librarysystem.entity.Borrowing;
+import com.example.librarysystem.entity.Genre;
+import com.example.librarysystem.entity.User;
+import com.example.librarysystem.repository.BookRepository;
+import com.example.librarysystem.repository.BorrowingRepository;
+import com.example.librarysystem.repository.GenreRepository;
+import com.example.librarysystem.repository.UserRepository;
+import com.example.librarysystem.service.BorrowingService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rozgrzewka JIT przed zgłoszeniem gotowości. Spring Boot przełącza readiness na ACCEPTING_TRAFFIC
+ * dopiero po zakończeniu wszystkich {@link ApplicationRunner}-ów, więc do końca rozgrzewki
+ * {@code /actuator/health/readiness} zwraca 503 i load balancer nie kieruje na instancję ruchu.
+ * <p>
+ * Rozgrzewka:
+ * <ul>
+ *     <li>wysyła prawdziwe żądania HTTP do głównych endpointów odczytu (Tomcat, Spring Security, MVC, Jackson,
+ *     Hibernate), uwierzytelnione jednorazowym tokenem {@link WarmupCredentials};</li>
+ *     <li>wykonuje wypożyczenia i zwroty w transakcjach, które są wycofywane - baza się nie zmienia.</li>
+ * </ul>
+ * Kończy się po zadanej liczbie przebiegów albo po przekroczeniu budżetu czasu.
+ */
+public class WarmupRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmupRunner.class);
+
+    // Endpointy zwracające cały katalog są drogie przy dużej bazie - odwiedzamy je rzadziej
+    private static final int COLLECTION_EVERY = 100;
+
+    private final WarmupProperties properties;
+    private final WarmupCredentials credentials;
+    private final WebServerApplicationContext context;
+    private final BookRepository bookRepository;
+    private final UserRepository userRepository;
+    private final GenreRepository genreRepository;
+    private final BorrowingRepository borrowingRepository;
+    private final BorrowingService borrowingService;
+    private final TransactionTemplate transactionTemplate;
+
+    public WarmupRunner(WarmupProperties properties, WarmupCredentials credentials, WebServerApplicationContext context,
+                        BookRepository bookRepository, UserRepository userRepository, GenreRepository genreRepository,
+                        BorrowingRepository borrowingRepository, BorrowingService borrowingService,
+                        TransactionTemplate transactionTemplate) {
+        this.properties = properties;
+        this.credentials = credentials;
+        this.context = context;
+        this.bookRepository = bookRepository;
+        this.userRepository = userRepository;
+        this.genreRepository = genreRepository;
+        this.borrowingRepository = borrowingRepository;
+        this.borrowingService = borrowingService;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long started = System.nanoTime();
+        long deadline = started + properties.timeBudget().toNanos();
+        long compilationBefore = compilationMillis();
+        try {
+            Book book = first(bookRepository.findAll(PageRequest.of(0, 1)).getContent());
+            User user = first(userRepository.findAll(PageRequest.of(0, 1)).getContent());
+            if (book == null || user == null) {
+                log.info("Warm-up skipped: no books or users in the database");
+                return;
+            }
+            // Czytelnik z historią wypożyczeń, żeby lista wypożyczeń nie była pusta (ID z proxy - bez zapytania)
+            Borrowing borrowing = first(borrowingRepository.findAll(PageRequest.of(0, 1)).getContent());
+            Long userId = borrowing != null ? borrowing.getUser().getId() : user.getId();
+            Genre genre = first(genreRepository.findAll(PageRequest.of(0, 1)).getContent());
+
+            Counts counts = warmUp(book.getId(), userId, genre != null ? genre.getName() : null, deadline);
+
+            log.info("Warm-up finished in {} ms{}: {} HTTP requests ({} failed), {} rolled-back loans, JIT compilation {} ms",
+                    Duration.ofNanos(System.nanoTime() - started).toMillis(),
+                    System.nanoTime() > deadline ? " (time budget exceeded)" : "",
+                    counts.requests, counts.failed, counts.loans, compilationMillis() - compilationBefore);
+        } catch (RuntimeException e) {
+            // Rozgrzewka jest optymalizacją - jej błąd nie może zablokować startu instancji
+            log.warn("Warm-up failed, continuing startup", e);
+        } finally {
+            credentials.revoke();
+        }
+    }
+
+    /**
+     * Ścieżki HTTP i wypożyczenia przeplatane w jednej pętli, żeby przy krótkim budżecie czasu rozgrzały się obie.
+     */
+    private Counts warmUp(Long bookId, Long userId, String genre, long deadline) {
+        String base = "http://localhost:" + context.getWebServer().getPort();
+        List<URI> single = List.of(
+                URI.create(base + "/api/books/" + bookId),
+                URI.create(base + "/api/borrowings/user/" + userId));
+        List<URI> collections = new ArrayList<>(List.of(URI.create(base + "/api/books")));
+        if (genre != null) {
+            collections.add(URI.create(base + "/api/books/genre/" + URLEncoder.encode(genre, StandardCharsets.UTF_8)));
+        }
+
+        Counts counts = new Counts();
+        boolean loansEnabled = properties.borrowIterations() > 0;
+        try (HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build()) {
+            for (int i = 0; i < properties.iterations() && System.nanoTime() < deadline; i++) {
+                // Listy katalogu nie w pierwszej iteracji - najpierw szybkie ścieżki
+                List<URI> targets = i % COLLECTION_EVERY == COLLECTION_EVERY - 1 ? collections : single;
+                for (URI uri : targets) {
+                    counts.requests++;
+                    if (get(client, uri) != 200) {
+                        counts.failed++;
+                    }
+                }
+                if (loansEnabled && counts.loans < properties.borrowIterations()) {
+                    loansEnabled = borrowAndReturn(bookId, userId);
+                    if (loansEnabled) {
+                        counts.loans++;
+                    }
+                }
+            }
+        }
+        return counts;
+    }
+
+    private int get(HttpClient client, URI uri) {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header(WarmupCredentials.HEADER, credentials.token())
+                .GET()
+                .build();
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    /** @return {@code false}, jeśli wypożyczenie się nie udało (np. brak wolnych egzemplarzy) - wtedy je pomijamy. */
+    private boolean borrowAndReturn(Long bookId, Long userId) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                status.setRollbackOnly();
+                Borrowing borrowing = borrowingService.borrowBook(userId, bookId);
+                borrowingService.returnBook(borrowing.getId());
+            });
+            return true;
+        } catch (RuntimeException e) {
+            log.info("Warm-up of borrow/return skipped: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private static final class Counts {
+        int requests;
+        int failed;
+        int loans;
+    }
+
+    private static <T> T first(List<T> list) {
+        return list.isEmpty() ? null : list.get(0);
+    }
+
+    private static long compilationMillis() {
+        CompilationMXBean compilation = ManagementFactory.getCompilationMXBean();
+        return compilation != null && compilation.isCompilationTimeMonitoringSupported() ? compilation.getTotalCompilationTime() : 0;
+    }
+}
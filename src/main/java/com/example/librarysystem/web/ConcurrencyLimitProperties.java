@@ -0,0 +1,18 @@
+package com.example.librarysystem.web;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Ustawienia limitu równocześnie obsługiwanych żądań {@code /api/**} w trybie wątków wirtualnych.
+ *
+ * @param maxInFlight    Maksymalna liczba żądań obsługiwanych naraz; 0 oznacza rozmiar puli połączeń Hikari.
+ * @param acquireTimeout Jak długo żądanie może czekać w kolejce, zanim dostanie 503 (domyślnie jak connection-timeout Hikari).
+ */
+@ConfigurationProperties(prefix = "library.concurrency")
+public record ConcurrencyLimitProperties(
+        @DefaultValue("0") int maxInFlight,
+        @DefaultValue("30s") Duration acquireTimeout) {
+}
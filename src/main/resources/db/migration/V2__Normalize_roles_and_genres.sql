@@ -0,0 +1,41 @@
+-- Słownik gatunków: książka przechowuje 2-bajtowy klucz zamiast powtarzanego tekstu
+CREATE TABLE genre
+(
+    id   SMALLINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    name VARCHAR(255)                              NOT NULL,
+    CONSTRAINT pk_genre PRIMARY KEY (id)
+);
+
+ALTER TABLE genre
+    ADD CONSTRAINT uc_genre_name UNIQUE (name);
+
+INSERT INTO genre (name)
+SELECT DISTINCT upper(trim(genre))
+FROM book
+WHERE genre IS NOT NULL
+  AND trim(genre) <> '';
+
+ALTER TABLE book
+    ADD COLUMN genre_id SMALLINT;
+
+UPDATE book b
+SET genre_id = g.id
+FROM genre g
+WHERE g.name = upper(trim(b.genre));
+
+ALTER TABLE book
+    DROP COLUMN genre;
+
+ALTER TABLE book
+    ADD CONSTRAINT FK_BOOK_ON_GENRE FOREIGN KEY (genre_id) REFERENCES genre (id);
+
+CREATE INDEX idx_book_genre_id ON book (genre_id);
+
+-- Role jako kody SMALLINT: 1 = ROLE_USER, 2 = ROLE_ADMIN (zob. enum Role)
+ALTER TABLE library_users
+    ALTER COLUMN role TYPE SMALLINT USING (
+        CASE upper(trim(role))
+            WHEN 'ROLE_ADMIN' THEN 2
+            WHEN 'ADMIN' THEN 2
+            ELSE 1
+            END);
@@ -0,0 +1,6 @@
+-- Wersje wierszy dla optymistycznego blokowania (@Version) książek i użytkowników
+ALTER TABLE book
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE library_users
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,17 @@
+-- Outbox zmian zapisywany w tej samej transakcji co zmiana encji (kanał /api/changes).
+-- tx_id to ID transakcji zapisującej: wiersze czytamy w kolejności (tx_id, id) i tylko z transakcji starszych
+-- niż najstarsza wciąż trwająca, więc za kursorem odbiorcy nie może się już pojawić żaden nowy wiersz.
+CREATE TABLE change_outbox
+(
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    tx_id          XID8                                    NOT NULL DEFAULT pg_current_xact_id(),
+    entity_type    VARCHAR(16)                             NOT NULL,
+    operation      VARCHAR(16)                             NOT NULL,
+    entity_id      BIGINT                                  NOT NULL,
+    entity_version BIGINT,
+    details        JSONB                                   NOT NULL DEFAULT '{}',
+    created_at     TIMESTAMP WITH TIME ZONE                NOT NULL DEFAULT now(),
+    CONSTRAINT pk_change_outbox PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_change_outbox_tx_id ON change_outbox (tx_id, id);
@@ -0,0 +1,2 @@
+-- Synchronizacja kiosków czyta tylko zmiany książek - bez tego indeksu przeglądałaby wszystkie wypożyczenia
+CREATE INDEX idx_change_outbox_type_tx_id ON change_outbox (entity_type, tx_id, id);
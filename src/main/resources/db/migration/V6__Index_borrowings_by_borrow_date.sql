@@ -0,0 +1,2 @@
+-- Odbudowa rankingu popularności przy starcie czyta tylko ostatnie dni wypożyczeń
+CREATE INDEX idx_borrowings_borrow_date ON borrowings (borrow_date);
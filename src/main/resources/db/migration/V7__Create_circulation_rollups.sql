@@ -0,0 +1,42 @@
+-- Dzienne sumy wypożyczeń i zwrotów - podstawa sum raportowych (/api/admin/reports/circulation), żeby raporty nie czytały
+-- tabeli borrowings. Wymiary: gatunek (0 - bez gatunku), rola czytelnika i dekada wydania (0 - rok nieznany).
+-- Wypożyczenia liczymy w dniu wypożyczenia, zwroty (z długością i przeterminowaniem) w dniu zwrotu.
+CREATE TABLE circulation_daily
+(
+    day                DATE     NOT NULL,
+    genre_id           SMALLINT NOT NULL,
+    user_role          SMALLINT NOT NULL,
+    publication_decade SMALLINT NOT NULL,
+    loans              BIGINT   NOT NULL DEFAULT 0,
+    returns            BIGINT   NOT NULL DEFAULT 0,
+    loan_days          BIGINT   NOT NULL DEFAULT 0,
+    overdue_returns    BIGINT   NOT NULL DEFAULT 0,
+    CONSTRAINT pk_circulation_daily PRIMARY KEY (day, genre_id, user_role, publication_decade)
+);
+
+-- Pozycja odświeżania sum w outboxie zmian. Wiersz blokuje instancja, która właśnie odświeża - pozostałe go pomijają.
+-- Pusta pozycja oznacza, że sumy trzeba zbudować od nowa z tabeli borrowings.
+CREATE TABLE report_refresh_state
+(
+    name             VARCHAR(32)              NOT NULL,
+    tx_id            BIGINT,
+    outbox_id        BIGINT,
+    rebuild_snapshot TEXT,
+    refreshed_at     TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT pk_report_refresh_state PRIMARY KEY (name)
+);
+
+-- Sumy miesięczne liczone z dziennych dla miesięcy, których dotyczą nowe zmiany - raport z pięciu lat czyta
+-- najwyżej 60 miesięcy zamiast ok. 1800 dni w każdej kombinacji wymiarów
+CREATE TABLE circulation_monthly
+(
+    month              DATE     NOT NULL,
+    genre_id           SMALLINT NOT NULL,
+    user_role          SMALLINT NOT NULL,
+    publication_decade SMALLINT NOT NULL,
+    loans              BIGINT   NOT NULL DEFAULT 0,
+    returns            BIGINT   NOT NULL DEFAULT 0,
+    loan_days          BIGINT   NOT NULL DEFAULT 0,
+    overdue_returns    BIGINT   NOT NULL DEFAULT 0,
+    CONSTRAINT pk_circulation_monthly PRIMARY KEY (month, genre_id, user_role, publication_decade)
+);
@@ -0,0 +1,55 @@
+-- Tabela borrowings partycjonowana miesięcznie po borrow_date. Zapytania z warunkiem na borrow_date czytają tylko
+-- partycje z tego zakresu, a bieżące miesiące (aktywne wypożyczenia) mają małe indeksy, które mieszczą się w pamięci.
+-- Klucz główny musi zawierać klucz partycjonowania, dlatego jest to (id, borrow_date); id nadal nadaje sekwencja.
+-- Kolejne miesiące dodaje z wyprzedzeniem BorrowingPartitionMaintainer (library.borrowing-partitions.*).
+ALTER TABLE borrowings RENAME TO borrowings_unpartitioned;
+ALTER INDEX pk_borrowings RENAME TO pk_borrowings_unpartitioned;
+ALTER INDEX idx_borrowings_borrow_date RENAME TO idx_borrowings_unpartitioned_borrow_date;
+
+CREATE TABLE borrowings
+(
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    user_id     BIGINT                                  NOT NULL,
+    book_id     BIGINT                                  NOT NULL,
+    borrow_date date                                    NOT NULL,
+    due_date    date                                    NOT NULL,
+    return_date date,
+    CONSTRAINT pk_borrowings PRIMARY KEY (id, borrow_date),
+    CONSTRAINT FK_BORROWINGS_ON_BOOK FOREIGN KEY (book_id) REFERENCES book (id),
+    CONSTRAINT FK_BORROWINGS_ON_USER FOREIGN KEY (user_id) REFERENCES library_users (id)
+) PARTITION BY RANGE (borrow_date);
+
+-- Partycje od najstarszego wypożyczenia do trzech miesięcy naprzód (bez partycji domyślnej - dodanie nowego
+-- miesiąca wymagałoby wtedy przeszukania jej pod kątem wierszy z tego zakresu)
+DO
+$$
+    DECLARE
+        month DATE;
+    BEGIN
+        FOR month IN
+            SELECT generate_series(first_month, last_month, INTERVAL '1 month')::date
+            FROM (SELECT date_trunc('month', COALESCE(min(borrow_date), current_date))                       AS first_month,
+                         date_trunc('month', GREATEST(max(borrow_date), current_date)) + INTERVAL '3 months' AS last_month
+                  FROM borrowings_unpartitioned) bounds
+            LOOP
+                EXECUTE format('CREATE TABLE %I PARTITION OF borrowings FOR VALUES FROM (%L) TO (%L)',
+                               'borrowings_p' || to_char(month, 'YYYYMM'), month, (month + INTERVAL '1 month')::date);
+            END LOOP;
+    END
+$$;
+
+INSERT INTO borrowings (id, user_id, book_id, borrow_date, due_date, return_date)
+SELECT id, user_id, book_id, borrow_date, due_date, return_date
+FROM borrowings_unpartitioned;
+
+SELECT setval(pg_get_serial_sequence('borrowings', 'id'), COALESCE(max(id), 0) + 1, false)
+FROM borrowings;
+
+DROP TABLE borrowings_unpartitioned;
+
+-- Indeksy tworzone na tabeli nadrzędnej powstają w każdej partycji, także w dodawanych później
+CREATE INDEX idx_borrowings_borrow_date ON borrowings (borrow_date);
+-- Historia czytelnika (GET /api/borrowings/user/{id}) nie może pominąć partycji - bez indeksu czytałaby każdą w całości
+CREATE INDEX idx_borrowings_user_id ON borrowings (user_id);
+
+ANALYZE borrowings;
@@ -0,0 +1,17 @@
+-- Historia zwróconych wypożyczeń przeniesionych z tabeli borrowings przez BorrowingArchiver (library.archive.*).
+-- Tabela tylko do dopisywania: bez partycji i z jednym indeksem pomocniczym - historię czyta się wyłącznie
+-- po czytelniku (GET /api/borrowings/user/{id}) albo w całości (odbudowa sum raportowych, raporty w tle).
+CREATE TABLE borrowing_history
+(
+    id          BIGINT NOT NULL,
+    user_id     BIGINT NOT NULL,
+    book_id     BIGINT NOT NULL,
+    borrow_date date   NOT NULL,
+    due_date    date   NOT NULL,
+    return_date date   NOT NULL,
+    CONSTRAINT pk_borrowing_history PRIMARY KEY (id),
+    CONSTRAINT fk_borrowing_history_on_book FOREIGN KEY (book_id) REFERENCES book (id),
+    CONSTRAINT fk_borrowing_history_on_user FOREIGN KEY (user_id) REFERENCES library_users (id)
+);
+
+CREATE INDEX idx_borrowing_history_user_id ON borrowing_history (user_id, borrow_date);
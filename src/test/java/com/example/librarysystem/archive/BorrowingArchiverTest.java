@@ -0,0 +1,74 @@
+package com.example.librarysystem.archive;
+
+import com.example.librarysystem.repository.BorrowingHistoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BorrowingArchiverTest {
+
+    private static final Instant NOW = Instant.parse("2024-05-20T10:00:00Z");
+    private static final LocalDate CUTOFF = LocalDate.parse("2023-05-21");
+
+    private final BorrowingHistoryRepository historyRepository = mock(BorrowingHistoryRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private BorrowingArchiver archiver;
+
+    @BeforeEach
+    void setUp() {
+        archiver = new BorrowingArchiver(historyRepository, new TransactionTemplate(transactionManager),
+                Clock.fixed(NOW, ZoneOffset.UTC), Duration.ofDays(365), 100, 3);
+    }
+
+    @Test
+    @DisplayName("archive - przenosi kolejne paczki do pierwszej niepełnej, każdą w osobnej transakcji")
+    void testArchive_stopsOnPartialBatch() {
+        when(historyRepository.archiveReturnedBefore(CUTOFF, 100)).thenReturn(100, 40);
+
+        assertEquals(140, archiver.archive());
+
+        verify(historyRepository, times(2)).archiveReturnedBefore(CUTOFF, 100);
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    @DisplayName("archive - w jednym cyklu wykonuje najwyżej maxBatchesPerRun paczek")
+    void testArchive_limitsBatchesPerRun() {
+        when(historyRepository.archiveReturnedBefore(any(), anyInt())).thenReturn(100);
+
+        assertEquals(300, archiver.archive());
+
+        verify(historyRepository, times(3)).archiveReturnedBefore(CUTOFF, 100);
+    }
+
+    @Test
+    @DisplayName("archive - nic do przeniesienia kończy cykl po jednym zapytaniu")
+    void testArchive_nothingToMove() {
+        assertEquals(0, archiver.archive());
+
+        verify(historyRepository, times(1)).archiveReturnedBefore(CUTOFF, 100);
+    }
+
+    @Test
+    @DisplayName("archive - błąd paczki wycofuje jej transakcję i przerywa cykl")
+    void testArchive_failureRollsBack() {
+        when(historyRepository.archiveReturnedBefore(any(), anyInt())).thenThrow(new IllegalStateException("boom"));
+
+        assertThrows(IllegalStateException.class, archiver::archive);
+
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.librarysystem.audit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditJournalTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2024-05-20T10:00:00Z"), ZoneOffset.UTC);
+    private static final int SMALL_SEGMENT = 8 * 1024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("write - zapisane wpisy da się odczytać i łańcuch skrótów jest poprawny")
+    void testWrite_roundTrip() throws IOException {
+        try (AuditJournal journal = new AuditJournal(directory, SMALL_SEGMENT, CLOCK)) {
+            assertEquals(1, journal.write("BORROWING", "BORROWED", 42, 0L, "reader1", "bookId=7,userId=3"));
+            assertEquals(2, journal.write("BOOK", "DELETED", 7, null, "-", ""));
+        }
+
+        List<AuditRecord> records = new ArrayList<>();
+        AuditJournalReader.Verification verification = AuditJournalReader.read(directory, records::add);
+
+        assertTrue(verification.valid(), verification.problems()::toString);
+        assertEquals(2, verification.records());
+        assertEquals(new AuditRecord(1, CLOCK.instant(), "BORROWING", "BORROWED", 42, 0L, "reader1",
+                "bookId=7,userId=3"), records.get(0));
+        assertNull(records.get(1).version());
+    }
+
+    @Test
+    @DisplayName("write - po zapełnieniu segmentu przechodzi do następnego, zachowując ciągłość łańcucha")
+    void testWrite_rotatesSegments() throws IOException {
+        try (AuditJournal journal = new AuditJournal(directory, SMALL_SEGMENT, CLOCK)) {
+            for (int i = 1; i <= 500; i++) {
+                journal.append("BOOK", "UPDATED", i, (long) i, "admin", "title=Book " + i);
+            }
+            journal.awaitDurable(500);
+        }
+
+        AuditJournalReader.Verification verification = AuditJournalReader.verify(directory);
+
+        assertTrue(verification.valid(), verification.problems()::toString);
+        assertTrue(verification.segments() > 1);
+        assertEquals(500, verification.records());
+        assertEquals(500, verification.lastSequence());
+    }
+
+    @Test
+    @DisplayName("constructor - ponowne otwarcie kontynuuje numerację i łańcuch z poprzedniego uruchomienia")
+    void testReopen_continuesChain() throws IOException {
+        try (AuditJournal journal = new AuditJournal(directory, SMALL_SEGMENT, CLOCK)) {
+            journal.write("USER", "CREATED", 1, 0L, "admin", "");
+        }
+        try (AuditJournal journal = new AuditJournal(directory, SMALL_SEGMENT, CLOCK)) {
+            assertEquals(2, journal.write("USER", "UPDATED", 1, 1L, "admin", ""));
+        }
+
+        AuditJournalReader.Verification verification = AuditJournalReader.verify(directory);
+
+        assertTrue(verification.valid(), verification.problems()::toString);
+        assertEquals(2, verification.records());
+    }
+
+    @Test
+    @DisplayName("constructor - drugi dziennik na tym samym katalogu w tej samej JVM jest odrzucany")
+    void testSameDirectoryTwiceInOneJvm_rejected() throws IOException {
+        try (AuditJournal journal = new AuditJournal(directory, SMALL_SEGMENT, CLOCK)) {
+            IllegalStateException exception = assertThrows(IllegalStateException.class,
+                    () -> new AuditJournal(directory, SMALL_SEGMENT, CLOCK));
+            assertTrue(exception.getMessage().contains("is used by another process or application context"));
+            assertEquals(1, journal.write("USER", "CREATED", 1, 0L, "admin", ""));
+        }
+        try (AuditJournal journal = new AuditJournal(directory, SMALL_SEGMENT, CLOCK)) {
+            assertEquals(2, journal.write("USER", "UPDATED", 1, 1L, "admin", ""));
+        }
+    }
+
+    @Test
+    @DisplayName("verify - zmiana jednego bajtu zapisanego wpisu zostaje wykryta")
+    void testVerify_detectsTampering() throws IOException {
+        try (AuditJournal journal = new AuditJournal(directory, SMALL_SEGMENT, CLOCK)) {
+            journal.write("BORROWING", "RETURNED", 42, 1L, "reader1", "fine=0");
+            journal.write("BORROWING", "RETURNED", 43, 1L, "reader1", "fine=0");
+        }
+        Path segment = AuditJournalReader.segments(directory).get(0);
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            long position = AuditFormat.HEADER_SIZE + 4 + 8 + 8 + 2;
+            file.seek(position);
+            int value = file.read();
+            file.seek(position);
+            file.write(value ^ 1);
+        }
+
+        AuditJournalReader.Verification verification = AuditJournalReader.verify(directory);
+
+        assertFalse(verification.valid());
+    }
+
+    @Test
+    @DisplayName("constructor - uszkodzony ostatni wpis zostaje w starym segmencie, zapis kontynuuje w nowym")
+    void testReopen_damagedTailContinuesInNewSegment() throws IOException {
+        try (AuditJournal journal = new AuditJournal(directory, SMALL_SEGMENT, CLOCK)) {
+            journal.write("BORROWING", "RETURNED", 42, 1L, "reader1", "fine=0");
+            journal.write("BORROWING", "RETURNED", 43, 1L, "reader1", "fine=0");
+        }
+        int firstRecord = AuditFormat.recordSize(AuditFormat.encode(
+                new AuditRecord(1, CLOCK.instant(), "BORROWING", "RETURNED", 42, 1L, "reader1", "fine=0")));
+        try (RandomAccessFile file = new RandomAccessFile(AuditJournalReader.segments(directory).get(0).toFile(), "rw")) {
+            long position = AuditFormat.HEADER_SIZE + firstRecord + 4 + 8 + 8 + 2;
+            file.seek(position);
+            int value = file.read();
+            file.seek(position);
+            file.write(value ^ 1);
+        }
+
+        try (AuditJournal journal = new AuditJournal(directory, SMALL_SEGMENT, CLOCK)) {
+            assertEquals(2, journal.write("BORROWING", "RETURNED", 44, 1L, "reader1", "fine=0"));
+        }
+
+        AuditJournalReader.Verification verification = AuditJournalReader.verify(directory);
+
+        assertEquals(2, verification.segments());
+        assertEquals(2, verification.records());
+        assertEquals(2, verification.lastSequence());
+        assertEquals(1, verification.problems().size(), verification.problems()::toString);
+        assertTrue(verification.problems().get(0).startsWith(AuditFormat.segmentName(1) + ": damaged at offset "
+                + (AuditFormat.HEADER_SIZE + firstRecord)), verification.problems()::toString);
+    }
+
+    @Test
+    @DisplayName("write - nieudane założenie segmentu nie zmienia stanu, kolejny zapis zakłada go pod tym samym numerem")
+    void testWrite_failedRotationIsRetried() throws IOException {
+        Path blocker = directory.resolve(AuditFormat.segmentName(2));
+        long failedAt = 0;
+        try (AuditJournal journal = new AuditJournal(directory, SMALL_SEGMENT, CLOCK)) {
+            // Katalog o nazwie następnego segmentu - CREATE_NEW się nie powiedzie
+            Files.createDirectory(blocker);
+            for (int i = 1; i <= 500 && failedAt == 0; i++) {
+                try {
+                    assertEquals(i, journal.append("BOOK", "UPDATED", i, (long) i, "admin", "title=Book " + i));
+                } catch (IOException e) {
+                    failedAt = i;
+                }
+            }
+            assertTrue(failedAt > 1);
+            Files.delete(blocker);
+
+            assertEquals(failedAt, journal.write("BOOK", "UPDATED", failedAt, failedAt, "admin", "retry"));
+        }
+
+        AuditJournalReader.Verification verification = AuditJournalReader.verify(directory);
+
+        assertTrue(verification.valid(), verification.problems()::toString);
+        assertEquals(List.of(AuditFormat.segmentName(1), AuditFormat.segmentName(2)),
+                AuditJournalReader.segments(directory).stream().map(segment -> segment.getFileName().toString()).toList());
+        assertEquals(failedAt, verification.lastSequence());
+    }
+
+    @Test
+    @DisplayName("write - równoległe zapisy dzielą wspólne wymuszenia zapisu na dysk")
+    void testWrite_groupCommit() throws Exception {
+        int threads = 8;
+        int perThread = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (AuditJournal journal = new AuditJournal(directory, 1024 * 1024, CLOCK)) {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        journal.write("BOOK", "UPDATED", thread, (long) i, "admin", "");
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            assertEquals(threads * perThread, journal.records());
+            assertTrue(journal.syncs() < journal.records(), () -> "syncs=" + journal.syncs());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(AuditJournalReader.verify(directory).valid());
+    }
+}
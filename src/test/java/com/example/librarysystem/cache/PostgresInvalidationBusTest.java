@@ -0,0 +1,75 @@
+package com.example.librarysystem.cache;
+
+import com.example.librarysystem.event.EntityChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PostgresInvalidationBusTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(CacheNames.BOOKS, CacheNames.USERS);
+    private PostgresInvalidationBus bus;
+
+    @BeforeEach
+    void setUp() {
+        bus = new PostgresInvalidationBus(jdbcTemplate, () -> {
+            throw new SQLException("not used");
+        }, new LocalCacheInvalidator(cacheManager), "library_changes", Duration.ofSeconds(1));
+        cacheManager.getCache(CacheNames.BOOKS).put(1L, "book 1");
+        cacheManager.getCache(CacheNames.BOOKS).put(2L, "book 2");
+        cacheManager.getCache(CacheNames.USERS).put(1L, "user 1");
+    }
+
+    @Test
+    @DisplayName("Powiadomienie innej instancji usuwa z cache tylko wskazaną encję")
+    void testHandle_otherOrigin_evictsEntity() {
+        bus.handle(PostgresInvalidationBus.encode("other-instance", EntityChangedEvent.book(EntityChangedEvent.Operation.UPDATED, 1L, 3L)));
+
+        assertNull(cacheManager.getCache(CacheNames.BOOKS).get(1L));
+        assertNotNull(cacheManager.getCache(CacheNames.BOOKS).get(2L));
+        assertNotNull(cacheManager.getCache(CacheNames.USERS).get(1L));
+    }
+
+    @Test
+    @DisplayName("Własne powiadomienie jest pomijane - cache usunął już LocalCacheInvalidator")
+    void testHandle_ownOrigin_ignored() {
+        bus.onEntityChanged(EntityChangedEvent.user(EntityChangedEvent.Operation.DELETED, 1L, null));
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(jdbcTemplate).queryForObject(anyString(), eq(String.class), eq("library_changes"), payload.capture());
+
+        bus.handle((String) payload.getValue());
+
+        assertNotNull(cacheManager.getCache(CacheNames.USERS).get(1L));
+    }
+
+    @Test
+    @DisplayName("Nieprawidłowe lub nieznane powiadomienia są ignorowane")
+    void testHandle_malformedPayload_ignored() {
+        assertDoesNotThrow(() -> {
+            bus.handle("garbage");
+            bus.handle("other-instance AUTHOR 1 -");
+            bus.handle("other-instance BOOK abc -");
+        });
+
+        assertNotNull(cacheManager.getCache(CacheNames.BOOKS).get(1L));
+    }
+
+    @Test
+    @DisplayName("Nazwa kanału spoza dozwolonego wzorca jest odrzucana")
+    void testConstructor_invalidChannel_throws() {
+        assertThrows(IllegalArgumentException.class, () -> new PostgresInvalidationBus(jdbcTemplate, () -> null,
+                new LocalCacheInvalidator(cacheManager), "changes; DROP TABLE book", Duration.ofSeconds(1)));
+    }
+}
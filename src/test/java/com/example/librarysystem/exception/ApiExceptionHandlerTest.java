@@ -0,0 +1,38 @@
+package com.example.librarysystem.exception;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.http.ProblemDetail;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ApiExceptionHandlerTest {
+
+    private final ApiExceptionHandler handler = new ApiExceptionHandler();
+
+    @Test
+    @DisplayName("Wyjątki domenowe - nie powinny zbierać śladu stosu")
+    void testDomainExceptions_haveNoStackTrace() {
+        ResourceNotFoundException notFound = new ResourceNotFoundException("Book", 7L);
+        ConflictException conflict = new ConflictException("Book already returned");
+
+        assertEquals(0, notFound.getStackTrace().length);
+        assertEquals(0, conflict.getStackTrace().length);
+        assertEquals("Book not found with id: 7", notFound.getMessage());
+    }
+
+    @Test
+    @DisplayName("Handler - powinien mapować wyjątki na statusy 404, 409 i 400")
+    void testHandler_mapsExceptionsToStatuses() {
+        ProblemDetail notFound = handler.handleNotFound(new ResourceNotFoundException("User", 3L));
+        assertEquals(404, notFound.getStatus());
+        assertEquals("User not found with id: 3", notFound.getDetail());
+
+        assertEquals(409, handler.handleConflict(new ConflictException("Username x is already taken.")).getStatus());
+        assertEquals(409, handler.handleOptimisticLock(new ObjectOptimisticLockingFailureException(Object.class, 1L)).getStatus());
+        assertEquals(409, handler.handleDataIntegrity(new DataIntegrityViolationException("uc_book_isbn")).getStatus());
+        assertEquals(400, handler.handleBadRequest(new BadRequestException("No fields to update.")).getStatus());
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.librarysystem.export;
+
+import com.example.librarysystem.entity.Role;
+import org.apache.arrow.compression.CommonsCompressionFactory;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.dictionary.DictionaryEncoder;
+import org.apache.arrow.vector.ipc.ArrowFileReader;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BorrowingArrowWriterTest {
+
+    private static final LocalDate DAY = LocalDate.parse("2024-03-01");
+
+    @TempDir
+    Path directory;
+
+    private BufferAllocator allocator;
+    private ExportCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        allocator = new RootAllocator(16 * 1024 * 1024);
+        catalog = new ExportCatalog();
+        catalog.addBook(10, "Lalka", "Bolesław Prus", "978-83-01", "Powieść", 1890);
+        catalog.addBook(11, "Faraon", "Bolesław Prus", null, null, null);
+        catalog.addUser(1, "reader1", Role.ADMIN);
+        catalog.addUser(2, "reader2", Role.USER);
+    }
+
+    @AfterEach
+    void tearDown() {
+        // Zamknięcie zgłasza wyciek, jeśli zapis lub odczyt nie zwolnił buforów
+        allocator.close();
+    }
+
+    @Test
+    @DisplayName("write - porcje po batchRows wierszy, teksty jako słowniki, odcisk w stopce pliku")
+    void testWrite_roundTrip() throws Exception {
+        Path file = directory.resolve("borrowings.arrow");
+        try (BorrowingArrowWriter writer = new BorrowingArrowWriter(allocator, catalog, file,
+                Map.of(BorrowingExporter.FINGERPRINT, "1;3:2:7;x"), 2)) {
+            writer.write(5, 1, 10, DAY, DAY.plusDays(14), DAY.plusDays(3));
+            writer.write(6, 2, 11, DAY, DAY.plusDays(14), null);
+            writer.write(7, 2, 10, DAY.plusDays(1), DAY.plusDays(15), DAY.plusDays(20));
+            assertEquals(3, writer.finish());
+        }
+
+        try (FileChannel channel = FileChannel.open(file);
+             ArrowFileReader reader = new ArrowFileReader(channel, allocator, CommonsCompressionFactory.INSTANCE)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            assertEquals("1;3:2:7;x", reader.getMetaData().get(BorrowingExporter.FINGERPRINT));
+            assertEquals(2, reader.getRecordBlocks().size());
+            Field title = root.getSchema().findField("title");
+            assertNotNull(title.getDictionary());
+            assertEquals(ArrowType.Utf8.INSTANCE, reader.getDictionaryVectors().get(title.getDictionary().getId())
+                    .getVector().getField().getType());
+
+            List<String> rows = new ArrayList<>();
+            while (reader.loadNextBatch()) {
+                BigIntVector ids = (BigIntVector) root.getVector("borrowing_id");
+                DateDayVector returned = (DateDayVector) root.getVector("return_date");
+                IntVector years = (IntVector) root.getVector("publication_year");
+                List<String> titles = decode(reader, root, "title");
+                List<String> genres = decode(reader, root, "genre");
+                List<String> roles = decode(reader, root, "user_role");
+                for (int row = 0; row < root.getRowCount(); row++) {
+                    rows.add(ids.get(row) + " " + titles.get(row) + " " + genres.get(row) + " " + years.getObject(row)
+                            + " " + roles.get(row) + " " + (returned.isNull(row) ? null : LocalDate.ofEpochDay(returned.get(row))));
+                }
+            }
+            assertEquals(List.of(
+                    "5 Lalka Powieść 1890 ADMIN 2024-03-04",
+                    "6 Faraon null null USER null",
+                    "7 Lalka Powieść 1890 USER 2024-03-21"), rows);
+        }
+    }
+
+    @Test
+    @DisplayName("write - ten sam tekst w wielu wierszach trafia do słownika raz")
+    void testWrite_dictionaryHoldsDistinctValues() throws Exception {
+        Path file = directory.resolve("borrowings.arrow");
+        try (BorrowingArrowWriter writer = new BorrowingArrowWriter(allocator, catalog, file, Map.of(), 1000)) {
+            for (int i = 0; i < 2000; i++) {
+                writer.write(i, 1 + i % 2, 10 + i % 2, DAY, DAY.plusDays(14), null);
+            }
+            writer.finish();
+        }
+
+        try (FileChannel channel = FileChannel.open(file);
+             ArrowFileReader reader = new ArrowFileReader(channel, allocator, CommonsCompressionFactory.INSTANCE)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            long author = root.getSchema().findField("author").getDictionary().getId();
+            assertEquals(1, reader.getDictionaryVectors().get(author).getVector().getValueCount());
+            assertTrue(Files.size(file) < 2000 * 8, "compressed file should be smaller than the raw ids");
+        }
+    }
+
+    @Test
+    @DisplayName("write - wypożyczenie książki spoza katalogu przerywa eksport")
+    void testWrite_unknownBook() throws Exception {
+        try (BorrowingArrowWriter writer = new BorrowingArrowWriter(allocator, catalog, directory.resolve("x.arrow"),
+                Map.of(), 10)) {
+            assertThrows(IllegalStateException.class, () -> writer.write(1, 1, 99, DAY, DAY, null));
+        }
+    }
+
+    private static List<String> decode(ArrowFileReader reader, VectorSchemaRoot root, String column) throws IOException {
+        FieldVector indices = root.getVector(column);
+        Dictionary dictionary = reader.getDictionaryVectors().get(indices.getField().getDictionary().getId());
+        try (VarCharVector values = (VarCharVector) DictionaryEncoder.decode(indices, dictionary)) {
+            List<String> decoded = new ArrayList<>();
+            for (int row = 0; row < values.getValueCount(); row++) {
+                decoded.add(values.isNull(row) ? null : new String(values.get(row), StandardCharsets.UTF_8));
+            }
+            return decoded;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.librarysystem.integration;
 
 import com.example.librarysystem.entity.Book;
+import com.example.librarysystem.monitoring.QueryBudget;
 import com.example.librarysystem.repository.BookRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -32,6 +33,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * – GET /api/books/{id} → USER (200), ANONYMOUS → 302.
  * – GET /api/books → USER (200), ANONYMOUS → 302.
  * – PUT/DELETE → ADMIN ok (200/204), USER → 403, ANONYMOUS → 302.
+ * – PATCH → ADMIN ok (204 + ETag), nieaktualna wersja → 409.
  */
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @AutoConfigureMockMvc
@@ -137,8 +139,9 @@ public class BookControllerIT {
         book2.setIsbn("222-123");
         bookRepository.save(book2);
 
-        mockMvc.perform(get("/api/books")
-                        .contentType(MediaType.APPLICATION_JSON))
+        // Książki razem z gatunkami jednym zapytaniem
+        QueryBudget.assertAtMost(1, () -> mockMvc.perform(get("/api/books")
+                        .contentType(MediaType.APPLICATION_JSON)))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(2)))
                 .andExpect(jsonPath("$[*].title", containsInAnyOrder("Książka Alpha", "Książka Beta")));
@@ -166,6 +169,46 @@ public class BookControllerIT {
                 .andExpect(jsonPath("$.title", is("Zaktualizowana Nazwa Książki")));
     }
 
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void shouldPatchBook_andRejectStaleVersion_whenAdmin() throws Exception {
+        Book bookToCreate = new Book();
+        bookToCreate.setTitle("Książka Do Częściowej Zmiany");
+        bookToCreate.setAuthor("Autor Oryginalny");
+        bookToCreate.setIsbn("555-123");
+        Book savedBook = bookRepository.save(bookToCreate);
+        long version = savedBook.getVersion();
+
+        String patchJson = "{\"title\": \"Nowy Tytuł\", \"version\": " + version + "}";
+
+        mockMvc.perform(patch("/api/books/" + savedBook.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(patchJson))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string("ETag", "\"" + (version + 1) + "\""));
+
+        // Ta sama (już nieaktualna) wersja drugi raz → konflikt
+        mockMvc.perform(patch("/api/books/" + savedBook.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(patchJson))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(get("/api/books/" + savedBook.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title", is("Nowy Tytuł")))
+                .andExpect(jsonPath("$.author", is("Autor Oryginalny")))
+                .andExpect(jsonPath("$.version", is((int) version + 1)));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void shouldFailToPatchBook_whenBookDoesNotExist() throws Exception {
+        mockMvc.perform(patch("/api/books/999999")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\": \"Nic\", \"version\": 0}"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     @WithMockUser(username = "user", roles = {"USER"})
     void shouldFailToUpdateBook_whenUser() throws Exception {
@@ -2,7 +2,9 @@ package com.example.librarysystem.integration;
 
 import com.example.librarysystem.entity.Book;
 import com.example.librarysystem.entity.Borrowing;
+import com.example.librarysystem.entity.Role;
 import com.example.librarysystem.entity.User;
+import com.example.librarysystem.monitoring.QueryBudget;
 import com.example.librarysystem.repository.BookRepository;
 import com.example.librarysystem.repository.BorrowingRepository;
 import com.example.librarysystem.repository.UserRepository;
@@ -93,14 +95,14 @@ public class BorrowingControllerIT {
         testUser = new User();
         testUser.setUsername("borrowUser");
         testUser.setPassword(passwordEncoder.encode("password"));
-        testUser.setRole("ROLE_USER");
+        testUser.setRole(Role.USER);
         userRepository.save(testUser);
 
         // Tworzymy użytkownika „borrowAdmin” (rola ADMIN)
         adminUser = new User();
         adminUser.setUsername("borrowAdmin");
         adminUser.setPassword(passwordEncoder.encode("password"));
-        adminUser.setRole("ROLE_ADMIN");
+        adminUser.setRole(Role.ADMIN);
         userRepository.save(adminUser);
 
         // Tworzymy dwie książki do testów
@@ -137,7 +139,7 @@ public class BorrowingControllerIT {
         mockMvc.perform(post("/api/borrowings/borrow")
                         .param("userId", testUser.getId().toString())
                         .param("bookId", "9999"))
-                .andExpect(status().isBadRequest());
+                .andExpect(status().isNotFound());
     }
 
     @Test
@@ -170,7 +172,7 @@ public class BorrowingControllerIT {
     @WithMockUser(username = "borrowUser", roles = {"USER"})
     void shouldFailToReturnBook_whenBorrowingNotFound() throws Exception {
         mockMvc.perform(put("/api/borrowings/9999/return"))
-                .andExpect(status().isBadRequest());
+                .andExpect(status().isNotFound());
     }
 
     @Test
@@ -187,7 +189,7 @@ public class BorrowingControllerIT {
         Borrowing savedBorrowing = borrowingRepository.save(borrowing);
 
         mockMvc.perform(put("/api/borrowings/" + savedBorrowing.getId() + "/return"))
-                .andExpect(status().isBadRequest());
+                .andExpect(status().isConflict());
     }
 
     @Test
@@ -232,7 +234,7 @@ public class BorrowingControllerIT {
         User otherUser = new User();
         otherUser.setUsername("otherUserBorrow");
         otherUser.setPassword(passwordEncoder.encode("password"));
-        otherUser.setRole("ROLE_USER");
+        otherUser.setRole(Role.USER);
         userRepository.save(otherUser);
 
         borrowingRepository.save(new Borrowing(
@@ -248,4 +250,24 @@ public class BorrowingControllerIT {
                 .andExpect(jsonPath("$[0].user.id", is(testUser.getId().intValue())))
                 .andExpect(jsonPath("$[0].book.title", is(testBook1.getTitle())));
     }
+
+    @Test
+    @WithMockUser(username = "borrowUser", roles = {"USER"})
+    void shouldGetBorrowingsForUser_withinQueryBudget() throws Exception {
+        // Kilka wypożyczeń różnych książek - przy N+1 każda książka byłaby osobnym zapytaniem
+        for (Book book : new Book[]{testBook1, testBook2, testBook1}) {
+            borrowingRepository.save(new Borrowing(
+                    testUser,
+                    book,
+                    LocalDate.now().minusDays(30),
+                    LocalDate.now().minusDays(16)
+            ));
+        }
+
+        // Użytkownik + wypożyczenia z książkami (JOIN) + historia z książkami (JOIN)
+        QueryBudget.assertAtMost(3, () -> mockMvc.perform(get("/api/borrowings/user/" + testUser.getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[*].book.title", hasItem(testBook2.getTitle())));
+    }
 }
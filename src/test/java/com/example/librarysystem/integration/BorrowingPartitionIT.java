@@ -0,0 +1,126 @@
+package com.example.librarysystem.integration;
+
+import com.example.librarysystem.entity.Book;
+import com.example.librarysystem.entity.Borrowing;
+import com.example.librarysystem.entity.Role;
+import com.example.librarysystem.entity.User;
+import com.example.librarysystem.partition.BorrowingPartitionHealthIndicator;
+import com.example.librarysystem.partition.BorrowingPartitionMaintainer;
+import com.example.librarysystem.repository.BookRepository;
+import com.example.librarysystem.repository.UserRepository;
+import com.example.librarysystem.service.BorrowingService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Partycjonowana tabela wypożyczeń ze schematu migracji (V8), a nie z Hibernate: zapisy z {@code @PartitionKey},
+ * zakładanie i odłączanie partycji oraz wskaźnik zdrowia.
+ */
+@SpringBootTest
+@Testcontainers
+public class BorrowingPartitionIT {
+
+    @Container
+    public static PostgreSQLContainer<?> postgreSQLContainer =
+            new PostgreSQLContainer<>("postgres:15-alpine")
+                    .withDatabaseName("testdb_library_partitions")
+                    .withUsername("testuser")
+                    .withPassword("testpass");
+
+    @Autowired
+    private BorrowingService borrowingService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BorrowingPartitionHealthIndicator healthIndicator;
+
+    @DynamicPropertySource
+    static void setProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgreSQLContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", postgreSQLContainer::getUsername);
+        registry.add("spring.datasource.password", postgreSQLContainer::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+        registry.add("spring.flyway.enabled", () -> true);
+        // Partycje zakłada test; wskaźnik zdrowia działa też bez utrzymania
+        registry.add("library.borrowing-partitions.enabled", () -> false);
+    }
+
+    @Test
+    void shouldBorrowAndReturn_onPartitionedTable() {
+        Borrowing borrowing = borrowingService.borrowBook(user("partitionReader").getId(), book("333-partition").getId());
+        Borrowing returned = borrowingService.returnBook(borrowing.getId());
+
+        assertEquals(LocalDate.now(), returned.getReturnDate());
+        assertEquals(LocalDate.now(), jdbcTemplate.queryForObject(
+                "SELECT return_date FROM borrowings WHERE id = ?", LocalDate.class, borrowing.getId()));
+        assertEquals(Status.UP, healthIndicator.health().getStatus());
+    }
+
+    @Test
+    void shouldAttachFutureAndDetachOldPartitions() {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        User user = user("partitionArchive");
+        Book book = book("444-partition");
+        // Migracja na pustej bazie zaczyna od bieżącego miesiąca - starszy dodajemy ręcznie, z samymi zwrotami
+        YearMonth old = current.minusMonths(2);
+        String oldPartition = "borrowings_p" + String.format("%d%02d", old.getYear(), old.getMonthValue());
+        jdbcTemplate.execute("CREATE TABLE " + oldPartition + " PARTITION OF borrowings FOR VALUES FROM ('"
+                + old.atDay(1) + "') TO ('" + old.plusMonths(1).atDay(1) + "')");
+        LocalDate oldLoan = old.atDay(3);
+        jdbcTemplate.update("INSERT INTO borrowings (user_id, book_id, borrow_date, due_date, return_date) VALUES (?, ?, ?, ?, ?)",
+                user.getId(), book.getId(), oldLoan, oldLoan.plusDays(14), oldLoan.plusDays(7));
+
+        new BorrowingPartitionMaintainer(jdbcTemplate, Clock.systemUTC(), 6, 1, 0, Duration.ofSeconds(5)).maintain();
+
+        // Miesiąc spoza partycji z migracji (ta zakłada trzy naprzód) przyjmuje wypożyczenia
+        LocalDate farLoan = current.plusMonths(6).atDay(10);
+        jdbcTemplate.update("INSERT INTO borrowings (user_id, book_id, borrow_date, due_date) VALUES (?, ?, ?, ?)",
+                user.getId(), book.getId(), farLoan, farLoan.plusDays(14));
+        // Stary miesiąc odłączony, ale zostaje jako osobna tabela z wierszami
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM pg_inherits WHERE inhrelid = to_regclass(?)", Integer.class, oldPartition));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM " + oldPartition, Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM borrowings WHERE borrow_date = ?",
+                Integer.class, oldLoan));
+    }
+
+    private User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("{noop}password");
+        user.setRole(Role.USER);
+        return userRepository.save(user);
+    }
+
+    private Book book(String isbn) {
+        Book book = new Book();
+        book.setTitle("Książka " + isbn);
+        book.setAuthor("Autor");
+        book.setIsbn(isbn);
+        return bookRepository.save(book);
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.librarysystem.integration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Kierowanie transakcji na replikę na dwóch kontenerach PostgreSQL. Replikacja nie jest tu potrzebna -
+ * sprawdzamy tylko, z której bazy pochodzi połączenie ({@code current_database()}).
+ */
+@SpringBootTest
+@Testcontainers
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class ReplicaRoutingIT {
+
+    private static final String PRIMARY = "testdb_library_primary";
+    private static final String REPLICA = "testdb_library_replica";
+
+    @Container
+    public static PostgreSQLContainer<?> primaryContainer =
+            new PostgreSQLContainer<>("postgres:15-alpine")
+                    .withDatabaseName(PRIMARY)
+                    .withUsername("testuser")
+                    .withPassword("testpass");
+
+    @Container
+    public static PostgreSQLContainer<?> replicaContainer =
+            new PostgreSQLContainer<>("postgres:15-alpine")
+                    .withDatabaseName(REPLICA)
+                    .withUsername("testuser")
+                    .withPassword("testpass");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @DynamicPropertySource
+    static void setProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", primaryContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", primaryContainer::getUsername);
+        registry.add("spring.datasource.password", primaryContainer::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+        registry.add("spring.flyway.enabled", () -> false);
+        registry.add("library.replicas.enabled", () -> true);
+        registry.add("library.replicas.urls", replicaContainer::getJdbcUrl);
+        registry.add("library.replicas.health-check-interval", () -> "200ms");
+        registry.add("library.replicas.connection-timeout", () -> "500ms");
+        registry.add("library.replicas.sticky-for", () -> "1m");
+    }
+
+    @BeforeEach
+    void waitForReplica() throws InterruptedException {
+        if (replicaContainer.isRunning()) {
+            awaitDatabase(true, REPLICA);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @Order(1)
+    void readOnlyTransaction_shouldUseReplica_andWriteTransaction_thePrimary() {
+        // Zalogowany klient - inaczej zapis przykleiłby do bazy głównej adres IP żądania testowego
+        authenticate("reader");
+        assertEquals(REPLICA, currentDatabase(true));
+        assertEquals(PRIMARY, currentDatabase(false));
+    }
+
+    @Test
+    @Order(2)
+    void readsAfterOwnWrite_shouldUsePrimary() {
+        authenticate("writer");
+        writeTransaction().executeWithoutResult(status -> jdbcTemplate.execute("SELECT 1"));
+
+        assertEquals(PRIMARY, currentDatabase(true));
+
+        authenticate("someoneElse");
+        assertEquals(REPLICA, currentDatabase(true));
+    }
+
+    @Test
+    @Order(3)
+    void unavailableReplica_shouldFallBackToPrimary() throws InterruptedException {
+        replicaContainer.stop();
+
+        awaitDatabase(true, PRIMARY);
+    }
+
+    private String currentDatabase(boolean readOnly) {
+        TransactionTemplate template = writeTransaction();
+        template.setReadOnly(readOnly);
+        return template.execute(status -> jdbcTemplate.queryForObject("SELECT current_database()", String.class));
+    }
+
+    private TransactionTemplate writeTransaction() {
+        return new TransactionTemplate(transactionManager);
+    }
+
+    private void awaitDatabase(boolean readOnly, String expected) throws InterruptedException {
+        for (int i = 0; i < 50 && !expected.equals(currentDatabase(readOnly)); i++) {
+            Thread.sleep(200);
+        }
+        assertEquals(expected, currentDatabase(readOnly));
+    }
+
+    private static void authenticate(String username) {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(username, null, "ROLE_USER"));
+    }
+}
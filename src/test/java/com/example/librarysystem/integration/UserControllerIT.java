@@ -1,5 +1,6 @@
 package com.example.librarysystem.integration;
 
+import com.example.librarysystem.entity.Role;
 import com.example.librarysystem.entity.User;
 import com.example.librarysystem.repository.UserRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -75,13 +76,13 @@ public class UserControllerIT {
         adminUser = new User();
         adminUser.setUsername("adminIT");
         adminUser.setPassword(passwordEncoder.encode("password"));
-        adminUser.setRole("ROLE_ADMIN");
+        adminUser.setRole(Role.ADMIN);
         userRepository.save(adminUser);
 
         regularUser = new User();
         regularUser.setUsername("userIT");
         regularUser.setPassword(passwordEncoder.encode("password"));
-        regularUser.setRole("ROLE_USER");
+        regularUser.setRole(Role.USER);
         userRepository.save(regularUser);
     }
 
@@ -144,7 +145,7 @@ public class UserControllerIT {
         userDetailsToUpdate.setUsername("userIT_updated");
         // Jeśli chcemy zaktualizować hasło, należy je tu podać:
         // userDetailsToUpdate.setPassword("newPlainPassword");
-        userDetailsToUpdate.setRole("ROLE_USER");
+        userDetailsToUpdate.setRole(Role.USER);
 
         // Serializacja obiektu bez pola "password" jest ok w tym przypadku,
         // bo w teście nie zmieniamy hasła.
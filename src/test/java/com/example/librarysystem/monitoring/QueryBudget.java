@@ -0,0 +1,62 @@
+package com.example.librarysystem.monitoring;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Asercje budżetu zapytań SQL dla testów: akcja (np. {@code mockMvc.perform(...)}) wykonywana jest
+ * z aktywnymi {@link SqlStatistics} w bieżącym wątku, a po niej sprawdzana jest liczba instrukcji.
+ * Wymaga włączonego {@code library.sql-statistics.enabled} (domyślnie tak).
+ *
+ * <pre>
+ * QueryBudget.assertAtMost(2, () -> mockMvc.perform(get("/api/borrowings/user/" + id)));
+ * </pre>
+ */
+public final class QueryBudget {
+
+    @FunctionalInterface
+    public interface Action<T> {
+        T run() throws Exception;
+    }
+
+    private QueryBudget() {
+    }
+
+    /** Wykonuje akcję i zwraca zebrane dla niej statystyki. */
+    public static SqlStatistics record(Action<?> action) throws Exception {
+        SqlStatistics statistics = SqlStatistics.start();
+        try {
+            action.run();
+            return statistics;
+        } finally {
+            SqlStatistics.stop();
+        }
+    }
+
+    /**
+     * Wykonuje akcję i sprawdza, że przygotowała najwyżej {@code maxStatements} instrukcji SQL.
+     *
+     * @return Wynik akcji (np. {@code ResultActions} do dalszych asercji).
+     */
+    public static <T> T assertAtMost(int maxStatements, Action<T> action) throws Exception {
+        SqlStatistics statistics = SqlStatistics.start();
+        T result;
+        try {
+            result = action.run();
+        } finally {
+            SqlStatistics.stop();
+        }
+        if (statistics.statementCount() > maxStatements) {
+            throw new AssertionError("Expected at most " + maxStatements + " SQL statements, but "
+                    + statistics.statementCount() + " were executed:\n" + describe(statistics.statements()));
+        }
+        return result;
+    }
+
+    private static String describe(Map<String, Integer> statements) {
+        return statements.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .map(entry -> "  " + entry.getValue() + "x " + entry.getKey())
+                .collect(Collectors.joining("\n"));
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.librarysystem.monitoring;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlStatisticsFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SqlStatisticsFilter filter =
+            new SqlStatisticsFilter(new SqlStatisticsProperties(true, 20, 5, 0.0), registry);
+    private final SqlStatementInspector inspector = new SqlStatementInspector();
+
+    @AfterEach
+    void tearDown() {
+        SqlStatistics.stop();
+    }
+
+    @Test
+    @DisplayName("Filtr - powinien policzyć instrukcje żądania i zapisać je w metryce endpointu")
+    void testFilter_countsStatementsPerRequest() throws Exception {
+        FilterChain chain = (request, response) -> {
+            inspector.inspect("select b1_0.id from book b1_0 where b1_0.id=?");
+            inspector.inspect("select g1_0.id from genre g1_0 where g1_0.id=?");
+            inspector.inspect("select g1_0.id from genre g1_0 where g1_0.id=?");
+            request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/books/{id}");
+        };
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/books/1"), new MockHttpServletResponse(), chain);
+
+        assertEquals(3.0, registry.get("library.http.sql.statements")
+                .tags("method", "GET", "uri", "/api/books/{id}").summary().totalAmount());
+        assertNull(SqlStatistics.current(), "Liczniki nie powinny zostać w wątku po żądaniu");
+    }
+
+    @Test
+    @DisplayName("Filtr - nie powinien podmieniać liczników założonych wcześniej (np. przez test)")
+    void testFilter_keepsOuterStatistics() throws Exception {
+        SqlStatistics outer = SqlStatistics.start();
+        AtomicReference<SqlStatistics> seen = new AtomicReference<>();
+        FilterChain chain = (request, response) -> {
+            seen.set(SqlStatistics.current());
+            inspector.inspect("select 1");
+        };
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/books"), new MockHttpServletResponse(), chain);
+
+        assertSame(outer, seen.get());
+        assertSame(outer, SqlStatistics.current());
+        assertEquals(1, outer.statementCount());
+    }
+
+    @Test
+    @DisplayName("Statystyki - powinny wskazać najczęściej powtarzaną instrukcję")
+    void testStatistics_mostRepeated() {
+        SqlStatistics statistics = SqlStatistics.start();
+        inspector.inspect("select a");
+        for (int i = 0; i < 3; i++) {
+            inspector.inspect("select b where id=?");
+        }
+
+        assertEquals(4, statistics.statementCount());
+        assertEquals("select b where id=?", statistics.mostRepeated().getKey());
+        assertEquals(3, statistics.mostRepeated().getValue());
+    }
+
+    @Test
+    @DisplayName("Inspektor - poza zakresem żądania nie powinien niczego liczyć ani zmieniać SQL")
+    void testInspector_withoutStatistics() {
+        assertEquals("select 1", inspector.inspect("select 1"));
+        assertNull(SqlStatistics.current());
+    }
+}
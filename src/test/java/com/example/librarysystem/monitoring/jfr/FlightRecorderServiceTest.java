@@ -0,0 +1,127 @@
+package com.example.librarysystem.monitoring.jfr;
+
+import com.example.librarysystem.entity.Role;
+import com.example.librarysystem.entity.User;
+import com.example.librarysystem.exception.BadRequestException;
+import com.example.librarysystem.exception.ConflictException;
+import com.example.librarysystem.repository.UserRepository;
+import com.example.librarysystem.service.UserService;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class FlightRecorderServiceTest {
+
+    private final FlightRecorderService service = new FlightRecorderService();
+
+    @AfterEach
+    void tearDown() {
+        if ("RUNNING".equals(service.status().state())) {
+            deleteQuietly(service.stop());
+        }
+    }
+
+    @Test
+    @DisplayName("Nagranie - zrzut powinien zawierać zdarzenia wypożyczeń z identyfikatorami")
+    void testRecording_dumpContainsBorrowEvents() throws Exception {
+        service.start("default", Duration.ofMinutes(5));
+        assertEquals("RUNNING", service.status().state());
+
+        BorrowEvent event = new BorrowEvent(7L, 42L);
+        event.begin();
+        event.borrowingId = 100;
+        event.commit();
+
+        Path dump = service.dump();
+        try {
+            List<RecordedEvent> borrows = RecordingFile.readAllEvents(dump).stream()
+                    .filter(e -> e.getEventType().getName().equals("library.Borrow"))
+                    .toList();
+            assertEquals(1, borrows.size());
+            assertEquals(42L, borrows.get(0).getLong("bookId"));
+            assertEquals(100L, borrows.get(0).getLong("borrowingId"));
+            assertNull(borrows.get(0).getString("error"));
+        } finally {
+            deleteQuietly(dump);
+        }
+        assertEquals("RUNNING", service.status().state(), "Zrzut nie powinien przerywać nagrania");
+    }
+
+    @Test
+    @DisplayName("Nagranie - zdarzenia logowania zawierają identyfikator użytkownika, a nie wpisaną nazwę")
+    void testRecording_loginEventsOmitUsername() throws Exception {
+        UserRepository userRepository = mock(UserRepository.class);
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("reader");
+        user.setPassword("{noop}password");
+        user.setRole(Role.USER);
+        when(userRepository.findByUsername("reader")).thenReturn(Optional.of(user));
+        when(userRepository.findByUsername("admin' OR 1=1")).thenReturn(Optional.empty());
+        UserService userService = new UserService(userRepository, mock(PasswordEncoder.class),
+                mock(ApplicationEventPublisher.class));
+        service.start("default", Duration.ofMinutes(5));
+
+        userService.loadUserByUsername("reader");
+        assertThrows(UsernameNotFoundException.class, () -> userService.loadUserByUsername("admin' OR 1=1"));
+
+        Path dump = service.dump();
+        try {
+            List<RecordedEvent> logins = RecordingFile.readAllEvents(dump).stream()
+                    .filter(e -> e.getEventType().getName().equals("library.Login"))
+                    .sorted(Comparator.comparing(RecordedEvent::getStartTime))
+                    .toList();
+            assertEquals(2, logins.size());
+            assertFalse(logins.get(0).hasField("username"));
+            assertEquals(7L, logins.get(0).getLong("userId"));
+            assertEquals(0L, logins.get(1).getLong("userId"));
+            assertEquals("UsernameNotFoundException", logins.get(1).getString("error"));
+        } finally {
+            deleteQuietly(dump);
+        }
+    }
+
+    @Test
+    @DisplayName("Nagranie - drugi start oraz stop bez nagrania powinny zgłosić konflikt")
+    void testRecording_conflicts() {
+        assertThrows(ConflictException.class, service::stop);
+        assertThrows(ConflictException.class, service::dump);
+
+        service.start("default", Duration.ofMinutes(5));
+        assertThrows(ConflictException.class, () -> service.start("profile", Duration.ofMinutes(5)));
+
+        Path file = service.stop();
+        deleteQuietly(file);
+        assertEquals("NONE", service.status().state());
+    }
+
+    @Test
+    @DisplayName("Nagranie - nieznane ustawienia JFR powinny zostać odrzucone")
+    void testRecording_unknownConfiguration() {
+        assertThrows(BadRequestException.class, () -> service.start("no-such-settings", Duration.ofMinutes(5)));
+        assertEquals("NONE", service.status().state());
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (Exception ignored) {
+            // plik tymczasowy - nie ma czego ratować
+        }
+    }
+}
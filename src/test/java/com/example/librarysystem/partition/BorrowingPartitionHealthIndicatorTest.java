@@ -0,0 +1,62 @@
+package com.example.librarysystem.partition;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BorrowingPartitionHealthIndicatorTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2024-05-20T10:00:00Z"), ZoneOffset.UTC);
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final BorrowingPartitionHealthIndicator indicator = new BorrowingPartitionHealthIndicator(jdbcTemplate, CLOCK);
+
+    @Test
+    @DisplayName("health - UP, gdy partycje sięgają dalej niż miesiąc naprzód")
+    void testHealth_enoughPartitions_up() {
+        partitionedUntil("2024-09-01");
+
+        Health health = indicator.health();
+
+        assertEquals(Status.UP, health.getStatus());
+        assertEquals("2024-09-01", health.getDetails().get("coveredUntil"));
+    }
+
+    @Test
+    @DisplayName("health - DOWN, gdy najdalsza partycja kończy się za mniej niż miesiąc")
+    void testHealth_partitionsRunningOut_down() {
+        partitionedUntil("2024-06-01");
+
+        Health health = indicator.health();
+
+        assertEquals(Status.DOWN, health.getStatus());
+        assertEquals("2024-06-20", health.getDetails().get("required"));
+    }
+
+    @Test
+    @DisplayName("health - UP na tabeli bez partycji (schemat z Hibernate w testach)")
+    void testHealth_unpartitioned_up() {
+        when(jdbcTemplate.queryForObject(eq(BorrowingPartitionMaintainer.IS_PARTITIONED), eq(Boolean.class), any())).thenReturn(false);
+
+        Health health = indicator.health();
+
+        assertEquals(Status.UP, health.getStatus());
+        assertEquals(false, health.getDetails().get("partitioned"));
+        verify(jdbcTemplate, never()).queryForObject(contains("pg_inherits"), eq(String.class), any());
+    }
+
+    private void partitionedUntil(String coveredUntil) {
+        when(jdbcTemplate.queryForObject(eq(BorrowingPartitionMaintainer.IS_PARTITIONED), eq(Boolean.class), any())).thenReturn(true);
+        when(jdbcTemplate.queryForObject(contains("pg_inherits"), eq(String.class), any())).thenReturn(coveredUntil);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.librarysystem.partition;
+
+import com.example.librarysystem.partition.BorrowingPartitionMaintainer.Partition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BorrowingPartitionMaintainerTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2024-05-20T10:00:00Z"), ZoneOffset.UTC);
+
+    private final JdbcTemplate session = mock(JdbcTemplate.class);
+
+    @BeforeEach
+    void setUp() {
+        when(session.queryForObject(startsWith("SELECT COALESCE((SELECT relkind"), eq(Boolean.class), any())).thenReturn(true);
+        when(session.queryForObject(eq("SELECT pg_try_advisory_lock(?)"), eq(Boolean.class), any())).thenReturn(true);
+        when(session.queryForObject(contains("pg_extension"), eq(Boolean.class))).thenReturn(false);
+    }
+
+    @Test
+    @DisplayName("maintain - zakłada brakujące miesiące od bieżącego do monthsAhead przez ATTACH PARTITION")
+    void testMaintain_attachesMissingMonths() {
+        partitions(new Partition("borrowings_p202405", false), new Partition("borrowings_p202406", false));
+
+        maintainer(2, 0).maintain(session);
+
+        verify(session).execute("CREATE TABLE IF NOT EXISTS borrowings_p202407 (LIKE borrowings INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        verify(session).execute("ALTER TABLE borrowings ATTACH PARTITION borrowings_p202407 FOR VALUES FROM ('2024-07-01') TO ('2024-08-01')");
+        verify(session, never()).execute(contains("borrowings_p202406 ("));
+        verify(session, never()).execute(contains("DETACH"));
+        verify(session).queryForObject("SELECT pg_advisory_unlock(?)", Boolean.class, BorrowingPartitionMaintainer.LOCK_KEY);
+    }
+
+    @Test
+    @DisplayName("maintain - odłącza stare partycje bez aktywnych wypożyczeń i kończy przerwane odłączanie")
+    void testMaintain_detachesOldPartitions() {
+        partitions(new Partition("borrowings_p202401", true), new Partition("borrowings_p202402", false),
+                new Partition("borrowings_p202403", false), new Partition("borrowings_p202405", false),
+                new Partition("borrowings_p202406", false));
+        when(session.queryForObject(contains("FROM borrowings_p202402 WHERE return_date IS NULL"), eq(Boolean.class))).thenReturn(false);
+        when(session.queryForObject(contains("FROM borrowings_p202403 WHERE return_date IS NULL"), eq(Boolean.class))).thenReturn(true);
+
+        maintainer(1, 2).maintain(session);
+
+        verify(session).execute("ALTER TABLE borrowings DETACH PARTITION borrowings_p202401 FINALIZE");
+        verify(session).execute("ALTER TABLE borrowings DETACH PARTITION borrowings_p202402 CONCURRENTLY");
+        // Marzec ma aktywne wypożyczenie, a kwiecień jest w okresie detachAfterMonths
+        verify(session, never()).execute(contains("DETACH PARTITION borrowings_p202403"));
+        verify(session, never()).execute(contains("DETACH PARTITION borrowings_p202405"));
+    }
+
+    @Test
+    @DisplayName("maintain - inna instancja trzyma blokadę: bez zmian")
+    void testMaintain_lockedElsewhere_skips() {
+        when(session.queryForObject(eq("SELECT pg_try_advisory_lock(?)"), eq(Boolean.class), any())).thenReturn(false);
+
+        maintainer(3, 0).maintain(session);
+
+        verify(session, never()).execute(anyString());
+        verify(session, never()).query(anyString(), any(RowMapper.class), any());
+    }
+
+    @Test
+    @DisplayName("maintain - tabela bez partycji (schemat z Hibernate): bez zmian i bez blokady")
+    void testMaintain_unpartitionedTable_skips() {
+        when(session.queryForObject(startsWith("SELECT COALESCE((SELECT relkind"), eq(Boolean.class), any())).thenReturn(false);
+
+        maintainer(3, 0).maintain(session);
+
+        verify(session, never()).execute(anyString());
+        verify(session, never()).queryForObject(eq("SELECT pg_try_advisory_lock(?)"), eq(Boolean.class), any());
+    }
+
+    @Test
+    @DisplayName("konstruktor - monthsAhead musi wynosić co najmniej 1")
+    void testConstructor_rejectsNoMonthsAhead() {
+        assertThrows(IllegalArgumentException.class, () -> maintainer(0, 0));
+    }
+
+    private BorrowingPartitionMaintainer maintainer(int monthsAhead, int detachAfterMonths) {
+        return new BorrowingPartitionMaintainer(session, CLOCK, monthsAhead, detachAfterMonths, 2, Duration.ofSeconds(5));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void partitions(Partition... partitions) {
+        when(session.query(contains("pg_inherits"), any(RowMapper.class), eq(BorrowingPartitionMaintainer.TABLE)))
+                .thenReturn(List.of(partitions));
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.librarysystem.perf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.random.RandomGenerator;
+
+import static com.example.librarysystem.perf.PerfEnvironment.get;
+
+/**
+ * Test obciążeniowy obiegu wypożyczeń: ile operacji wypożyczenia/zwrotu na sekundę wytrzyma jedna instancja,
+ * zanim p99 zacznie rosnąć.
+ * Aplikacja startuje na PostgreSQL (Testcontainers albo {@code -Dperf.datasource.url}) z bazą zasilaną
+ * czytelnikami, książkami i historią wypożyczeń. Każdy klient loguje się jako osobny czytelnik i losuje:
+ * przeglądanie katalogu, szczegóły książki, wypożyczenie (popularne tytuły częściej), zwrot własnej książki
+ * oraz listę swoich wypożyczeń. Obciążenie rośnie schodkami ({@code load.clients}).
+ *
+ * Uruchomienie: {@code mvn -Pload-test test}. Parametry (-D...): load.clients (np. 10,25,50,100),
+ * load.warmup, load.duration (sekundy na schodek), load.books, load.history (zwrócone wypożyczenia na czytelnika).
+ * Wynik: tabela per endpoint na konsoli i {@code target/load-test/circulation.json}.
+ */
+class CirculationLoadTest {
+
+    private static final String PASSWORD = "patron-password";
+    private static final String[] GENRES = {"FANTASY", "CRIME", "POETRY", "HISTORY", "SCIENCE", "BESTSELLER"};
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final int[] steps = Arrays.stream(System.getProperty("load.clients", "10,25,50,100").split(","))
+            .mapToInt(step -> Integer.parseInt(step.trim())).toArray();
+    private final Duration warmup = PerfEnvironment.seconds("load.warmup", 10);
+    private final Duration duration = PerfEnvironment.seconds("load.duration", 30);
+    private final int books = Integer.getInteger("load.books", 5000);
+    private final int history = Integer.getInteger("load.history", 10);
+
+    /** Stan jednego klienta - używany tylko przez jego własny wątek. */
+    private record Patron(HttpClient http, long userId, Deque<Long> openLoans) {
+    }
+
+    @Test
+    void circulationUnderIncreasingLoad() throws Exception {
+        int patrons = Arrays.stream(steps).max().orElseThrow();
+        try (PerfEnvironment.Database database = PerfEnvironment.database("load_library");
+             ConfigurableApplicationContext context = PerfEnvironment.startApplication(database)) {
+            JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+            seed(jdbc, context.getBean(PasswordEncoder.class), patrons);
+
+            String base = PerfEnvironment.baseUrl(context);
+            long[] bookIds = jdbc.queryForList("SELECT id FROM book WHERE isbn LIKE 'LOAD-%' ORDER BY id", Long.class)
+                    .stream().mapToLong(Long::longValue).toArray();
+            List<Patron> clients = login(jdbc, base, patrons);
+            LoadDriver<Patron> driver = new LoadDriver<>(scenarios(base, bookIds));
+
+            List<Map<String, Object>> results = new ArrayList<>();
+            for (int step : steps) {
+                LoadDriver.Report report = driver.run(clients.subList(0, step), warmup, duration);
+                System.out.printf("%n== %d patrons, %ds ==%n", step, duration.toSeconds());
+                LoadReports.print(report);
+
+                Map<String, Object> result = new LinkedHashMap<>();
+                result.put("clients", step);
+                result.put("report", report);
+                results.add(result);
+            }
+
+            Map<String, Object> output = new LinkedHashMap<>();
+            output.put("warmupSeconds", warmup.toSeconds());
+            output.put("durationSeconds", duration.toSeconds());
+            output.put("books", bookIds.length);
+            output.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+            output.put("steps", results);
+            LoadReports.write(Path.of("target", "load-test", "circulation.json"), output);
+        }
+    }
+
+    private List<LoadDriver.Scenario<Patron>> scenarios(String base, long[] bookIds) {
+        List<LoadDriver.Scenario<Patron>> scenarios = new ArrayList<>();
+        scenarios.add(new LoadDriver.Scenario<>("GET /api/books", 10, (patron, random) ->
+                LoadDriver.send(patron.http(), get(base + "/api/books"))));
+        scenarios.add(new LoadDriver.Scenario<>("GET /api/books/{id}", 35, (patron, random) ->
+                LoadDriver.send(patron.http(), get(base + "/api/books/" + popularBook(bookIds, random)))));
+        scenarios.add(new LoadDriver.Scenario<>("POST /api/borrowings/borrow", 20, (patron, random) -> {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(base + "/api/borrowings/borrow?userId="
+                            + patron.userId() + "&bookId=" + popularBook(bookIds, random)))
+                    .timeout(Duration.ofSeconds(30))
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build();
+            HttpResponse<String> response = patron.http().send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() == 201) {
+                patron.openLoans().addLast(JSON.readTree(response.body()).get("id").asLong());
+            }
+            return response.statusCode();
+        }));
+        scenarios.add(new LoadDriver.Scenario<>("PUT /api/borrowings/{id}/return", 20, (patron, random) -> {
+            Long loan = patron.openLoans().pollFirst();
+            if (loan == null) {
+                return LoadDriver.SKIPPED;
+            }
+            HttpRequest request = HttpRequest.newBuilder(URI.create(base + "/api/borrowings/" + loan + "/return"))
+                    .timeout(Duration.ofSeconds(30))
+                    .PUT(HttpRequest.BodyPublishers.noBody())
+                    .build();
+            return LoadDriver.send(patron.http(), request);
+        }));
+        scenarios.add(new LoadDriver.Scenario<>("GET /api/borrowings/user/{id}", 15, (patron, random) ->
+                LoadDriver.send(patron.http(), get(base + "/api/borrowings/user/" + patron.userId()))));
+        return scenarios;
+    }
+
+    /** Rozkład potęgowy: kilka procent tytułów zbiera większość wypożyczeń. */
+    private static long popularBook(long[] bookIds, RandomGenerator random) {
+        return bookIds[(int) (bookIds.length * Math.pow(random.nextDouble(), 3))];
+    }
+
+    /**
+     * Zasila bazę, jeśli jeszcze nie ma czytelników testu. Wszyscy dostają ten sam hash hasła - logowanie i tak
+     * liczy pełnego BCrypta, a zasilanie nie musi.
+     */
+    private void seed(JdbcTemplate jdbc, PasswordEncoder passwordEncoder, int patrons) {
+        Integer existing = jdbc.queryForObject(
+                "SELECT count(*) FROM library_users WHERE username LIKE 'patron-%'", Integer.class);
+        if (existing != null && existing >= patrons) {
+            return;
+        }
+        for (String genre : GENRES) {
+            jdbc.update("INSERT INTO genre (name) VALUES (?) ON CONFLICT DO NOTHING", genre);
+        }
+        jdbc.update("""
+                WITH genres AS (SELECT array_agg(id ORDER BY id) AS ids FROM genre)
+                INSERT INTO book (title, author, isbn, publisher, publication_year, genre_id)
+                SELECT 'Book ' || g, 'Author ' || (g % 700), 'LOAD-' || g, 'Publisher ' || (g % 40),
+                       1950 + g % 75, genres.ids[1 + g % array_length(genres.ids, 1)]
+                FROM generate_series(1, ?) g, genres
+                ON CONFLICT DO NOTHING
+                """, books);
+        jdbc.update("""
+                INSERT INTO library_users (username, password, role)
+                SELECT 'patron-' || g, ?, 1 FROM generate_series(0, ? - 1) g
+                ON CONFLICT DO NOTHING
+                """, passwordEncoder.encode(PASSWORD), patrons);
+        // Historia: zwrócone wypożyczenia z ostatniego roku, popularne tytuły częściej
+        jdbc.execute((ConnectionCallback<Void>) connection -> {
+            DatasetGenerator.createBorrowingPartitions(connection, LocalDate.now().minusDays(366), LocalDate.now());
+            return null;
+        });
+        jdbc.update("""
+                WITH ids AS (SELECT array_agg(id ORDER BY id) AS ids FROM book WHERE isbn LIKE 'LOAD-%'),
+                     loans AS (SELECT u.id AS user_id,
+                                      ids.ids[1 + floor(power(random(), 3) * array_length(ids.ids, 1))::int] AS book_id,
+                                      current_date - (random() * 365)::int AS borrow_date
+                               FROM library_users u, generate_series(1, ?) h, ids
+                               WHERE u.username LIKE 'patron-%')
+                INSERT INTO borrowings (user_id, book_id, borrow_date, due_date, return_date)
+                SELECT user_id, book_id, borrow_date, borrow_date + 14, borrow_date + (random() * 20)::int
+                FROM loans
+                """, history);
+    }
+
+    private List<Patron> login(JdbcTemplate jdbc, String base, int patrons) throws Exception {
+        List<Map.Entry<Long, String>> users = jdbc.query(
+                "SELECT id, username FROM library_users WHERE username LIKE 'patron-%' ORDER BY id LIMIT ?",
+                (rs, row) -> Map.entry(rs.getLong("id"), rs.getString("username")), patrons);
+        // Logowania liczą BCrypta, więc robimy je równolegle
+        List<Future<Patron>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Map.Entry<Long, String> user : users) {
+                long userId = user.getKey();
+                String username = user.getValue();
+                futures.add(executor.submit(() -> {
+                    Deque<Long> openLoans = new ArrayDeque<>(jdbc.queryForList(
+                            "SELECT id FROM borrowings WHERE user_id = ? AND return_date IS NULL", Long.class, userId));
+                    return new Patron(PerfEnvironment.login(base, username, PASSWORD), userId, openLoans);
+                }));
+            }
+        }
+        List<Patron> clients = new ArrayList<>(futures.size());
+        for (Future<Patron> future : futures) {
+            clients.add(future.get());
+        }
+        return clients;
+    }
+}
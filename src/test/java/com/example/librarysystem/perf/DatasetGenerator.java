@@ -0,0 +1,421 @@
+package com.example.librarysystem.perf;
+
+import org.postgresql.PGConnection;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generator syntetycznych danych dla tabel {@code book}, {@code library_users} i {@code borrowings}
+ * (schemat z migracji Flyway). Dane ładowane są przez {@code COPY ... FROM STDIN}, wypożyczenia równolegle
+ * kilkoma połączeniami; klucze obce i indeksy pomocnicze tabeli wypożyczeń są na czas ładowania zdejmowane
+ * i zakładane ponownie jednym przebiegiem.
+ *
+ * Rozkłady:
+ * <ul>
+ *     <li>popularność książek - Zipf ({@code --book-skew}), ranga przypisana losowym książkom;</li>
+ *     <li>aktywność czytelników - Zipf ({@code --user-skew});</li>
+ *     <li>daty wypożyczeń - sezonowość roku akademickiego (szczyty w październiku i kwietniu, dołki w styczniu
+ *     i lipcu, mniej w weekendy) z ostatnich {@code --years} lat;</li>
+ *     <li>termin zwrotu - 14 dni (polityka standardowa); {@code --overdue-share} wypożyczeń wraca po terminie,
+ *     a te, których zwrot wypadłby po dzisiejszej dacie, pozostają otwarte.</li>
+ * </ul>
+ *
+ * Uruchomienie (parametry {@code --nazwa=wartość}, połączenie domyślnie z SPRING_DATASOURCE_*):
+ * <pre>
+ * mvn -Pdataset test-compile exec:java -Dexec.args="--url=jdbc:postgresql://localhost:5432/library_system_db
+ *     --user=postgres --password=admin --books=1000000 --users=200000 --borrowings=50000000"
+ * </pre>
+ */
+public final class DatasetGenerator {
+
+    private static final String[] GENRES = {"FANTASY", "CRIME", "ROMANCE", "SCIENCE", "HISTORY", "POETRY",
+            "BIOGRAPHY", "CHILDREN", "BESTSELLER", "TEXTBOOK"};
+    private static final String[] TITLE_WORDS = {"Shadow", "River", "Empire", "Silent", "Garden", "Winter", "Code",
+            "Stone", "Night", "Journey", "Glass", "Forgotten", "Storm", "Kingdom", "Letters", "Machine", "Island",
+            "Crimson", "Secret", "Light"};
+    private static final String[] FIRST_NAMES = {"Anna", "Jan", "Maria", "Piotr", "Katarzyna", "Tomasz", "Olga",
+            "Adam", "Ewa", "Marek", "Zofia", "Paweł"};
+    private static final String[] LAST_NAMES = {"Nowak", "Kowalski", "Wiśniewska", "Lewandowski", "Tokarczuk",
+            "Lem", "Szymborska", "Mickiewicz", "Sapkowski", "Kapuściński", "Orzeszkowa", "Prus"};
+    private static final int LOAN_DAYS = 14;
+
+    private final Options options;
+    private final LocalDate today = LocalDate.now();
+
+    private DatasetGenerator(Options options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new DatasetGenerator(Options.parse(args)).run();
+    }
+
+    /**
+     * @param url          Adres JDBC bazy PostgreSQL.
+     * @param books        Liczba generowanych książek.
+     * @param users        Liczba generowanych czytelników.
+     * @param borrowings   Liczba generowanych wypożyczeń.
+     * @param bookSkew     Wykładnik Zipfa dla popularności książek.
+     * @param userSkew     Wykładnik Zipfa dla aktywności czytelników.
+     * @param overdueShare Udział wypożyczeń zwróconych po terminie (0-1).
+     * @param years        Z ilu ostatnich lat losowane są daty wypożyczeń.
+     * @param threads      Liczba równoległych połączeń ładujących wypożyczenia.
+     * @param seed         Ziarno generatora - ten sam zestaw parametrów daje te same dane.
+     * @param dropIndexes  Czy zdjąć klucze obce i indeksy pomocnicze wypożyczeń na czas ładowania.
+     */
+    record Options(String url, String user, String password, String userPassword, int books, int users,
+                   long borrowings, double bookSkew, double userSkew, double overdueShare, int years,
+                   int threads, long seed, boolean dropIndexes) {
+
+        static Options parse(String[] args) {
+            Map<String, String> values = new HashMap<>();
+            for (String arg : args) {
+                if (!arg.startsWith("--") || !arg.contains("=")) {
+                    throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+                }
+                values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+            Options options = new Options(
+                    values.getOrDefault("url", System.getenv("SPRING_DATASOURCE_URL")),
+                    values.getOrDefault("user", System.getenv("SPRING_DATASOURCE_USERNAME")),
+                    values.getOrDefault("password", System.getenv("SPRING_DATASOURCE_PASSWORD")),
+                    values.getOrDefault("user-password", "password"),
+                    Integer.parseInt(values.getOrDefault("books", "100000")),
+                    Integer.parseInt(values.getOrDefault("users", "20000")),
+                    Long.parseLong(values.getOrDefault("borrowings", "1000000")),
+                    Double.parseDouble(values.getOrDefault("book-skew", "1.0")),
+                    Double.parseDouble(values.getOrDefault("user-skew", "0.6")),
+                    Double.parseDouble(values.getOrDefault("overdue-share", "0.08")),
+                    Integer.parseInt(values.getOrDefault("years", "3")),
+                    Integer.parseInt(values.getOrDefault("threads",
+                            Integer.toString(Math.min(4, Runtime.getRuntime().availableProcessors())))),
+                    Long.parseLong(values.getOrDefault("seed", "42")),
+                    Boolean.parseBoolean(values.getOrDefault("drop-indexes", "true")));
+            if (options.url() == null) {
+                throw new IllegalArgumentException("Missing --url (or SPRING_DATASOURCE_URL)");
+            }
+            return options;
+        }
+    }
+
+    private void run() throws Exception {
+        long started = System.nanoTime();
+        long firstBookId;
+        long firstUserId;
+        short[] genreIds;
+        try (Connection connection = connect()) {
+            genreIds = genres(connection);
+            firstBookId = nextId(connection, "book");
+            firstUserId = nextId(connection, "library_users");
+            loadBooks(connection, firstBookId, genreIds);
+            loadUsers(connection, firstUserId);
+        }
+
+        try (Connection connection = connect()) {
+            createBorrowingPartitions(connection, today.minusYears(options.years()), today);
+        }
+        List<String[]> dropped = List.of();
+        try {
+            if (options.dropIndexes()) {
+                dropped = dropBorrowingConstraints();
+            }
+            loadBorrowings(firstBookId, firstUserId);
+        } finally {
+            restoreBorrowingConstraints(dropped);
+        }
+
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            for (String table : new String[]{"book", "library_users", "borrowings"}) {
+                statement.execute("SELECT setval(pg_get_serial_sequence('" + table + "', 'id'), "
+                        + "(SELECT max(id) FROM " + table + "))");
+                statement.execute("ANALYZE " + table);
+            }
+        }
+        log("Done in %.1f s", (System.nanoTime() - started) / 1e9);
+    }
+
+    private Connection connect() throws SQLException {
+        Connection connection = DriverManager.getConnection(options.url(), options.user(), options.password());
+        try (Statement statement = connection.createStatement()) {
+            // Dane wygenerowane od nowa po awarii - nie potrzebujemy czekać na fsync każdej transakcji
+            statement.execute("SET synchronous_commit = off");
+        }
+        return connection;
+    }
+
+    private static short[] genres(Connection connection) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO genre (name) VALUES (?) ON CONFLICT DO NOTHING")) {
+            for (String genre : GENRES) {
+                insert.setString(1, genre);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        try (PreparedStatement select = connection.prepareStatement("SELECT id FROM genre WHERE name = ANY (?)")) {
+            select.setArray(1, connection.createArrayOf("varchar", GENRES));
+            List<Short> ids = new ArrayList<>();
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getShort(1));
+                }
+            }
+            short[] result = new short[ids.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = ids.get(i);
+            }
+            return result;
+        }
+    }
+
+    /** ID nadajemy sami (kolumny są GENERATED BY DEFAULT), żeby wypożyczenia mogły je wskazywać bez odczytu. */
+    private static long nextId(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT coalesce(max(id), 0) + 1 FROM " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private void loadBooks(Connection connection, long firstId, short[] genreIds) throws SQLException {
+        long started = System.nanoTime();
+        SplittableRandom random = new SplittableRandom(options.seed());
+        CopyStream copy = copy(connection,
+                "COPY book (id, title, author, isbn, publisher, publication_year, genre_id) FROM STDIN");
+        int authors = Math.max(1, options.books() / 8);
+        for (int i = 0; i < options.books(); i++) {
+            long id = firstId + i;
+            int author = random.nextInt(authors);
+            copy.column(id)
+                    .column(TITLE_WORDS[random.nextInt(TITLE_WORDS.length)] + " " + TITLE_WORDS[random.nextInt(TITLE_WORDS.length)]
+                            + " " + id)
+                    .column(FIRST_NAMES[author % FIRST_NAMES.length] + " " + LAST_NAMES[(author / FIRST_NAMES.length) % LAST_NAMES.length]
+                            + " " + author)
+                    .column(isbn(id))
+                    .column("Publisher " + random.nextInt(200))
+                    // Więcej nowszych wydań
+                    .column(today.getYear() - (long) (Math.pow(random.nextDouble(), 2) * 120))
+                    .column(genreIds[random.nextInt(genreIds.length)]);
+            copy.endRow();
+        }
+        log("book: %d rows in %.1f s", copy.finish(), (System.nanoTime() - started) / 1e9);
+    }
+
+    /** ISBN-13 z prefiksem 979 i cyfrą kontrolną - unikalny dla każdego ID. */
+    static String isbn(long id) {
+        String digits = "979" + String.format("%09d", id % 1_000_000_000L);
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        return digits + (10 - sum % 10) % 10;
+    }
+
+    private void loadUsers(Connection connection, long firstId) throws SQLException {
+        long started = System.nanoTime();
+        // Jeden hash dla wszystkich - generator nie musi liczyć BCrypta milion razy
+        String hash = new BCryptPasswordEncoder().encode(options.userPassword());
+        CopyStream copy = copy(connection, "COPY library_users (id, username, password, role) FROM STDIN");
+        for (int i = 0; i < options.users(); i++) {
+            long id = firstId + i;
+            copy.column(id).column("reader" + id).column(hash).column(i % 1000 == 0 ? 2 : 1);
+            copy.endRow();
+        }
+        log("library_users: %d rows in %.1f s", copy.finish(), (System.nanoTime() - started) / 1e9);
+    }
+
+    private void loadBorrowings(long firstBookId, long firstUserId) throws Exception {
+        long started = System.nanoTime();
+        ZipfDistribution bookPopularity = new ZipfDistribution(options.books(), options.bookSkew());
+        ZipfDistribution userActivity = new ZipfDistribution(options.users(), options.userSkew());
+        long[] bookByRank = shuffledIds(firstBookId, options.books(), new SplittableRandom(options.seed() + 1));
+        long[] userByRank = shuffledIds(firstUserId, options.users(), new SplittableRandom(options.seed() + 2));
+        SeasonalCalendar calendar = new SeasonalCalendar(today.minusYears(options.years()), today);
+
+        int threads = Math.max(1, options.threads());
+        long perThread = options.borrowings() / threads;
+        AtomicLong progress = new AtomicLong();
+        List<Future<Long>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                long rows = t == threads - 1 ? options.borrowings() - perThread * (threads - 1) : perThread;
+                SplittableRandom random = new SplittableRandom(options.seed() + 100 + t);
+                results.add(executor.submit(() -> {
+                    try (Connection connection = connect()) {
+                        CopyStream copy = copy(connection,
+                                "COPY borrowings (user_id, book_id, borrow_date, due_date, return_date) FROM STDIN");
+                        for (long i = 0; i < rows; i++) {
+                            LocalDate borrowDate = calendar.sample(random);
+                            LocalDate dueDate = borrowDate.plusDays(LOAN_DAYS);
+                            LocalDate returnDate = random.nextDouble() < options.overdueShare()
+                                    ? dueDate.plusDays(1 + (long) (-7 * Math.log(1 - random.nextDouble())))
+                                    : borrowDate.plusDays(1 + random.nextInt(LOAN_DAYS));
+                            copy.column(userByRank[userActivity.sample(random)])
+                                    .column(bookByRank[bookPopularity.sample(random)])
+                                    .column(borrowDate)
+                                    .column(dueDate)
+                                    // Zwrot "w przyszłości" oznacza, że książka jest jeszcze wypożyczona
+                                    .column(returnDate.isAfter(today) ? null : returnDate);
+                            copy.endRow();
+                            long done = progress.incrementAndGet();
+                            if (done % 1_000_000 == 0) {
+                                log("borrowings: %d rows, %.0f rows/s", done,
+                                        done / ((System.nanoTime() - started) / 1e9));
+                            }
+                        }
+                        return copy.finish();
+                    }
+                }));
+            }
+        }
+        long total = 0;
+        for (Future<Long> result : results) {
+            total += result.get();
+        }
+        log("borrowings: %d rows in %.1f s", total, (System.nanoTime() - started) / 1e9);
+    }
+
+    private static long[] shuffledIds(long firstId, int count, SplittableRandom random) {
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = firstId + i;
+        }
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long tmp = ids[i];
+            ids[i] = ids[j];
+            ids[j] = tmp;
+        }
+        return ids;
+    }
+
+    /**
+     * Zakłada brakujące miesięczne partycje tabeli wypożyczeń (migracja V8) dla całego zakresu generowanych dat -
+     * aplikacja zakłada je tylko kilka miesięcy naprzód. Na tabeli bez partycji nic nie robi.
+     */
+    static void createBorrowingPartitions(Connection connection, LocalDate from, LocalDate to) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            try (ResultSet rs = statement.executeQuery("SELECT relkind = 'p' FROM pg_class WHERE oid = 'borrowings'::regclass")) {
+                if (!rs.next() || !rs.getBoolean(1)) {
+                    return;
+                }
+            }
+            for (YearMonth month = YearMonth.from(from); !month.isAfter(YearMonth.from(to)); month = month.plusMonths(1)) {
+                statement.execute("CREATE TABLE IF NOT EXISTS borrowings_p" + month.format(DateTimeFormatter.ofPattern("yyyyMM"))
+                        + " PARTITION OF borrowings FOR VALUES FROM ('" + month.atDay(1) + "') TO ('"
+                        + month.plusMonths(1).atDay(1) + "')");
+            }
+        }
+    }
+
+    /**
+     * Zdejmuje klucze obce i indeksy pomocnicze tabeli wypożyczeń (poza kluczem głównym).
+     * Zwraca pary [nazwa, DDL] potrzebne do ich odtworzenia.
+     */
+    private List<String[]> dropBorrowingConstraints() throws SQLException {
+        List<String[]> dropped = new ArrayList<>();
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            try (ResultSet rs = statement.executeQuery("""
+                    SELECT conname, 'ALTER TABLE borrowings ADD CONSTRAINT ' || quote_ident(conname) || ' '
+                           || pg_get_constraintdef(oid)
+                    FROM pg_constraint WHERE conrelid = 'borrowings'::regclass AND contype = 'f'
+                    """)) {
+                while (rs.next()) {
+                    dropped.add(new String[]{"ALTER TABLE borrowings DROP CONSTRAINT " + rs.getString(1), rs.getString(2)});
+                }
+            }
+            try (ResultSet rs = statement.executeQuery("""
+                    SELECT i.relname, pg_get_indexdef(i.oid)
+                    FROM pg_index x JOIN pg_class i ON i.oid = x.indexrelid
+                    WHERE x.indrelid = 'borrowings'::regclass AND NOT x.indisprimary
+                      AND NOT EXISTS (SELECT 1 FROM pg_constraint c WHERE c.conindid = x.indexrelid)
+                    """)) {
+                while (rs.next()) {
+                    // Definicja indeksu tabeli partycjonowanej ma postać "ON ONLY" - odtworzona tak nie objęłaby partycji
+                    dropped.add(new String[]{"DROP INDEX " + rs.getString(1), rs.getString(2).replace(" ON ONLY ", " ON ")});
+                }
+            }
+            for (String[] ddl : dropped) {
+                log("Dropping: %s", ddl[0]);
+                statement.execute(ddl[0]);
+            }
+        }
+        return dropped;
+    }
+
+    private void restoreBorrowingConstraints(List<String[]> dropped) throws SQLException {
+        if (dropped.isEmpty()) {
+            return;
+        }
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            for (String[] ddl : dropped) {
+                long started = System.nanoTime();
+                statement.execute(ddl[1]);
+                log("Restored in %.1f s: %s", (System.nanoTime() - started) / 1e9, ddl[1]);
+            }
+        }
+    }
+
+    private static CopyStream copy(Connection connection, String sql) throws SQLException {
+        return new CopyStream(connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql));
+    }
+
+    private static void log(String format, Object... args) {
+        System.out.printf("[dataset] " + format + "%n", args);
+    }
+
+    /**
+     * Dni z zadanego zakresu ważone sezonowością: dwa szczyty w roku (semestry), spadek w wakacje i ferie,
+     * mniej wypożyczeń w soboty i najmniej w niedziele.
+     */
+    static final class SeasonalCalendar {
+
+        private final LocalDate from;
+        private final double[] cumulative;
+
+        SeasonalCalendar(LocalDate from, LocalDate to) {
+            this.from = from;
+            int days = (int) (to.toEpochDay() - from.toEpochDay()) + 1;
+            cumulative = new double[days];
+            double sum = 0;
+            for (int d = 0; d < days; d++) {
+                LocalDate day = from.plusDays(d);
+                // Szczyty około 15 października (dzień 288) i pół roku później
+                double season = 1 + 0.6 * Math.cos(4 * Math.PI * (day.getDayOfYear() - 288) / 365.25);
+                double weekday = day.getDayOfWeek() == DayOfWeek.SUNDAY ? 0.2
+                        : day.getDayOfWeek() == DayOfWeek.SATURDAY ? 0.6 : 1.0;
+                sum += season * weekday;
+                cumulative[d] = sum;
+            }
+            for (int d = 0; d < days; d++) {
+                cumulative[d] /= sum;
+            }
+        }
+
+        LocalDate sample(SplittableRandom random) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            int day = index >= 0 ? index : -index - 1;
+            return from.plusDays(Math.min(day, cumulative.length - 1));
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.librarysystem.perf;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Generator obciążenia HTTP w pętli zamkniętej: każdy klient wysyła kolejne żądanie dopiero po otrzymaniu
+ * odpowiedzi na poprzednie. Klienci działają na wątkach wirtualnych, żeby to serwer, a nie generator,
+ * był wąskim gardłem.
+ * Scenariusze losowane są według wag; opóźnienia liczone są osobno dla każdego scenariusza.
+ *
+ * @param <C> Stan jednego klienta (np. własny {@link HttpClient} z sesją i jego wypożyczenia).
+ */
+public final class LoadDriver<C> {
+
+    /** Wynik kroku oznaczający, że scenariusz nie miał nic do zrobienia (np. brak książki do zwrotu) - nie jest liczony. */
+    public static final int SKIPPED = -1;
+
+    /**
+     * Jedna operacja klienta.
+     */
+    @FunctionalInterface
+    public interface Step<C> {
+        /**
+         * @return Kod statusu HTTP albo {@link #SKIPPED}.
+         */
+        int execute(C client, RandomGenerator random) throws Exception;
+    }
+
+    /**
+     * @param name   Nazwa scenariusza w raporcie (np. "GET /api/books/{id}").
+     * @param weight Względna częstość scenariusza.
+     * @param step   Operacja wykonywana przez klienta.
+     */
+    public record Scenario<C>(String name, int weight, Step<C> step) {
+    }
+
+    /**
+     * Wyniki jednego scenariusza (albo całości). Błędy to odpowiedzi inne niż 2xx (np. 302 do logowania) i wyjątki klienta.
+     */
+    public record Stats(String name, long requests, long errors, double throughputPerSecond,
+                        double p50Millis, double p99Millis, double maxMillis) {
+
+        public double errorRate() {
+            return requests == 0 ? 0 : (double) errors / requests;
+        }
+    }
+
+    public record Report(Stats total, List<Stats> scenarios) {
+    }
+
+    private final List<Scenario<C>> scenarios;
+    private final int[] cumulativeWeights;
+
+    public LoadDriver(List<Scenario<C>> scenarios) {
+        this.scenarios = List.copyOf(scenarios);
+        this.cumulativeWeights = new int[scenarios.size()];
+        int sum = 0;
+        for (int i = 0; i < scenarios.size(); i++) {
+            sum += scenarios.get(i).weight();
+            cumulativeWeights[i] = sum;
+        }
+    }
+
+    /**
+     * Wysyła żądanie i zwraca kod statusu, pomijając treść odpowiedzi.
+     */
+    public static int send(HttpClient client, HttpRequest request) throws Exception {
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    /**
+     * Uruchamia po jednym wirtualnym wątku na każdego klienta z listy.
+     */
+    public Report run(List<C> clients, Duration warmup, Duration measure) throws InterruptedException {
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long measureTo = measureFrom + measure.toNanos();
+
+        List<Recorder> recorders = new ArrayList<>(clients.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (C client : clients) {
+                Recorder recorder = new Recorder(scenarios.size());
+                recorders.add(recorder);
+                executor.submit(() -> loop(client, recorder, measureFrom, measureTo));
+            }
+        }
+        return report(recorders, measure);
+    }
+
+    private void loop(C client, Recorder recorder, long measureFrom, long measureTo) {
+        RandomGenerator random = ThreadLocalRandom.current();
+        int total = cumulativeWeights[cumulativeWeights.length - 1];
+        long now;
+        while ((now = System.nanoTime()) < measureTo) {
+            int scenario = pick(random.nextInt(total));
+            boolean error;
+            try {
+                int status = scenarios.get(scenario).step().execute(client, random);
+                if (status == SKIPPED) {
+                    continue;
+                }
+                error = status < 200 || status >= 300;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                error = true;
+            }
+            long end = System.nanoTime();
+            if (now >= measureFrom && end <= measureTo) {
+                recorder.record(scenario, end - now, error);
+            }
+        }
+    }
+
+    private int pick(int value) {
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return i;
+            }
+        }
+        return cumulativeWeights.length - 1;
+    }
+
+    private Report report(List<Recorder> recorders, Duration measure) {
+        double seconds = measure.toNanos() / 1e9;
+        List<Stats> perScenario = new ArrayList<>(scenarios.size());
+        LongList all = new LongList();
+        long allErrors = 0;
+        for (int s = 0; s < scenarios.size(); s++) {
+            LongList latencies = new LongList();
+            long errors = 0;
+            for (Recorder recorder : recorders) {
+                latencies.addAll(recorder.latencies[s]);
+                errors += recorder.errors[s];
+            }
+            all.addAll(latencies);
+            allErrors += errors;
+            perScenario.add(stats(scenarios.get(s).name(), latencies, errors, seconds));
+        }
+        return new Report(stats("total", all, allErrors, seconds), perScenario);
+    }
+
+    private static Stats stats(String name, LongList latencies, long errors, double seconds) {
+        long[] sorted = latencies.toSortedArray();
+        return new Stats(name, sorted.length, errors, sorted.length / seconds,
+                percentileMillis(sorted, 0.50), percentileMillis(sorted, 0.99), percentileMillis(sorted, 1.0));
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    /** Wyniki jednego klienta - zapisywane bez synchronizacji, czytane po zakończeniu wszystkich klientów. */
+    private static final class Recorder {
+        private final LongList[] latencies;
+        private final long[] errors;
+
+        Recorder(int scenarios) {
+            latencies = new LongList[scenarios];
+            for (int i = 0; i < scenarios; i++) {
+                latencies[i] = new LongList();
+            }
+            errors = new long[scenarios];
+        }
+
+        void record(int scenario, long nanos, boolean error) {
+            latencies[scenario].add(nanos);
+            if (error) {
+                errors[scenario]++;
+            }
+        }
+    }
+
+    private static final class LongList {
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void addAll(LongList other) {
+            if (size + other.size > values.length) {
+                values = Arrays.copyOf(values, Math.max(values.length * 2, size + other.size));
+            }
+            System.arraycopy(other.values, 0, values, size, other.size);
+            size += other.size;
+        }
+
+        long[] toSortedArray() {
+            long[] copy = Arrays.copyOf(values, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.librarysystem.perf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Wypisywanie wyników {@link LoadDriver} na konsolę (tabela per scenariusz) i do pliku JSON.
+ */
+final class LoadReports {
+
+    private LoadReports() {
+    }
+
+    static void print(LoadDriver.Report report) {
+        System.out.printf("%-34s %10s %8s %7s %10s %9s %9s %9s%n",
+                "scenario", "requests", "errors", "err %", "req/s", "p50 ms", "p99 ms", "max ms");
+        List<LoadDriver.Stats> rows = new ArrayList<>(report.scenarios());
+        rows.add(report.total());
+        for (LoadDriver.Stats s : rows) {
+            System.out.printf("%-34s %10d %8d %7.2f %10.1f %9.2f %9.2f %9.2f%n", s.name(), s.requests(), s.errors(),
+                    s.errorRate() * 100, s.throughputPerSecond(), s.p50Millis(), s.p99Millis(), s.maxMillis());
+        }
+    }
+
+    static void write(Path file, Object result) throws IOException {
+        Files.createDirectories(file.getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), result);
+        System.out.println("Results written to " + file.toAbsolutePath());
+    }
+}
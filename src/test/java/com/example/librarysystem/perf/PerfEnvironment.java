@@ -0,0 +1,106 @@
+package com.example.librarysystem.perf;
+
+import com.example.librarysystem.LibrarySystemApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Wspólne przygotowanie środowiska dla testów wydajnościowych: baza PostgreSQL, aplikacja na losowym porcie
+ * i zalogowani klienci HTTP.
+ * Bazę wskazuje się przez {@code -Dperf.datasource.url} (oraz {@code username}/{@code password});
+ * bez tego startuje kontener Testcontainers, tak jak w testach *IT.
+ */
+final class PerfEnvironment {
+
+    private PerfEnvironment() {
+    }
+
+    record Database(String url, String username, String password, PostgreSQLContainer<?> container)
+            implements AutoCloseable {
+
+        @Override
+        public void close() {
+            if (container != null) {
+                container.stop();
+            }
+        }
+    }
+
+    static Database database(String name) {
+        String url = System.getProperty("perf.datasource.url");
+        if (url != null) {
+            return new Database(url,
+                    System.getProperty("perf.datasource.username", "postgres"),
+                    System.getProperty("perf.datasource.password", ""),
+                    null);
+        }
+        PostgreSQLContainer<?> container = new PostgreSQLContainer<>("postgres:15-alpine").withDatabaseName(name);
+        container.start();
+        return new Database(container.getJdbcUrl(), container.getUsername(), container.getPassword(), container);
+    }
+
+    /**
+     * Startuje aplikację na schemacie z migracji Flyway, bez limitera żądań i logowania SQL.
+     * Argumenty wiersza poleceń mają pierwszeństwo przed application.properties.
+     */
+    static ConfigurableApplicationContext startApplication(Database database, String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=" + database.url(),
+                "--spring.datasource.username=" + database.username(),
+                "--spring.datasource.password=" + database.password(),
+                "--spring.jpa.show-sql=false",
+                "--library.rate-limit.enabled=false",
+                "--logging.level.root=WARN"));
+        args.addAll(List.of(extraArgs));
+        return new SpringApplicationBuilder(LibrarySystemApplication.class).run(args.toArray(String[]::new));
+    }
+
+    static String baseUrl(ConfigurableApplicationContext context) {
+        return "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    /**
+     * Loguje się formularzem i zwraca klienta z własną sesją (ciasteczkiem JSESSIONID).
+     */
+    static HttpClient login(String baseUrl, String username, String password) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .cookieHandler(new CookieManager())
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        String form = "username=" + URLEncoder.encode(username, StandardCharsets.UTF_8)
+                + "&password=" + URLEncoder.encode(password, StandardCharsets.UTF_8);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/login"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build();
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        String location = response.headers().firstValue("Location").orElse("");
+        if (response.statusCode() != 302 || location.contains("error")) {
+            throw new IllegalStateException("Login of " + username + " failed: " + response.statusCode() + " " + location);
+        }
+        return client;
+    }
+
+    static HttpRequest get(String uri) {
+        return HttpRequest.newBuilder(URI.create(uri)).timeout(Duration.ofSeconds(30)).GET().build();
+    }
+
+    static Duration seconds(String property, int defaultValue) {
+        return Duration.ofSeconds(Integer.getInteger(property, defaultValue));
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.librarysystem.perf;
+
+import com.example.librarysystem.entity.Book;
+import com.example.librarysystem.entity.Genre;
+import com.example.librarysystem.entity.Role;
+import com.example.librarysystem.entity.User;
+import com.example.librarysystem.repository.BookRepository;
+import com.example.librarysystem.service.BookService;
+import com.example.librarysystem.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.librarysystem.perf.PerfEnvironment.get;
+
+/**
+ * Porównanie przepustowości i opóźnień (p50/p99) obsługi żądań na wątkach platformowych i wirtualnych.
+ * Aplikacja startuje dwa razy na tej samej bazie, za każdym razem z innym {@code spring.threads.virtual.enabled},
+ * a {@link LoadDriver} wysyła mieszankę odczytów książek i wypożyczeń.
+ *
+ * Uruchomienie: {@code mvn -Pbenchmark test}. Parametry (-D...):
+ * bench.clients (domyślnie 400 - więcej niż 200 wątków Tomcata), bench.warmup, bench.duration (sekundy),
+ * bench.books oraz perf.datasource.url/username/password (zob. {@link PerfEnvironment}).
+ * Wynik trafia na konsolę i do {@code target/benchmark/threading-modes.json}.
+ */
+class ThreadingModeBenchmark {
+
+    private static final String USERNAME = "bench-user";
+    private static final String PASSWORD = "bench-password";
+
+    private final int clients = Integer.getInteger("bench.clients", 400);
+    private final Duration warmup = PerfEnvironment.seconds("bench.warmup", 10);
+    private final Duration duration = PerfEnvironment.seconds("bench.duration", 30);
+    private final int books = Integer.getInteger("bench.books", 1000);
+
+    @Test
+    void compareThreadingModes() throws Exception {
+        try (PerfEnvironment.Database database = PerfEnvironment.database("bench_library")) {
+            Map<String, LoadDriver.Report> reports = new LinkedHashMap<>();
+            for (boolean virtual : new boolean[]{false, true}) {
+                String mode = virtual ? "virtual" : "platform";
+                try (ConfigurableApplicationContext context = PerfEnvironment.startApplication(database,
+                        "--spring.threads.virtual.enabled=" + virtual)) {
+                    long userId = seed(context);
+                    reports.put(mode, drive(context, userId));
+                }
+                print(mode, reports.get(mode));
+            }
+            write(reports);
+        }
+    }
+
+    /** Dodaje użytkownika i książki, jeśli baza jeszcze ich nie ma. Zwraca ID użytkownika. */
+    private long seed(ConfigurableApplicationContext context) {
+        UserService userService = context.getBean(UserService.class);
+        User user = userService.getUserByUsername(USERNAME).orElseGet(() -> {
+            User created = new User();
+            created.setUsername(USERNAME);
+            created.setPassword(PASSWORD);
+            created.setRole(Role.USER);
+            return userService.createUser(created);
+        });
+
+        BookRepository bookRepository = context.getBean(BookRepository.class);
+        BookService bookService = context.getBean(BookService.class);
+        String[] genres = {"FANTASY", "CRIME", "POETRY", "HISTORY", "SCIENCE"};
+        for (long i = bookRepository.count(); i < books; i++) {
+            Book book = new Book();
+            book.setTitle("Benchmark book " + i);
+            book.setAuthor("Author " + (i % 100));
+            book.setIsbn("BENCH-" + i);
+            book.setPublicationYear(1950 + (int) (i % 70));
+            book.setGenre(Genre.of(genres[(int) (i % genres.length)]));
+            bookService.addBook(book);
+        }
+        return user.getId();
+    }
+
+    private LoadDriver.Report drive(ConfigurableApplicationContext context, long userId) throws Exception {
+        String base = PerfEnvironment.baseUrl(context);
+        HttpClient client = PerfEnvironment.login(base, USERNAME, PASSWORD);
+
+        List<Long> bookIds = context.getBean(BookRepository.class).findAll().stream().map(Book::getId).toList();
+        List<LoadDriver.Scenario<HttpClient>> scenarios = new ArrayList<>();
+        scenarios.add(new LoadDriver.Scenario<>("GET /api/books/{id}", 70, (http, random) ->
+                LoadDriver.send(http, get(base + "/api/books/" + bookIds.get(random.nextInt(bookIds.size()))))));
+        scenarios.add(new LoadDriver.Scenario<>("GET /api/books/genre/{genre}", 20, (http, random) ->
+                LoadDriver.send(http, get(base + "/api/books/genre/poetry"))));
+        scenarios.add(new LoadDriver.Scenario<>("GET /api/borrowings/user/{id}", 10, (http, random) ->
+                LoadDriver.send(http, get(base + "/api/borrowings/user/" + userId))));
+
+        // Wszyscy klienci dzielą jedną sesję - porównujemy tryby wątków, nie logowanie
+        return new LoadDriver<>(scenarios).run(Collections.nCopies(clients, client), warmup, duration);
+    }
+
+    private void print(String mode, LoadDriver.Report report) {
+        System.out.printf("%n== %s threads, %d clients, %ds ==%n", mode, clients, duration.toSeconds());
+        LoadReports.print(report);
+    }
+
+    private void write(Map<String, LoadDriver.Report> reports) throws Exception {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("clients", clients);
+        result.put("warmupSeconds", warmup.toSeconds());
+        result.put("durationSeconds", duration.toSeconds());
+        result.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        result.put("modes", reports);
+        LoadReports.write(Path.of("target", "benchmark", "threading-modes.json"), result);
+    }
+}
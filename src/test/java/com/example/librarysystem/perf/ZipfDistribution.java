@@ -0,0 +1,34 @@
+package com.example.librarysystem.perf;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Rozkład Zipfa na rangach 0..n-1: ranga k ma wagę 1/(k+1)^s.
+ * Próbkowanie przez wyszukiwanie binarne w dystrybuancie - O(log n), bez alokacji.
+ */
+final class ZipfDistribution {
+
+    private final double[] cumulative;
+
+    ZipfDistribution(int n, double exponent) {
+        if (n < 1) {
+            throw new IllegalArgumentException("Zipf distribution needs at least one element");
+        }
+        cumulative = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1.0 / Math.pow(k + 1, exponent);
+            cumulative[k] = sum;
+        }
+        for (int k = 0; k < n; k++) {
+            cumulative[k] /= sum;
+        }
+    }
+
+    int sample(RandomGenerator random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        int rank = index >= 0 ? index : -index - 1;
+        return Math.min(rank, cumulative.length - 1);
+    }
+}
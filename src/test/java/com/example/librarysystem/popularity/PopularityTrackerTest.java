@@ -0,0 +1,88 @@
+package com.example.librarysystem.popularity;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PopularityTrackerTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 5, 20);
+    private static final Clock CLOCK = Clock.fixed(TODAY.atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC);
+    private static final short FANTASY = 1;
+    private static final short POETRY = 2;
+
+    private final PopularityTracker tracker = new PopularityTracker(CLOCK, 30, 10, 4, 1024);
+
+    @Test
+    @DisplayName("Szkic Count-Min nigdy nie zaniża licznika, a przy małej liczbie kluczy liczy dokładnie")
+    void testCountMinSketch_neverUnderestimates() {
+        CountMinSketch sketch = new CountMinSketch(4, 64);
+        for (long key = 0; key < 500; key++) {
+            sketch.add(key, key % 7 + 1);
+        }
+        for (long key = 0; key < 500; key++) {
+            assertTrue(sketch.estimate(key) >= key % 7 + 1);
+        }
+
+        CountMinSketch small = new CountMinSketch(4, 1024);
+        small.add(42, 5);
+        small.add(43, 2);
+        CountMinSketch other = small.emptyCopy();
+        other.add(42, 1);
+        small.merge(other);
+        assertEquals(6, small.estimate(42));
+        assertEquals(2, small.estimate(43));
+    }
+
+    @Test
+    @DisplayName("Ranking dnia, tygodnia i całego okresu sumuje tylko dni z danego okna")
+    void testTop_windows() {
+        tracker.record(1, FANTASY, TODAY, 3);
+        tracker.record(2, FANTASY, TODAY.minusDays(3), 10);
+        tracker.record(3, POETRY, TODAY.minusDays(20), 50);
+        tracker.record(1, FANTASY, TODAY.minusDays(1), 2);
+
+        assertEquals(List.of(new BookCount(1, 3)), tracker.top(PopularityWindow.DAY, null, 10));
+        assertEquals(List.of(new BookCount(2, 10), new BookCount(1, 5)), tracker.top(PopularityWindow.WEEK, null, 10));
+        assertEquals(List.of(new BookCount(3, 50), new BookCount(2, 10)), tracker.top(PopularityWindow.ALL, null, 2));
+    }
+
+    @Test
+    @DisplayName("Ranking gatunku zawiera tylko książki z tego gatunku")
+    void testTop_byGenre() {
+        tracker.record(1, FANTASY, TODAY, 3);
+        tracker.record(2, POETRY, TODAY, 7);
+        tracker.record(3, null, TODAY, 9);
+
+        assertEquals(List.of(new BookCount(1, 3)), tracker.top(PopularityWindow.DAY, FANTASY, 10));
+        assertEquals(List.of(new BookCount(2, 7)), tracker.top(PopularityWindow.DAY, POETRY, 10));
+        assertEquals(3, tracker.top(PopularityWindow.DAY, null, 10).size());
+    }
+
+    @Test
+    @DisplayName("Wypożyczenia sprzed horyzontu są pomijane")
+    void testRecord_beforeHorizon_ignored() {
+        tracker.record(1, FANTASY, TODAY.minusDays(30), 100);
+
+        assertTrue(tracker.top(PopularityWindow.ALL, null, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Przy pełnej liście kandydatów częsta książka wypiera najrzadszą")
+    void testTop_heavyHitterDisplacesWeakestCandidate() {
+        for (long bookId = 1; bookId <= 10; bookId++) {
+            tracker.record(bookId, null, TODAY, bookId);
+        }
+        tracker.record(99, null, TODAY, 20);
+
+        List<BookCount> top = tracker.top(PopularityWindow.DAY, null, 10);
+        assertEquals(new BookCount(99, 20), top.getFirst());
+        assertTrue(top.stream().noneMatch(entry -> entry.bookId() == 1));
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.librarysystem.popularity;
+
+import com.example.librarysystem.entity.OutboxEvent;
+import com.example.librarysystem.event.EntityChangedEvent;
+import com.example.librarysystem.repository.OutboxEventRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PopularityUpdaterTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 5, 20);
+    private static final Clock CLOCK = Clock.fixed(TODAY.atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC);
+
+    private final OutboxEventRepository outboxEventRepository = mock(OutboxEventRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PopularityTracker tracker = new PopularityTracker(CLOCK, 7, 10, 4, 1024);
+    private final PopularityUpdater updater = new PopularityUpdater(tracker, outboxEventRepository, jdbcTemplate,
+            new TransactionTemplate(mock(PlatformTransactionManager.class)), CLOCK, Duration.ofDays(7), 100);
+
+    @Test
+    @DisplayName("update - pomija wypożyczenia transakcji widocznych w migawce odbudowy, dzień bierze z borrowDate")
+    void testUpdate_skipsBorrowingsVisibleInRebuildSnapshot() throws Exception {
+        when(outboxEventRepository.currentSnapshot()).thenReturn("100:105:102");
+        when(outboxEventRepository.findLastCommitted()).thenReturn(Optional.of(row(99, 40, TODAY.atStartOfDay(ZoneOffset.UTC).toInstant())));
+        // Transakcja 101 zatwierdzona po xmin, ale przed odbudową - jej wypożyczenie jest już w wyniku REBUILD_QUERY
+        ResultSet rebuilt = mock(ResultSet.class);
+        when(rebuilt.getDate(1)).thenReturn(Date.valueOf(TODAY));
+        when(rebuilt.getLong(2)).thenReturn(42L);
+        when(rebuilt.getLong(4)).thenReturn(1L);
+        when(rebuilt.wasNull()).thenReturn(true);
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(rebuilt);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+        // Zapis w outboxie tuż przed północą UTC, ale z datą wypożyczenia "dziś" w strefie aplikacji
+        Instant beforeMidnight = TODAY.atStartOfDay(ZoneOffset.UTC).toInstant().minusSeconds(1800);
+        when(outboxEventRepository.findCommittedAfterOfType("BORROWING", 99, 40, 100)).thenReturn(List.of(
+                row(101, 41, beforeMidnight), row(102, 42, beforeMidnight), row(106, 43, beforeMidnight)));
+        when(outboxEventRepository.findCommittedAfterOfType("BORROWING", 106, 43, 100)).thenReturn(List.of());
+
+        updater.update();
+
+        assertEquals(List.of(new BookCount(42, 3)), tracker.top(PopularityWindow.DAY, null, 10));
+    }
+
+    @Test
+    @DisplayName("update - odbudowa przerwana w połowie nie podwaja liczników przy ponownej próbie")
+    void testUpdate_retriedRebuildDoesNotDoubleCount() throws Exception {
+        when(outboxEventRepository.currentSnapshot()).thenReturn("100:100:");
+        when(outboxEventRepository.findLastCommitted()).thenReturn(Optional.empty());
+        when(outboxEventRepository.findCommittedAfterOfType(anyString(), anyLong(), anyLong(), anyInt())).thenReturn(List.of());
+        ResultSet row = mock(ResultSet.class);
+        when(row.getDate(1)).thenReturn(Date.valueOf(TODAY));
+        when(row.getLong(2)).thenReturn(42L);
+        when(row.getShort(3)).thenReturn((short) 1);
+        when(row.getLong(4)).thenReturn(5L);
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(row);
+            throw new QueryTimeoutException("canceling statement due to statement timeout");
+        }).doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(row);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+
+        assertThrows(QueryTimeoutException.class, updater::update);
+        updater.update();
+
+        assertEquals(List.of(new BookCount(42, 5)), tracker.top(PopularityWindow.DAY, null, 10));
+    }
+
+    private static OutboxEvent row(long txId, long id, Instant createdAt) {
+        OutboxEvent row = new OutboxEvent(EntityChangedEvent.borrowed(id, 1, 42, null, TODAY), createdAt);
+        ReflectionTestUtils.setField(row, "id", id);
+        ReflectionTestUtils.setField(row, "txId", Long.toString(txId));
+        return row;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.librarysystem.recommendation;
+
+import com.example.librarysystem.event.ChangeCursor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CooccurrenceIndexTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Wypożyczenie łączy książkę z ostatnimi książkami czytelnika, w obie strony")
+    void testRecordBorrow_countsPairsBothWays() {
+        CooccurrenceIndex index = new CooccurrenceIndex(5, 10);
+        index.recordBorrow(1, 100);
+        index.recordBorrow(1, 200);
+        index.recordBorrow(2, 100);
+        index.recordBorrow(2, 200);
+        index.recordBorrow(2, 300);
+
+        assertEquals(List.of(new Neighbour(200, 2), new Neighbour(300, 1)), index.neighbours(100, 10));
+        assertEquals(List.of(new Neighbour(100, 2), new Neighbour(300, 1)), index.neighbours(200, 10));
+        assertEquals(List.of(new Neighbour(100, 1), new Neighbour(200, 1)), index.neighbours(300, 10));
+        assertTrue(index.neighbours(999, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Ponowne wypożyczenie tej samej książki nie zawyża liczników")
+    void testRecordBorrow_repeatedBorrowNotCounted() {
+        CooccurrenceIndex index = new CooccurrenceIndex(5, 10);
+        index.recordBorrow(1, 100);
+        index.recordBorrow(1, 200);
+        index.recordBorrow(1, 100);
+        index.recordBorrow(1, 200);
+
+        assertEquals(List.of(new Neighbour(200, 1)), index.neighbours(100, 10));
+    }
+
+    @Test
+    @DisplayName("Łączymy tylko z historyPerUser ostatnimi książkami czytelnika")
+    void testRecordBorrow_historyLimited() {
+        CooccurrenceIndex index = new CooccurrenceIndex(5, 2);
+        index.recordBorrow(1, 100);
+        index.recordBorrow(1, 200);
+        index.recordBorrow(1, 300);
+        index.recordBorrow(1, 400);
+
+        assertEquals(List.of(new Neighbour(200, 1), new Neighbour(300, 1)), index.neighbours(400, 10));
+        assertTrue(index.neighbours(100, 10).stream().noneMatch(neighbour -> neighbour.bookId() == 400));
+    }
+
+    @Test
+    @DisplayName("Po zapełnieniu liczników częsty sąsiad wypiera rzadkiego i zostaje w czołówce")
+    void testNeighbours_prunedToTopN() {
+        CooccurrenceIndex index = new CooccurrenceIndex(2, 10);
+        long user = 1;
+        for (long other = 1; other <= 10; other++) {
+            index.recordBorrow(user, 100);
+            index.recordBorrow(user++, other);
+        }
+        for (int i = 0; i < 5; i++) {
+            index.recordBorrow(user, 100);
+            index.recordBorrow(user++, 50);
+        }
+
+        List<Neighbour> top = index.neighbours(100, 10);
+        assertEquals(2, top.size());
+        assertEquals(50, top.getFirst().bookId());
+        assertTrue(top.getFirst().together() >= 5);
+    }
+
+    @Test
+    @DisplayName("Kopia w pliku odtwarza indeks, pozycję outboxa i historię czytelników")
+    void testSnapshot_roundTrip() throws IOException {
+        CooccurrenceIndex index = new CooccurrenceIndex(5, 10);
+        index.recordBorrow(1, 100);
+        index.recordBorrow(1, 200);
+        Path file = directory.resolve("index.snapshot");
+        Instant savedAt = Instant.parse("2024-05-20T10:15:30Z");
+        new CooccurrenceSnapshot("jdbc:postgresql://db/library", new ChangeCursor(42, 7), savedAt).save(file, index);
+
+        CooccurrenceIndex restored = new CooccurrenceIndex(5, 10);
+        CooccurrenceSnapshot snapshot = CooccurrenceSnapshot.load(file, restored);
+
+        assertEquals(new CooccurrenceSnapshot("jdbc:postgresql://db/library", new ChangeCursor(42, 7), savedAt), snapshot);
+        assertEquals(index.neighbours(100, 10), restored.neighbours(100, 10));
+        // Historia czytelnika też wróciła: kolejne wypożyczenie łączy się z obiema wcześniejszymi książkami
+        restored.recordBorrow(1, 300);
+        assertEquals(2, restored.neighbours(300, 10).size());
+    }
+
+    @Test
+    @DisplayName("Kopia zapisana przy innych ustawieniach indeksu jest odrzucana")
+    void testSnapshot_differentSettings_rejected() throws IOException {
+        Path file = directory.resolve("index.snapshot");
+        new CooccurrenceSnapshot("db", ChangeCursor.START, Instant.now()).save(file, new CooccurrenceIndex(5, 10));
+
+        assertThrows(IOException.class, () -> CooccurrenceSnapshot.load(file, new CooccurrenceIndex(20, 10)));
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.librarysystem.recommendation;
+
+import com.example.librarysystem.entity.OutboxEvent;
+import com.example.librarysystem.event.EntityChangedEvent;
+import com.example.librarysystem.repository.OutboxEventRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RecommendationUpdaterTest {
+
+    private static final Instant NOW = Instant.parse("2024-05-20T10:00:00Z");
+
+    private final OutboxEventRepository outboxEventRepository = mock(OutboxEventRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    // Lista ostatnich książek czytelnika ma jedną pozycję - powtórzone wypożyczenie starszej książki liczy się od nowa
+    private final CooccurrenceIndex index = new CooccurrenceIndex(5, 1);
+    private final RecommendationUpdater updater = new RecommendationUpdater(index, outboxEventRepository, jdbcTemplate,
+            new TransactionTemplate(mock(PlatformTransactionManager.class)), Clock.fixed(NOW, ZoneOffset.UTC),
+            "jdbc:test", null, Duration.ofMinutes(5), Duration.ofDays(7), 100);
+
+    @Test
+    @DisplayName("update - pomija wypożyczenia transakcji widocznych w migawce odbudowy")
+    void testUpdate_skipsBorrowingsVisibleInRebuildSnapshot() throws Exception {
+        when(outboxEventRepository.currentSnapshot()).thenReturn("100:105:102");
+        when(outboxEventRepository.findLastCommitted()).thenReturn(Optional.of(row(99, 40, 100)));
+        // Odbudowa widzi 100 (sprzed xmin), 200 (transakcja 101) i 300 (transakcja 103) czytelnika 1
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong(1)).thenReturn(1L);
+        when(rs.getLong(2)).thenReturn(100L, 200L, 300L);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (int i = 0; i < 3; i++) {
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+        when(outboxEventRepository.findCommittedAfterOfType("BORROWING", 99, 40, 100)).thenReturn(List.of(
+                row(101, 41, 200), row(103, 42, 300), row(106, 43, 400)));
+        when(outboxEventRepository.findCommittedAfterOfType("BORROWING", 106, 43, 100)).thenReturn(List.of());
+
+        updater.update();
+
+        // Bez pomijania 200 wróciłoby do listy czytelnika i para 200-300 liczyłaby się dwa razy
+        assertEquals(List.of(new Neighbour(100, 1), new Neighbour(300, 1)), index.neighbours(200, 10));
+        assertEquals(List.of(new Neighbour(200, 1), new Neighbour(400, 1)), index.neighbours(300, 10));
+    }
+
+    private static OutboxEvent row(long txId, long id, long bookId) {
+        OutboxEvent row = new OutboxEvent(EntityChangedEvent.borrowed(id, 1, bookId, null, LocalDate.ofInstant(NOW, ZoneOffset.UTC)), NOW);
+        ReflectionTestUtils.setField(row, "id", id);
+        ReflectionTestUtils.setField(row, "txId", Long.toString(txId));
+        return row;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.librarysystem.replica;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.TransactionExecution;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class ReplicaDataSourceTest {
+
+    private final Connection primaryConnection = mock(Connection.class);
+    private final DataSource primary = mock(DataSource.class);
+    private final DataSource replica1 = mock(DataSource.class);
+    private final DataSource replica2 = mock(DataSource.class);
+    private final ReadYourWritesTracker tracker = new ReadYourWritesTracker(Duration.ofMinutes(1));
+    private ReplicaDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", replica1);
+        replicas.put("replica-2", replica2);
+        dataSource = new ReplicaDataSource(primary, replicas, tracker, Duration.ofSeconds(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Przed pierwszym sprawdzeniem stanu odczyty idą do bazy głównej")
+    void testGetConnection_beforeHealthCheck_usesPrimary() throws SQLException {
+        assertSame(primaryConnection, dataSource.getConnection());
+        verifyNoInteractions(replica1, replica2);
+    }
+
+    @Test
+    @DisplayName("Zdrowe repliki dostają połączenia na zmianę")
+    void testGetConnection_roundRobinsHealthyReplicas() throws SQLException {
+        Connection first = healthy(replica1, 0.5);
+        Connection second = healthy(replica2, 0);
+        dataSource.checkHealth();
+
+        assertSame(first, dataSource.getConnection());
+        assertSame(second, dataSource.getConnection());
+        assertSame(first, dataSource.getConnection());
+        assertTrue(dataSource.replicas().stream().allMatch(ReplicaDataSource.Replica::isHealthy));
+    }
+
+    @Test
+    @DisplayName("Replika opóźniona ponad max-lag lub niedostępna jest pomijana, bez replik zostaje baza główna")
+    void testGetConnection_skipsLaggingAndFailingReplicas() throws SQLException {
+        healthy(replica1, 30);
+        Connection second = healthy(replica2, 0);
+        dataSource.checkHealth();
+
+        assertSame(second, dataSource.getConnection());
+        assertSame(second, dataSource.getConnection());
+
+        // Błąd przy pobieraniu połączenia wyłącza replikę do następnego udanego sprawdzenia
+        when(replica2.getConnection()).thenThrow(new SQLTransientConnectionException("timeout"));
+        assertSame(primaryConnection, dataSource.getConnection());
+        assertFalse(dataSource.replicas().get(1).isHealthy());
+        assertEquals(30, dataSource.replicas().get(0).lagSeconds());
+    }
+
+    @Test
+    @DisplayName("Po własnym zapisie użytkownik czyta z bazy głównej, inni nadal z repliki")
+    void testGetConnection_readYourWrites() throws SQLException {
+        healthy(replica1, 0);
+        healthy(replica2, 0);
+        dataSource.checkHealth();
+
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("alice", null, "ROLE_USER"));
+        tracker.afterCommit(committed(true, false), null);
+        assertNotSame(primaryConnection, dataSource.getConnection());
+
+        tracker.afterCommit(committed(true, true), null);
+        assertSame(primaryConnection, dataSource.getConnection());
+
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("bob", null, "ROLE_USER"));
+        assertNotSame(primaryConnection, dataSource.getConnection());
+    }
+
+    private static Connection healthy(DataSource replica, double lagSeconds) throws SQLException {
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(replica.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getDouble(1)).thenReturn(lagSeconds);
+        return connection;
+    }
+
+    private static TransactionExecution committed(boolean newTransaction, boolean write) {
+        TransactionExecution transaction = mock(TransactionExecution.class);
+        when(transaction.isNewTransaction()).thenReturn(newTransaction);
+        when(transaction.isReadOnly()).thenReturn(!write);
+        return transaction;
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.librarysystem.report;
+
+import com.example.librarysystem.entity.OutboxEvent;
+import com.example.librarysystem.entity.ReportRefreshState;
+import com.example.librarysystem.event.ChangeCursor;
+import com.example.librarysystem.event.EntityChangedEvent;
+import com.example.librarysystem.event.TransactionSnapshot;
+import com.example.librarysystem.repository.CirculationDailyRepository;
+import com.example.librarysystem.repository.CirculationMonthlyRepository;
+import com.example.librarysystem.repository.OutboxEventRepository;
+import com.example.librarysystem.repository.ReportRefreshStateRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.BeanUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CirculationRollupRefresherTest {
+
+    private static final Instant NOW = Instant.parse("2024-05-20T10:00:00Z");
+
+    private final ReportRefreshStateRepository stateRepository = mock(ReportRefreshStateRepository.class);
+    private final CirculationDailyRepository dailyRepository = mock(CirculationDailyRepository.class);
+    private final CirculationMonthlyRepository monthlyRepository = mock(CirculationMonthlyRepository.class);
+    private final OutboxEventRepository outboxEventRepository = mock(OutboxEventRepository.class);
+    private CirculationRollupRefresher refresher;
+
+    @BeforeEach
+    void setUp() {
+        TransactionTemplate transaction = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        refresher = new CirculationRollupRefresher(stateRepository, dailyRepository, monthlyRepository, outboxEventRepository,
+                transaction, transaction, Clock.fixed(NOW, ZoneOffset.UTC), Duration.ofDays(7), 3);
+    }
+
+    @Test
+    @DisplayName("refresh - pierwsze uruchomienie tworzy pozycję i buduje sumy z tabeli wypożyczeń")
+    void testRefresh_firstRun_rebuilds() {
+        ReportRefreshState state = state(null, null, NOW);
+        when(stateRepository.lockIfFree(CirculationRollupRefresher.STATE))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(state));
+        when(stateRepository.createIfMissing(CirculationRollupRefresher.STATE)).thenReturn(1);
+        when(stateRepository.currentSnapshot()).thenReturn("100:105:102");
+        when(outboxEventRepository.findLastCommitted()).thenReturn(Optional.of(row(99, 40, EntityChangedEvent.Operation.BORROWED)));
+        when(outboxEventRepository.findCommittedAfterOfType("BORROWING", 99, 40, 3)).thenReturn(List.of());
+
+        refresher.refresh();
+
+        verify(dailyRepository).deleteAllRows();
+        verify(dailyRepository).addAllLoans();
+        verify(dailyRepository).addAllReturns();
+        verify(monthlyRepository).deleteAllRows();
+        verify(monthlyRepository).refreshAll();
+        assertEquals(new ChangeCursor(99, 40), state.getPosition());
+        assertEquals("100:105:102", state.getRebuildSnapshot());
+    }
+
+    @Test
+    @DisplayName("refresh - dolicza tylko zmiany spoza migawki odbudowy i przelicza ich miesiące")
+    void testRefresh_delta_skipsChangesVisibleInRebuildSnapshot() {
+        ReportRefreshState state = state(99L, 40L, NOW.minusSeconds(60));
+        ReflectionTestUtils.setField(state, "rebuildSnapshot", "100:105:102");
+        when(stateRepository.lockIfFree(CirculationRollupRefresher.STATE)).thenReturn(Optional.of(state));
+        when(outboxEventRepository.findCommittedAfterOfType("BORROWING", 99, 40, 3)).thenReturn(List.of(
+                row(101, 41, EntityChangedEvent.Operation.BORROWED),
+                row(102, 42, EntityChangedEvent.Operation.BORROWED),
+                row(106, 43, EntityChangedEvent.Operation.RETURNED)));
+        when(outboxEventRepository.findCommittedAfterOfType("BORROWING", 106, 43, 3)).thenReturn(List.of());
+
+        refresher.refresh();
+
+        // 101 był widoczny w migawce odbudowy (przed xmax, poza listą trwających) - już jest w sumach
+        // Odczyt wypożyczeń ograniczony do partycji od dnia przed najstarszym wpisem w outboxie
+        verify(dailyRepository).addLoans(List.of(42L), LocalDate.parse("2024-05-19"));
+        verify(dailyRepository).addReturns(List.of(43L));
+        verify(monthlyRepository).refreshMonthsOf(List.of(42L, 43L));
+        verify(dailyRepository, never()).addAllLoans();
+        assertEquals(new ChangeCursor(106, 43), state.getPosition());
+        assertNull(state.getRebuildSnapshot());
+        assertEquals(NOW, state.getRefreshedAt());
+    }
+
+    @Test
+    @DisplayName("refresh - pozycja starsza niż retencja outboxa wymusza odbudowę")
+    void testRefresh_positionOlderThanRetention_rebuilds() {
+        ReportRefreshState state = state(99L, 40L, NOW.minus(Duration.ofDays(8)));
+        when(stateRepository.lockIfFree(CirculationRollupRefresher.STATE)).thenReturn(Optional.of(state));
+        when(stateRepository.currentSnapshot()).thenReturn("500:500:");
+        when(outboxEventRepository.findLastCommitted()).thenReturn(Optional.empty());
+        when(outboxEventRepository.findCommittedAfterOfType("BORROWING", 0, 0, 3)).thenReturn(List.of());
+
+        refresher.refresh();
+
+        verify(dailyRepository).addAllLoans();
+        assertEquals(ChangeCursor.START, state.getPosition());
+        assertEquals(NOW, state.getRefreshedAt());
+    }
+
+    @Test
+    @DisplayName("refresh - gdy odświeża inna instancja, nic nie robi")
+    void testRefresh_lockedByAnotherInstance_skips() {
+        when(stateRepository.lockIfFree(CirculationRollupRefresher.STATE)).thenReturn(Optional.empty());
+        when(stateRepository.existsById(CirculationRollupRefresher.STATE)).thenReturn(true);
+
+        refresher.refresh();
+
+        verify(stateRepository, never()).createIfMissing(any());
+        verifyNoInteractions(dailyRepository, monthlyRepository, outboxEventRepository);
+    }
+
+    @Test
+    @DisplayName("TransactionSnapshot - widoczne są transakcje przed xmin i zakończone przed xmax")
+    void testTransactionSnapshot_isVisible() {
+        TransactionSnapshot snapshot = TransactionSnapshot.parse("100:105:102,104");
+
+        assertTrue(snapshot.isVisible(99));
+        assertTrue(snapshot.isVisible(101));
+        assertFalse(snapshot.isVisible(102));
+        assertTrue(snapshot.isVisible(103));
+        assertFalse(snapshot.isVisible(105));
+        assertThrows(IllegalArgumentException.class, () -> TransactionSnapshot.parse("100"));
+    }
+
+    private static ReportRefreshState state(Long txId, Long outboxId, Instant refreshedAt) {
+        ReportRefreshState state = BeanUtils.instantiateClass(ReportRefreshState.class);
+        ReflectionTestUtils.setField(state, "name", CirculationRollupRefresher.STATE);
+        ReflectionTestUtils.setField(state, "txId", txId);
+        ReflectionTestUtils.setField(state, "outboxId", outboxId);
+        ReflectionTestUtils.setField(state, "refreshedAt", refreshedAt);
+        return state;
+    }
+
+    private static OutboxEvent row(long txId, long id, EntityChangedEvent.Operation operation) {
+        EntityChangedEvent event = operation == EntityChangedEvent.Operation.BORROWED
+                ? EntityChangedEvent.borrowed(id, 1, 5, null, LocalDate.ofInstant(NOW, ZoneOffset.UTC))
+                : EntityChangedEvent.returned(id, 1, 5);
+        OutboxEvent row = new OutboxEvent(event, NOW);
+        ReflectionTestUtils.setField(row, "id", id);
+        ReflectionTestUtils.setField(row, "txId", Long.toString(txId));
+        return row;
+    }
+}
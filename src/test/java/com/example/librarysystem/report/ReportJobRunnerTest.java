@@ -0,0 +1,243 @@
+package com.example.librarysystem.report;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sql.DataSource;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class ReportJobRunnerTest {
+
+    private static final Instant NOW = Instant.parse("2024-05-20T10:00:00Z");
+    private static final Duration TTL = Duration.ofHours(24);
+
+    @TempDir
+    Path directory;
+
+    private final DataSource dataSource = mock(DataSource.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private ReportJobRunner runner;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        runner = runner(Clock.fixed(NOW, ZoneOffset.UTC), 1);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        runner.close();
+    }
+
+    @Test
+    @DisplayName("submit - zapisuje wynik jako CSV (gzip) i opis zadania, który odczyta też nowa instancja")
+    void testSubmit_writesResultAndMetadata() throws Exception {
+        mockResult(new String[]{"user_id", "username"}, new int[]{Types.BIGINT, Types.VARCHAR},
+                new String[][]{{"1", "anna"}, {"2", "jan, \"kowalski\""}});
+
+        ReportJob job = awaitFinished(runner.submit(ReportJobType.USER_STATISTICS, Map.of("year", "2024")));
+
+        assertEquals(ReportJobStatus.COMPLETED, job.status());
+        assertEquals(2L, job.rows());
+        assertEquals(NOW.plus(TTL), job.expiresAt());
+        assertEquals("user_id,username\r\n1,anna\r\n2,\"jan, \"\"kowalski\"\"\"\r\n", readResult(runner.resultFile(job)));
+
+        try (ReportJobRunner restarted = runner(Clock.fixed(NOW, ZoneOffset.UTC), 1)) {
+            assertEquals(job, restarted.find(job.id()).orElseThrow());
+            assertEquals(job, restarted.submit(ReportJobType.USER_STATISTICS, Map.of("year", "2024")));
+        }
+    }
+
+    @Test
+    @DisplayName("submit - takie samo zlecenie (parametry w innej kolejności) dostaje istniejące zadanie")
+    void testSubmit_sameRequest_returnsExistingJob() throws Exception {
+        mockResult(new String[]{"borrowing_id"}, new int[]{Types.BIGINT}, new String[][]{{"1"}});
+
+        ReportJob first = awaitFinished(runner.submit(ReportJobType.BORROWING_HISTORY,
+                Map.of("from", "2024-01-01", "to", "2024-03-31")));
+        ReportJob second = runner.submit(ReportJobType.BORROWING_HISTORY, Map.of("to", "2024-03-31", "from", "2024-01-01 "));
+        ReportJob other = awaitFinished(runner.submit(ReportJobType.BORROWING_HISTORY, Map.of("from", "2024-01-01")));
+
+        assertEquals(first, second);
+        assertNotEquals(first.id(), other.id());
+        verify(dataSource, times(2)).getConnection();
+    }
+
+    @Test
+    @DisplayName("submit - błąd zapytania kończy zadanie jako FAILED bez pliku wyniku; kolejne zlecenie uruchamia je ponownie")
+    void testSubmit_queryFails_marksFailed() throws Exception {
+        when(dataSource.getConnection()).thenThrow(new SQLException("connection refused"));
+
+        ReportJob job = awaitFinished(runner.submit(ReportJobType.USER_STATISTICS, Map.of("year", "2024")));
+        ReportJob retried = runner.submit(ReportJobType.USER_STATISTICS, Map.of("year", "2024"));
+
+        assertEquals(ReportJobStatus.FAILED, job.status());
+        assertNotNull(job.error());
+        assertFalse(Files.exists(runner.resultFile(job)));
+        assertNotEquals(job.id(), retried.id());
+    }
+
+    @Test
+    @DisplayName("submit - pełna kolejka odrzuca zlecenie i nie zostawia po nim zadania")
+    void testSubmit_queueFull_rejects() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(dataSource.getConnection()).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            throw new SQLException("stopped");
+        });
+        runner.submit(ReportJobType.USER_STATISTICS, Map.of("year", "2022"));
+        runner.submit(ReportJobType.USER_STATISTICS, Map.of("year", "2023"));
+
+        assertThrows(RejectedExecutionException.class,
+                () -> runner.submit(ReportJobType.USER_STATISTICS, Map.of("year", "2024")));
+        assertEquals(2, runner.activeJobs());
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("find i purgeExpired - wygasłe zadanie znika razem z plikami, a ID spoza formatu UUID nie trafia do ścieżki")
+    void testPurgeExpired_removesFiles() throws Exception {
+        mockResult(new String[]{"user_id"}, new int[]{Types.BIGINT}, new String[][]{{"1"}});
+        ReportJob job = awaitFinished(runner.submit(ReportJobType.USER_STATISTICS, Map.of("year", "2024")));
+
+        try (ReportJobRunner later = runner(Clock.fixed(NOW.plus(TTL), ZoneOffset.UTC), 1)) {
+            assertTrue(later.find(job.id()).isEmpty());
+            assertFalse(Files.exists(runner.resultFile(job)));
+            assertFalse(Files.exists(directory.resolve(job.id() + ".json")));
+        }
+        assertTrue(runner.find("../" + job.id()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("constructor - nie rusza trwających zadań innych instancji, zamyka porzucone jako FAILED")
+    void testRestart_keepsOtherInstancesRunningJobs() throws Exception {
+        // Clock testów stoi w miejscu, więc "teraz" dla dat plików to NOW
+        ReportJob running = ReportJob.queued(UUID.randomUUID().toString(), ReportJobType.USER_STATISTICS,
+                Map.of("year", "2023"), NOW).running(NOW.minusSeconds(30));
+        ReportJob abandoned = ReportJob.queued(UUID.randomUUID().toString(), ReportJobType.USER_STATISTICS,
+                Map.of("year", "2022"), NOW).running(NOW.minus(Duration.ofMinutes(3)));
+        objectMapper.writeValue(directory.resolve(running.id() + ".json").toFile(), running);
+        objectMapper.writeValue(directory.resolve(abandoned.id() + ".json").toFile(), abandoned);
+        Path writing = Files.writeString(directory.resolve(running.id() + ".csv.gz.tmp"), "partial");
+        Files.setLastModifiedTime(writing, FileTime.from(NOW.minusSeconds(30)));
+        Path leftOver = Files.writeString(directory.resolve(abandoned.id() + ".csv.gz.tmp"), "partial");
+        Files.setLastModifiedTime(leftOver, FileTime.from(NOW.minus(Duration.ofMinutes(3))));
+
+        try (ReportJobRunner restarted = runner(Clock.fixed(NOW, ZoneOffset.UTC), 1)) {
+            assertEquals(running, restarted.find(running.id()).orElseThrow());
+            assertTrue(Files.exists(writing));
+            ReportJob failed = restarted.find(abandoned.id()).orElseThrow();
+            assertEquals(ReportJobStatus.FAILED, failed.status());
+            assertEquals(NOW.plus(TTL), failed.expiresAt());
+            assertFalse(Files.exists(leftOver));
+        }
+    }
+
+    @Test
+    @DisplayName("submit - opis trwającego zadania jest na dysku, zanim zadanie się skończy")
+    void testSubmit_writesRunningMetadata() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(dataSource.getConnection()).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            throw new SQLException("stopped");
+        });
+        ReportJob job = runner.submit(ReportJobType.USER_STATISTICS, Map.of("year", "2024"));
+        Path metadata = directory.resolve(job.id() + ".json");
+        for (int i = 0; i < 500 && !Files.exists(metadata); i++) {
+            Thread.sleep(10);
+        }
+
+        try (ReportJobRunner other = runner(Clock.fixed(NOW, ZoneOffset.UTC), 1)) {
+            assertEquals(ReportJobStatus.RUNNING, other.find(job.id()).orElseThrow().status());
+        }
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("CsvWriter - tekst zaczynający się od znaku formuły dostaje apostrof, liczby ujemne zostają bez zmian")
+    void testCsvWriter_neutralizesFormulas() throws Exception {
+        ResultSet rs = resultSet(new String[]{"username", "balance"}, new int[]{Types.VARCHAR, Types.NUMERIC},
+                new String[][]{{"=HYPERLINK(\"x\")", "-5"}, {null, "0"}});
+        StringWriter out = new StringWriter();
+
+        assertEquals(2, ReportJobRunner.CsvWriter.write(rs, out));
+        assertEquals("username,balance\r\n\"'=HYPERLINK(\"\"x\"\")\",-5\r\n,0\r\n", out.toString());
+    }
+
+    private ReportJobRunner runner(Clock clock, int workers) throws Exception {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1));
+        return new ReportJobRunner(dataSource, executor, directory, objectMapper, clock, TTL, Duration.ofMinutes(1), 100);
+    }
+
+    private ReportJob awaitFinished(ReportJob job) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            ReportJob current = runner.find(job.id()).orElseThrow();
+            if (current.status() == ReportJobStatus.COMPLETED || current.status() == ReportJobStatus.FAILED) {
+                return current;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Report job did not finish: " + job);
+    }
+
+    private void mockResult(String[] columns, int[] types, String[][] rows) throws Exception {
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenAnswer(invocation -> resultSet(columns, types, rows));
+    }
+
+    private static ResultSet resultSet(String[] columns, int[] types, String[][] rows) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(rs.getMetaData()).thenReturn(metaData);
+        when(metaData.getColumnCount()).thenReturn(columns.length);
+        for (int i = 0; i < columns.length; i++) {
+            when(metaData.getColumnLabel(i + 1)).thenReturn(columns[i]);
+            when(metaData.getColumnType(i + 1)).thenReturn(types[i]);
+        }
+        int[] row = {-1};
+        when(rs.next()).thenAnswer(invocation -> ++row[0] < rows.length);
+        when(rs.getString(anyInt()))
+                .thenAnswer(invocation -> rows[row[0]][(int) invocation.getArgument(0) - 1]);
+        return rs;
+    }
+
+    private static String readResult(Path file) throws Exception {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
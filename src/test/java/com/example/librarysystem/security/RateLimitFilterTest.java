@@ -0,0 +1,114 @@
+package com.example.librarysystem.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new RateLimitFilter(
+                new RateLimitProperties(true, 1000,
+                        new RateLimitProperties.Limit(5, 1),
+                        new RateLimitProperties.Limit(2, 1)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Logowanie - powinno zwrócić 429 po wyczerpaniu limitu dla nazwy użytkownika")
+    void testLogin_isLimitedPerUsername() throws Exception {
+        assertEquals(200, perform(login("alice", "10.0.0.1")).getStatus());
+        assertEquals(200, perform(login("alice", "10.0.0.2")).getStatus());
+
+        MockHttpServletResponse rejected = perform(login("alice", "10.0.0.3"));
+        assertEquals(429, rejected.getStatus());
+        assertNotNull(rejected.getHeader("Retry-After"));
+
+        assertEquals(200, perform(login("bob", "10.0.0.3")).getStatus());
+    }
+
+    @Test
+    @DisplayName("Rejestracja - powinna zwrócić 429 po wyczerpaniu limitu dla adresu IP")
+    void testRegister_isLimitedPerIp() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, perform(request("POST", "/api/users/register", "10.0.0.1")).getStatus());
+        }
+        assertEquals(429, perform(request("POST", "/api/users/register", "10.0.0.1")).getStatus());
+        assertEquals(200, perform(request("POST", "/api/users/register", "10.0.0.2")).getStatus());
+    }
+
+    @Test
+    @DisplayName("Wypożyczenie - powinno być limitowane per zalogowany użytkownik")
+    void testBorrow_isLimitedPerAuthenticatedUser() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("patron", null, "ROLE_USER"));
+
+        assertEquals(200, perform(request("POST", "/api/borrowings/borrow", "10.0.0.1")).getStatus());
+        assertEquals(200, perform(request("POST", "/api/borrowings/borrow", "10.0.0.2")).getStatus());
+        assertEquals(429, perform(request("POST", "/api/borrowings/borrow", "10.0.0.3")).getStatus());
+    }
+
+    @Test
+    @DisplayName("HTTP Basic - powinno być limitowane per nazwa użytkownika z nagłówka")
+    void testBasicAuthentication_isLimitedPerUsername() throws Exception {
+        assertEquals(200, perform(basic("admin", "10.0.0.1")).getStatus());
+        assertEquals(200, perform(basic("admin", "10.0.0.2")).getStatus());
+        assertEquals(429, perform(basic("admin", "10.0.0.3")).getStatus());
+
+        assertEquals(200, perform(basic("scraper", "10.0.0.3")).getStatus());
+    }
+
+    @Test
+    @DisplayName("Inne endpointy - nie powinny być limitowane")
+    void testOtherEndpoints_areNotLimited() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            assertEquals(200, perform(request("GET", "/api/books", "10.0.0.1")).getStatus());
+        }
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest login(String username, String ip) {
+        MockHttpServletRequest request = request("POST", "/login", ip);
+        request.setParameter("username", username);
+        request.setParameter("password", "secret");
+        return request;
+    }
+
+    private static MockHttpServletRequest basic(String username, String ip) {
+        MockHttpServletRequest request = request("GET", "/actuator/prometheus", ip);
+        String credentials = username + ":secret";
+        request.addHeader(HttpHeaders.AUTHORIZATION,
+                "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+        return request;
+    }
+
+    private static MockHttpServletRequest request(String method, String uri, String ip) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setServletPath(uri);
+        request.setRemoteAddr(ip);
+        return request;
+    }
+}
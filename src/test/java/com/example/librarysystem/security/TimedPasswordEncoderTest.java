@@ -0,0 +1,48 @@
+package com.example.librarysystem.security;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimedPasswordEncoderTest {
+
+    private SimpleMeterRegistry registry;
+    private TimedPasswordEncoder encoder;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        encoder = new TimedPasswordEncoder(new BCryptPasswordEncoder(4), registry);
+    }
+
+    @Test
+    @DisplayName("Haszowanie i weryfikacja działają jak w BCrypcie")
+    void delegatesToWrappedEncoder() {
+        String hash = encoder.encode("secret");
+
+        assertTrue(hash.startsWith("$2a$04$"));
+        assertTrue(encoder.matches("secret", hash));
+        assertFalse(encoder.matches("wrong", hash));
+    }
+
+    @Test
+    @DisplayName("Każda operacja jest mierzona osobnym timerem")
+    void recordsTimersPerOperation() {
+        String hash = encoder.encode("secret");
+        encoder.matches("secret", hash);
+        encoder.matches("wrong", hash);
+
+        Timer encode = registry.get(TimedPasswordEncoder.METRIC).tag("operation", "encode").timer();
+        Timer matches = registry.get(TimedPasswordEncoder.METRIC).tag("operation", "matches").timer();
+        assertEquals(1, encode.count());
+        assertEquals(2, matches.count());
+        assertTrue(encode.totalTime(TimeUnit.NANOSECONDS) > 0);
+    }
+}
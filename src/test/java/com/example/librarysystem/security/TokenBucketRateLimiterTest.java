@@ -0,0 +1,110 @@
+package com.example.librarysystem.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketRateLimiterTest {
+
+    private AtomicLong clock;
+    private TokenBucketRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        clock = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+        // 3 tokeny, 60 na minutę -> jeden token co sekundę
+        limiter = new TokenBucketRateLimiter(3, 60, 4, clock::get);
+    }
+
+    @Test
+    @DisplayName("tryAcquire - powinien przepuścić serię do pojemności kubełka, a potem odrzucać")
+    void testTryAcquire_allowsBurstUpToCapacity() {
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertEquals(0, limiter.tryAcquire("a"));
+
+        long wait = limiter.tryAcquire("a");
+        assertTrue(wait > 0);
+        assertTrue(wait <= TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    @DisplayName("tryAcquire - powinien odnowić token po upływie interwału")
+    void testTryAcquire_refillsOverTime() {
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("a");
+        }
+        assertTrue(limiter.tryAcquire("a") > 0);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertTrue(limiter.tryAcquire("a") > 0);
+    }
+
+    @Test
+    @DisplayName("tryAcquire - kubełki różnych kluczy powinny być niezależne")
+    void testTryAcquire_keysAreIndependent() {
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("a");
+        }
+        assertTrue(limiter.tryAcquire("a") > 0);
+        assertEquals(0, limiter.tryAcquire("b"));
+    }
+
+    @Test
+    @DisplayName("tryAcquire - liczba kubełków nie powinna przekroczyć limitu")
+    void testTryAcquire_boundsNumberOfBuckets() {
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire("key-" + i);
+        }
+        assertTrue(limiter.size() <= 4);
+    }
+
+    @Test
+    @DisplayName("tryAcquire - przy zapełnieniu powinien najpierw usuwać odnowione kubełki")
+    void testTryAcquire_evictsRefilledBucketsFirst() {
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("hot");
+        }
+        limiter.tryAcquire("idle-1");
+        limiter.tryAcquire("idle-2");
+        limiter.tryAcquire("idle-3");
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1) + 1);
+
+        limiter.tryAcquire("new");
+
+        // "hot" nadal ma zużyte tokeny, więc nie mógł zostać wyrzucony
+        assertEquals(0, limiter.tryAcquire("hot"));
+        assertTrue(limiter.tryAcquire("hot") > 0);
+    }
+
+    @Test
+    @DisplayName("tryAcquire - zalew nowymi kluczami nie usuwa kubełków z zużytymi tokenami")
+    void testTryAcquire_rejectsNewKeysInsteadOfEvictingThrottledBuckets() {
+        for (int i = 0; i < 4; i++) {
+            limiter.tryAcquire("victim");
+        }
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire("spray-" + i);
+        }
+
+        // Nowe klucze czekają na odnowienie najwcześniejszego kubełka, "victim" pozostaje zablokowany
+        long wait = limiter.tryAcquire("spray-new");
+        assertTrue(wait > 0);
+        assertTrue(wait <= TimeUnit.SECONDS.toNanos(1));
+        assertTrue(limiter.tryAcquire("victim") > 0);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+        assertEquals(0, limiter.tryAcquire("spray-new"));
+        // Odnowił się jeden token "victim", a nie cały kubełek
+        assertEquals(0, limiter.tryAcquire("victim"));
+        assertTrue(limiter.tryAcquire("victim") > 0);
+    }
+}
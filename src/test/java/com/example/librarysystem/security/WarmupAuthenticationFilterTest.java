@@ -0,0 +1,65 @@
+package com.example.librarysystem.security;
+
+import com.example.librarysystem.warmup.WarmupCredentials;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WarmupAuthenticationFilterTest {
+
+    private WarmupCredentials credentials;
+    private WarmupAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        credentials = new WarmupCredentials();
+        filter = new WarmupAuthenticationFilter(credentials);
+    }
+
+    @Test
+    @DisplayName("Poprawny token z adresu lokalnego - żądanie uwierzytelnione jako USER tylko na czas obsługi")
+    void testValidTokenFromLoopback_isAuthenticated() throws Exception {
+        Authentication authentication = perform("127.0.0.1", credentials.token());
+
+        assertNotNull(authentication);
+        assertTrue(authentication.isAuthenticated());
+        assertEquals("ROLE_USER", authentication.getAuthorities().iterator().next().getAuthority());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    @DisplayName("Token spoza maszyny lub błędny token - żądanie pozostaje anonimowe")
+    void testRemoteOrWrongToken_isIgnored() throws Exception {
+        assertNull(perform("10.0.0.1", credentials.token()));
+        assertNull(perform("127.0.0.1", "not-the-token"));
+        assertNull(perform("127.0.0.1", null));
+    }
+
+    @Test
+    @DisplayName("Po zakończeniu rozgrzewki token przestaje działać")
+    void testRevokedToken_isIgnored() throws Exception {
+        credentials.revoke();
+
+        assertNull(perform("::1", credentials.token()));
+    }
+
+    private Authentication perform(String remoteAddress, String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books");
+        request.setRemoteAddr(remoteAddress);
+        if (token != null) {
+            request.addHeader(WarmupCredentials.HEADER, token);
+        }
+        AtomicReference<Authentication> seen = new AtomicReference<>();
+        filter.doFilter(request, new MockHttpServletResponse(),
+                (req, res) -> seen.set(SecurityContextHolder.getContext().getAuthentication()));
+        return seen.get();
+    }
+}
@@ -1,6 +1,12 @@
 package com.example.librarysystem.service;
 
+import com.example.librarysystem.dto.BookPatch;
 import com.example.librarysystem.entity.Book;
+import com.example.librarysystem.entity.Genre;
+import com.example.librarysystem.event.EntityChangedEvent;
+import com.example.librarysystem.exception.BadRequestException;
+import com.example.librarysystem.exception.ConflictException;
+import com.example.librarysystem.exception.ResourceNotFoundException;
 import com.example.librarysystem.repository.BookRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -9,10 +15,12 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -27,6 +35,12 @@ class BookServiceTest {
     @Mock
     private BookRepository bookRepository;
 
+    @Mock
+    private GenreService genreService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private BookService bookService;
 
@@ -40,7 +54,7 @@ class BookServiceTest {
         book1.setTitle("Władca Pierścieni");
         book1.setAuthor("J.R.R. Tolkien");
         book1.setIsbn("978-0618260274");
-        book1.setGenre("Fantasy");
+        book1.setGenre(Genre.of("Fantasy"));
         book1.setPublisher("Allen & Unwin");
         book1.setPublicationYear(1954);
 
@@ -86,6 +100,9 @@ class BookServiceTest {
 
         assertTrue(foundBookOptional.isPresent());
         assertEquals(book1.getTitle(), foundBookOptional.get().getTitle());
+        assertEquals("FANTASY", foundBookOptional.get().getGenre().getName());
+        // Do cache trafia kopia, a nie encja z sesji
+        assertNotSame(book1, foundBookOptional.get());
         verify(bookRepository, times(1)).findById(1L);
     }
 
@@ -100,6 +117,29 @@ class BookServiceTest {
         verify(bookRepository, times(1)).findById(3L);
     }
 
+    @Test
+    @DisplayName("getBooksByGenre - powinien szukać po ID gatunku ze słownika")
+    void testGetBooksByGenre_shouldQueryByGenreId() {
+        Genre fantasy = mock(Genre.class);
+        when(fantasy.getId()).thenReturn((short) 7);
+        when(genreService.findByName("fantasy")).thenReturn(Optional.of(fantasy));
+        when(bookRepository.findByGenreId((short) 7)).thenReturn(Collections.singletonList(book1));
+
+        List<Book> books = bookService.getBooksByGenre("fantasy");
+
+        assertEquals(1, books.size());
+        verify(bookRepository, times(1)).findByGenreId((short) 7);
+    }
+
+    @Test
+    @DisplayName("getBooksByGenre - powinien zwrócić pustą listę dla nieznanego gatunku")
+    void testGetBooksByGenre_whenGenreUnknown() {
+        when(genreService.findByName("unknown")).thenReturn(Optional.empty());
+
+        assertTrue(bookService.getBooksByGenre("unknown").isEmpty());
+        verify(bookRepository, never()).findByGenreId(any());
+    }
+
     @Test
     @DisplayName("addBook - powinien dodać nową książkę, gdy ISBN jest unikalny")
     void testAddBook_shouldAddNewBookWhenIsbnIsUnique() {
@@ -109,7 +149,12 @@ class BookServiceTest {
         newBook.setIsbn("123-4567890123");
 
         when(bookRepository.findByIsbn(newBook.getIsbn())).thenReturn(Optional.empty());
-        when(bookRepository.save(any(Book.class))).thenReturn(newBook);
+        when(bookRepository.save(any(Book.class))).thenAnswer(invocation -> {
+            Book saved = invocation.getArgument(0);
+            saved.setId(10L);
+            saved.setVersion(0L);
+            return saved;
+        });
 
         Book createdBook = bookService.addBook(newBook);
 
@@ -117,6 +162,7 @@ class BookServiceTest {
         assertEquals("Nowa Książka", createdBook.getTitle());
         verify(bookRepository, times(1)).findByIsbn(newBook.getIsbn());
         verify(bookRepository, times(1)).save(newBook);
+        verify(eventPublisher).publishEvent(EntityChangedEvent.book(EntityChangedEvent.Operation.CREATED, 10L, 0L));
     }
 
     @Test
@@ -133,7 +179,7 @@ class BookServiceTest {
         when(bookRepository.findByIsbn(newBookTryingToAdd.getIsbn()))
                 .thenReturn(Optional.of(existingBook));
 
-        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> {
+        ConflictException exception = assertThrows(ConflictException.class, () -> {
             bookService.addBook(newBookTryingToAdd);
         });
 
@@ -151,9 +197,10 @@ class BookServiceTest {
         bookDetailsToUpdate.setIsbn("978-0000000001");
         bookDetailsToUpdate.setPublisher("Nowy Wydawca");
         bookDetailsToUpdate.setPublicationYear(2025);
-        bookDetailsToUpdate.setGenre("High Fantasy");
+        bookDetailsToUpdate.setGenre(Genre.of("High Fantasy"));
 
         when(bookRepository.findById(1L)).thenReturn(Optional.of(book1));
+        when(genreService.resolve(any(Genre.class))).thenAnswer(invocation -> invocation.getArgument(0));
         when(bookRepository.save(any(Book.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         Book updatedBook = bookService.updateBook(1L, bookDetailsToUpdate);
@@ -165,7 +212,7 @@ class BookServiceTest {
         assertEquals("978-0000000001", updatedBook.getIsbn());
         assertEquals("Nowy Wydawca", updatedBook.getPublisher());
         assertEquals(2025, updatedBook.getPublicationYear());
-        assertEquals("High Fantasy", updatedBook.getGenre());
+        assertEquals("HIGH FANTASY", updatedBook.getGenre().getName());
 
         verify(bookRepository, times(1)).findById(1L);
         verify(bookRepository, times(1)).save(any(Book.class));
@@ -178,7 +225,7 @@ class BookServiceTest {
         bookDetailsToUpdate.setTitle("Nieistniejąca Książka Aktualizacja");
         when(bookRepository.findById(3L)).thenReturn(Optional.empty());
 
-        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+        ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () -> {
             bookService.updateBook(3L, bookDetailsToUpdate);
         });
         assertEquals("Book not found with id: 3", exception.getMessage());
@@ -186,26 +233,79 @@ class BookServiceTest {
         verify(bookRepository, never()).save(any(Book.class));
     }
 
+    @Test
+    @DisplayName("updateBook - powinien zgłosić konflikt, gdy podana wersja jest nieaktualna")
+    void testUpdateBook_shouldThrowConflictWhenVersionIsStale() {
+        book1.setVersion(3L);
+        Book bookDetailsToUpdate = new Book();
+        bookDetailsToUpdate.setTitle("Zmiana na starej wersji");
+        bookDetailsToUpdate.setVersion(2L);
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book1));
+
+        assertThrows(ConflictException.class, () -> bookService.updateBook(1L, bookDetailsToUpdate));
+        verify(bookRepository, never()).save(any(Book.class));
+    }
+
+    @Test
+    @DisplayName("patchBook - powinien zaktualizować tylko podane pola jednym zapytaniem")
+    void testPatchBook_shouldUpdateOnlyGivenFields() {
+        when(bookRepository.updateFields(eq(1L), eq(4L), anyMap())).thenReturn(1);
+
+        long newVersion = bookService.patchBook(1L, new BookPatch("Nowy tytuł", null, null, null, 2001, null, 4L));
+
+        assertEquals(5L, newVersion);
+        verify(bookRepository).updateFields(1L, 4L, Map.of("title", "Nowy tytuł", "publicationYear", 2001));
+        verify(bookRepository, never()).findById(anyLong());
+        verify(bookRepository, never()).save(any(Book.class));
+    }
+
+    @Test
+    @DisplayName("patchBook - powinien zgłosić konflikt, gdy wersja się nie zgadza")
+    void testPatchBook_shouldThrowConflictWhenVersionDiffers() {
+        when(bookRepository.updateFields(eq(1L), eq(4L), anyMap())).thenReturn(0);
+        when(bookRepository.existsById(1L)).thenReturn(true);
+
+        assertThrows(ConflictException.class,
+                () -> bookService.patchBook(1L, new BookPatch("Nowy tytuł", null, null, null, null, null, 4L)));
+    }
+
+    @Test
+    @DisplayName("patchBook - powinien rzucić wyjątek, gdy książka nie istnieje")
+    void testPatchBook_shouldThrowWhenBookDoesNotExist() {
+        when(bookRepository.updateFields(eq(3L), eq(0L), anyMap())).thenReturn(0);
+        when(bookRepository.existsById(3L)).thenReturn(false);
+
+        ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class,
+                () -> bookService.patchBook(3L, new BookPatch("Nowy tytuł", null, null, null, null, null, 0L)));
+        assertEquals("Book not found with id: 3", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("patchBook - powinien wymagać wersji")
+    void testPatchBook_shouldRequireVersion() {
+        assertThrows(BadRequestException.class,
+                () -> bookService.patchBook(1L, new BookPatch("Nowy tytuł", null, null, null, null, null, null)));
+        verifyNoInteractions(bookRepository);
+    }
+
     @Test
     @DisplayName("deleteBook - powinien usunąć książkę, gdy ID istnieje")
     void testDeleteBook_shouldDeleteBookWhenBookExists() {
-        when(bookRepository.existsById(1L)).thenReturn(true);
-        doNothing().when(bookRepository).deleteById(1L);
+        when(bookRepository.removeById(1L)).thenReturn(1);
 
         assertDoesNotThrow(() -> bookService.deleteBook(1L));
-        verify(bookRepository, times(1)).existsById(1L);
-        verify(bookRepository, times(1)).deleteById(1L);
+        verify(bookRepository, times(1)).removeById(1L);
+        verify(bookRepository, never()).existsById(anyLong());
     }
 
     @Test
     @DisplayName("deleteBook - powinien rzucić wyjątek, gdy usuwana książka nie istnieje")
     void testDeleteBook_shouldThrowExceptionWhenBookDoesNotExist() {
-        when(bookRepository.existsById(3L)).thenReturn(false);
-        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+        when(bookRepository.removeById(3L)).thenReturn(0);
+        ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () -> {
             bookService.deleteBook(3L);
         });
         assertEquals("Book not found with id: 3", exception.getMessage());
-        verify(bookRepository, times(1)).existsById(3L);
-        verify(bookRepository, never()).deleteById(anyLong());
+        verify(bookRepository, times(1)).removeById(3L);
     }
 }
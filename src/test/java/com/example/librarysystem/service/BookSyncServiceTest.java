@@ -0,0 +1,134 @@
+package com.example.librarysystem.service;
+
+import com.example.librarysystem.dto.BookSyncPage;
+import com.example.librarysystem.entity.Book;
+import com.example.librarysystem.entity.OutboxEvent;
+import com.example.librarysystem.event.ChangeCursor;
+import com.example.librarysystem.event.EntityChangedEvent;
+import com.example.librarysystem.event.EntityChangedEvent.Operation;
+import com.example.librarysystem.exception.BadRequestException;
+import com.example.librarysystem.exception.GoneException;
+import com.example.librarysystem.repository.BookRepository;
+import com.example.librarysystem.repository.OutboxEventRepository;
+import com.example.librarysystem.sync.SyncProperties;
+import com.example.librarysystem.sync.SyncToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BookSyncServiceTest {
+
+    private final BookRepository bookRepository = mock(BookRepository.class);
+    private final OutboxEventRepository outboxEventRepository = mock(OutboxEventRepository.class);
+    private BookSyncService bookSyncService;
+
+    @BeforeEach
+    void setUp() {
+        bookSyncService = new BookSyncService(bookRepository, outboxEventRepository,
+                new SyncProperties(2, 10, Duration.ofDays(6)));
+    }
+
+    @Test
+    @DisplayName("sync - bez tokenu zaczyna pełną kopię od bieżącej pozycji kanału")
+    void testSync_withoutToken_startsSnapshotAtHead() {
+        when(outboxEventRepository.findLastCommitted())
+                .thenReturn(Optional.of(row(50, 9, EntityChangedEvent.book(Operation.UPDATED, 1, 1L))));
+        when(bookRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(3))).thenReturn(List.of(book(1), book(2), book(3)));
+
+        BookSyncPage page = bookSyncService.sync(null, null);
+
+        assertEquals(List.of(1L, 2L), page.upserts().stream().map(Book::getId).toList());
+        assertTrue(page.deletes().isEmpty());
+        assertTrue(page.hasMore());
+        SyncToken next = SyncToken.decode(page.token());
+        assertEquals(new ChangeCursor(50, 9), next.position());
+        assertEquals(2L, next.snapshotAfterId());
+    }
+
+    @Test
+    @DisplayName("sync - ostatnia strona pełnej kopii przechodzi w tryb przyrostowy od pozycji z początku kopii")
+    void testSync_lastSnapshotPage_switchesToDelta() {
+        Instant started = Instant.now().minusSeconds(60);
+        String token = new SyncToken(new ChangeCursor(50, 9), started, 2L).encode();
+        when(bookRepository.findByIdGreaterThanOrderByIdAsc(2L, Limit.of(3))).thenReturn(List.of(book(3)));
+
+        BookSyncPage page = bookSyncService.sync(token, null);
+
+        assertEquals(1, page.upserts().size());
+        SyncToken next = SyncToken.decode(page.token());
+        assertFalse(next.isSnapshot());
+        assertEquals(new ChangeCursor(50, 9), next.position());
+        assertEquals(started.getEpochSecond(), next.positionTime().getEpochSecond());
+    }
+
+    @Test
+    @DisplayName("sync - zmiany od tokenu: aktualny stan zmienionych książek i tombstones usuniętych")
+    void testSync_delta_returnsUpsertsAndTombstones() {
+        String token = SyncToken.delta(new ChangeCursor(50, 9), Instant.now()).encode();
+        when(outboxEventRepository.findCommittedAfterOfType("BOOK", 50, 9, 11)).thenReturn(List.of(
+                row(51, 10, EntityChangedEvent.book(Operation.UPDATED, 4, 2L)),
+                row(52, 11, EntityChangedEvent.book(Operation.DELETED, 4, null)),
+                row(53, 12, EntityChangedEvent.book(Operation.CREATED, 7, 0L)),
+                row(54, 13, EntityChangedEvent.book(Operation.UPDATED, 8, 3L))));
+        // Książka 8 została usunięta w transakcji, której zmiana będzie na następnej stronie
+        when(bookRepository.findByIdIn(Set.of(7L, 8L))).thenReturn(List.of(book(7)));
+
+        BookSyncPage page = bookSyncService.sync(token, 10);
+
+        assertEquals(List.of(7L), page.upserts().stream().map(Book::getId).toList());
+        assertEquals(List.of(4L, 8L), page.deletes());
+        assertFalse(page.hasMore());
+        assertEquals(new ChangeCursor(54, 13), SyncToken.decode(page.token()).position());
+    }
+
+    @Test
+    @DisplayName("sync - bez nowych zmian token zachowuje pozycję, ale odświeża jej czas")
+    void testSync_deltaWithoutChanges_keepsPosition() {
+        Instant old = Instant.now().minus(Duration.ofDays(5));
+        String token = SyncToken.delta(new ChangeCursor(50, 9), old).encode();
+        when(outboxEventRepository.findCommittedAfterOfType("BOOK", 50, 9, 3)).thenReturn(List.of());
+        when(bookRepository.findByIdIn(Set.of())).thenReturn(List.of());
+
+        BookSyncPage page = bookSyncService.sync(token, null);
+
+        SyncToken next = SyncToken.decode(page.token());
+        assertEquals(new ChangeCursor(50, 9), next.position());
+        assertTrue(next.positionTime().isAfter(old));
+        assertFalse(page.hasMore());
+    }
+
+    @Test
+    @DisplayName("sync - token starszy niż historia zmian kończy się 410, a nieczytelny 400")
+    void testSync_expiredOrInvalidToken_throws() {
+        String expired = SyncToken.delta(new ChangeCursor(50, 9), Instant.now().minus(Duration.ofDays(7))).encode();
+
+        assertThrows(GoneException.class, () -> bookSyncService.sync(expired, null));
+        assertThrows(BadRequestException.class, () -> bookSyncService.sync("not-a-token", null));
+        verifyNoInteractions(outboxEventRepository, bookRepository);
+    }
+
+    private static Book book(long id) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle("Book " + id);
+        return book;
+    }
+
+    private static OutboxEvent row(long txId, long id, EntityChangedEvent event) {
+        OutboxEvent row = new OutboxEvent(event, Instant.now());
+        ReflectionTestUtils.setField(row, "id", id);
+        ReflectionTestUtils.setField(row, "txId", Long.toString(txId));
+        return row;
+    }
+}
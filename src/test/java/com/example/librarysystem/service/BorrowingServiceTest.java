@@ -2,8 +2,13 @@ package com.example.librarysystem.service;
 
 import com.example.librarysystem.entity.Book;
 import com.example.librarysystem.entity.Borrowing;
+import com.example.librarysystem.entity.BorrowingHistory;
+import com.example.librarysystem.entity.Role;
 import com.example.librarysystem.entity.User;
+import com.example.librarysystem.exception.ConflictException;
+import com.example.librarysystem.exception.ResourceNotFoundException;
 import com.example.librarysystem.repository.BookRepository;
+import com.example.librarysystem.repository.BorrowingHistoryRepository;
 import com.example.librarysystem.repository.BorrowingRepository;
 import com.example.librarysystem.repository.UserRepository;
 import com.example.librarysystem.service.policy.LoanPolicy;
@@ -14,6 +19,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDate;
 import java.util.Arrays;
@@ -30,6 +36,9 @@ class BorrowingServiceTest {
     @Mock
     private BorrowingRepository borrowingRepository;
 
+    @Mock
+    private BorrowingHistoryRepository borrowingHistoryRepository;
+
     @Mock
     private UserRepository userRepository;
 
@@ -39,6 +48,9 @@ class BorrowingServiceTest {
     @Mock
     private LoanPolicy loanPolicy;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private BorrowingService borrowingService;
 
@@ -56,7 +68,7 @@ class BorrowingServiceTest {
         user = new User();
         user.setId(1L);
         user.setUsername("testUser");
-        user.setRole("ROLE_USER");
+        user.setRole(Role.USER);
 
         book = new Book();
         book.setId(1L);
@@ -110,7 +122,7 @@ class BorrowingServiceTest {
     void testBorrowBook_userNotFound() {
         when(userRepository.findById(1L)).thenReturn(Optional.empty());
 
-        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+        ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () -> {
             borrowingService.borrowBook(1L, 1L);
         });
         assertEquals("User not found with id: 1", exception.getMessage());
@@ -126,7 +138,7 @@ class BorrowingServiceTest {
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
         when(bookRepository.findById(1L)).thenReturn(Optional.empty());
 
-        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+        ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () -> {
             borrowingService.borrowBook(1L, 1L);
         });
         assertEquals("Book not found with id: 1", exception.getMessage());
@@ -151,12 +163,27 @@ class BorrowingServiceTest {
         verify(loanPolicy, never()).calculateDueDate(any(), any(), any());
     }
 
+    @Test
+    @DisplayName("returnBook - świeże wypożyczenie znajduje w partycjach z ostatniego miesiąca, bez szukania po samym ID")
+    void testReturnBook_recentBorrowing_skipsFullLookup() {
+        borrowing1.setDueDate(dueDateFromPolicy);
+        borrowing1.setReturnDate(null);
+        when(borrowingRepository.findByIdAndBorrowDateGreaterThanEqual(1L, today.minus(BorrowingService.RECENT_LOANS)))
+                .thenReturn(Optional.of(borrowing1));
+        when(borrowingRepository.save(any(Borrowing.class))).thenReturn(borrowing1);
+
+        borrowingService.returnBook(1L);
+
+        verify(borrowingRepository, never()).findById(anyLong());
+        assertEquals(today, borrowing1.getReturnDate());
+    }
+
     @Test
     @DisplayName("returnBook - powinien rzucić wyjątek, gdy wypożyczenie nie istnieje")
     void testReturnBook_borrowingNotFound() {
         when(borrowingRepository.findById(1L)).thenReturn(Optional.empty());
 
-        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+        ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () -> {
             borrowingService.returnBook(1L);
         });
         assertEquals("Borrowing record not found with id: 1", exception.getMessage());
@@ -170,13 +197,27 @@ class BorrowingServiceTest {
         borrowing1.setReturnDate(today.minusDays(1));
         when(borrowingRepository.findById(1L)).thenReturn(Optional.of(borrowing1));
 
-        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> {
+        ConflictException exception = assertThrows(ConflictException.class, () -> {
             borrowingService.returnBook(1L);
         });
         assertTrue(exception.getMessage().contains("Book already returned on"));
         verify(loanPolicy, never()).calculateDueDate(any(), any(), any());
     }
 
+    @Test
+    @DisplayName("returnBook - wypożyczenie przeniesione do historii jest już zwrócone")
+    void testReturnBook_archivedBorrowing() {
+        BorrowingHistory archived = mock(BorrowingHistory.class);
+        when(archived.getReturnDate()).thenReturn(today.minusYears(2));
+        when(borrowingRepository.findById(1L)).thenReturn(Optional.empty());
+        when(borrowingHistoryRepository.findById(1L)).thenReturn(Optional.of(archived));
+
+        ConflictException exception = assertThrows(ConflictException.class, () -> borrowingService.returnBook(1L));
+
+        assertEquals("Book already returned on " + today.minusYears(2), exception.getMessage());
+        verify(borrowingRepository, never()).save(any(Borrowing.class));
+    }
+
     @Test
     @DisplayName("getAllBorrowings - powinien zwrócić listę wszystkich wypożyczeń")
     void testGetAllBorrowings() {
@@ -193,6 +234,21 @@ class BorrowingServiceTest {
         verify(loanPolicy, never()).calculateDueDate(any(), any(), any());
     }
 
+    @Test
+    @DisplayName("getAllBorrowings - najpierw wypożyczenia z historii, potem bieżące")
+    void testGetAllBorrowings_mergesArchived() {
+        Borrowing old = new Borrowing(user, book, today.minusYears(2), today.minusYears(2).plusDays(14));
+        old.setId(7L);
+        BorrowingHistory archived = mock(BorrowingHistory.class);
+        when(archived.toBorrowing()).thenReturn(old);
+        when(borrowingRepository.findAll()).thenReturn(List.of(borrowing1));
+        when(borrowingHistoryRepository.findAllByOrderByBorrowDateAscIdAsc()).thenReturn(List.of(archived));
+
+        assertEquals(List.of(old, borrowing1), borrowingService.getAllBorrowings());
+        assertEquals(List.of(borrowing1), borrowingService.getAllBorrowings(false));
+        verify(borrowingHistoryRepository, times(1)).findAllByOrderByBorrowDateAscIdAsc();
+    }
+
     @Test
     @DisplayName("getBorrowingsForUser - powinien zwrócić wypożyczenia dla danego użytkownika")
     void testGetBorrowingsForUser_success() {
@@ -215,11 +271,27 @@ class BorrowingServiceTest {
     void testGetBorrowingsForUser_userNotFound() {
         when(userRepository.findById(1L)).thenReturn(Optional.empty());
 
-        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+        ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () -> {
             borrowingService.getBorrowingsForUser(1L);
         });
         assertEquals("User not found with id: 1", exception.getMessage());
         verify(borrowingRepository, never()).findByUser(any(User.class));
         verify(loanPolicy, never()).calculateDueDate(any(), any(), any());
     }
+
+    @Test
+    @DisplayName("getBorrowingsForUser - najpierw wypożyczenia z historii, potem bieżące")
+    void testGetBorrowingsForUser_mergesArchived() {
+        Borrowing old = new Borrowing(user, book, today.minusYears(2), today.minusYears(2).plusDays(14));
+        old.setId(7L);
+        BorrowingHistory archived = mock(BorrowingHistory.class);
+        when(archived.toBorrowing()).thenReturn(old);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(borrowingRepository.findByUser(user)).thenReturn(List.of(borrowing1));
+        when(borrowingHistoryRepository.findByUserOrderByBorrowDateAscIdAsc(user)).thenReturn(List.of(archived));
+
+        assertEquals(List.of(old, borrowing1), borrowingService.getBorrowingsForUser(1L, true));
+        assertEquals(List.of(borrowing1), borrowingService.getBorrowingsForUser(1L, false));
+        verify(borrowingHistoryRepository, times(1)).findByUserOrderByBorrowDateAscIdAsc(user);
+    }
 }
@@ -0,0 +1,103 @@
+package com.example.librarysystem.service;
+
+import com.example.librarysystem.dto.ChangeFeedPage;
+import com.example.librarysystem.entity.OutboxEvent;
+import com.example.librarysystem.event.EntityChangedEvent;
+import com.example.librarysystem.event.EntityChangedEvent.Operation;
+import com.example.librarysystem.event.OutboxProperties;
+import com.example.librarysystem.exception.BadRequestException;
+import com.example.librarysystem.repository.OutboxEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ChangeFeedServiceTest {
+
+    private final OutboxEventRepository outboxEventRepository = mock(OutboxEventRepository.class);
+    private ChangeFeedService changeFeedService;
+
+    @BeforeEach
+    void setUp() {
+        OutboxProperties properties = new OutboxProperties(Duration.ofDays(7), Duration.ofHours(1), 100, 2, 3);
+        changeFeedService = new ChangeFeedService(outboxEventRepository, properties);
+    }
+
+    @Test
+    @DisplayName("getChanges - bez kursora czyta od początku kanału, a next wskazuje ostatnią zwróconą zmianę")
+    void testGetChanges_withoutCursor_startsAtBeginning() {
+        when(outboxEventRepository.findCommittedAfter(0, 0, 3))
+                .thenReturn(List.of(row(10, 1, EntityChangedEvent.book(Operation.CREATED, 5, 0L)),
+                        row(12, 2, EntityChangedEvent.borrowed(7, 1, 5, (short) 2, LocalDate.of(2024, 5, 20)))));
+
+        ChangeFeedPage page = changeFeedService.getChanges(null, null);
+
+        assertEquals(2, page.changes().size());
+        assertEquals("10-1", page.changes().get(0).cursor());
+        assertEquals(Operation.BORROWED, page.changes().get(1).operation());
+        assertEquals(5L, page.changes().get(1).details().get("bookId"));
+        assertEquals("12-2", page.next());
+        assertFalse(page.hasMore());
+    }
+
+    @Test
+    @DisplayName("getChanges - dodatkowy wiersz oznacza kolejną stronę i nie trafia do odpowiedzi")
+    void testGetChanges_extraRow_setsHasMore() {
+        when(outboxEventRepository.findCommittedAfter(10, 1, 2))
+                .thenReturn(List.of(row(11, 2, EntityChangedEvent.user(Operation.UPDATED, 3, 4L)),
+                        row(11, 3, EntityChangedEvent.user(Operation.DELETED, 4, null))));
+
+        ChangeFeedPage page = changeFeedService.getChanges("10-1", 1);
+
+        assertEquals(1, page.changes().size());
+        assertEquals("11-2", page.next());
+        assertTrue(page.hasMore());
+    }
+
+    @Test
+    @DisplayName("getChanges - bez nowych zmian next pozostaje kursorem odbiorcy, a limit jest przycinany do maksimum")
+    void testGetChanges_noChanges_keepsCursor() {
+        when(outboxEventRepository.findCommittedAfter(42, 7, 4)).thenReturn(List.of());
+
+        ChangeFeedPage page = changeFeedService.getChanges("42-7", 1000);
+
+        assertTrue(page.changes().isEmpty());
+        assertEquals("42-7", page.next());
+    }
+
+    @Test
+    @DisplayName("getChanges - nieprawidłowy kursor lub limit kończy się BadRequestException (400)")
+    void testGetChanges_invalidArguments_throw() {
+        assertThrows(BadRequestException.class, () -> changeFeedService.getChanges("garbage", null));
+        assertThrows(BadRequestException.class, () -> changeFeedService.getChanges("1--2", null));
+        assertThrows(BadRequestException.class, () -> changeFeedService.getChanges(null, 0));
+        verifyNoInteractions(outboxEventRepository);
+    }
+
+    @Test
+    @DisplayName("purgeExpired - usuwa partiami, dopóki partia jest pełna")
+    void testPurgeExpired_deletesInBatches() {
+        when(outboxEventRepository.deleteOlderThan(any(Instant.class), anyInt())).thenReturn(100, 100, 30);
+
+        assertEquals(230, changeFeedService.purgeExpired());
+        verify(outboxEventRepository, times(3)).deleteOlderThan(any(Instant.class), eq(100));
+    }
+
+    private static OutboxEvent row(long txId, long id, EntityChangedEvent event) {
+        OutboxEvent row = new OutboxEvent(event, Instant.now());
+        ReflectionTestUtils.setField(row, "id", id);
+        ReflectionTestUtils.setField(row, "txId", Long.toString(txId));
+        return row;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.librarysystem.service;
+
+import com.example.librarysystem.entity.Genre;
+import com.example.librarysystem.repository.GenreRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GenreServiceTest {
+
+    @Mock
+    private GenreRepository genreRepository;
+
+    @InjectMocks
+    private GenreService genreService;
+
+    @Test
+    @DisplayName("resolve - powinien zwrócić null, gdy nie podano gatunku")
+    void testResolve_whenGenreIsNull() {
+        assertNull(genreService.resolve(null));
+        verifyNoInteractions(genreRepository);
+    }
+
+    @Test
+    @DisplayName("resolve - istniejący gatunek powinien być pobrany z bazy tylko raz")
+    void testResolve_shouldRememberExistingGenre() {
+        Genre stored = Genre.of("Fantasy");
+        when(genreRepository.insertIfAbsent("FANTASY")).thenReturn(0);
+        when(genreRepository.findByName("FANTASY")).thenReturn(Optional.of(stored));
+
+        Genre first = genreService.resolve(Genre.of("fantasy "));
+        Genre second = genreService.resolve(Genre.of("FANTASY"));
+
+        assertSame(stored, first);
+        assertSame(stored, second);
+        verify(genreRepository, times(1)).findByName("FANTASY");
+    }
+
+    @Test
+    @DisplayName("resolve - świeżo wstawiony gatunek nie powinien trafić do pamięci przed zatwierdzeniem")
+    void testResolve_shouldNotRememberGenreCreatedInCurrentTransaction() {
+        when(genreRepository.insertIfAbsent("POETRY")).thenReturn(1, 0);
+        when(genreRepository.findByName("POETRY")).thenReturn(Optional.of(Genre.of("Poetry")));
+
+        genreService.resolve(Genre.of("Poetry"));
+        genreService.resolve(Genre.of("Poetry"));
+        genreService.resolve(Genre.of("Poetry"));
+
+        verify(genreRepository, times(2)).insertIfAbsent("POETRY");
+    }
+
+    @Test
+    @DisplayName("findByName - powinien ignorować wielkość liter i pusty tekst")
+    void testFindByName_normalizesName() {
+        when(genreRepository.findByName("SCIENCE")).thenReturn(Optional.of(Genre.of("Science")));
+
+        assertTrue(genreService.findByName("science").isPresent());
+        assertTrue(genreService.findByName("  ").isEmpty());
+        verify(genreRepository, times(1)).findByName("SCIENCE");
+    }
+}
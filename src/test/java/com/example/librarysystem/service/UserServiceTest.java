@@ -1,6 +1,10 @@
 package com.example.librarysystem.service;
 
+import com.example.librarysystem.dto.UserPatch;
+import com.example.librarysystem.entity.Role;
 import com.example.librarysystem.entity.User;
+import com.example.librarysystem.exception.ConflictException;
+import com.example.librarysystem.exception.ResourceNotFoundException;
 import com.example.librarysystem.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -9,12 +13,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -29,6 +35,9 @@ class UserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder; // <--- Mock dla PasswordEncoder
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private UserService userService;
 
@@ -41,13 +50,13 @@ class UserServiceTest {
         user1.setId(1L);
         user1.setUsername("testUser1");
         user1.setPassword("hashedPassword1"); // Zakładamy, że hasło jest już zahashowane w mocku
-        user1.setRole("ROLE_USER");
+        user1.setRole(Role.USER);
 
         user2 = new User();
         user2.setId(2L);
         user2.setUsername("adminUser");
         user2.setPassword("hashedPasswordAdmin");
-        user2.setRole("ROLE_ADMIN");
+        user2.setRole(Role.ADMIN);
     }
 
     @Test
@@ -106,7 +115,7 @@ class UserServiceTest {
         User newUser = new User();
         newUser.setUsername("newUser");
         newUser.setPassword("plainPassword");
-        newUser.setRole("USER"); // Rola bez prefiksu, serwis powinien go dodać
+        newUser.setRole(Role.fromString("USER")); // Rola bez prefiksu, powinna zostać rozpoznana
 
         String hashedPassword = "hashedNewPassword";
         when(userRepository.findByUsername("newUser")).thenReturn(Optional.empty());
@@ -123,7 +132,7 @@ class UserServiceTest {
         assertNotNull(createdUser);
         assertEquals("newUser", createdUser.getUsername());
         assertEquals(hashedPassword, createdUser.getPassword()); // Sprawdzamy, czy hasło zostało zahashowane
-        assertEquals("ROLE_USER", createdUser.getRole()); // Sprawdzamy, czy rola została znormalizowana
+        assertEquals(Role.USER, createdUser.getRole()); // Sprawdzamy, czy rola została znormalizowana
         assertNotNull(createdUser.getId());
 
         verify(userRepository, times(1)).findByUsername("newUser");
@@ -137,16 +146,16 @@ class UserServiceTest {
         User existingUser = new User();
         existingUser.setUsername("existingUser");
         existingUser.setPassword("password");
-        existingUser.setRole("ROLE_USER");
+        existingUser.setRole(Role.USER);
 
         when(userRepository.findByUsername("existingUser")).thenReturn(Optional.of(existingUser));
 
         User newUser = new User();
         newUser.setUsername("existingUser"); // Ta sama nazwa użytkownika
         newUser.setPassword("newPassword");
-        newUser.setRole("ROLE_USER");
+        newUser.setRole(Role.USER);
 
-        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> {
+        ConflictException exception = assertThrows(ConflictException.class, () -> {
             userService.createUser(newUser);
         });
         assertEquals("Username existingUser is already taken.", exception.getMessage());
@@ -163,7 +172,7 @@ class UserServiceTest {
         User userDetailsToUpdate = new User();
         userDetailsToUpdate.setUsername("updatedUser1"); // Nowa nazwa użytkownika
         userDetailsToUpdate.setPassword("newPlainPassword"); // Nowe hasło
-        userDetailsToUpdate.setRole("ADMIN"); // Nowa rola bez prefixu
+        userDetailsToUpdate.setRole(Role.fromString("ADMIN")); // Nowa rola bez prefixu
 
         String newHashedPassword = "newHashedPassword";
 
@@ -177,7 +186,7 @@ class UserServiceTest {
         assertNotNull(updatedUser);
         assertEquals("updatedUser1", updatedUser.getUsername());
         assertEquals(newHashedPassword, updatedUser.getPassword());
-        assertEquals("ROLE_ADMIN", updatedUser.getRole()); // Sprawdzenie normalizacji roli
+        assertEquals(Role.ADMIN, updatedUser.getRole()); // Sprawdzenie normalizacji roli
         assertEquals(1L, updatedUser.getId());
 
         verify(userRepository, times(1)).findById(1L);
@@ -208,15 +217,46 @@ class UserServiceTest {
     }
 
 
+    @Test
+    @DisplayName("patchUser - powinien zahashować hasło i zaktualizować tylko podane pola")
+    void testPatchUser_shouldHashPasswordAndUpdateGivenFields() {
+        when(passwordEncoder.encode("newPlainPassword")).thenReturn("newHash");
+        when(userRepository.updateFields(eq(1L), eq(2L), anyMap())).thenReturn(1);
+
+        long newVersion = userService.patchUser(1L, new UserPatch(null, "newPlainPassword", Role.ADMIN, 2L));
+
+        assertEquals(3L, newVersion);
+        verify(userRepository).updateFields(1L, 2L, Map.of("password", "newHash", "role", Role.ADMIN));
+        verify(userRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    @DisplayName("patchUser - powinien zgłosić konflikt, gdy wersja się nie zgadza")
+    void testPatchUser_shouldThrowConflictWhenVersionDiffers() {
+        when(userRepository.updateFields(eq(1L), eq(2L), anyMap())).thenReturn(0);
+        when(userRepository.existsById(1L)).thenReturn(true);
+
+        assertThrows(ConflictException.class,
+                () -> userService.patchUser(1L, new UserPatch("renamed", null, null, 2L)));
+    }
+
     @Test
     @DisplayName("Powinien usunąć użytkownika po ID")
     void testDeleteUser_whenUserExists() {
-        when(userRepository.existsById(1L)).thenReturn(true);
-        doNothing().when(userRepository).deleteById(1L);
+        when(userRepository.removeById(1L)).thenReturn(1);
 
         assertDoesNotThrow(() -> userService.deleteUser(1L));
 
-        verify(userRepository, times(1)).existsById(1L);
-        verify(userRepository, times(1)).deleteById(1L);
+        verify(userRepository, times(1)).removeById(1L);
+        verify(userRepository, never()).existsById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Powinien rzucić wyjątek przy usuwaniu nieistniejącego użytkownika")
+    void testDeleteUser_whenUserDoesNotExist() {
+        when(userRepository.removeById(3L)).thenReturn(0);
+
+        ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () -> userService.deleteUser(3L));
+        assertEquals("User not found with id: 3", exception.getMessage());
     }
 }
\ No newline at end of file
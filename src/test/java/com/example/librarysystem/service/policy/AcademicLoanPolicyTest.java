@@ -1,6 +1,8 @@
 package com.example.librarysystem.service.policy;
 
 import com.example.librarysystem.entity.Book;
+import com.example.librarysystem.entity.Genre;
+import com.example.librarysystem.entity.Role;
 import com.example.librarysystem.entity.User;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -31,7 +33,7 @@ class AcademicLoanPolicyTest {
         dummyUser = new User();
         dummyUser.setId(1L);
         dummyUser.setUsername("studentUser");
-        dummyUser.setRole("ROLE_USER");
+        dummyUser.setRole(Role.USER);
 
         baseDate = LocalDate.of(2025, 6, 1);
     }
@@ -39,7 +41,7 @@ class AcademicLoanPolicyTest {
     @Test
     @DisplayName("calculateDueDate: gdy gatunek = BESTSELLER (wielkość dowolna) powinno być +7 dni")
     void testCalculateDueDate_whenGenreIsBestseller() {
-        dummyBook.setGenre("BEStSELLER"); // sprawdzamy ignorowanie wielkości liter
+        dummyBook.setGenre(Genre.of("BEStSELLER")); // sprawdzamy ignorowanie wielkości liter
         LocalDate expected = baseDate.plusDays(7);
         LocalDate actual = academicLoanPolicy.calculateDueDate(baseDate, dummyBook, dummyUser);
 
@@ -49,7 +51,7 @@ class AcademicLoanPolicyTest {
     @Test
     @DisplayName("calculateDueDate: gdy gatunek nie jest BESTSELLER, powinno być +30 dni")
     void testCalculateDueDate_whenGenreIsNotBestseller() {
-        dummyBook.setGenre("Science"); // jakiś inny gatunek
+        dummyBook.setGenre(Genre.of("Science")); // jakiś inny gatunek
         LocalDate expected = baseDate.plusDays(30);
         LocalDate actual = academicLoanPolicy.calculateDueDate(baseDate, dummyBook, dummyUser);
 
@@ -1,6 +1,7 @@
 package com.example.librarysystem.service.policy;
 
 import com.example.librarysystem.entity.Book;
+import com.example.librarysystem.entity.Role;
 import com.example.librarysystem.entity.User;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -30,7 +31,7 @@ class StandardLoanPolicyTest {
         dummyUser = new User();
         dummyUser.setId(1L);
         dummyUser.setUsername("dummyUser");
-        dummyUser.setRole("ROLE_USER");
+        dummyUser.setRole(Role.USER);
 
         baseDate = LocalDate.of(2025, 6, 1); // dowolna data bazowa
     }
@@ -0,0 +1,68 @@
+package com.example.librarysystem.web;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimitFilterTest {
+
+    @Test
+    @DisplayName("Filtr - powinien zwrócić 503, gdy limit jest zajęty dłużej niż czas oczekiwania")
+    void testFilter_rejectsWhenLimitIsBusy() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, Duration.ofMillis(50));
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain blockingChain = (request, response) -> {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        Thread busy = Thread.ofVirtual().start(() -> {
+            try {
+                filter.doFilter(request(), new MockHttpServletResponse(), blockingChain);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(request(), rejected, new MockFilterChain());
+        assertEquals(503, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+
+        release.countDown();
+        busy.join();
+        assertEquals(1, filter.availablePermits());
+    }
+
+    @Test
+    @DisplayName("Filtr - powinien zwolnić miejsce także wtedy, gdy obsługa żądania rzuci wyjątek")
+    void testFilter_releasesPermitOnException() {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, Duration.ofMillis(50));
+        FilterChain failingChain = (request, response) -> {
+            throw new IllegalStateException("boom");
+        };
+
+        assertThrows(IllegalStateException.class,
+                () -> filter.doFilter(request(), new MockHttpServletResponse(), failingChain));
+        assertEquals(1, filter.availablePermits());
+    }
+
+    private static MockHttpServletRequest request() {
+        return new MockHttpServletRequest("GET", "/api/books");
+    }
+}